@@ -30,9 +30,7 @@ public class MainActivityInstrumentationTest {
     @Before
     public void setUp() {
         // Wait for the activity to be fully loaded
-        activityRule.getScenario().onActivity(activity -> {
-            // You could register idling resources here if needed
-        });
+        UiTestUtils.waitForUi(activityRule.getScenario());
     }
 
     @Test
@@ -54,8 +52,8 @@ public class MainActivityInstrumentationTest {
         onView(withId(R.id.brightnessLevelBar))
                 .check(matches(isDisplayed()));
 
-        // Check if spinner is displayed
-        onView(withId(R.id.colorSpinner))
+        // Check if preset list is displayed
+        onView(withId(R.id.colorPresetList))
                 .check(matches(isDisplayed()));
     }
 
@@ -100,14 +98,14 @@ public class MainActivityInstrumentationTest {
     }
 
     @Test
-    public void colorSpinner_shouldBeClickable() {
-        // Test that color spinner can be clicked
+    public void colorPresetList_shouldBeClickable() {
+        // Test that the color preset list can be clicked
 
-        onView(withId(R.id.colorSpinner))
+        onView(withId(R.id.colorPresetList))
                 .check(matches(isDisplayed()))
                 .perform(click());
 
-        // After clicking spinner, main UI should still be accessible
+        // After clicking the preset list, main UI should still be accessible
         onView(withId(R.id.startStopButton))
                 .check(matches(isDisplayed()));
     }
@@ -122,8 +120,8 @@ public class MainActivityInstrumentationTest {
         // 2. Click menu button
         onView(withId(R.id.bannerMenu)).perform(click());
 
-        // 3. Click color spinner
-        onView(withId(R.id.colorSpinner)).perform(click());
+        // 3. Click color preset list
+        onView(withId(R.id.colorPresetList)).perform(click());
 
         // 4. Click seekbars
         onView(withId(R.id.colorLevelBar)).perform(ViewActions.click());
@@ -0,0 +1,105 @@
+/*****************************************************************
+ * Copyright (C) 2025 Alan Quintero <https://github.com/alanquintero/>
+ *****************************************************************/
+package autonightmode.mx.com.alanquintero.autonightmode;
+
+import static androidx.test.espresso.Espresso.onView;
+import static androidx.test.espresso.assertion.ViewAssertions.matches;
+import static androidx.test.espresso.matcher.ViewMatchers.isDisplayed;
+import static androidx.test.espresso.matcher.ViewMatchers.withId;
+
+import static org.junit.Assert.assertTrue;
+
+import android.content.ComponentCallbacks2;
+import android.os.ParcelFileDescriptor;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.lifecycle.Lifecycle;
+import androidx.test.core.app.ActivityScenario;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import autonightmode.mx.com.alanquintero.autonightmode.ui.MainActivity;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.IOException;
+
+/**
+ * Measures the Java heap used by the app after each {@code onTrimMemory} level, the way the
+ * levels arrive when the user leaves {@code MainActivity} and the process goes to the background.
+ *
+ * <p>Results are logged with the {@code MemoryTrimHeapTest} tag.</p>
+ */
+@RunWith(AndroidJUnit4.class)
+public class MemoryTrimHeapTest {
+
+    private static final String TAG = MemoryTrimHeapTest.class.getSimpleName();
+
+    // Heap measurements are noisy, allow some slack between two levels
+    private static final long TOLERANCE_BYTES = 256 * 1024;
+
+    @Before
+    public void setUp() {
+        final String packageName = InstrumentationRegistry.getInstrumentation().getTargetContext().getPackageName();
+        runShellCommand("appops set " + packageName + " SYSTEM_ALERT_WINDOW allow");
+        runShellCommand("pm grant " + packageName + " android.permission.POST_NOTIFICATIONS");
+    }
+
+    @Test
+    public void trimLevels_releaseHeapAndUiIsRebuilt() {
+        try (ActivityScenario<MainActivity> scenario = ActivityScenario.launch(MainActivity.class)) {
+            UiTestUtils.waitForUi(scenario);
+            final long baseline = measureHeap("baseline");
+
+            scenario.onActivity(activity -> activity.onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW));
+            final long runningLow = measureHeap("TRIM_MEMORY_RUNNING_LOW");
+
+            // The user leaves the app
+            scenario.moveToState(Lifecycle.State.CREATED);
+            scenario.onActivity(activity -> activity.onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN));
+            final long uiHidden = measureHeap("TRIM_MEMORY_UI_HIDDEN");
+
+            scenario.onActivity(activity -> activity.onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_BACKGROUND));
+            final long background = measureHeap("TRIM_MEMORY_BACKGROUND");
+
+            scenario.onActivity(activity -> activity.onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_COMPLETE));
+            final long complete = measureHeap("TRIM_MEMORY_COMPLETE");
+
+            assertTrue("RUNNING_LOW: " + runningLow + " > " + baseline, runningLow <= baseline + TOLERANCE_BYTES);
+            assertTrue("UI_HIDDEN: " + uiHidden + " > " + runningLow, uiHidden <= runningLow + TOLERANCE_BYTES);
+            assertTrue("BACKGROUND: " + background + " > " + uiHidden, background <= uiHidden + TOLERANCE_BYTES);
+            assertTrue("COMPLETE: " + complete + " > " + baseline, complete <= baseline);
+
+            // The user comes back, the UI is built again
+            scenario.moveToState(Lifecycle.State.RESUMED);
+            UiTestUtils.waitForUi(scenario);
+            onView(withId(R.id.startStopButton)).check(matches(isDisplayed()));
+        }
+    }
+
+    private static long measureHeap(final @NonNull String name) {
+        InstrumentationRegistry.getInstrumentation().waitForIdleSync();
+        final Runtime runtime = Runtime.getRuntime();
+        // Several passes, finalizers may release more objects
+        for (int i = 0; i < 3; i++) {
+            runtime.gc();
+            System.runFinalization();
+        }
+        final long used = runtime.totalMemory() - runtime.freeMemory();
+        Log.i(TAG, name + ": " + (used / 1024) + " KB used");
+        return used;
+    }
+
+    private static void runShellCommand(final @NonNull String command) {
+        final ParcelFileDescriptor pfd = InstrumentationRegistry.getInstrumentation().getUiAutomation().executeShellCommand(command);
+        try {
+            pfd.close();
+        } catch (IOException e) {
+            Log.w(TAG, "Failed to run: " + command, e);
+        }
+    }
+}
@@ -0,0 +1,80 @@
+/*****************************************************************
+ * Copyright (C) 2025 Alan Quintero <https://github.com/alanquintero/>
+ *****************************************************************/
+package autonightmode.mx.com.alanquintero.autonightmode;
+
+import static org.junit.Assert.assertTrue;
+
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import autonightmode.mx.com.alanquintero.autonightmode.model.Schedule;
+import autonightmode.mx.com.alanquintero.autonightmode.schedule.ScheduleCalculator;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Calendar;
+import java.util.TimeZone;
+
+/**
+ * Counts the alarms the schedule needs per day over a whole year, in the time zone of the device,
+ * for fixed times and for sunset to sunrise at several latitudes (including the polar circle, where
+ * the schedule falls back to the fixed times).
+ *
+ * <p>Every day has one ON and one OFF transition, so the year needs two alarms per day. A single
+ * calendar day can see three when the sunset moves across midnight in the device time zone, the
+ * next day then has one.</p>
+ *
+ * <p>Results are logged with the {@code ScheduleWakeupTest} tag. The alarms actually delivered on a
+ * device are logged with the {@code ReadModeScheduler} tag.</p>
+ */
+@RunWith(AndroidJUnit4.class)
+public class ScheduleWakeupTest {
+
+    private static final String TAG = ScheduleWakeupTest.class.getSimpleName();
+
+    private static final int WAKEUPS_PER_DAY = 2;
+    private static final int MAX_WAKEUPS_PER_DAY = 3;
+    private static final int RAMP_MINUTES = 30;
+
+    @Test
+    public void fixedTimes_twoWakeupsPerDay() {
+        measure("times", new Schedule(Schedule.Mode.TIMES, 21 * 60, 7 * 60, RAMP_MINUTES, Double.NaN, Double.NaN));
+    }
+
+    @Test
+    public void sunsetToSunrise_twoWakeupsPerDay() {
+        measure("sun, equator", new Schedule(Schedule.Mode.SUN, 21 * 60, 7 * 60, RAMP_MINUTES, 0.0, 0.0));
+        measure("sun, Mexico City", new Schedule(Schedule.Mode.SUN, 21 * 60, 7 * 60, RAMP_MINUTES, 19.43, -99.13));
+        measure("sun, London", new Schedule(Schedule.Mode.SUN, 21 * 60, 7 * 60, RAMP_MINUTES, 51.48, 0.0));
+        measure("sun, Tromso", new Schedule(Schedule.Mode.SUN, 21 * 60, 7 * 60, RAMP_MINUTES, 69.65, 18.96));
+    }
+
+    private static void measure(final @NonNull String name, final @NonNull Schedule schedule) {
+        final TimeZone timeZone = TimeZone.getDefault();
+        final Calendar day = Calendar.getInstance(timeZone);
+        day.set(Calendar.DAY_OF_YEAR, 1);
+        day.set(Calendar.HOUR_OF_DAY, 0);
+        day.set(Calendar.MINUTE, 0);
+        day.set(Calendar.SECOND, 0);
+        day.set(Calendar.MILLISECOND, 0);
+        final int days = day.getActualMaximum(Calendar.DAY_OF_YEAR);
+
+        int total = 0;
+        int max = 0;
+        for (int i = 0; i < days; i++) {
+            final long from = day.getTimeInMillis();
+            day.add(Calendar.DAY_OF_MONTH, 1);
+            final int wakeups = ScheduleCalculator.getTransitions(schedule, from, day.getTimeInMillis(), timeZone).size();
+            total += wakeups;
+            max = Math.max(max, wakeups);
+        }
+        Log.i(TAG, name + ": " + total + " wakeups in " + days + " days, at most " + max + " per day");
+        // A transition of the last day may fall on the next year
+        assertTrue(name + ": " + total + " wakeups in " + days + " days", total <= WAKEUPS_PER_DAY * days + 1);
+        assertTrue(name + ": " + max + " wakeups in a day", max <= MAX_WAKEUPS_PER_DAY);
+    }
+}
@@ -14,6 +14,7 @@ import androidx.test.rule.ActivityTestRule;
 
 import autonightmode.mx.com.alanquintero.autonightmode.ui.MainActivity;
 
+import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -29,6 +30,11 @@ public class SmokeTest {
     public ActivityTestRule<MainActivity> activityRule =
             new ActivityTestRule<>(MainActivity.class);
 
+    @Before
+    public void setUp() {
+        UiTestUtils.waitForUi(activityRule.getActivity());
+    }
+
     @Test
     public void appLaunchesSuccessfully() {
         // This is the most basic test - if this fails, something is fundamentally wrong
@@ -47,7 +53,7 @@ public class SmokeTest {
 
         onView(withId(R.id.startStopButton)).check(matches(isDisplayed()));
         onView(withId(R.id.bannerMenu)).check(matches(isDisplayed()));
-        onView(withId(R.id.colorSpinner)).check(matches(isDisplayed()));
+        onView(withId(R.id.colorPresetList)).check(matches(isDisplayed()));
         onView(withId(R.id.colorLevelBar)).check(matches(isDisplayed()));
         onView(withId(R.id.brightnessLevelBar)).check(matches(isDisplayed()));
     }
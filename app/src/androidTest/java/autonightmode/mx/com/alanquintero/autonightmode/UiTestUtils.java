@@ -0,0 +1,47 @@
+/*****************************************************************
+ * Copyright (C) 2025 Alan Quintero <https://github.com/alanquintero/>
+ *****************************************************************/
+package autonightmode.mx.com.alanquintero.autonightmode;
+
+import android.os.SystemClock;
+
+import androidx.annotation.NonNull;
+import androidx.test.core.app.ActivityScenario;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import autonightmode.mx.com.alanquintero.autonightmode.ui.MainActivity;
+
+/**
+ * Helpers for the instrumented tests of {@link MainActivity}.
+ */
+final class UiTestUtils {
+
+    private static final long UI_TIMEOUT_MS = 5000;
+    private static final long POLL_INTERVAL_MS = 10;
+
+    private UiTestUtils() {
+    }
+
+    /**
+     * Waits until the UI of the activity is built. The layout is inflated in the background,
+     * Espresso only waits for the main thread.
+     */
+    static void waitForUi(final @NonNull ActivityScenario<MainActivity> scenario) {
+        final MainActivity[] activity = new MainActivity[1];
+        scenario.onActivity(resumed -> activity[0] = resumed);
+        waitForUi(activity[0]);
+    }
+
+    static void waitForUi(final @NonNull MainActivity activity) {
+        final long deadline = SystemClock.uptimeMillis() + UI_TIMEOUT_MS;
+        final boolean[] isReady = new boolean[1];
+        while (SystemClock.uptimeMillis() < deadline) {
+            InstrumentationRegistry.getInstrumentation().runOnMainSync(() -> isReady[0] = activity.isUiReady());
+            if (isReady[0]) {
+                return;
+            }
+            SystemClock.sleep(POLL_INTERVAL_MS);
+        }
+        throw new AssertionError("UI was not built after " + UI_TIMEOUT_MS + " ms");
+    }
+}
@@ -0,0 +1,213 @@
+/*****************************************************************
+ * Copyright (C) 2025 Alan Quintero <https://github.com/alanquintero/>
+ *****************************************************************/
+package autonightmode.mx.com.alanquintero.autonightmode.service;
+
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import android.app.Instrumentation;
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.PixelFormat;
+import android.os.Build;
+import android.os.ParcelFileDescriptor;
+import android.os.SystemClock;
+import android.provider.Settings;
+import android.util.Log;
+import android.view.Display;
+import android.view.View;
+import android.view.WindowManager;
+
+import androidx.annotation.NonNull;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.BufferedReader;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+
+/**
+ * Compares the overlay window configuration of {@link OverlayManager} with the previous one
+ * (a plain {@link PixelFormat#TRANSLUCENT} window that stays composited while in standby).
+ *
+ * <p>For each configuration a full-screen overlay is shown for a few seconds while the refresh
+ * rate of the display and the frames rendered by the app are sampled. Results are logged with
+ * the {@code OverlayCompositionBenchmark} tag, run it on a device with a high refresh rate panel
+ * to compare the refresh rate, and check {@code adb shell dumpsys SurfaceFlinger} while it runs
+ * to compare the composition type of the overlay layer.</p>
+ */
+@RunWith(AndroidJUnit4.class)
+public class OverlayCompositionBenchmark {
+
+    private static final String TAG = OverlayCompositionBenchmark.class.getSimpleName();
+
+    private static final long WARM_UP_MS = 1000;
+    private static final long SAMPLE_DURATION_MS = 5000;
+    private static final long SAMPLE_INTERVAL_MS = 100;
+
+    private Instrumentation instrumentation;
+    private Context context;
+    private WindowManager windowManager;
+    private Display display;
+
+    @Before
+    public void setUp() {
+        assumeTrue("TYPE_APPLICATION_OVERLAY requires Android 8+", Build.VERSION.SDK_INT >= Build.VERSION_CODES.O);
+        instrumentation = InstrumentationRegistry.getInstrumentation();
+        context = instrumentation.getTargetContext();
+        runShellCommand("appops set " + context.getPackageName() + " SYSTEM_ALERT_WINDOW allow");
+        assumeTrue("Overlay permission not granted", Settings.canDrawOverlays(context));
+        windowManager = (WindowManager) context.getSystemService(Context.WINDOW_SERVICE);
+        display = windowManager.getDefaultDisplay();
+    }
+
+    @After
+    public void tearDown() {
+        if (context != null) {
+            runShellCommand("appops set " + context.getPackageName() + " SYSTEM_ALERT_WINDOW default");
+        }
+    }
+
+    @Test
+    public void readModeOn_frameRateNeutralWindow_doesNotRaiseRefreshRate() {
+        final WindowManager.LayoutParams legacyParams = createLegacyLayoutParams();
+        final WindowManager.LayoutParams currentParams = OverlayManager.createLayoutParams();
+        currentParams.alpha = OverlayManager.WINDOW_ALPHA_VISIBLE;
+
+        final Result legacy = measure("TRANSLUCENT (previous)", legacyParams, View.VISIBLE);
+        final Result current = measure("frame rate neutral", currentParams, View.VISIBLE);
+
+        // The overlay alone must never keep the panel at a higher rate than the previous window did
+        assertTrue("Refresh rate raised: " + current + " vs " + legacy,
+                current.averageRefreshRate <= legacy.averageRefreshRate + 0.5f);
+    }
+
+    @Test
+    public void standby_windowWithZeroAlpha_rendersNoFrames() {
+        final WindowManager.LayoutParams legacyParams = createLegacyLayoutParams();
+        final WindowManager.LayoutParams currentParams = OverlayManager.createLayoutParams();
+
+        final Result legacy = measure("TRANSLUCENT standby (previous)", legacyParams, View.INVISIBLE);
+        final Result current = measure("alpha 0 standby", currentParams, View.INVISIBLE);
+
+        assertTrue("Frames rendered in standby: " + current + " vs " + legacy,
+                current.framesRendered <= legacy.framesRendered);
+    }
+
+    /**
+     * Shows an overlay with the given params and samples the display while it is attached.
+     */
+    private @NonNull Result measure(final @NonNull String name, final @NonNull WindowManager.LayoutParams params,
+                                    final int visibility) {
+        final View[] overlay = new View[1];
+        instrumentation.runOnMainSync(() -> {
+            overlay[0] = new FilterView(context);
+            overlay[0].setVisibility(visibility);
+            windowManager.addView(overlay[0], params);
+        });
+        SystemClock.sleep(WARM_UP_MS);
+        runShellCommand("dumpsys gfxinfo " + context.getPackageName() + " reset");
+
+        float refreshRateSum = 0;
+        float maxRefreshRate = 0;
+        int samples = 0;
+        final long end = SystemClock.uptimeMillis() + SAMPLE_DURATION_MS;
+        while (SystemClock.uptimeMillis() < end) {
+            final float refreshRate = display.getRefreshRate();
+            refreshRateSum += refreshRate;
+            maxRefreshRate = Math.max(maxRefreshRate, refreshRate);
+            samples++;
+            SystemClock.sleep(SAMPLE_INTERVAL_MS);
+        }
+        final int framesRendered = parseFramesRendered(runShellCommand("dumpsys gfxinfo " + context.getPackageName()));
+
+        instrumentation.runOnMainSync(() -> windowManager.removeViewImmediate(overlay[0]));
+
+        final Result result = new Result(refreshRateSum / samples, maxRefreshRate, framesRendered);
+        Log.i(TAG, name + ": " + result);
+        return result;
+    }
+
+    private static @NonNull WindowManager.LayoutParams createLegacyLayoutParams() {
+        return new WindowManager.LayoutParams(
+                WindowManager.LayoutParams.MATCH_PARENT,
+                WindowManager.LayoutParams.MATCH_PARENT,
+                WindowManager.LayoutParams.TYPE_APPLICATION_OVERLAY,
+                WindowManager.LayoutParams.FLAG_NOT_FOCUSABLE |
+                        WindowManager.LayoutParams.FLAG_NOT_TOUCHABLE |
+                        WindowManager.LayoutParams.FLAG_LAYOUT_IN_SCREEN,
+                PixelFormat.TRANSLUCENT);
+    }
+
+    private static int parseFramesRendered(final @NonNull String gfxinfo) {
+        for (final String line : gfxinfo.split("\n")) {
+            final String trimmed = line.trim();
+            if (trimmed.startsWith("Total frames rendered:")) {
+                return Integer.parseInt(trimmed.substring("Total frames rendered:".length()).trim());
+            }
+        }
+        return 0;
+    }
+
+    private @NonNull String runShellCommand(final @NonNull String command) {
+        final StringBuilder output = new StringBuilder();
+        final ParcelFileDescriptor pfd = InstrumentationRegistry.getInstrumentation().getUiAutomation().executeShellCommand(command);
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(pfd.getFileDescriptor())))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                output.append(line).append('\n');
+            }
+        } catch (IOException e) {
+            Log.w(TAG, "Failed to run: " + command, e);
+        } finally {
+            try {
+                pfd.close();
+            } catch (IOException ignored) {
+                // Nothing to do
+            }
+        }
+        return output.toString();
+    }
+
+    /**
+     * Draws the same two fills as the Read Mode overlay.
+     */
+    private static class FilterView extends View {
+
+        FilterView(final @NonNull Context context) {
+            super(context);
+        }
+
+        @Override
+        protected void onDraw(final @NonNull Canvas canvas) {
+            canvas.drawARGB(120, 0, 0, 0);
+            canvas.drawARGB(120, 255, 241, 68);
+        }
+    }
+
+    private static final class Result {
+        final float averageRefreshRate;
+        final float maxRefreshRate;
+        final int framesRendered;
+
+        Result(final float averageRefreshRate, final float maxRefreshRate, final int framesRendered) {
+            this.averageRefreshRate = averageRefreshRate;
+            this.maxRefreshRate = maxRefreshRate;
+            this.framesRendered = framesRendered;
+        }
+
+        @NonNull
+        @Override
+        public String toString() {
+            return "avg refresh rate=" + averageRefreshRate + " Hz, max=" + maxRefreshRate
+                    + " Hz, frames rendered=" + framesRendered;
+        }
+    }
+}
@@ -0,0 +1,110 @@
+/*****************************************************************
+ * Copyright (C) 2025 Alan Quintero <https://github.com/alanquintero/>
+ *****************************************************************/
+package autonightmode.mx.com.alanquintero.autonightmode.automation;
+
+import android.net.Uri;
+
+/**
+ * AutomationContract defines the public surface used by external tooling (e.g. kiosk
+ * management scripts) to control Read Mode without going through the UI.
+ *
+ * <p>Settings can be changed in two ways, both protected by {@link #PERMISSION}:
+ * <ul>
+ *     <li>A broadcast with action {@link #ACTION_APPLY} and any of the {@code KEY_*} extras</li>
+ *     <li>An update on {@link #SETTINGS_URI} with any of the {@code KEY_*} columns. A query on
+ *     the same uri returns a single row with the current values.</li>
+ * </ul>
+ * Several keys can be sent at once and they are applied as a single batch. Keys that are
+ * missing or already hold the requested value are ignored.</p>
+ *
+ * <p>{@link #PERMISSION} is a signature permission, also granted to privileged system apps: only
+ * tooling signed with the same certificate or installed in the system image can control Read Mode.
+ * The adb shell does not hold it, the commands below run as root, e.g. on an emulator or a
+ * userdebug build after {@code adb root}.</p>
+ *
+ * <p>Example:
+ * {@code adb shell am broadcast -a autonightmode.mx.com.alanquintero.autonightmode.automation.APPLY
+ * -p autonightmode.mx.com.alanquintero.autonightmode --ez read_mode_on true --es color PINK --ei brightness 40}</p>
+ *
+ * <p>The {@code KEY_SCHEDULE*} keys set the schedule, e.g. ON from sunset to sunrise with a 15 minutes ramp:
+ * {@code --es schedule SUN --es schedule_location "19.43,-99.13" --ei schedule_ramp 15}</p>
+ *
+ * <p>{@link #KEY_AMBIENT_LIGHT} makes the overlay lighter in a bright room and stronger in the dark,
+ * from the ambient light sensor: {@code --ez ambient_light true}</p>
+ *
+ * <p>{@link #KEY_APP_PROFILES} replaces the per-app profiles, e.g. no filter in the camera and a
+ * stronger filter in a reader: {@code --es app_profiles "com.android.camera=OFF;com.example.reader=80,20"}.
+ * An empty value removes them.</p>
+ *
+ * <p>{@link #KEY_REGION} tints only a part of the screen, e.g. a reading band from 40% to 60% of the
+ * height: {@code --es region BAND --ei region_top 40 --ei region_height 20}. MASK tints the screen
+ * above and below the band instead. A new top or height moves the band without drawing it again.</p>
+ *
+ * <p>{@link #KEY_TRANSITION_DURATION} sets how long the overlay takes to fade in and out, 0 shows and
+ * hides it at once: {@code --ei transition_duration 500}</p>
+ *
+ * <p>{@link #KEY_HYBRID_DIMMING} lowers the system brightness instead of drawing a dark overlay, which
+ * saves power. The user has to let the app modify the system settings first, until then the overlay
+ * dims the screen as before: {@code --ez hybrid_dimming true}</p>
+ *
+ * @author Alan Quintero
+ */
+public final class AutomationContract {
+
+    private AutomationContract() {
+    }
+
+    public static final String PERMISSION = "autonightmode.mx.com.alanquintero.autonightmode.permission.CONTROL_READ_MODE";
+
+    public static final String ACTION_APPLY = "autonightmode.mx.com.alanquintero.autonightmode.automation.APPLY";
+
+    public static final String AUTHORITY = "autonightmode.mx.com.alanquintero.autonightmode.automation";
+    public static final String PATH_SETTINGS = "settings";
+    public static final Uri SETTINGS_URI = Uri.parse("content://" + AUTHORITY + "/" + PATH_SETTINGS);
+
+    // ---------- Keys (extras and columns) ----------
+    /** boolean, starts or stops Read Mode */
+    public static final String KEY_READ_MODE_ON = "read_mode_on";
+    /**
+     * String, one of YELLOW, PINK, GREEN, GRAY, WHITE, CUSTOM_COLOR or TEMPERATURE. Queries return #RRGGBB for a user
+     * preset. When each color has its own values, the color intensity and brightness of the preset are applied too,
+     * unless they are set in the same request
+     */
+    public static final String KEY_COLOR = "color";
+    /** String, hex color (#RRGGBB) used when the color is CUSTOM_COLOR */
+    public static final String KEY_CUSTOM_COLOR = "custom_color";
+    /** int, 0 to 100 */
+    public static final String KEY_COLOR_INTENSITY = "color_intensity";
+    /** int, 0 to 100 */
+    public static final String KEY_BRIGHTNESS = "brightness";
+    /** String, one of OFF, TIMES (from schedule_start to schedule_end) or SUN (from sunset to sunrise) */
+    public static final String KEY_SCHEDULE = "schedule";
+    /** String, HH:mm, time at which the schedule turns Read Mode ON */
+    public static final String KEY_SCHEDULE_START = "schedule_start";
+    /** String, HH:mm, time at which the schedule turns Read Mode OFF */
+    public static final String KEY_SCHEDULE_END = "schedule_end";
+    /** int, 0 to 120, minutes the overlay takes to fade in and out */
+    public static final String KEY_SCHEDULE_RAMP = "schedule_ramp";
+    /** String, "latitude,longitude" in degrees, used to compute sunset and sunrise */
+    public static final String KEY_SCHEDULE_LOCATION = "schedule_location";
+    /** boolean, adapts the overlay to the ambient light */
+    public static final String KEY_AMBIENT_LIGHT = "ambient_light";
+    /** String, package=OFF or package=intensity,brightness entries separated by ; */
+    public static final String KEY_APP_PROFILES = "app_profiles";
+    /** String, one of FULL (the whole screen), BAND (the reading band) or MASK (the screen around the band) */
+    public static final String KEY_REGION = "region";
+    /** int, 0 to 100, top of the reading band in percent of the screen height */
+    public static final String KEY_REGION_TOP = "region_top";
+    /** int, 0 to 100, height of the reading band in percent of the screen height */
+    public static final String KEY_REGION_HEIGHT = "region_height";
+    /** int, 0 to 2000, ms the overlay takes to fade in and out */
+    public static final String KEY_TRANSITION_DURATION = "transition_duration";
+    /** boolean, moves the dimming into the system brightness */
+    public static final String KEY_HYBRID_DIMMING = "hybrid_dimming";
+
+    public static final String[] COLUMNS = {KEY_READ_MODE_ON, KEY_COLOR, KEY_CUSTOM_COLOR, KEY_COLOR_INTENSITY, KEY_BRIGHTNESS,
+            KEY_SCHEDULE, KEY_SCHEDULE_START, KEY_SCHEDULE_END, KEY_SCHEDULE_RAMP, KEY_SCHEDULE_LOCATION,
+            KEY_AMBIENT_LIGHT, KEY_APP_PROFILES, KEY_REGION, KEY_REGION_TOP, KEY_REGION_HEIGHT,
+            KEY_TRANSITION_DURATION, KEY_HYBRID_DIMMING};
+}
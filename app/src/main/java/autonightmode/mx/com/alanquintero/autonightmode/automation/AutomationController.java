@@ -0,0 +1,211 @@
+/*****************************************************************
+ * Copyright (C) 2025 Alan Quintero <https://github.com/alanquintero/>
+ *****************************************************************/
+package autonightmode.mx.com.alanquintero.autonightmode.automation;
+
+import android.content.Context;
+import android.os.Build;
+import android.provider.Settings;
+import android.util.Log;
+
+import androidx.annotation.MainThread;
+import androidx.annotation.NonNull;
+
+import autonightmode.mx.com.alanquintero.autonightmode.manager.ReadModeManager;
+import autonightmode.mx.com.alanquintero.autonightmode.model.ColorPreset;
+import autonightmode.mx.com.alanquintero.autonightmode.model.OverlaySnapshot;
+import autonightmode.mx.com.alanquintero.autonightmode.model.ReadModeSettings;
+import autonightmode.mx.com.alanquintero.autonightmode.schedule.ReadModeScheduler;
+import autonightmode.mx.com.alanquintero.autonightmode.service.OverlayClient;
+import autonightmode.mx.com.alanquintero.autonightmode.util.Constants;
+import autonightmode.mx.com.alanquintero.autonightmode.util.PrefsHelper;
+
+/**
+ * AutomationController applies an {@link AutomationRequest} to the settings store and the overlay.
+ * It is shared by {@link AutomationReceiver} and {@link ReadModeProvider}.
+ *
+ * <p>Only the values that differ from the current settings are written, all of them in a single
+ * batch through the {@link PrefsHelper} fast path. If nothing changed, nothing is written and
+ * the overlay is not touched. The new settings are sent to the overlay through {@link OverlayClient}:
+ * the overlay is updated in place when the service is alive, otherwise the service is started
+ * when Read Mode is turned ON. {@code MainActivity} is never started.</p>
+ *
+ * <p>A change of the schedule is handed to {@link ReadModeScheduler}, which sets the alarm of the
+ * next transition and applies the current one if it was not applied yet.</p>
+ *
+ * @author Alan Quintero
+ */
+public class AutomationController {
+
+    private static final String TAG = AutomationController.class.getSimpleName();
+
+    private final @NonNull Context context;
+    private final @NonNull PrefsHelper prefsHelper;
+
+    public AutomationController(final @NonNull Context context, final @NonNull PrefsHelper prefsHelper) {
+        this.context = context;
+        this.prefsHelper = prefsHelper;
+    }
+
+    /**
+     * Applies the request.
+     *
+     * @return the number of settings that actually changed, 0 for a no-op
+     */
+    @MainThread
+    public int apply(final @NonNull AutomationRequest request) {
+        if (request.isEmpty()) {
+            Log.w(TAG, "Empty automation request, nothing to apply");
+            return 0;
+        }
+        final boolean wasReadModeOn = prefsHelper.isReadModeOn();
+        int changes = 0;
+
+        final Boolean isReadModeOn = request.isReadModeOn();
+        if (isReadModeOn != null && isReadModeOn != wasReadModeOn) {
+            prefsHelper.stageProperty(Constants.PREF_IS_READ_MODE_ON, isReadModeOn);
+            changes++;
+        }
+        Integer colorIntensity = request.getColorIntensity();
+        Integer brightness = request.getBrightness();
+        final Integer colorDropdownPosition = request.getColorDropdownPosition();
+        if (colorDropdownPosition != null && colorDropdownPosition != prefsHelper.getColorDropdownPosition()) {
+            final ColorPreset preset = prefsHelper.getPreset(colorDropdownPosition);
+            if (preset != null) {
+                prefsHelper.stageProperty(Constants.PREF_COLOR_DROPDOWN, colorDropdownPosition);
+                prefsHelper.stageProperty(Constants.PREF_COLOR, preset.getScreenColor());
+                changes++;
+                // When each color has its own values, the values of the preset are applied as in the
+                // dropdown, unless the request sets them
+                if (!prefsHelper.shouldUseSameIntensityBrightnessForAll()) {
+                    colorIntensity = colorIntensity != null ? colorIntensity : preset.getColorIntensity();
+                    brightness = brightness != null ? brightness : preset.getBrightness();
+                }
+            }
+        }
+        final String customColor = request.getCustomColor();
+        if (customColor != null && !customColor.equalsIgnoreCase(prefsHelper.getCustomColor())) {
+            prefsHelper.stageProperty(Constants.PREF_CUSTOM_COLOR, customColor);
+            changes++;
+        }
+        final boolean isColorIntensityChanged = colorIntensity != null && colorIntensity != prefsHelper.getColorIntensity();
+        if (isColorIntensityChanged) {
+            prefsHelper.stageProperty(Constants.PREF_COLOR_INTENSITY, colorIntensity);
+            changes++;
+        }
+        final boolean isBrightnessChanged = brightness != null && brightness != prefsHelper.getBrightness();
+        if (isBrightnessChanged) {
+            prefsHelper.stageProperty(Constants.PREF_BRIGHTNESS, brightness);
+            changes++;
+        }
+        final Boolean isAmbientLightOn = request.isAmbientLightOn();
+        if (isAmbientLightOn != null && isAmbientLightOn != prefsHelper.isAmbientLightOn()) {
+            prefsHelper.stageProperty(Constants.PREF_AMBIENT_LIGHT, isAmbientLightOn);
+            changes++;
+        }
+        final String appProfiles = request.getAppProfiles();
+        if (appProfiles != null && !appProfiles.equals(prefsHelper.getAppProfiles())) {
+            prefsHelper.stageProperty(Constants.PREF_APP_PROFILES, appProfiles);
+            changes++;
+        }
+        final String region = request.getRegion();
+        if (region != null && !region.equals(prefsHelper.getRegion())) {
+            prefsHelper.stageProperty(Constants.PREF_REGION, region);
+            changes++;
+        }
+        final Integer regionTop = request.getRegionTop();
+        if (regionTop != null && regionTop != prefsHelper.getRegionTop()) {
+            prefsHelper.stageProperty(Constants.PREF_REGION_TOP, regionTop);
+            changes++;
+        }
+        final Integer regionHeight = request.getRegionHeight();
+        if (regionHeight != null && regionHeight != prefsHelper.getRegionHeight()) {
+            prefsHelper.stageProperty(Constants.PREF_REGION_HEIGHT, regionHeight);
+            changes++;
+        }
+        final Integer transitionDuration = request.getTransitionDuration();
+        if (transitionDuration != null && transitionDuration != prefsHelper.getTransitionDuration()) {
+            prefsHelper.stageProperty(Constants.PREF_TRANSITION_DURATION, transitionDuration);
+            changes++;
+        }
+        final Boolean isHybridDimmingOn = request.isHybridDimmingOn();
+        if (isHybridDimmingOn != null && isHybridDimmingOn != prefsHelper.isHybridDimmingOn()) {
+            prefsHelper.stageProperty(Constants.PREF_HYBRID_DIMMING, isHybridDimmingOn);
+            changes++;
+        }
+
+        final int scheduleChanges = stageSchedule(request);
+        changes += scheduleChanges;
+
+        if (changes == 0) {
+            Log.d(TAG, "Automation request is a no-op");
+            return 0;
+        }
+        Log.i(TAG, "Applying " + changes + " changed settings from automation");
+
+        // Keep the in-memory settings (shared with the UI) in sync with the staged values
+        final ReadModeSettings readModeSettings = ReadModeSettings.init();
+        prefsHelper.loadReadModeSettings(readModeSettings);
+        if ((isColorIntensityChanged || isBrightnessChanged) && !readModeSettings.shouldUseSameIntensityBrightnessForAll()) {
+            prefsHelper.tryToSavePresetSettings(readModeSettings);
+        }
+        prefsHelper.flushPendingProperties();
+
+        if (changes > scheduleChanges) {
+            final boolean isReadModeChanged = isReadModeOn != null && isReadModeOn != wasReadModeOn;
+            applyToOverlay(wasReadModeOn, isReadModeOn != null ? isReadModeOn : wasReadModeOn);
+            ReadModeManager.notifySettingsChanged(context, isReadModeChanged && changes - scheduleChanges == 1);
+        }
+        if (scheduleChanges > 0) {
+            ReadModeScheduler.update(context, prefsHelper);
+        }
+        return changes;
+    }
+
+    /**
+     * Stages the schedule values that differ from the current ones.
+     *
+     * @return the number of schedule values that changed
+     */
+    private int stageSchedule(final @NonNull AutomationRequest request) {
+        int changes = 0;
+        final String schedule = request.getSchedule();
+        if (schedule != null && !schedule.equals(prefsHelper.getSchedule())) {
+            prefsHelper.stageProperty(Constants.PREF_SCHEDULE, schedule);
+            changes++;
+        }
+        final Integer scheduleStart = request.getScheduleStart();
+        if (scheduleStart != null && scheduleStart != prefsHelper.getScheduleStart()) {
+            prefsHelper.stageProperty(Constants.PREF_SCHEDULE_START, scheduleStart);
+            changes++;
+        }
+        final Integer scheduleEnd = request.getScheduleEnd();
+        if (scheduleEnd != null && scheduleEnd != prefsHelper.getScheduleEnd()) {
+            prefsHelper.stageProperty(Constants.PREF_SCHEDULE_END, scheduleEnd);
+            changes++;
+        }
+        final Integer scheduleRamp = request.getScheduleRamp();
+        if (scheduleRamp != null && scheduleRamp != prefsHelper.getScheduleRamp()) {
+            prefsHelper.stageProperty(Constants.PREF_SCHEDULE_RAMP, scheduleRamp);
+            changes++;
+        }
+        final String scheduleLocation = request.getScheduleLocation();
+        if (scheduleLocation != null && !scheduleLocation.equals(prefsHelper.getScheduleLocation())) {
+            prefsHelper.stageProperty(Constants.PREF_SCHEDULE_LOCATION, scheduleLocation);
+            changes++;
+        }
+        return changes;
+    }
+
+    private void applyToOverlay(final boolean wasReadModeOn, final boolean isReadModeOn) {
+        if (wasReadModeOn != isReadModeOn) {
+            ReadModeManager.requestTileUpdate(context);
+        }
+        if (isReadModeOn && Build.VERSION.SDK_INT >= Build.VERSION_CODES.M && !Settings.canDrawOverlays(context)) {
+            Log.w(TAG, "No overlay permission granted, Read Mode saved but not started");
+            return;
+        }
+        // Redraws in place, puts the overlay in standby when Read Mode was turned OFF, or starts it
+        OverlayClient.apply(context, OverlaySnapshot.from(prefsHelper).withReadModeOn(isReadModeOn));
+    }
+}
@@ -0,0 +1,45 @@
+/*****************************************************************
+ * Copyright (C) 2025 Alan Quintero <https://github.com/alanquintero/>
+ *****************************************************************/
+package autonightmode.mx.com.alanquintero.autonightmode.automation;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.VisibleForTesting;
+
+import autonightmode.mx.com.alanquintero.autonightmode.util.PrefsHelper;
+
+/**
+ * AutomationReceiver applies the settings carried by an {@link AutomationContract#ACTION_APPLY}
+ * broadcast. Senders must hold {@link AutomationContract#PERMISSION}.
+ *
+ * <p>For ordered broadcasts the result code is the number of settings that changed.</p>
+ *
+ * @author Alan Quintero
+ */
+public class AutomationReceiver extends BroadcastReceiver {
+
+    private static final String TAG = AutomationReceiver.class.getSimpleName();
+
+    @VisibleForTesting
+    AutomationController automationController;
+
+    @Override
+    public void onReceive(final @NonNull Context context, final @NonNull Intent intent) {
+        if (!AutomationContract.ACTION_APPLY.equals(intent.getAction())) {
+            Log.w(TAG, "Ignoring unexpected action: " + intent.getAction());
+            return;
+        }
+        if (automationController == null) {
+            automationController = new AutomationController(context.getApplicationContext(), PrefsHelper.init(context.getApplicationContext()));
+        }
+        final int changes = automationController.apply(AutomationRequest.fromExtras(intent.getExtras()));
+        if (isOrderedBroadcast()) {
+            setResultCode(changes);
+        }
+    }
+}
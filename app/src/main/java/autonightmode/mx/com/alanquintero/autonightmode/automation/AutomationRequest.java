@@ -0,0 +1,288 @@
+/*****************************************************************
+ * Copyright (C) 2025 Alan Quintero <https://github.com/alanquintero/>
+ *****************************************************************/
+package autonightmode.mx.com.alanquintero.autonightmode.automation;
+
+import android.content.ContentValues;
+import android.os.Bundle;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import autonightmode.mx.com.alanquintero.autonightmode.model.AppProfiles;
+import autonightmode.mx.com.alanquintero.autonightmode.model.OverlayRegion;
+import autonightmode.mx.com.alanquintero.autonightmode.model.Schedule;
+import autonightmode.mx.com.alanquintero.autonightmode.util.PresetStore;
+
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * AutomationRequest holds a batch of settings sent through the automation API.
+ * Every field is optional, a null field means the setting is not part of the batch.
+ * Invalid values are dropped (and logged) while parsing, so the rest of the batch is still applied.
+ *
+ * @author Alan Quintero
+ */
+public class AutomationRequest {
+
+    private static final String TAG = AutomationRequest.class.getSimpleName();
+
+    private static final Pattern HEX_COLOR = Pattern.compile("^#[0-9A-Fa-f]{6}$");
+    private static final int MIN_LEVEL = 0;
+    private static final int MAX_LEVEL = 100;
+    private static final Pattern TIME = Pattern.compile("^([01]?\\d|2[0-3]):([0-5]\\d)$");
+    private static final int MAX_TRANSITION_DURATION_MS = 2000;
+
+    private @Nullable Boolean isReadModeOn;
+    private @Nullable Integer colorDropdownPosition;
+    private @Nullable String customColor;
+    private @Nullable Integer colorIntensity;
+    private @Nullable Integer brightness;
+    private @Nullable String schedule;
+    private @Nullable Integer scheduleStart;
+    private @Nullable Integer scheduleEnd;
+    private @Nullable Integer scheduleRamp;
+    private @Nullable String scheduleLocation;
+    private @Nullable Boolean isAmbientLightOn;
+    private @Nullable String appProfiles;
+    private @Nullable String region;
+    private @Nullable Integer regionTop;
+    private @Nullable Integer regionHeight;
+    private @Nullable Integer transitionDuration;
+    private @Nullable Boolean isHybridDimmingOn;
+
+    /**
+     * Parses the request from broadcast extras.
+     */
+    public static @NonNull AutomationRequest fromExtras(final @Nullable Bundle extras) {
+        final ContentValues values = new ContentValues();
+        if (extras != null) {
+            for (final String key : AutomationContract.COLUMNS) {
+                final Object value = extras.get(key);
+                if (value instanceof Boolean) {
+                    values.put(key, (Boolean) value);
+                } else if (value instanceof Integer) {
+                    values.put(key, (Integer) value);
+                } else if (value != null) {
+                    values.put(key, value.toString());
+                }
+            }
+        }
+        return fromContentValues(values);
+    }
+
+    /**
+     * Parses the request from content provider values.
+     */
+    public static @NonNull AutomationRequest fromContentValues(final @Nullable ContentValues values) {
+        final AutomationRequest request = new AutomationRequest();
+        if (values == null) {
+            return request;
+        }
+        if (values.containsKey(AutomationContract.KEY_READ_MODE_ON)) {
+            request.isReadModeOn = values.getAsBoolean(AutomationContract.KEY_READ_MODE_ON);
+        }
+        if (values.containsKey(AutomationContract.KEY_COLOR)) {
+            request.colorDropdownPosition = toColorDropdownPosition(values.getAsString(AutomationContract.KEY_COLOR));
+        }
+        if (values.containsKey(AutomationContract.KEY_CUSTOM_COLOR)) {
+            final String customColor = values.getAsString(AutomationContract.KEY_CUSTOM_COLOR);
+            if (customColor != null && HEX_COLOR.matcher(customColor).matches()) {
+                request.customColor = customColor.toUpperCase(Locale.ROOT);
+            } else {
+                Log.w(TAG, "Ignoring invalid custom color: " + customColor);
+            }
+        }
+        if (values.containsKey(AutomationContract.KEY_COLOR_INTENSITY)) {
+            request.colorIntensity = toLevel(AutomationContract.KEY_COLOR_INTENSITY, values.getAsInteger(AutomationContract.KEY_COLOR_INTENSITY));
+        }
+        if (values.containsKey(AutomationContract.KEY_BRIGHTNESS)) {
+            request.brightness = toLevel(AutomationContract.KEY_BRIGHTNESS, values.getAsInteger(AutomationContract.KEY_BRIGHTNESS));
+        }
+        if (values.containsKey(AutomationContract.KEY_SCHEDULE)) {
+            final Schedule.Mode mode = Schedule.Mode.fromName(values.getAsString(AutomationContract.KEY_SCHEDULE));
+            if (mode != null) {
+                request.schedule = mode.name();
+            } else {
+                Log.w(TAG, "Ignoring invalid schedule: " + values.getAsString(AutomationContract.KEY_SCHEDULE));
+            }
+        }
+        if (values.containsKey(AutomationContract.KEY_SCHEDULE_START)) {
+            request.scheduleStart = toMinuteOfDay(AutomationContract.KEY_SCHEDULE_START, values.getAsString(AutomationContract.KEY_SCHEDULE_START));
+        }
+        if (values.containsKey(AutomationContract.KEY_SCHEDULE_END)) {
+            request.scheduleEnd = toMinuteOfDay(AutomationContract.KEY_SCHEDULE_END, values.getAsString(AutomationContract.KEY_SCHEDULE_END));
+        }
+        if (values.containsKey(AutomationContract.KEY_SCHEDULE_RAMP)) {
+            final Integer ramp = values.getAsInteger(AutomationContract.KEY_SCHEDULE_RAMP);
+            if (ramp != null && ramp >= 0 && ramp <= Schedule.MAX_RAMP_MINUTES) {
+                request.scheduleRamp = ramp;
+            } else {
+                Log.w(TAG, "Ignoring invalid " + AutomationContract.KEY_SCHEDULE_RAMP + ": " + ramp);
+            }
+        }
+        if (values.containsKey(AutomationContract.KEY_SCHEDULE_LOCATION)) {
+            final double[] location = Schedule.parseLocation(values.getAsString(AutomationContract.KEY_SCHEDULE_LOCATION));
+            if (location != null) {
+                request.scheduleLocation = location[0] + "," + location[1];
+            } else {
+                Log.w(TAG, "Ignoring invalid location: " + values.getAsString(AutomationContract.KEY_SCHEDULE_LOCATION));
+            }
+        }
+        if (values.containsKey(AutomationContract.KEY_AMBIENT_LIGHT)) {
+            request.isAmbientLightOn = values.getAsBoolean(AutomationContract.KEY_AMBIENT_LIGHT);
+        }
+        if (values.containsKey(AutomationContract.KEY_APP_PROFILES)) {
+            final AppProfiles appProfiles = AppProfiles.parse(values.getAsString(AutomationContract.KEY_APP_PROFILES));
+            if (appProfiles != null) {
+                request.appProfiles = appProfiles.toString();
+            } else {
+                Log.w(TAG, "Ignoring invalid app profiles: " + values.getAsString(AutomationContract.KEY_APP_PROFILES));
+            }
+        }
+        if (values.containsKey(AutomationContract.KEY_REGION)) {
+            final OverlayRegion.Mode mode = OverlayRegion.Mode.fromName(values.getAsString(AutomationContract.KEY_REGION));
+            if (mode != null) {
+                request.region = mode.name();
+            } else {
+                Log.w(TAG, "Ignoring invalid region: " + values.getAsString(AutomationContract.KEY_REGION));
+            }
+        }
+        if (values.containsKey(AutomationContract.KEY_REGION_TOP)) {
+            request.regionTop = toLevel(AutomationContract.KEY_REGION_TOP, values.getAsInteger(AutomationContract.KEY_REGION_TOP));
+        }
+        if (values.containsKey(AutomationContract.KEY_REGION_HEIGHT)) {
+            request.regionHeight = toLevel(AutomationContract.KEY_REGION_HEIGHT, values.getAsInteger(AutomationContract.KEY_REGION_HEIGHT));
+        }
+        if (values.containsKey(AutomationContract.KEY_TRANSITION_DURATION)) {
+            final Integer duration = values.getAsInteger(AutomationContract.KEY_TRANSITION_DURATION);
+            if (duration != null && duration >= 0 && duration <= MAX_TRANSITION_DURATION_MS) {
+                request.transitionDuration = duration;
+            } else {
+                Log.w(TAG, "Ignoring invalid " + AutomationContract.KEY_TRANSITION_DURATION + ": " + duration);
+            }
+        }
+        if (values.containsKey(AutomationContract.KEY_HYBRID_DIMMING)) {
+            request.isHybridDimmingOn = values.getAsBoolean(AutomationContract.KEY_HYBRID_DIMMING);
+        }
+        return request;
+    }
+
+    /**
+     * Formats a time of the schedule, in minutes of the day, as HH:mm.
+     */
+    static @NonNull String formatTime(final int minuteOfDay) {
+        return String.format(Locale.ROOT, "%02d:%02d", minuteOfDay / 60, minuteOfDay % 60);
+    }
+
+    private static @Nullable Integer toMinuteOfDay(final @NonNull String key, final @Nullable String time) {
+        final Matcher matcher = time != null ? TIME.matcher(time) : null;
+        if (matcher == null || !matcher.matches()) {
+            Log.w(TAG, "Ignoring invalid " + key + ": " + time);
+            return null;
+        }
+        return Integer.parseInt(matcher.group(1)) * 60 + Integer.parseInt(matcher.group(2));
+    }
+
+    private static @Nullable Integer toColorDropdownPosition(final @Nullable String color) {
+        final Integer presetId = PresetStore.findBuiltInPresetId(color);
+        if (presetId == null) {
+            Log.w(TAG, "Ignoring unknown color: " + color);
+        }
+        return presetId;
+    }
+
+    private static @Nullable Integer toLevel(final @NonNull String key, final @Nullable Integer level) {
+        if (level == null || level < MIN_LEVEL || level > MAX_LEVEL) {
+            Log.w(TAG, "Ignoring invalid " + key + ": " + level);
+            return null;
+        }
+        return level;
+    }
+
+    public boolean isEmpty() {
+        return isReadModeOn == null && colorDropdownPosition == null && customColor == null
+                && colorIntensity == null && brightness == null && !hasSchedule() && isAmbientLightOn == null
+                && appProfiles == null && region == null && regionTop == null && regionHeight == null
+                && transitionDuration == null && isHybridDimmingOn == null;
+    }
+
+    /**
+     * Returns true if the batch changes the schedule.
+     */
+    public boolean hasSchedule() {
+        return schedule != null || scheduleStart != null || scheduleEnd != null || scheduleRamp != null
+                || scheduleLocation != null;
+    }
+
+    public @Nullable Boolean isReadModeOn() {
+        return isReadModeOn;
+    }
+
+    public @Nullable Integer getColorDropdownPosition() {
+        return colorDropdownPosition;
+    }
+
+    public @Nullable String getCustomColor() {
+        return customColor;
+    }
+
+    public @Nullable Integer getColorIntensity() {
+        return colorIntensity;
+    }
+
+    public @Nullable Integer getBrightness() {
+        return brightness;
+    }
+
+    public @Nullable String getSchedule() {
+        return schedule;
+    }
+
+    public @Nullable Integer getScheduleStart() {
+        return scheduleStart;
+    }
+
+    public @Nullable Integer getScheduleEnd() {
+        return scheduleEnd;
+    }
+
+    public @Nullable Integer getScheduleRamp() {
+        return scheduleRamp;
+    }
+
+    public @Nullable String getScheduleLocation() {
+        return scheduleLocation;
+    }
+
+    public @Nullable Boolean isAmbientLightOn() {
+        return isAmbientLightOn;
+    }
+
+    public @Nullable String getAppProfiles() {
+        return appProfiles;
+    }
+
+    public @Nullable String getRegion() {
+        return region;
+    }
+
+    public @Nullable Integer getRegionTop() {
+        return regionTop;
+    }
+
+    public @Nullable Integer getRegionHeight() {
+        return regionHeight;
+    }
+
+    public @Nullable Integer getTransitionDuration() {
+        return transitionDuration;
+    }
+
+    public @Nullable Boolean isHybridDimmingOn() {
+        return isHybridDimmingOn;
+    }
+}
@@ -0,0 +1,169 @@
+/*****************************************************************
+ * Copyright (C) 2025 Alan Quintero <https://github.com/alanquintero/>
+ *****************************************************************/
+package autonightmode.mx.com.alanquintero.autonightmode.automation;
+
+import android.content.ContentProvider;
+import android.content.ContentValues;
+import android.content.UriMatcher;
+import android.database.Cursor;
+import android.database.MatrixCursor;
+import android.net.Uri;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+
+import autonightmode.mx.com.alanquintero.autonightmode.model.ColorPreset;
+import autonightmode.mx.com.alanquintero.autonightmode.util.PrefsHelper;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * ReadModeProvider exposes the Read Mode settings at {@link AutomationContract#SETTINGS_URI}.
+ * A query returns a single row with the current values and an update applies the given values
+ * as one batch, returning the number of settings that changed. Callers must hold
+ * {@link AutomationContract#PERMISSION}.
+ *
+ * <p>Providers are created on every app start, so {@link #onCreate()} does no work and the
+ * settings store is only loaded on the first call. Calls arrive on binder threads and are
+ * moved to the main thread, where the settings and the overlay are owned.</p>
+ *
+ * @author Alan Quintero
+ */
+public class ReadModeProvider extends ContentProvider {
+
+    private static final String TAG = ReadModeProvider.class.getSimpleName();
+
+    private static final int SETTINGS = 1;
+    private static final long MAIN_THREAD_TIMEOUT_MS = 5000;
+    private static final UriMatcher URI_MATCHER = new UriMatcher(UriMatcher.NO_MATCH);
+
+    static {
+        URI_MATCHER.addURI(AutomationContract.AUTHORITY, AutomationContract.PATH_SETTINGS, SETTINGS);
+    }
+
+    @VisibleForTesting
+    PrefsHelper prefsHelper;
+    @VisibleForTesting
+    AutomationController automationController;
+
+    @Override
+    public boolean onCreate() {
+        return true;
+    }
+
+    @Nullable
+    @Override
+    public Cursor query(final @NonNull Uri uri, final @Nullable String[] projection, final @Nullable String selection,
+                        final @Nullable String[] selectionArgs, final @Nullable String sortOrder) {
+        checkUri(uri);
+        return runOnMainThread(() -> {
+            final PrefsHelper prefsHelper = getPrefsHelper();
+            final MatrixCursor cursor = new MatrixCursor(AutomationContract.COLUMNS, 1);
+            cursor.addRow(new Object[]{
+                    prefsHelper.isReadModeOn() ? 1 : 0,
+                    getColorName(prefsHelper),
+                    prefsHelper.getCustomColor(),
+                    prefsHelper.getColorIntensity(),
+                    prefsHelper.getBrightness(),
+                    prefsHelper.getSchedule(),
+                    AutomationRequest.formatTime(prefsHelper.getScheduleStart()),
+                    AutomationRequest.formatTime(prefsHelper.getScheduleEnd()),
+                    prefsHelper.getScheduleRamp(),
+                    prefsHelper.getScheduleLocation(),
+                    prefsHelper.isAmbientLightOn() ? 1 : 0,
+                    prefsHelper.getAppProfiles(),
+                    prefsHelper.getRegion(),
+                    prefsHelper.getRegionTop(),
+                    prefsHelper.getRegionHeight(),
+                    prefsHelper.getTransitionDuration(),
+                    prefsHelper.isHybridDimmingOn() ? 1 : 0
+            });
+            return cursor;
+        });
+    }
+
+    @Override
+    public int update(final @NonNull Uri uri, final @Nullable ContentValues values, final @Nullable String selection,
+                      final @Nullable String[] selectionArgs) {
+        checkUri(uri);
+        final AutomationRequest request = AutomationRequest.fromContentValues(values);
+        return runOnMainThread(() -> getAutomationController().apply(request));
+    }
+
+    @Nullable
+    @Override
+    public String getType(final @NonNull Uri uri) {
+        checkUri(uri);
+        return "vnd.android.cursor.item/vnd." + AutomationContract.AUTHORITY + "." + AutomationContract.PATH_SETTINGS;
+    }
+
+    @Nullable
+    @Override
+    public Uri insert(final @NonNull Uri uri, final @Nullable ContentValues values) {
+        // An exception here would be thrown in the calling app, the call is ignored instead
+        Log.w(TAG, "Insert is not supported, use update instead: " + uri);
+        return null;
+    }
+
+    @Override
+    public int delete(final @NonNull Uri uri, final @Nullable String selection, final @Nullable String[] selectionArgs) {
+        Log.w(TAG, "Delete is not supported: " + uri);
+        return 0;
+    }
+
+    private void checkUri(final @NonNull Uri uri) {
+        if (URI_MATCHER.match(uri) != SETTINGS) {
+            throw new IllegalArgumentException("Unknown uri: " + uri);
+        }
+    }
+
+    /**
+     * Returns the name of the selected color preset, the key of a built-in preset (e.g. "YELLOW")
+     * or the color of a user preset.
+     */
+    private static @Nullable String getColorName(final @NonNull PrefsHelper prefsHelper) {
+        final ColorPreset preset = prefsHelper.getPreset(prefsHelper.getColorDropdownPosition());
+        return preset != null ? preset.getName() : null;
+    }
+
+    private @NonNull PrefsHelper getPrefsHelper() {
+        if (prefsHelper == null) {
+            prefsHelper = PrefsHelper.init(getContext().getApplicationContext());
+        }
+        return prefsHelper;
+    }
+
+    private @NonNull AutomationController getAutomationController() {
+        if (automationController == null) {
+            automationController = new AutomationController(getContext().getApplicationContext(), getPrefsHelper());
+        }
+        return automationController;
+    }
+
+    private <T> T runOnMainThread(final @NonNull Callable<T> callable) {
+        final FutureTask<T> task = new FutureTask<>(callable);
+        if (Looper.myLooper() == Looper.getMainLooper()) {
+            task.run();
+        } else {
+            new Handler(Looper.getMainLooper()).post(task);
+        }
+        try {
+            return task.get(MAIN_THREAD_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException | TimeoutException e) {
+            Log.e(TAG, "Automation call failed", e);
+            throw new IllegalStateException(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -9,6 +9,7 @@ import androidx.annotation.NonNull;
 
 import autonightmode.mx.com.alanquintero.autonightmode.manager.ReadModeManager;
 import autonightmode.mx.com.alanquintero.autonightmode.model.ReadModeSettings;
+import autonightmode.mx.com.alanquintero.autonightmode.util.PerfTrace;
 
 /**
  * Serves as the base implementation for read mode commands, providing
@@ -30,29 +31,70 @@ abstract class BaseReadModeCommand implements ReadModeCommand {
 
     @Override
     public void updateReadMode() {
-        Log.d(TAG, "updateReadMode");
-        readModeManager.updateOverlay();
+        PerfTrace.begin("ReadModeCommand.updateReadMode");
+        try {
+            Log.d(TAG, "updateReadMode");
+            readModeManager.updateOverlay();
+        } finally {
+            PerfTrace.end();
+        }
     }
 
 
     @Override
     public void pauseReadMode() {
-        Log.d(TAG, "pauseReadMode");
-        readModeSettings.setWasReadModeOn(readModeSettings.isReadModeOn());
-        readModeManager.stopReadMode();
+        PerfTrace.begin("ReadModeCommand.pauseReadMode");
+        try {
+            Log.d(TAG, "pauseReadMode");
+            readModeSettings.setWasReadModeOn(readModeSettings.isReadModeOn());
+            readModeManager.stopReadMode();
+        } finally {
+            PerfTrace.end();
+        }
     }
 
     @Override
     public void resumeReadMode() {
-        Log.d(TAG, "resumeReadMode");
-        if (readModeSettings.wasReadModeOn()) {
-            readModeManager.startReadMode();
+        PerfTrace.begin("ReadModeCommand.resumeReadMode");
+        try {
+            Log.d(TAG, "resumeReadMode");
+            if (readModeSettings.wasReadModeOn()) {
+                readModeManager.startReadMode();
+            }
+        } finally {
+            PerfTrace.end();
+        }
+    }
+
+    @Override
+    public void previewCustomColor(final @NonNull String customColor) {
+        PerfTrace.begin("ReadModeCommand.previewCustomColor");
+        try {
+            readModeManager.previewCustomColor(customColor);
+        } finally {
+            PerfTrace.end();
+        }
+    }
+
+    @Override
+    public void revertPreview() {
+        PerfTrace.begin("ReadModeCommand.revertPreview");
+        try {
+            Log.d(TAG, "revertPreview");
+            readModeManager.revertPreview();
+        } finally {
+            PerfTrace.end();
         }
     }
 
     @Override
     public void stopReadMode() {
-        Log.d(TAG, "stopReadMode");
-        readModeManager.stopReadMode();
+        PerfTrace.begin("ReadModeCommand.stopReadMode");
+        try {
+            Log.d(TAG, "stopReadMode");
+            readModeManager.stopReadMode();
+        } finally {
+            PerfTrace.end();
+        }
     }
 }
@@ -9,6 +9,7 @@ import androidx.annotation.NonNull;
 
 import autonightmode.mx.com.alanquintero.autonightmode.manager.ReadModeManager;
 import autonightmode.mx.com.alanquintero.autonightmode.model.ReadModeSettings;
+import autonightmode.mx.com.alanquintero.autonightmode.util.PerfTrace;
 
 /**
  * GeneralReadModeCommand is responsible for starting the Read Mode
@@ -29,7 +30,12 @@ public class GeneralReadModeCommand extends BaseReadModeCommand {
 
     @Override
     public void startReadMode() {
-        Log.d(TAG, "startReadMode");
-        readModeManager.startReadMode();
+        PerfTrace.begin("ReadModeCommand.startReadMode");
+        try {
+            Log.d(TAG, "startReadMode");
+            readModeManager.startReadMode();
+        } finally {
+            PerfTrace.end();
+        }
     }
 }
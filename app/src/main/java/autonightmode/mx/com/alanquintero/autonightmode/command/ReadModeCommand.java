@@ -3,6 +3,8 @@
  *****************************************************************/
 package autonightmode.mx.com.alanquintero.autonightmode.command;
 
+import androidx.annotation.NonNull;
+
 /**
  * ReadModeCommand defines the contract for starting and stopping "Read Mode"
  * in the application. Implementations can define different behaviors or
@@ -19,5 +21,9 @@ public interface ReadModeCommand {
 
     void resumeReadMode();
 
+    void previewCustomColor(@NonNull String customColor);
+
+    void revertPreview();
+
     void stopReadMode();
 }
@@ -9,6 +9,7 @@ import androidx.annotation.NonNull;
 
 import autonightmode.mx.com.alanquintero.autonightmode.manager.ReadModeManager;
 import autonightmode.mx.com.alanquintero.autonightmode.model.ReadModeSettings;
+import autonightmode.mx.com.alanquintero.autonightmode.util.PerfTrace;
 
 /**
  * SettingsReadModeCommand is responsible for starting the Read Mode
@@ -31,9 +32,14 @@ public class SettingsReadModeCommand extends BaseReadModeCommand {
 
     @Override
     public void startReadMode() {
-        Log.d(TAG, "startReadMode");
-        if (readModeSettings.isAutoStartReadMode() || readModeSettings.isReadModeOn()) {
-            readModeManager.startReadMode();
+        PerfTrace.begin("ReadModeCommand.startReadMode");
+        try {
+            Log.d(TAG, "startReadMode");
+            if (readModeSettings.isAutoStartReadMode() || readModeSettings.isReadModeOn()) {
+                readModeManager.startReadMode();
+            }
+        } finally {
+            PerfTrace.end();
         }
     }
 }
@@ -3,19 +3,24 @@
  *****************************************************************/
 package autonightmode.mx.com.alanquintero.autonightmode.manager;
 
-import android.app.ActivityManager;
+import android.content.ComponentName;
 import android.content.Context;
 import android.content.Intent;
 import android.os.Build;
 import android.provider.Settings;
+import android.service.quicksettings.TileService;
 import android.util.Log;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 
+import autonightmode.mx.com.alanquintero.autonightmode.model.OverlaySnapshot;
 import autonightmode.mx.com.alanquintero.autonightmode.model.ReadModeSettings;
 import autonightmode.mx.com.alanquintero.autonightmode.observer.readmode.ReadModeSubject;
-import autonightmode.mx.com.alanquintero.autonightmode.service.DrawOverAppsService;
+import autonightmode.mx.com.alanquintero.autonightmode.service.OverlayClient;
+import autonightmode.mx.com.alanquintero.autonightmode.service.ReadModeTileService;
 import autonightmode.mx.com.alanquintero.autonightmode.util.Constants;
+import autonightmode.mx.com.alanquintero.autonightmode.util.PerfTrace;
 import autonightmode.mx.com.alanquintero.autonightmode.util.PrefsHelper;
 
 /**
@@ -24,12 +29,19 @@ import autonightmode.mx.com.alanquintero.autonightmode.util.PrefsHelper;
  * start and stop operations to implementations of ReadModeCommand,
  * providing a single point of control for triggering Read Mode actions.
  *
+ * <p>The settings are saved here and the overlay service, which may run in another process,
+ * receives them through {@link OverlayClient}.</p>
+ *
  * @author Alan Quintero
  */
 public class ReadModeManager {
 
     private static final String TAG = ReadModeManager.class.getSimpleName();
-    private static final String SERVICE_NAME = "autonightmode.mx.com.alanquintero.autonightmode.service.DrawOverAppsService";
+
+    // Sent inside the app when the settings were changed outside of MainActivity
+    public static final String ACTION_SETTINGS_CHANGED = "autonightmode.mx.com.alanquintero.autonightmode.action.SETTINGS_CHANGED";
+    // True when only the Read Mode state changed
+    public static final String EXTRA_IS_READ_MODE_ONLY = "isReadModeOnly";
 
     private final @NonNull Context context;
     private final @NonNull PrefsHelper prefsHelper;
@@ -37,6 +49,8 @@ public class ReadModeManager {
     private final @NonNull ReadModeSettings readModeSettings;
 
     private boolean isReadModeServiceRunning = false;
+    // The overlay shown before a custom color preview started, null when not previewing
+    private @Nullable OverlaySnapshot previewSnapshot;
 
     public ReadModeManager(final @NonNull Context context, final @NonNull PrefsHelper prefsHelper, final @NonNull ReadModeSubject readModeSubject, final @NonNull ReadModeSettings readModeSettings) {
         this.context = context;
@@ -49,7 +63,7 @@ public class ReadModeManager {
         // ReadModeManager instance is also created. At that point we must restore the correct
         // state of `isReadModeServiceRunning` to ensure UI elements (e.g., Start/Stop button)
         // reflect the actual Read Mode status.
-        if (readModeSettings.isReadModeOn() && isMyServiceRunning(SERVICE_NAME)) {
+        if (readModeSettings.isReadModeOn() && OverlayClient.isRunning(context)) {
             isReadModeServiceRunning = true;
         }
     }
@@ -60,82 +74,134 @@ public class ReadModeManager {
      * and intensity settings.
      */
     public void startReadMode() {
-        // Only start service if overlay permission granted
-        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M && !Settings.canDrawOverlays(context)) {
-            Log.w(TAG, "No overlay permission granted, finishing the app");
-            return;
-        }
+        PerfTrace.begin("ReadModeManager.startReadMode");
+        try {
+            // Only start service if overlay permission granted
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M && !Settings.canDrawOverlays(context)) {
+                Log.w(TAG, "No overlay permission granted, finishing the app");
+                return;
+            }
 
-        readModeSubject.setReadModeOn(true);
-        readModeSettings.setIsReadModeOn(true);
-        isReadModeServiceRunning = true;
+            readModeSubject.setReadModeOn(true);
+            readModeSettings.setIsReadModeOn(true);
+            isReadModeServiceRunning = true;
 
-        // save properties
-        prefsHelper.saveProperty(Constants.PREF_IS_READ_MODE_ON, readModeSettings.isReadModeOn());
-        prefsHelper.saveProperty(Constants.PREF_COLOR_INTENSITY, readModeSettings.getColorIntensity());
-        prefsHelper.saveProperty(Constants.PREF_BRIGHTNESS, readModeSettings.getBrightness());
-        prefsHelper.tryToSaveColorSettingsProperty(readModeSettings);
+            // save properties
+            prefsHelper.saveProperty(Constants.PREF_IS_READ_MODE_ON, readModeSettings.isReadModeOn());
+            prefsHelper.saveProperty(Constants.PREF_COLOR_INTENSITY, readModeSettings.getColorIntensity());
+            prefsHelper.saveProperty(Constants.PREF_BRIGHTNESS, readModeSettings.getBrightness());
+            prefsHelper.tryToSavePresetSettings(readModeSettings);
+            requestTileUpdate(context);
 
-        final Intent readModeIntent = new Intent(context, DrawOverAppsService.class);
-        if (!isMyServiceRunning(readModeIntent.getClass().getName())) {
+            // If the overlay is in standby, turning it ON is only a redraw of the attached window
             Log.i(TAG, "Starting Read Mode...");
-            context.startService(readModeIntent);
-            readModeSettings.setReadModeIntent(readModeIntent);
+            OverlayClient.apply(context, OverlaySnapshot.from(prefsHelper));
+        } finally {
+            PerfTrace.end();
         }
     }
 
     /**
-     * Stops the Read Mode by disabling the overlay service and updating
-     * the UI and shared preferences with the current color, brightness,
-     * and intensity settings.
+     * Stops the Read Mode by putting the overlay service in standby (or stopping it
+     * if it is not running) and updating the UI and shared preferences.
      */
     public void stopReadMode() {
-        readModeSubject.setReadModeOn(false);
-        readModeSettings.setIsReadModeOn(false);
-        isReadModeServiceRunning = false;
-
-        // save properties
-        prefsHelper.saveProperty(Constants.PREF_IS_READ_MODE_ON, readModeSettings.isReadModeOn());
-
-        Log.i(TAG, "Stopping Read Mode...");
-        if (readModeSettings.getReadModeIntent() != null) {
-            context.stopService(readModeSettings.getReadModeIntent());
-        } else {
-            context.stopService(new Intent(context, DrawOverAppsService.class));
+        PerfTrace.begin("ReadModeManager.stopReadMode");
+        try {
+            readModeSubject.setReadModeOn(false);
+            readModeSettings.setIsReadModeOn(false);
+            isReadModeServiceRunning = false;
+
+            // save properties
+            prefsHelper.saveProperty(Constants.PREF_IS_READ_MODE_ON, readModeSettings.isReadModeOn());
+            requestTileUpdate(context);
+
+            Log.i(TAG, "Stopping Read Mode...");
+            // Keep the service and its window alive, the service stops itself after the idle timeout
+            OverlayClient.apply(context, OverlaySnapshot.from(prefsHelper));
+        } finally {
+            PerfTrace.end();
         }
-        readModeSettings.setReadModeIntent(null);
     }
 
     /**
      * Either redraws overlay without stopping the Read Mode or start the Read Mode if not running
      */
     public void updateOverlay() {
-        final DrawOverAppsService service = DrawOverAppsService.getInstance();
-        if (service != null) {
-            Log.d(TAG, "Updating overlay directly via ReadModeManager...");
-            service.onUpdate(); // redraw overlay without stopping service
+        // The saved settings replace any preview
+        previewSnapshot = null;
+        if (OverlayClient.update(context, OverlaySnapshot.from(prefsHelper))) {
+            Log.d(TAG, "Overlay updated directly via ReadModeManager"); // redraw overlay without stopping service
         } else {
             Log.w(TAG, "DrawOverAppsService is not running. Starting it...");
             startReadMode(); // start the service if not running
         }
     }
 
+    /**
+     * Shows the custom color on the overlay without saving it, going through the same in-place
+     * update as {@link #updateOverlay()}. Does nothing when Read Mode is OFF.
+     */
+    public void previewCustomColor(final @NonNull String customColor) {
+        if (!readModeSettings.isReadModeOn()) {
+            return;
+        }
+        if (previewSnapshot == null) {
+            // Nothing is saved while previewing, the saved settings are the overlay to go back to
+            previewSnapshot = OverlaySnapshot.from(prefsHelper);
+        }
+        OverlayClient.apply(context, previewSnapshot.withCustomColor(customColor));
+    }
+
+    /**
+     * Puts back the overlay shown before the preview started.
+     */
+    public void revertPreview() {
+        if (previewSnapshot == null) {
+            return;
+        }
+        Log.d(TAG, "Reverting overlay preview");
+        OverlayClient.apply(context, previewSnapshot);
+        previewSnapshot = null;
+    }
+
+    /**
+     * Shows a Read Mode state changed outside of the app, by the quick settings tile, the
+     * notification or an automation request. The observers are notified, but nothing is saved and
+     * the overlay is not touched, it is already in that state.
+     */
+    public void syncReadMode(final boolean isReadModeOn) {
+        Log.d(TAG, "Read Mode changed outside of the app: " + isReadModeOn);
+        readModeSubject.setReadModeOn(isReadModeOn);
+        readModeSettings.setIsReadModeOn(isReadModeOn);
+        isReadModeServiceRunning = isReadModeOn;
+    }
+
     public boolean isReadModeServiceRunning() {
         return isReadModeServiceRunning;
     }
 
     /**
-     * Checks if a specific service is currently running on the device.
+     * Tells {@code MainActivity}, if it is open, that the settings were changed outside of it, so its
+     * views show them. The quick settings tile, the notification actions, the schedule and the
+     * automation requests change the settings while the activity may still be visible.
+     *
+     * @param isReadModeOnly true when only the Read Mode state changed
      */
-    private boolean isMyServiceRunning(final @NonNull String serviceClassName) {
-        final ActivityManager manager = (ActivityManager) context.getSystemService(Context.ACTIVITY_SERVICE);
-        for (final ActivityManager.RunningServiceInfo service : manager.getRunningServices(Integer.MAX_VALUE)) {
-            if (serviceClassName.equals(service.service.getClassName())) {
-                Log.d(TAG, "Service is running");
-                return true;
-            }
+    public static void notifySettingsChanged(final @NonNull Context context, final boolean isReadModeOnly) {
+        final Intent intent = new Intent(ACTION_SETTINGS_CHANGED)
+                .setPackage(context.getPackageName())
+                .putExtra(EXTRA_IS_READ_MODE_ONLY, isReadModeOnly);
+        context.sendBroadcast(intent);
+    }
+
+    /**
+     * Asks the system to refresh the Quick Settings tile, which is declared as an active tile
+     * and therefore is not bound unless requested.
+     */
+    public static void requestTileUpdate(final @NonNull Context context) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.N) {
+            TileService.requestListeningState(context, new ComponentName(context, ReadModeTileService.class));
         }
-        Log.d(TAG, "Service is NOT running");
-        return false;
     }
 }
@@ -0,0 +1,231 @@
+/*****************************************************************
+ * Copyright (C) 2025 Alan Quintero <https://github.com/alanquintero/>
+ *****************************************************************/
+package autonightmode.mx.com.alanquintero.autonightmode.model;
+
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.regex.Pattern;
+
+/**
+ * Immutable set of per-app profiles: how the overlay is drawn while a given app is in the foreground.
+ *
+ * <p>The profiles are indexed by package name, the overlay looks up the foreground app on every app
+ * switch. They are saved as a single string, {@code package=profile} entries separated by {@code ;}:
+ * <ul>
+ *     <li>{@code com.android.camera=OFF} - no filter while the app is in the foreground</li>
+ *     <li>{@code com.example.reader=80,20} - the color intensity and the brightness (0 to 100) used
+ *     while the app is in the foreground, instead of the saved ones</li>
+ * </ul>
+ * </p>
+ *
+ * @author Alan Quintero
+ */
+public final class AppProfiles {
+
+    private static final String TAG = AppProfiles.class.getSimpleName();
+
+    public static final AppProfiles EMPTY = new AppProfiles(Collections.<String, Profile>emptyMap(), "");
+
+    private static final String ENTRY_SEPARATOR = ";";
+    private static final String PROFILE_SEPARATOR = "=";
+    private static final String LEVEL_SEPARATOR = ",";
+    private static final String FILTER_OFF = "OFF";
+    private static final int MAX_LEVEL = 100;
+    private static final Pattern PACKAGE_NAME = Pattern.compile("[A-Za-z][A-Za-z0-9_]*(\\.[A-Za-z][A-Za-z0-9_]*)+");
+
+    /**
+     * How the overlay is drawn while an app is in the foreground.
+     */
+    public static final class Profile {
+
+        private final boolean isFilterOn;
+        private final int colorIntensity;
+        private final int brightness;
+
+        public Profile(final boolean isFilterOn, final int colorIntensity, final int brightness) {
+            this.isFilterOn = isFilterOn;
+            this.colorIntensity = isFilterOn ? colorIntensity : 0;
+            this.brightness = isFilterOn ? brightness : 0;
+        }
+
+        public boolean isFilterOn() {
+            return isFilterOn;
+        }
+
+        public int getColorIntensity() {
+            return colorIntensity;
+        }
+
+        public int getBrightness() {
+            return brightness;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (o == null || getClass() != o.getClass()) return false;
+            Profile that = (Profile) o;
+            return isFilterOn == that.isFilterOn && colorIntensity == that.colorIntensity && brightness == that.brightness;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(isFilterOn, colorIntensity, brightness);
+        }
+
+        @NonNull
+        @Override
+        public String toString() {
+            return isFilterOn ? colorIntensity + LEVEL_SEPARATOR + brightness : FILTER_OFF;
+        }
+    }
+
+    private final @NonNull Map<String, Profile> profiles;
+    // Normalized form, saved and sent to the overlay
+    private final @NonNull String value;
+
+    private AppProfiles(final @NonNull Map<String, Profile> profiles, final @NonNull String value) {
+        this.profiles = profiles;
+        this.value = value;
+    }
+
+    /**
+     * Parses the saved profiles.
+     *
+     * @return the profiles, or null if an entry is not valid
+     */
+    public static @Nullable AppProfiles parse(final @Nullable String value) {
+        if (value == null || value.trim().isEmpty()) {
+            return EMPTY;
+        }
+        final Map<String, Profile> profiles = new HashMap<>();
+        for (final String entry : value.split(ENTRY_SEPARATOR)) {
+            if (entry.trim().isEmpty()) {
+                continue;
+            }
+            final String[] parts = entry.split(PROFILE_SEPARATOR, -1);
+            final String packageName = parts[0].trim();
+            final Profile profile = parts.length == 2 ? parseProfile(parts[1].trim()) : null;
+            if (profile == null || !PACKAGE_NAME.matcher(packageName).matches()) {
+                Log.w(TAG, "Invalid app profile: " + entry);
+                return null;
+            }
+            profiles.put(packageName, profile);
+        }
+        return create(profiles);
+    }
+
+    private static @NonNull AppProfiles create(final @NonNull Map<String, Profile> profiles) {
+        if (profiles.isEmpty()) {
+            return EMPTY;
+        }
+        // Sorted, so the same profiles always give the same string
+        final List<String> packageNames = new ArrayList<>(profiles.keySet());
+        Collections.sort(packageNames);
+        final StringBuilder normalized = new StringBuilder();
+        for (final String packageName : packageNames) {
+            if (normalized.length() > 0) {
+                normalized.append(ENTRY_SEPARATOR);
+            }
+            normalized.append(packageName).append(PROFILE_SEPARATOR).append(profiles.get(packageName));
+        }
+        return new AppProfiles(profiles, normalized.toString());
+    }
+
+    /**
+     * Parses the saved profiles, an invalid value is read as no profile.
+     */
+    public static @NonNull AppProfiles parseOrEmpty(final @Nullable String value) {
+        final AppProfiles appProfiles = parse(value);
+        return appProfiles != null ? appProfiles : EMPTY;
+    }
+
+    private static @Nullable Profile parseProfile(final @NonNull String value) {
+        if (FILTER_OFF.equalsIgnoreCase(value)) {
+            return new Profile(false, 0, 0);
+        }
+        final String[] levels = value.split(LEVEL_SEPARATOR, -1);
+        if (levels.length != 2) {
+            return null;
+        }
+        try {
+            final int colorIntensity = Integer.parseInt(levels[0].trim());
+            final int brightness = Integer.parseInt(levels[1].trim());
+            if (colorIntensity < 0 || colorIntensity > MAX_LEVEL || brightness < 0 || brightness > MAX_LEVEL) {
+                return null;
+            }
+            return new Profile(true, colorIntensity, brightness);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Returns the profile of the given app, or null if it has none.
+     */
+    public @Nullable Profile get(final @Nullable String packageName) {
+        return packageName != null ? profiles.get(packageName) : null;
+    }
+
+    /**
+     * Returns a copy of these profiles with the profile of the given app added or replaced.
+     */
+    public @NonNull AppProfiles with(final @NonNull String packageName, final @NonNull Profile profile) {
+        final Map<String, Profile> newProfiles = new HashMap<>(profiles);
+        newProfiles.put(packageName, profile);
+        return create(newProfiles);
+    }
+
+    /**
+     * Returns a copy of these profiles without the profile of the given app.
+     */
+    public @NonNull AppProfiles without(final @NonNull String packageName) {
+        final Map<String, Profile> newProfiles = new HashMap<>(profiles);
+        newProfiles.remove(packageName);
+        return create(newProfiles);
+    }
+
+    /**
+     * Returns the apps that have a profile, sorted by package name.
+     */
+    public @NonNull List<String> getPackageNames() {
+        final List<String> packageNames = new ArrayList<>(profiles.keySet());
+        Collections.sort(packageNames);
+        return packageNames;
+    }
+
+    public boolean isEmpty() {
+        return profiles.isEmpty();
+    }
+
+    public int size() {
+        return profiles.size();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o == null || getClass() != o.getClass()) return false;
+        AppProfiles that = (AppProfiles) o;
+        return value.equals(that.value);
+    }
+
+    @Override
+    public int hashCode() {
+        return value.hashCode();
+    }
+
+    @NonNull
+    @Override
+    public String toString() {
+        return value;
+    }
+}
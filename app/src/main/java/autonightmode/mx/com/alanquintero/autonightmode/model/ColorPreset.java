@@ -0,0 +1,133 @@
+/*****************************************************************
+ * Copyright (C) 2025 Alan Quintero <https://github.com/alanquintero/>
+ *****************************************************************/
+package autonightmode.mx.com.alanquintero.autonightmode.model;
+
+import androidx.annotation.ColorInt;
+import androidx.annotation.NonNull;
+
+import autonightmode.mx.com.alanquintero.autonightmode.util.ColorUtils;
+import autonightmode.mx.com.alanquintero.autonightmode.util.Constants;
+
+import java.util.Objects;
+
+/**
+ * Immutable color preset of the Read Mode filter.
+ *
+ * <p>A preset is identified by a stable id, which is also the value saved as the selected color.
+ * The built-in presets use the ids 0 to 5, the positions of the former color dropdown, so the
+ * saved selection of older versions is still valid, and 6 for the color temperature. Presets created by the user get ids from
+ * {@link #FIRST_USER_PRESET_ID} on.</p>
+ *
+ * <ul>
+ *   <li>{@code id} - The stable id of the preset.</li>
+ *   <li>{@code name} - The name of a user preset, or the key of a built-in preset (e.g. "YELLOW").</li>
+ *   <li>{@code color} - The packed ARGB color. Not used by the custom and temperature presets, which draw
+ *   the custom color and the color of the selected temperature.</li>
+ *   <li>{@code colorIntensity} - The color intensity saved for this preset.</li>
+ *   <li>{@code brightness} - The brightness saved for this preset.</li>
+ * </ul>
+ *
+ * @author Alan Quintero
+ */
+public final class ColorPreset {
+
+    public static final int YELLOW_PRESET_ID = 0;
+    public static final int CUSTOM_PRESET_ID = 5;
+    public static final int TEMPERATURE_PRESET_ID = 6;
+    public static final int FIRST_USER_PRESET_ID = 100;
+
+    private final int id;
+    private final @NonNull String name;
+    private final @ColorInt int color;
+    private final int colorIntensity;
+    private final int brightness;
+
+    public ColorPreset(final int id, final @NonNull String name, final @ColorInt int color, final int colorIntensity, final int brightness) {
+        this.id = id;
+        this.name = name;
+        this.color = color;
+        this.colorIntensity = colorIntensity;
+        this.brightness = brightness;
+    }
+
+    /**
+     * Returns a copy of this preset with the given color intensity and brightness.
+     */
+    public @NonNull ColorPreset withSettings(final int colorIntensity, final int brightness) {
+        if (this.colorIntensity == colorIntensity && this.brightness == brightness) {
+            return this;
+        }
+        return new ColorPreset(id, name, color, colorIntensity, brightness);
+    }
+
+    public boolean isCustom() {
+        return id == CUSTOM_PRESET_ID;
+    }
+
+    public boolean isTemperature() {
+        return id == TEMPERATURE_PRESET_ID;
+    }
+
+    public boolean isUserPreset() {
+        return id >= FIRST_USER_PRESET_ID;
+    }
+
+    /**
+     * Returns the value saved as the screen color when this preset is selected: the color in
+     * #RRGGBB format, {@link Constants#CUSTOM_COLOR} for the custom preset or
+     * {@link Constants#TEMPERATURE} for the temperature preset.
+     */
+    public @NonNull String getScreenColor() {
+        if (isCustom()) {
+            return Constants.CUSTOM_COLOR;
+        }
+        if (isTemperature()) {
+            return Constants.TEMPERATURE;
+        }
+        return ColorUtils.getRgbHexColor(color);
+    }
+
+    /**
+     * Returns the name shown to the user. Built-in presets use the translated names, indexed by id.
+     */
+    public @NonNull String getDisplayName(final @NonNull String[] builtInNames) {
+        if (!isUserPreset() && id < builtInNames.length) {
+            return builtInNames[id];
+        }
+        return name;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public @NonNull String getName() {
+        return name;
+    }
+
+    public @ColorInt int getColor() {
+        return color;
+    }
+
+    public int getColorIntensity() {
+        return colorIntensity;
+    }
+
+    public int getBrightness() {
+        return brightness;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o == null || getClass() != o.getClass()) return false;
+        ColorPreset that = (ColorPreset) o;
+        return id == that.id && color == that.color && colorIntensity == that.colorIntensity
+                && brightness == that.brightness && name.equals(that.name);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id, name, color, colorIntensity, brightness);
+    }
+}
@@ -0,0 +1,120 @@
+/*****************************************************************
+ * Copyright (C) 2025 Alan Quintero <https://github.com/alanquintero/>
+ *****************************************************************/
+package autonightmode.mx.com.alanquintero.autonightmode.model;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import autonightmode.mx.com.alanquintero.autonightmode.util.PrefsHelper;
+
+import java.util.Objects;
+
+/**
+ * Immutable part of the screen covered by the Read Mode overlay.
+ *
+ * <ul>
+ *   <li>{@code mode} - FULL (the whole screen), BAND (a horizontal reading band is tinted) or MASK
+ *   (the screen above and below the reading band is tinted, the band is left clear).</li>
+ *   <li>{@code top} / {@code height} - The reading band, in percent of the height of the display, so
+ *   the band keeps its place when the display rotates. Ignored in FULL mode.</li>
+ * </ul>
+ *
+ * @author Alan Quintero
+ */
+public final class OverlayRegion {
+
+    public enum Mode {
+        FULL,
+        BAND,
+        MASK;
+
+        /**
+         * Returns the mode with the given name, ignoring case, or null if there is none.
+         */
+        public static @Nullable Mode fromName(final @Nullable String name) {
+            for (final Mode mode : values()) {
+                if (mode.name().equalsIgnoreCase(name)) {
+                    return mode;
+                }
+            }
+            return null;
+        }
+    }
+
+    public static final int MAX_PERCENT = 100;
+
+    public static final OverlayRegion FULL = new OverlayRegion(Mode.FULL, 0, MAX_PERCENT);
+
+    private final @NonNull Mode mode;
+    private final int top;
+    private final int height;
+
+    /**
+     * Creates a region, the band is clamped to the display.
+     */
+    public OverlayRegion(final @NonNull Mode mode, final int top, final int height) {
+        this.mode = mode;
+        this.top = Math.max(0, Math.min(MAX_PERCENT, top));
+        this.height = Math.max(0, Math.min(MAX_PERCENT - this.top, height));
+    }
+
+    /**
+     * Reads the saved region.
+     */
+    public static @NonNull OverlayRegion from(final @NonNull PrefsHelper prefsHelper) {
+        final Mode mode = Mode.fromName(prefsHelper.getRegion());
+        if (mode == null || mode == Mode.FULL) {
+            return FULL;
+        }
+        return new OverlayRegion(mode, prefsHelper.getRegionTop(), prefsHelper.getRegionHeight());
+    }
+
+    public boolean isFull() {
+        return mode == Mode.FULL;
+    }
+
+    /**
+     * Returns the top of the band on a display of the given height, in px.
+     */
+    public int getBandTop(final int displayHeight) {
+        return Math.round(displayHeight * top / (float) MAX_PERCENT);
+    }
+
+    /**
+     * Returns the bottom of the band on a display of the given height, in px.
+     */
+    public int getBandBottom(final int displayHeight) {
+        return Math.round(displayHeight * (top + height) / (float) MAX_PERCENT);
+    }
+
+    public @NonNull Mode getMode() {
+        return mode;
+    }
+
+    public int getTop() {
+        return top;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o == null || getClass() != o.getClass()) return false;
+        OverlayRegion that = (OverlayRegion) o;
+        return top == that.top && height == that.height && mode == that.mode;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(mode, top, height);
+    }
+
+    @NonNull
+    @Override
+    public String toString() {
+        return mode + " " + top + "%+" + height + "%";
+    }
+}
@@ -0,0 +1,414 @@
+/*****************************************************************
+ * Copyright (C) 2025 Alan Quintero <https://github.com/alanquintero/>
+ *****************************************************************/
+package autonightmode.mx.com.alanquintero.autonightmode.model;
+
+import android.graphics.Color;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import autonightmode.mx.com.alanquintero.autonightmode.util.ColorTemperature;
+import autonightmode.mx.com.alanquintero.autonightmode.util.Constants;
+import autonightmode.mx.com.alanquintero.autonightmode.util.PrefsHelper;
+
+import java.util.Objects;
+
+/**
+ * Immutable snapshot of the settings used to draw the Read Mode overlay.
+ *
+ * <p>The settings are read once per update and the values needed by the draw pass (the dim
+ * alpha and the filter color) are computed here, so every overlay (one per display) draws from
+ * the same snapshot without reading preferences or parsing colors. A color temperature is read
+ * from the precomputed {@link ColorTemperature} table, it costs the same as a preset color.</p>
+ *
+ * <p>A snapshot can carry a ramp, set by the schedule: the overlay fades in (or out) between two wall
+ * clock times. The level of the ramp is a function of the time only, so the overlay can skip any
+ * number of frames, e.g. while the screen is OFF, and still draw the right level on the next one.</p>
+ *
+ * <p>A snapshot can also ask the overlay to adapt to the ambient light: the service then draws it at a
+ * level set by the light sensor, on top of the ramp level.</p>
+ *
+ * <p>A snapshot carries the {@link AppProfiles}, the overlay draws {@link #withAppProfile(AppProfiles.Profile)}
+ * of the profile of the foreground app.</p>
+ *
+ * <p>The {@link OverlayRegion} tells which part of the screen the overlay covers. It does not change
+ * what is drawn, only the size and the position of the overlay windows.</p>
+ *
+ * <p>The transition duration is the time taken by the overlay to fade in and out when Read Mode is
+ * turned ON or OFF, 0 shows and hides it at once.</p>
+ *
+ * <p>With the hybrid dimming the service lowers the system brightness instead of drawing the dim
+ * alpha, the overlay only draws what the backlight cannot do.</p>
+ *
+ * @author Alan Quintero
+ */
+public final class OverlaySnapshot {
+
+    public static final int FILTER_ALPHA = 120;
+    private static final int MAX_DIM_ALPHA = 150;
+    private static final int RGB_HEX_COLOR_LENGTH = 7;
+
+    private final boolean isReadModeOn;
+    private final @NonNull String screenColor;
+    private final @NonNull String customColor;
+    private final int colorTemperature;
+    private final int colorIntensity;
+    private final int brightness;
+    // Wall clock times of the ramp, both 0 when there is no ramp
+    private final long rampStart;
+    private final long rampEnd;
+    private final boolean isFadeIn;
+    private final boolean isAmbientLight;
+    private final @NonNull AppProfiles appProfiles;
+    private final @NonNull OverlayRegion region;
+    // Time taken by the overlay to fade in and out when Read Mode is turned ON or OFF, in ms
+    private final int transitionDuration;
+    // Dimming moved into the backlight when the system settings can be written
+    private final boolean isHybridDimming;
+
+    // Values used by the draw pass
+    private final int dimAlpha;
+    private final boolean hasColorFilter;
+    private final int filterRed;
+    private final int filterGreen;
+    private final int filterBlue;
+
+    public OverlaySnapshot(final boolean isReadModeOn, final @NonNull String screenColor, final @NonNull String customColor,
+                           final int colorTemperature, final int colorIntensity, final int brightness) {
+        this(isReadModeOn, screenColor, customColor, colorTemperature, colorIntensity, brightness, 0, 0, true, false,
+                AppProfiles.EMPTY, OverlayRegion.FULL, 0, false);
+    }
+
+    private OverlaySnapshot(final boolean isReadModeOn, final @NonNull String screenColor, final @NonNull String customColor,
+                            final int colorTemperature, final int colorIntensity, final int brightness,
+                            final long rampStart, final long rampEnd, final boolean isFadeIn, final boolean isAmbientLight,
+                            final @NonNull AppProfiles appProfiles, final @NonNull OverlayRegion region,
+                            final int transitionDuration, final boolean isHybridDimming) {
+        this.isReadModeOn = isReadModeOn;
+        this.screenColor = screenColor;
+        this.customColor = customColor;
+        this.colorTemperature = colorTemperature;
+        this.colorIntensity = colorIntensity;
+        this.brightness = brightness;
+        this.rampStart = rampStart;
+        this.rampEnd = rampEnd;
+        this.isFadeIn = isFadeIn;
+        this.isAmbientLight = isAmbientLight;
+        this.appProfiles = appProfiles;
+        this.region = region;
+        this.transitionDuration = Math.max(0, transitionDuration);
+        this.isHybridDimming = isHybridDimming;
+
+        dimAlpha = MAX_DIM_ALPHA - brightness;
+        int red = 0;
+        int green = 0;
+        int blue = 0;
+        boolean hasFilter = true;
+        if (Constants.CUSTOM_COLOR.equals(screenColor)) {
+            final int parsedCustomColor = Color.parseColor(customColor);
+            red = Color.red(parsedCustomColor);
+            green = Color.green(parsedCustomColor);
+            blue = Color.blue(parsedCustomColor);
+        } else if (Constants.TEMPERATURE.equals(screenColor) || isRgbHexColor(screenColor)) {
+            // The color of a temperature, or of a preset (built-in or created by the user)
+            final int color = Constants.TEMPERATURE.equals(screenColor)
+                    ? ColorTemperature.toColor(colorTemperature) : parseHexColor(screenColor);
+            red = (color >> 16) & 0xFF;
+            green = (color >> 8) & 0xFF;
+            blue = color & 0xFF;
+        } else {
+            hasFilter = false;
+        }
+        hasColorFilter = hasFilter;
+        filterRed = red;
+        filterGreen = green;
+        // Warm colors have little or no blue, a negative channel would set the other channels when packed
+        filterBlue = Math.max(0, blue - colorIntensity);
+    }
+
+    /**
+     * Reads the current settings. This is the only place where the overlay reads preferences.
+     */
+    public static @NonNull OverlaySnapshot from(final @NonNull PrefsHelper prefsHelper) {
+        final String color = prefsHelper.getColor();
+        final String screenColor = color != null ? color : Constants.DEFAULT_COLOR_WHITE;
+        final String customColor = Constants.CUSTOM_COLOR.equals(screenColor) ? prefsHelper.getCustomColor() : Constants.DEFAULT_CUSTOM_COLOR;
+        final int colorTemperature = Constants.TEMPERATURE.equals(screenColor) ? prefsHelper.getColorTemperature() : Constants.DEFAULT_COLOR_TEMPERATURE;
+        return new OverlaySnapshot(prefsHelper.isReadModeOn(), screenColor, customColor, colorTemperature,
+                prefsHelper.getColorIntensity(), prefsHelper.getBrightness()).withAmbientLight(prefsHelper.isAmbientLightOn())
+                .withAppProfiles(AppProfiles.parseOrEmpty(prefsHelper.getAppProfiles()))
+                .withRegion(OverlayRegion.from(prefsHelper))
+                .withTransitionDuration(prefsHelper.getTransitionDuration())
+                .withHybridDimming(prefsHelper.isHybridDimmingOn());
+    }
+
+    /**
+     * Returns a copy of this snapshot with the given Read Mode state.
+     */
+    public @NonNull OverlaySnapshot withReadModeOn(final boolean isReadModeOn) {
+        if (this.isReadModeOn == isReadModeOn) {
+            return this;
+        }
+        return new OverlaySnapshot(isReadModeOn, screenColor, customColor, colorTemperature, colorIntensity, brightness,
+                rampStart, rampEnd, isFadeIn, isAmbientLight, appProfiles, region, transitionDuration, isHybridDimming);
+    }
+
+    /**
+     * Returns a copy of this snapshot drawing the given custom color.
+     */
+    public @NonNull OverlaySnapshot withCustomColor(final @NonNull String customColor) {
+        if (Constants.CUSTOM_COLOR.equals(screenColor) && this.customColor.equals(customColor)) {
+            return this;
+        }
+        return new OverlaySnapshot(isReadModeOn, Constants.CUSTOM_COLOR, customColor, colorTemperature, colorIntensity, brightness,
+                rampStart, rampEnd, isFadeIn, isAmbientLight, appProfiles, region, transitionDuration, isHybridDimming);
+    }
+
+    /**
+     * Returns a copy of this snapshot that fades in (or out) from {@code rampStart} to {@code rampEnd},
+     * wall clock times in ms.
+     */
+    public @NonNull OverlaySnapshot withRamp(final long rampStart, final long rampEnd, final boolean isFadeIn) {
+        if (rampEnd <= rampStart) {
+            return withoutRamp();
+        }
+        return new OverlaySnapshot(isReadModeOn, screenColor, customColor, colorTemperature, colorIntensity, brightness,
+                rampStart, rampEnd, isFadeIn, isAmbientLight, appProfiles, region, transitionDuration, isHybridDimming);
+    }
+
+    /**
+     * Returns a copy of this snapshot drawn at its full level.
+     */
+    public @NonNull OverlaySnapshot withoutRamp() {
+        if (!hasRamp()) {
+            return this;
+        }
+        return new OverlaySnapshot(isReadModeOn, screenColor, customColor, colorTemperature, colorIntensity, brightness,
+                0, 0, true, isAmbientLight, appProfiles, region, transitionDuration, isHybridDimming);
+    }
+
+    /**
+     * Returns a copy of this snapshot that adapts (or not) to the ambient light.
+     */
+    public @NonNull OverlaySnapshot withAmbientLight(final boolean isAmbientLight) {
+        if (this.isAmbientLight == isAmbientLight) {
+            return this;
+        }
+        return new OverlaySnapshot(isReadModeOn, screenColor, customColor, colorTemperature, colorIntensity, brightness,
+                rampStart, rampEnd, isFadeIn, isAmbientLight, appProfiles, region, transitionDuration, isHybridDimming);
+    }
+
+    /**
+     * Returns a copy of this snapshot with the given per-app profiles.
+     */
+    public @NonNull OverlaySnapshot withAppProfiles(final @NonNull AppProfiles appProfiles) {
+        if (this.appProfiles.equals(appProfiles)) {
+            return this;
+        }
+        return new OverlaySnapshot(isReadModeOn, screenColor, customColor, colorTemperature, colorIntensity, brightness,
+                rampStart, rampEnd, isFadeIn, isAmbientLight, appProfiles, region, transitionDuration, isHybridDimming);
+    }
+
+    /**
+     * Returns a copy of this snapshot covering the given region.
+     */
+    public @NonNull OverlaySnapshot withRegion(final @NonNull OverlayRegion region) {
+        if (this.region.equals(region)) {
+            return this;
+        }
+        return new OverlaySnapshot(isReadModeOn, screenColor, customColor, colorTemperature, colorIntensity, brightness,
+                rampStart, rampEnd, isFadeIn, isAmbientLight, appProfiles, region, transitionDuration, isHybridDimming);
+    }
+
+    /**
+     * Returns a copy of this snapshot that fades the overlay in and out in the given time, in ms.
+     * 0 shows and hides it at once.
+     */
+    public @NonNull OverlaySnapshot withTransitionDuration(final int transitionDuration) {
+        if (this.transitionDuration == transitionDuration) {
+            return this;
+        }
+        return new OverlaySnapshot(isReadModeOn, screenColor, customColor, colorTemperature, colorIntensity, brightness,
+                rampStart, rampEnd, isFadeIn, isAmbientLight, appProfiles, region, transitionDuration, isHybridDimming);
+    }
+
+    /**
+     * Returns a copy of this snapshot that moves (or not) the dimming into the backlight.
+     */
+    public @NonNull OverlaySnapshot withHybridDimming(final boolean isHybridDimming) {
+        if (this.isHybridDimming == isHybridDimming) {
+            return this;
+        }
+        return new OverlaySnapshot(isReadModeOn, screenColor, customColor, colorTemperature, colorIntensity, brightness,
+                rampStart, rampEnd, isFadeIn, isAmbientLight, appProfiles, region, transitionDuration, isHybridDimming);
+    }
+
+    /**
+     * Returns true if the given snapshot only differs from this one by its region: the overlay windows
+     * are moved and resized, their content is not drawn again.
+     */
+    public boolean isOnlyRegionChanged(final @NonNull OverlaySnapshot other) {
+        return !region.equals(other.region) && equals(other.withRegion(region));
+    }
+
+    /**
+     * Returns the snapshot drawn while an app with the given profile is in the foreground: without
+     * filter, or with the color intensity and the brightness of the profile. A null profile draws
+     * this snapshot.
+     */
+    public @NonNull OverlaySnapshot withAppProfile(final @Nullable AppProfiles.Profile profile) {
+        if (profile == null) {
+            return this;
+        }
+        if (!profile.isFilterOn()) {
+            return withReadModeOn(false);
+        }
+        if (profile.getColorIntensity() == colorIntensity && profile.getBrightness() == brightness) {
+            return this;
+        }
+        return new OverlaySnapshot(isReadModeOn, screenColor, customColor, colorTemperature, profile.getColorIntensity(),
+                profile.getBrightness(), rampStart, rampEnd, isFadeIn, isAmbientLight, appProfiles, region, transitionDuration, isHybridDimming);
+    }
+
+    public boolean hasRamp() {
+        return rampEnd > rampStart;
+    }
+
+    /**
+     * Returns the level of the overlay at the given wall clock time, from 0 (not visible) to 1 (the
+     * saved settings). It is always 1 without a ramp.
+     */
+    public float getRampLevel(final long now) {
+        if (!hasRamp()) {
+            return 1f;
+        }
+        final float progress = Math.max(0f, Math.min(1f, (now - rampStart) / (float) (rampEnd - rampStart)));
+        return isFadeIn ? progress : 1f - progress;
+    }
+
+    /**
+     * Returns the dim alpha at the given level (ramp and ambient light).
+     */
+    public int getDimAlpha(final float level) {
+        return Math.round(dimAlpha * level);
+    }
+
+    /**
+     * Returns the alpha of the color filter at the given level (ramp and ambient light).
+     */
+    public int getFilterAlpha(final float level) {
+        return Math.round(FILTER_ALPHA * level);
+    }
+
+    private static boolean isRgbHexColor(final @NonNull String color) {
+        if (color.length() != RGB_HEX_COLOR_LENGTH || color.charAt(0) != '#') {
+            return false;
+        }
+        for (int i = 1; i < RGB_HEX_COLOR_LENGTH; i++) {
+            if (Character.digit(color.charAt(i), 16) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // The preset colors are saved in #RRGGBB format, parsed without going through Color
+    private static int parseHexColor(final @NonNull String hexColor) {
+        return Integer.parseInt(hexColor.substring(1), 16);
+    }
+
+    public boolean isReadModeOn() {
+        return isReadModeOn;
+    }
+
+    public @NonNull String getScreenColor() {
+        return screenColor;
+    }
+
+    public @NonNull String getCustomColor() {
+        return customColor;
+    }
+
+    public int getColorTemperature() {
+        return colorTemperature;
+    }
+
+    public int getColorIntensity() {
+        return colorIntensity;
+    }
+
+    public int getBrightness() {
+        return brightness;
+    }
+
+    public int getDimAlpha() {
+        return dimAlpha;
+    }
+
+    public long getRampStart() {
+        return rampStart;
+    }
+
+    public long getRampEnd() {
+        return rampEnd;
+    }
+
+    public boolean isFadeIn() {
+        return isFadeIn;
+    }
+
+    public boolean isAmbientLight() {
+        return isAmbientLight;
+    }
+
+    public @NonNull AppProfiles getAppProfiles() {
+        return appProfiles;
+    }
+
+    public @NonNull OverlayRegion getRegion() {
+        return region;
+    }
+
+    public int getTransitionDuration() {
+        return transitionDuration;
+    }
+
+    public boolean isHybridDimming() {
+        return isHybridDimming;
+    }
+
+    public boolean hasColorFilter() {
+        return hasColorFilter;
+    }
+
+    public int getFilterRed() {
+        return filterRed;
+    }
+
+    public int getFilterGreen() {
+        return filterGreen;
+    }
+
+    public int getFilterBlue() {
+        return filterBlue;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o == null || getClass() != o.getClass()) return false;
+        OverlaySnapshot that = (OverlaySnapshot) o;
+        return isReadModeOn == that.isReadModeOn && colorTemperature == that.colorTemperature && colorIntensity == that.colorIntensity
+                && brightness == that.brightness && rampStart == that.rampStart && rampEnd == that.rampEnd && isFadeIn == that.isFadeIn
+                && isAmbientLight == that.isAmbientLight && appProfiles.equals(that.appProfiles)
+                && region.equals(that.region) && transitionDuration == that.transitionDuration
+                && isHybridDimming == that.isHybridDimming
+                && screenColor.equals(that.screenColor) && customColor.equals(that.customColor);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(isReadModeOn, screenColor, customColor, colorTemperature, colorIntensity, brightness,
+                rampStart, rampEnd, isFadeIn, isAmbientLight, appProfiles, region, transitionDuration, isHybridDimming);
+    }
+}
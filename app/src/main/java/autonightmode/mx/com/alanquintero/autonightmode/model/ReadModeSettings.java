@@ -3,10 +3,7 @@
  *****************************************************************/
 package autonightmode.mx.com.alanquintero.autonightmode.model;
 
-import android.content.Intent;
-
 import androidx.annotation.NonNull;
-import androidx.annotation.Nullable;
 
 import autonightmode.mx.com.alanquintero.autonightmode.util.Constants;
 
@@ -39,12 +36,12 @@ public class ReadModeSettings {
 
     private boolean wasReadModeOn = false;
     private @NonNull String customColor = Constants.DEFAULT_CUSTOM_COLOR;
+    private int colorTemperature = Constants.DEFAULT_COLOR_TEMPERATURE;
     private int colorDropdownPosition = Constants.DEFAULT_COLOR_DROPDOWN_POSITION;
     private int colorIntensity = Constants.DEFAULT_COLOR_INTENSITY;
     private int brightness = Constants.DEFAULT_BRIGHTNESS;
     private boolean autoStartReadMode = Constants.DEFAULT_AUTO_START_READ_MODE;
     private boolean shouldUseSameIntensityBrightnessForAll = Constants.DEFAULT_SAME_INTENSITY_BRIGHTNESS_FOR_ALL;
-    private @Nullable Intent readModeIntent = null;
 
     public boolean isReadModeOn() {
         return isReadModeOn;
@@ -71,6 +68,14 @@ public class ReadModeSettings {
         this.customColor = customColor;
     }
 
+    public int getColorTemperature() {
+        return colorTemperature;
+    }
+
+    public void setColorTemperature(final int colorTemperature) {
+        this.colorTemperature = colorTemperature;
+    }
+
     public int getColorDropdownPosition() {
         return colorDropdownPosition;
     }
@@ -110,13 +115,4 @@ public class ReadModeSettings {
     public void setShouldUseSameIntensityBrightnessForAll(final boolean shouldUseSameIntensityBrightnessForAll) {
         this.shouldUseSameIntensityBrightnessForAll = shouldUseSameIntensityBrightnessForAll;
     }
-
-    @Nullable
-    public Intent getReadModeIntent() {
-        return readModeIntent;
-    }
-
-    public void setReadModeIntent(final @Nullable Intent readModeIntent) {
-        this.readModeIntent = readModeIntent;
-    }
 }
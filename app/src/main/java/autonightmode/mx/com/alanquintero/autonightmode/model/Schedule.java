@@ -0,0 +1,154 @@
+/*****************************************************************
+ * Copyright (C) 2025 Alan Quintero <https://github.com/alanquintero/>
+ *****************************************************************/
+package autonightmode.mx.com.alanquintero.autonightmode.model;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import autonightmode.mx.com.alanquintero.autonightmode.util.PrefsHelper;
+
+import java.util.Objects;
+
+/**
+ * Immutable schedule of Read Mode.
+ *
+ * <ul>
+ *   <li>{@code mode} - OFF, TIMES (Read Mode is ON from the start time to the end time) or SUN
+ *   (Read Mode is ON from sunset to sunrise, computed for the saved location).</li>
+ *   <li>{@code startMinute} / {@code endMinute} - The ON and OFF times, in minutes of the day. In SUN
+ *   mode they are used on the days the sun does not set or rise, and when no location is saved.</li>
+ *   <li>{@code rampMinutes} - How long the overlay takes to fade in after the ON time and to fade out
+ *   after the OFF time, 0 for an instant change.</li>
+ *   <li>{@code latitude} / {@code longitude} - The location in degrees, NaN when none is saved.</li>
+ * </ul>
+ *
+ * @author Alan Quintero
+ */
+public final class Schedule {
+
+    public enum Mode {
+        OFF,
+        TIMES,
+        SUN;
+
+        /**
+         * Returns the mode with the given name, ignoring case, or null if there is none.
+         */
+        public static @Nullable Mode fromName(final @Nullable String name) {
+            for (final Mode mode : values()) {
+                if (mode.name().equalsIgnoreCase(name)) {
+                    return mode;
+                }
+            }
+            return null;
+        }
+    }
+
+    public static final int MINUTES_PER_DAY = 24 * 60;
+    public static final int MAX_RAMP_MINUTES = 120;
+    private static final String LOCATION_SEPARATOR = ",";
+
+    private final @NonNull Mode mode;
+    private final int startMinute;
+    private final int endMinute;
+    private final int rampMinutes;
+    private final double latitude;
+    private final double longitude;
+
+    public Schedule(final @NonNull Mode mode, final int startMinute, final int endMinute, final int rampMinutes,
+                    final double latitude, final double longitude) {
+        this.mode = mode;
+        this.startMinute = startMinute;
+        this.endMinute = endMinute;
+        this.rampMinutes = rampMinutes;
+        this.latitude = latitude;
+        this.longitude = longitude;
+    }
+
+    /**
+     * Reads the saved schedule.
+     */
+    public static @NonNull Schedule from(final @NonNull PrefsHelper prefsHelper) {
+        final Mode mode = Mode.fromName(prefsHelper.getSchedule());
+        final double[] location = parseLocation(prefsHelper.getScheduleLocation());
+        return new Schedule(mode != null ? mode : Mode.OFF, prefsHelper.getScheduleStart(), prefsHelper.getScheduleEnd(),
+                prefsHelper.getScheduleRamp(), location != null ? location[0] : Double.NaN,
+                location != null ? location[1] : Double.NaN);
+    }
+
+    /**
+     * Parses a location saved as "latitude,longitude".
+     *
+     * @return the latitude and the longitude, or null if the location is not valid
+     */
+    public static @Nullable double[] parseLocation(final @Nullable String location) {
+        if (location == null) {
+            return null;
+        }
+        final String[] values = location.split(LOCATION_SEPARATOR);
+        if (values.length != 2) {
+            return null;
+        }
+        try {
+            final double latitude = Double.parseDouble(values[0].trim());
+            final double longitude = Double.parseDouble(values[1].trim());
+            if (Math.abs(latitude) > 90 || Math.abs(longitude) > 180) {
+                return null;
+            }
+            return new double[]{latitude, longitude};
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    public boolean isEnabled() {
+        return mode != Mode.OFF;
+    }
+
+    public boolean hasLocation() {
+        return !Double.isNaN(latitude) && !Double.isNaN(longitude);
+    }
+
+    public long getRampMillis() {
+        return rampMinutes * 60_000L;
+    }
+
+    public @NonNull Mode getMode() {
+        return mode;
+    }
+
+    public int getStartMinute() {
+        return startMinute;
+    }
+
+    public int getEndMinute() {
+        return endMinute;
+    }
+
+    public int getRampMinutes() {
+        return rampMinutes;
+    }
+
+    public double getLatitude() {
+        return latitude;
+    }
+
+    public double getLongitude() {
+        return longitude;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o == null || getClass() != o.getClass()) return false;
+        Schedule that = (Schedule) o;
+        return startMinute == that.startMinute && endMinute == that.endMinute && rampMinutes == that.rampMinutes
+                && Double.compare(latitude, that.latitude) == 0 && Double.compare(longitude, that.longitude) == 0
+                && mode == that.mode;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(mode, startMinute, endMinute, rampMinutes, latitude, longitude);
+    }
+}
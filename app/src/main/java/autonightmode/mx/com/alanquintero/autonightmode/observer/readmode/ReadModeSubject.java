@@ -36,6 +36,16 @@ public class ReadModeSubject {
         observers.add(observer);
     }
 
+    /**
+     * Unregisters the given observer.
+     *
+     * @param observer the observer to remove
+     */
+    public void unregisterObserver(final @NonNull ReadModeObserver observer) {
+        Log.d(TAG, "unregisterObserver");
+        observers.remove(observer);
+    }
+
     /**
      * Unregister all observers.
      */
@@ -0,0 +1,108 @@
+/*****************************************************************
+ * Copyright (C) 2025 Alan Quintero <https://github.com/alanquintero/>
+ *****************************************************************/
+package autonightmode.mx.com.alanquintero.autonightmode.receiver;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.os.Build;
+import android.provider.Settings;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import autonightmode.mx.com.alanquintero.autonightmode.manager.ReadModeManager;
+import autonightmode.mx.com.alanquintero.autonightmode.model.OverlaySnapshot;
+import autonightmode.mx.com.alanquintero.autonightmode.schedule.ReadModeScheduler;
+import autonightmode.mx.com.alanquintero.autonightmode.service.DrawOverAppsService;
+import autonightmode.mx.com.alanquintero.autonightmode.service.OverlayClient;
+import autonightmode.mx.com.alanquintero.autonightmode.util.Constants;
+import autonightmode.mx.com.alanquintero.autonightmode.util.PrefsHelper;
+import autonightmode.mx.com.alanquintero.autonightmode.util.StartupTracer;
+
+/**
+ * BootReceiver restores the Read Mode overlay after a reboot or an app update, when Read Mode
+ * was ON or "auto start read mode" is enabled.
+ *
+ * <p>Only {@link DrawOverAppsService} is started, no UI class is loaded. The receiver is direct
+ * boot aware: on Android 7+ it runs on {@code LOCKED_BOOT_COMPLETED}, before the user unlocks
+ * the device, so the overlay is attached before the launcher draws its first frame.
+ * {@code BOOT_COMPLETED} is still handled for older versions and for the case where the
+ * settings could not be read while the device was locked.</p>
+ *
+ * <p>The alarm of the {@link ReadModeScheduler} is set again, and a transition missed while the
+ * device was OFF is applied instead of the saved state.</p>
+ *
+ * <p>The restore is timed with {@link StartupTracer}, from the process start until the service is
+ * requested. The service traces the attachment of the overlay.</p>
+ *
+ * @author Alan Quintero
+ */
+public class BootReceiver extends BroadcastReceiver {
+
+    private static final String TAG = BootReceiver.class.getSimpleName();
+
+    public static final String TRACE_NAME = "BootRestore";
+
+    @Override
+    public void onReceive(final @NonNull Context context, final @NonNull Intent intent) {
+        final String action = intent.getAction();
+        if (!Intent.ACTION_LOCKED_BOOT_COMPLETED.equals(action)
+                && !Intent.ACTION_BOOT_COMPLETED.equals(action)
+                && !Intent.ACTION_MY_PACKAGE_REPLACED.equals(action)) {
+            Log.w(TAG, "Ignoring unexpected action: " + action);
+            return;
+        }
+        final boolean isUnlocked = !Intent.ACTION_LOCKED_BOOT_COMPLETED.equals(action);
+        if (OverlayClient.isRunning(context)) {
+            Log.d(TAG, "Overlay already restored, nothing to do for " + action);
+            if (isUnlocked) {
+                // The tile service is not direct boot aware, so it is refreshed once unlocked
+                ReadModeManager.requestTileUpdate(context);
+            }
+            return;
+        }
+        StartupTracer.start(TRACE_NAME);
+        final Context appContext = context.getApplicationContext();
+
+        if (isUnlocked) {
+            // The device is unlocked, settings saved by older versions can be moved now
+            PrefsHelper.moveToDeviceProtectedStorage(appContext);
+        }
+        final PrefsHelper prefsHelper = PrefsHelper.init(appContext);
+        // Alarms do not survive a reboot, and a transition may have been missed while the device was OFF
+        if (ReadModeScheduler.update(appContext, prefsHelper)) {
+            Log.d(TAG, "Read Mode restored by the schedule");
+            StartupTracer.finish("schedule applied");
+            return;
+        }
+        final boolean isReadModeOn = prefsHelper.isReadModeOn();
+        final boolean isAutoStartReadMode = prefsHelper.getAutoStartReadMode();
+        StartupTracer.mark("settings read");
+
+        if (!isReadModeOn && !isAutoStartReadMode) {
+            Log.d(TAG, "Read Mode is OFF, nothing to restore");
+            StartupTracer.finish("nothing to restore");
+            return;
+        }
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M && !Settings.canDrawOverlays(appContext)) {
+            Log.w(TAG, "No overlay permission, Read Mode not restored");
+            StartupTracer.finish("no overlay permission");
+            return;
+        }
+        if (!isReadModeOn) {
+            // Same as opening the app with auto start enabled
+            prefsHelper.stageProperty(Constants.PREF_IS_READ_MODE_ON, true);
+            // The process may be gone once the broadcast is handled, nothing is left staged
+            prefsHelper.flushPendingProperties();
+        }
+
+        Log.i(TAG, "Restoring Read Mode after " + action);
+        OverlayClient.apply(appContext, OverlaySnapshot.from(prefsHelper).withReadModeOn(true));
+        if (isUnlocked) {
+            ReadModeManager.requestTileUpdate(appContext);
+        }
+        StartupTracer.finish("service requested");
+    }
+}
@@ -0,0 +1,161 @@
+/*****************************************************************
+ * Copyright (C) 2025 Alan Quintero <https://github.com/alanquintero/>
+ *****************************************************************/
+package autonightmode.mx.com.alanquintero.autonightmode.schedule;
+
+import android.app.AlarmManager;
+import android.app.PendingIntent;
+import android.content.Context;
+import android.content.Intent;
+import android.os.Build;
+import android.provider.Settings;
+import android.util.Log;
+
+import androidx.annotation.MainThread;
+import androidx.annotation.NonNull;
+import androidx.annotation.VisibleForTesting;
+import androidx.core.os.UserManagerCompat;
+
+import autonightmode.mx.com.alanquintero.autonightmode.manager.ReadModeManager;
+import autonightmode.mx.com.alanquintero.autonightmode.model.OverlaySnapshot;
+import autonightmode.mx.com.alanquintero.autonightmode.model.ReadModeSettings;
+import autonightmode.mx.com.alanquintero.autonightmode.model.Schedule;
+import autonightmode.mx.com.alanquintero.autonightmode.service.OverlayClient;
+import autonightmode.mx.com.alanquintero.autonightmode.util.Constants;
+import autonightmode.mx.com.alanquintero.autonightmode.util.PrefsHelper;
+
+import java.util.Calendar;
+import java.util.TimeZone;
+
+/**
+ * ReadModeScheduler applies the {@link Schedule} and keeps a single alarm set for its next transition.
+ *
+ * <p>Every update applies the last transition if it was not applied yet (the schedule was just
+ * enabled, the device was OFF at the transition time, the clock changed) and sets the alarm for the
+ * next one, so the schedule costs two alarms a day. The alarm is inexact and does not wake the
+ * device: a transition is only needed when somebody looks at the screen, a late alarm is delivered
+ * when the device wakes up. The ramps cost no alarm, the overlay draws them from the time of the
+ * transition while the screen is ON.</p>
+ *
+ * <p>A transition goes through the same path as the automation API: the state is written through
+ * the {@link PrefsHelper} fast path and the overlay gets the new snapshot through {@link OverlayClient}.
+ * {@code MainActivity} is never started.</p>
+ *
+ * <p>Every delivered alarm is counted per day and logged with the {@code ReadModeScheduler} tag,
+ * the count is kept in the settings ({@link PrefsHelper#getScheduleWakeupCount()}).</p>
+ *
+ * @author Alan Quintero
+ */
+public final class ReadModeScheduler {
+
+    private static final String TAG = ReadModeScheduler.class.getSimpleName();
+
+    // The system may deliver the alarm later, the ramp is anchored to the transition time anyway
+    private static final long ALARM_WINDOW_MS = 60_000L;
+
+    private ReadModeScheduler() {
+    }
+
+    /**
+     * Applies the last transition if needed and sets the alarm for the next one. When the schedule is
+     * OFF the alarm is cancelled.
+     *
+     * @return true if a transition was applied
+     */
+    @MainThread
+    public static boolean update(final @NonNull Context context, final @NonNull PrefsHelper prefsHelper) {
+        final Schedule schedule = Schedule.from(prefsHelper);
+        final AlarmManager alarmManager = (AlarmManager) context.getSystemService(Context.ALARM_SERVICE);
+        if (!schedule.isEnabled()) {
+            if (alarmManager != null) {
+                alarmManager.cancel(createAlarmIntent(context));
+            }
+            return false;
+        }
+        final long now = System.currentTimeMillis();
+        final TimeZone timeZone = TimeZone.getDefault();
+
+        boolean isApplied = false;
+        final ScheduleCalculator.Transition previous = ScheduleCalculator.getPreviousTransition(schedule, now, timeZone);
+        if (previous != null && previous.getTime() > prefsHelper.getScheduleLastTransition()) {
+            applyTransition(context, prefsHelper, schedule, previous, now);
+            prefsHelper.saveProperty(Constants.PREF_SCHEDULE_LAST_TRANSITION, previous.getTime());
+            isApplied = true;
+        }
+
+        final ScheduleCalculator.Transition next = ScheduleCalculator.getNextTransition(schedule, now, timeZone);
+        if (next != null && alarmManager != null) {
+            Log.d(TAG, "Next transition: " + next);
+            alarmManager.setWindow(AlarmManager.RTC, next.getTime(), ALARM_WINDOW_MS, createAlarmIntent(context));
+        }
+        return isApplied;
+    }
+
+    /**
+     * Called when the alarm is delivered: counts the wakeup and updates the schedule.
+     */
+    @MainThread
+    static void onAlarm(final @NonNull Context context, final @NonNull PrefsHelper prefsHelper) {
+        countWakeup(prefsHelper, System.currentTimeMillis(), TimeZone.getDefault());
+        update(context, prefsHelper);
+    }
+
+    /**
+     * Counts a delivered alarm in the wakeups of the current day.
+     *
+     * @return the wakeups of the current day, including this one
+     */
+    @VisibleForTesting
+    static int countWakeup(final @NonNull PrefsHelper prefsHelper, final long now, final @NonNull TimeZone timeZone) {
+        final Calendar calendar = Calendar.getInstance(timeZone);
+        calendar.setTimeInMillis(now);
+        final int day = calendar.get(Calendar.YEAR) * 10000 + (calendar.get(Calendar.MONTH) + 1) * 100
+                + calendar.get(Calendar.DAY_OF_MONTH);
+        final int count = prefsHelper.getScheduleWakeupDay() == day ? prefsHelper.getScheduleWakeupCount() + 1 : 1;
+        prefsHelper.saveProperty(Constants.PREF_SCHEDULE_WAKEUP_DAY, day);
+        prefsHelper.saveProperty(Constants.PREF_SCHEDULE_WAKEUP_COUNT, count);
+        Log.i(TAG, "Schedule wakeups on " + day + ": " + count);
+        return count;
+    }
+
+    /**
+     * Writes the Read Mode state of the transition and sends the overlay a snapshot with the ramp, if
+     * the ramp is not over yet. A ramp only runs when the state actually changes. When fading out, the
+     * overlay stays ON until the end of the ramp and then goes to standby on its own.
+     */
+    @VisibleForTesting
+    static void applyTransition(final @NonNull Context context, final @NonNull PrefsHelper prefsHelper,
+                                final @NonNull Schedule schedule, final @NonNull ScheduleCalculator.Transition transition,
+                                final long now) {
+        final boolean wasReadModeOn = prefsHelper.isReadModeOn();
+        final boolean isReadModeOn = transition.isReadModeOn();
+        Log.i(TAG, "Applying schedule transition " + transition);
+        if (wasReadModeOn != isReadModeOn) {
+            prefsHelper.stageProperty(Constants.PREF_IS_READ_MODE_ON, isReadModeOn);
+            // Keep the in-memory settings (shared with the UI) in sync with the staged value
+            prefsHelper.loadReadModeSettings(ReadModeSettings.init());
+            prefsHelper.flushPendingProperties();
+            if (UserManagerCompat.isUserUnlocked(context)) {
+                // The tile service is not direct boot aware
+                ReadModeManager.requestTileUpdate(context);
+                ReadModeManager.notifySettingsChanged(context, true);
+            }
+        }
+        if (isReadModeOn && Build.VERSION.SDK_INT >= Build.VERSION_CODES.M && !Settings.canDrawOverlays(context)) {
+            Log.w(TAG, "No overlay permission granted, Read Mode saved but not started");
+            return;
+        }
+        final long rampEnd = transition.getTime() + schedule.getRampMillis();
+        OverlaySnapshot snapshot = OverlaySnapshot.from(prefsHelper);
+        if (wasReadModeOn != isReadModeOn && now < rampEnd) {
+            snapshot = snapshot.withReadModeOn(true).withRamp(transition.getTime(), rampEnd, isReadModeOn);
+        }
+        OverlayClient.apply(context, snapshot);
+    }
+
+    private static @NonNull PendingIntent createAlarmIntent(final @NonNull Context context) {
+        final Intent intent = new Intent(context, ScheduleReceiver.class);
+        intent.setAction(ScheduleReceiver.ACTION_TRANSITION);
+        return PendingIntent.getBroadcast(context, 0, intent, PendingIntent.FLAG_IMMUTABLE | PendingIntent.FLAG_UPDATE_CURRENT);
+    }
+}
@@ -0,0 +1,158 @@
+/*****************************************************************
+ * Copyright (C) 2025 Alan Quintero <https://github.com/alanquintero/>
+ *****************************************************************/
+package autonightmode.mx.com.alanquintero.autonightmode.schedule;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import autonightmode.mx.com.alanquintero.autonightmode.model.Schedule;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.TimeZone;
+
+/**
+ * ScheduleCalculator turns a {@link Schedule} into the times at which Read Mode is turned ON and OFF.
+ *
+ * <p>Every day has one ON and one OFF transition: the start and end times, or the sunset and the
+ * sunrise computed by {@link SunCalculator}. On the days the sun does not set or rise, and when no
+ * location is saved, the SUN mode falls back to the start and end times. The ramps are not
+ * transitions, they are drawn by the overlay from the time of the transition, so a schedule costs
+ * two alarms a day whatever its ramp.</p>
+ *
+ * @author Alan Quintero
+ */
+public final class ScheduleCalculator {
+
+    // Sunrise and sunset can fall on the previous or next UTC day, look a bit further than a day around
+    private static final int DAYS_AROUND = 2;
+    private static final long MILLIS_PER_DAY = 24 * 60 * 60 * 1000L;
+
+    private static final Comparator<Transition> BY_TIME = (first, second) -> Long.compare(first.time, second.time);
+
+    /**
+     * A change of the Read Mode state at a given time.
+     */
+    public static final class Transition {
+
+        private final long time;
+        private final boolean isReadModeOn;
+
+        public Transition(final long time, final boolean isReadModeOn) {
+            this.time = time;
+            this.isReadModeOn = isReadModeOn;
+        }
+
+        public long getTime() {
+            return time;
+        }
+
+        public boolean isReadModeOn() {
+            return isReadModeOn;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (o == null || getClass() != o.getClass()) return false;
+            Transition that = (Transition) o;
+            return time == that.time && isReadModeOn == that.isReadModeOn;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(time, isReadModeOn);
+        }
+
+        @NonNull
+        @Override
+        public String toString() {
+            return (isReadModeOn ? "ON" : "OFF") + " at " + time;
+        }
+    }
+
+    private ScheduleCalculator() {
+    }
+
+    /**
+     * Returns the last transition at or before the given time, or null if the schedule is OFF.
+     * It tells the state Read Mode should be in now.
+     */
+    public static @Nullable Transition getPreviousTransition(final @NonNull Schedule schedule, final long now,
+                                                             final @NonNull TimeZone timeZone) {
+        final List<Transition> transitions = getTransitions(schedule, now - DAYS_AROUND * MILLIS_PER_DAY, now + 1, timeZone);
+        return transitions.isEmpty() ? null : transitions.get(transitions.size() - 1);
+    }
+
+    /**
+     * Returns the first transition after the given time, or null if the schedule is OFF.
+     */
+    public static @Nullable Transition getNextTransition(final @NonNull Schedule schedule, final long now,
+                                                         final @NonNull TimeZone timeZone) {
+        final List<Transition> transitions = getTransitions(schedule, now + 1, now + DAYS_AROUND * MILLIS_PER_DAY, timeZone);
+        return transitions.isEmpty() ? null : transitions.get(0);
+    }
+
+    /**
+     * Returns the transitions from {@code from} (inclusive) to {@code to} (exclusive), ordered by time.
+     * When the ON and OFF transitions fall at the same time, OFF comes last and wins.
+     */
+    public static @NonNull List<Transition> getTransitions(final @NonNull Schedule schedule, final long from, final long to,
+                                                           final @NonNull TimeZone timeZone) {
+        final List<Transition> transitions = new ArrayList<>();
+        if (!schedule.isEnabled() || from >= to) {
+            return transitions;
+        }
+        final Calendar day = Calendar.getInstance(timeZone);
+        day.setTimeInMillis(from);
+        day.add(Calendar.DAY_OF_MONTH, -1);
+        final Calendar lastDay = Calendar.getInstance(timeZone);
+        lastDay.setTimeInMillis(to);
+        lastDay.add(Calendar.DAY_OF_MONTH, 1);
+        while (!day.after(lastDay)) {
+            addTransitions(transitions, schedule, day, from, to);
+            day.add(Calendar.DAY_OF_MONTH, 1);
+        }
+        // Stable sort, the OFF transition of a day stays after its ON transition on a tie
+        Collections.sort(transitions, BY_TIME);
+        return transitions;
+    }
+
+    private static void addTransitions(final @NonNull List<Transition> transitions, final @NonNull Schedule schedule,
+                                       final @NonNull Calendar day, final long from, final long to) {
+        long on = SunCalculator.NO_EVENT;
+        long off = SunCalculator.NO_EVENT;
+        if (schedule.getMode() == Schedule.Mode.SUN && schedule.hasLocation()) {
+            final int year = day.get(Calendar.YEAR);
+            final int month = day.get(Calendar.MONTH);
+            final int dayOfMonth = day.get(Calendar.DAY_OF_MONTH);
+            on = SunCalculator.getSunset(year, month, dayOfMonth, schedule.getLatitude(), schedule.getLongitude());
+            off = SunCalculator.getSunrise(year, month, dayOfMonth, schedule.getLatitude(), schedule.getLongitude());
+        }
+        if (on == SunCalculator.NO_EVENT) {
+            on = getTimeOfDay(day, schedule.getStartMinute());
+        }
+        if (off == SunCalculator.NO_EVENT) {
+            off = getTimeOfDay(day, schedule.getEndMinute());
+        }
+        if (on >= from && on < to) {
+            transitions.add(new Transition(on, true));
+        }
+        if (off >= from && off < to) {
+            transitions.add(new Transition(off, false));
+        }
+    }
+
+    private static long getTimeOfDay(final @NonNull Calendar day, final int minuteOfDay) {
+        final Calendar time = (Calendar) day.clone();
+        time.set(Calendar.HOUR_OF_DAY, minuteOfDay / 60);
+        time.set(Calendar.MINUTE, minuteOfDay % 60);
+        time.set(Calendar.SECOND, 0);
+        time.set(Calendar.MILLISECOND, 0);
+        return time.getTimeInMillis();
+    }
+}
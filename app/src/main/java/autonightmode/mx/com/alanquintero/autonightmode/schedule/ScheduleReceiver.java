@@ -0,0 +1,44 @@
+/*****************************************************************
+ * Copyright (C) 2025 Alan Quintero <https://github.com/alanquintero/>
+ *****************************************************************/
+package autonightmode.mx.com.alanquintero.autonightmode.schedule;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import autonightmode.mx.com.alanquintero.autonightmode.util.PrefsHelper;
+
+/**
+ * ScheduleReceiver receives the alarm set by {@link ReadModeScheduler} for the next transition, and
+ * the clock and time zone changes, which move the transitions.
+ *
+ * <p>It runs in the main process, the only writer of the settings, and is direct boot aware: the
+ * settings live in device protected storage and an alarm can be delivered before the user unlocks
+ * the device.</p>
+ *
+ * @author Alan Quintero
+ */
+public class ScheduleReceiver extends BroadcastReceiver {
+
+    private static final String TAG = ScheduleReceiver.class.getSimpleName();
+
+    static final String ACTION_TRANSITION = "autonightmode.mx.com.alanquintero.autonightmode.schedule.TRANSITION";
+
+    @Override
+    public void onReceive(final @NonNull Context context, final @NonNull Intent intent) {
+        final String action = intent.getAction();
+        final Context appContext = context.getApplicationContext();
+        if (ACTION_TRANSITION.equals(action)) {
+            ReadModeScheduler.onAlarm(appContext, PrefsHelper.init(appContext));
+        } else if (Intent.ACTION_TIME_CHANGED.equals(action) || Intent.ACTION_TIMEZONE_CHANGED.equals(action)) {
+            Log.d(TAG, "Clock changed, updating the schedule");
+            ReadModeScheduler.update(appContext, PrefsHelper.init(appContext));
+        } else {
+            Log.w(TAG, "Ignoring unexpected action: " + action);
+        }
+    }
+}
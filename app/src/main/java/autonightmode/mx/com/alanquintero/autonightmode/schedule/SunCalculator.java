@@ -0,0 +1,82 @@
+/*****************************************************************
+ * Copyright (C) 2025 Alan Quintero <https://github.com/alanquintero/>
+ *****************************************************************/
+package autonightmode.mx.com.alanquintero.autonightmode.schedule;
+
+import java.util.Calendar;
+import java.util.TimeZone;
+
+/**
+ * SunCalculator computes the sunrise and sunset of a day at a location, offline.
+ *
+ * <p>It uses the general solar position equations published by the NOAA Global Monitoring
+ * Laboratory: the equation of time and the solar declination are approximated from the fractional
+ * year, and the sun rises and sets when its center is 0.833 degrees below the horizon (refraction
+ * and the radius of the sun). The result is within a couple of minutes of the almanac between the polar circles,
+ * which is more than enough to turn a screen filter ON and OFF.</p>
+ *
+ * @author Alan Quintero
+ */
+public final class SunCalculator {
+
+    // Returned when the sun does not rise (polar night) or does not set (midnight sun) that day
+    public static final long NO_EVENT = Long.MIN_VALUE;
+
+    private static final double ZENITH = Math.toRadians(90.833);
+    private static final long MILLIS_PER_MINUTE = 60_000L;
+    private static final TimeZone UTC = TimeZone.getTimeZone("UTC");
+
+    private SunCalculator() {
+    }
+
+    /**
+     * Returns the time of the sunrise on the given date, or {@link #NO_EVENT}.
+     *
+     * @param year      the year
+     * @param month     the month, 0 based as in {@link Calendar}
+     * @param day       the day of the month
+     * @param latitude  the latitude in degrees, positive to the north
+     * @param longitude the longitude in degrees, positive to the east
+     */
+    public static long getSunrise(final int year, final int month, final int day, final double latitude, final double longitude) {
+        return getEvent(year, month, day, latitude, longitude, true);
+    }
+
+    /**
+     * Returns the time of the sunset on the given date, or {@link #NO_EVENT}.
+     *
+     * @see #getSunrise(int, int, int, double, double)
+     */
+    public static long getSunset(final int year, final int month, final int day, final double latitude, final double longitude) {
+        return getEvent(year, month, day, latitude, longitude, false);
+    }
+
+    private static long getEvent(final int year, final int month, final int day, final double latitude, final double longitude,
+                                 final boolean isSunrise) {
+        final Calendar calendar = Calendar.getInstance(UTC);
+        calendar.clear();
+        calendar.set(year, month, day);
+        final double daysInYear = calendar.getActualMaximum(Calendar.DAY_OF_YEAR);
+        // Fractional year, in radians, at noon
+        final double gamma = 2 * Math.PI / daysInYear * (calendar.get(Calendar.DAY_OF_YEAR) - 1);
+
+        // Equation of time, in minutes, and solar declination, in radians
+        final double equationOfTime = 229.18 * (0.000075 + 0.001868 * Math.cos(gamma) - 0.032077 * Math.sin(gamma)
+                - 0.014615 * Math.cos(2 * gamma) - 0.040849 * Math.sin(2 * gamma));
+        final double declination = 0.006918 - 0.399912 * Math.cos(gamma) + 0.070257 * Math.sin(gamma)
+                - 0.006758 * Math.cos(2 * gamma) + 0.000907 * Math.sin(2 * gamma)
+                - 0.002697 * Math.cos(3 * gamma) + 0.00148 * Math.sin(3 * gamma);
+
+        final double latitudeRadians = Math.toRadians(latitude);
+        final double cosHourAngle = Math.cos(ZENITH) / (Math.cos(latitudeRadians) * Math.cos(declination))
+                - Math.tan(latitudeRadians) * Math.tan(declination);
+        if (cosHourAngle < -1 || cosHourAngle > 1) {
+            return NO_EVENT;
+        }
+        final double hourAngle = Math.toDegrees(Math.acos(cosHourAngle));
+
+        // Minutes from midnight UTC, negative or over a day when the local day does not match the UTC day
+        final double minutes = 720 - 4 * (longitude + (isSunrise ? hourAngle : -hourAngle)) - equationOfTime;
+        return calendar.getTimeInMillis() + Math.round(minutes * MILLIS_PER_MINUTE);
+    }
+}
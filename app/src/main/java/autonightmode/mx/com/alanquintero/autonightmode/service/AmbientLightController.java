@@ -0,0 +1,179 @@
+/*****************************************************************
+ * Copyright (C) 2025 Alan Quintero <https://github.com/alanquintero/>
+ *****************************************************************/
+package autonightmode.mx.com.alanquintero.autonightmode.service;
+
+import android.hardware.Sensor;
+import android.hardware.SensorEvent;
+import android.hardware.SensorEventListener;
+import android.hardware.SensorManager;
+import android.os.Handler;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+
+/**
+ * AmbientLightController tells {@link DrawOverAppsService} at which level to draw the overlay for the
+ * ambient light: the saved settings in the dark, a lighter overlay in a bright room.
+ *
+ * <p>The light sensor is registered with a long maximum report latency, so the readings are kept in
+ * the sensor hub FIFO and delivered in batches instead of waking the application processor on every
+ * reading. Each reading goes through a low-pass filter that uses the timestamp of the reading, so a
+ * batch is filtered as if it was delivered in real time, and the filtered value is quantised into a
+ * few lux steps with hysteresis: the listener is only called when the step changes, the overlay is
+ * not redrawn for the small changes of a lamp or a passing shadow.</p>
+ *
+ * <p>The service stops the controller while the screen is OFF, the sensor is not registered then.</p>
+ *
+ * @author Alan Quintero
+ */
+class AmbientLightController implements SensorEventListener {
+
+    private static final String TAG = AmbientLightController.class.getSimpleName();
+
+    /**
+     * Receives the overlay level when the ambient light step changes.
+     */
+    interface Listener {
+        void onAmbientLevel(float level);
+    }
+
+    // One reading per second, delivered in batches of up to 10 seconds
+    @VisibleForTesting
+    static final int SAMPLING_PERIOD_US = 1_000_000;
+    @VisibleForTesting
+    static final int MAX_REPORT_LATENCY_US = 10_000_000;
+
+    private static final float TIME_CONSTANT_S = 3f;
+    private static final float NANOS_PER_SECOND = 1_000_000_000f;
+    // A step is left when the light is this much past its boundary
+    private static final float HYSTERESIS = 0.2f;
+    // Boundaries of the steps in lux: dark room, dim room, living room, office, bright indoor, daylight
+    private static final float[] STEP_LUX = {10f, 50f, 200f, 1000f, 5000f};
+    // Overlay level of each step, the saved settings are drawn in the dark
+    private static final float[] STEP_LEVELS = {1f, 0.85f, 0.7f, 0.55f, 0.4f, 0.25f};
+
+    private final @NonNull SensorManager sensorManager;
+    private final @NonNull Handler handler;
+    private final @NonNull Listener listener;
+
+    private @Nullable Sensor lightSensor;
+    private boolean isStarted = false;
+    // Filter state, reset when the controller stops
+    private float filteredLux = Float.NaN;
+    private long lastTimestamp = 0;
+    // Current step, -1 until the first reading
+    private int step = -1;
+
+    AmbientLightController(final @NonNull SensorManager sensorManager, final @NonNull Handler handler,
+                           final @NonNull Listener listener) {
+        this.sensorManager = sensorManager;
+        this.handler = handler;
+        this.listener = listener;
+    }
+
+    /**
+     * Registers the light sensor. Does nothing if the device has none.
+     */
+    void start() {
+        if (isStarted) {
+            return;
+        }
+        if (lightSensor == null) {
+            lightSensor = sensorManager.getDefaultSensor(Sensor.TYPE_LIGHT);
+        }
+        if (lightSensor == null) {
+            Log.w(TAG, "No light sensor, the overlay is drawn at its saved level");
+            return;
+        }
+        isStarted = sensorManager.registerListener(this, lightSensor, SAMPLING_PERIOD_US, MAX_REPORT_LATENCY_US, handler);
+        Log.d(TAG, "Light sensor registered: " + isStarted);
+    }
+
+    /**
+     * Unregisters the light sensor. The current level is kept until the next reading after {@link #start()}.
+     */
+    void stop() {
+        if (!isStarted) {
+            return;
+        }
+        isStarted = false;
+        sensorManager.unregisterListener(this);
+        filteredLux = Float.NaN;
+        Log.d(TAG, "Light sensor unregistered");
+    }
+
+    boolean isStarted() {
+        return isStarted;
+    }
+
+    /**
+     * Returns the level of the overlay for the current step, 1 before the first reading.
+     */
+    float getLevel() {
+        return step < 0 ? 1f : STEP_LEVELS[step];
+    }
+
+    @Override
+    public void onSensorChanged(final @NonNull SensorEvent event) {
+        onLux(event.timestamp, event.values[0]);
+    }
+
+    @Override
+    public void onAccuracyChanged(final @NonNull Sensor sensor, final int accuracy) {
+        // The accuracy of the light sensor does not change the steps
+    }
+
+    @VisibleForTesting
+    void onLux(final long timestamp, final float lux) {
+        if (Float.isNaN(filteredLux)) {
+            filteredLux = lux;
+        } else {
+            filteredLux = filter(filteredLux, lux, (timestamp - lastTimestamp) / NANOS_PER_SECOND);
+        }
+        lastTimestamp = timestamp;
+
+        final int newStep = getStep(step, filteredLux);
+        if (newStep != step) {
+            Log.d(TAG, "Ambient light step " + step + " -> " + newStep + " (" + filteredLux + " lux)");
+            step = newStep;
+            listener.onAmbientLevel(getLevel());
+        }
+    }
+
+    /**
+     * Moves the filtered value towards the reading, by the time elapsed since the previous one.
+     */
+    @VisibleForTesting
+    static float filter(final float filteredLux, final float lux, final float elapsedSeconds) {
+        if (elapsedSeconds <= 0) {
+            return filteredLux;
+        }
+        return filteredLux + (lux - filteredLux) * elapsedSeconds / (TIME_CONSTANT_S + elapsedSeconds);
+    }
+
+    /**
+     * Returns the step of the given light. From a current step, a boundary is only crossed when the
+     * light is {@link #HYSTERESIS} past it.
+     */
+    @VisibleForTesting
+    static int getStep(final int currentStep, final float lux) {
+        if (currentStep < 0) {
+            int step = 0;
+            while (step < STEP_LUX.length && lux >= STEP_LUX[step]) {
+                step++;
+            }
+            return step;
+        }
+        int step = currentStep;
+        while (step < STEP_LUX.length && lux > STEP_LUX[step] * (1 + HYSTERESIS)) {
+            step++;
+        }
+        while (step > 0 && lux < STEP_LUX[step - 1] * (1 - HYSTERESIS)) {
+            step--;
+        }
+        return step;
+    }
+}
@@ -0,0 +1,212 @@
+/*****************************************************************
+ * Copyright (C) 2025 Alan Quintero <https://github.com/alanquintero/>
+ *****************************************************************/
+package autonightmode.mx.com.alanquintero.autonightmode.service;
+
+import android.content.ContentResolver;
+import android.content.SharedPreferences;
+import android.os.Handler;
+import android.os.SystemClock;
+import android.provider.Settings;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.VisibleForTesting;
+
+/**
+ * BacklightController moves the dimming of the overlay into the backlight of the built-in display,
+ * for the hybrid dimming of {@link DrawOverAppsService}.
+ *
+ * <p>A black overlay makes the screen look darker but the backlight still burns the same power, and
+ * the compositor has to blend the layer. With the hybrid dimming the system brightness
+ * ({@link Settings.System#SCREEN_BRIGHTNESS}) is lowered as far as it can go for the dim level, and
+ * the overlay only draws the dimming left, usually none, and the tint. It needs the
+ * {@code WRITE_SETTINGS} access granted by the user.</p>
+ *
+ * <p>The brightness and the brightness mode of the user are saved when the controller starts and
+ * restored when it stops. They are also kept in the given preferences until then: if the process is
+ * killed while the backlight is lowered, the next start restores them from there instead of taking
+ * the lowered backlight as the brightness of the user. Writes are throttled to one per {@link #MIN_WRITE_INTERVAL_MS}, the latest
+ * requested brightness wins, and the listener is called once a write is done, so the overlay is drawn
+ * again for the backlight actually in effect.</p>
+ *
+ * @author Alan Quintero
+ */
+class BacklightController {
+
+    private static final String TAG = BacklightController.class.getSimpleName();
+
+    /**
+     * Called when the backlight changed, the overlay has to be drawn again.
+     */
+    interface Listener {
+        void onBacklightChanged();
+    }
+
+    private static final int MAX_ALPHA = 255;
+    // The backlight is never lowered under this, the screen must stay readable
+    @VisibleForTesting
+    static final int MIN_BACKLIGHT = 10;
+    @VisibleForTesting
+    static final long MIN_WRITE_INTERVAL_MS = 500;
+    @VisibleForTesting
+    static final String KEY_ORIGINAL_BRIGHTNESS = "ORIGINAL_BRIGHTNESS";
+    @VisibleForTesting
+    static final String KEY_ORIGINAL_MODE = "ORIGINAL_BRIGHTNESS_MODE";
+
+    private final @NonNull ContentResolver contentResolver;
+    // Brightness and mode of the user while the backlight is controlled
+    private final @NonNull SharedPreferences state;
+    private final @NonNull Handler handler;
+    private final @NonNull Listener listener;
+    private final @NonNull Runnable write = this::write;
+
+    private boolean isStarted = false;
+    private int originalBrightness;
+    private int originalMode;
+    // Brightness written, and brightness waiting for the next write
+    private int appliedBrightness;
+    private int requestedBrightness;
+    private long lastWriteTime = 0;
+
+    BacklightController(final @NonNull ContentResolver contentResolver, final @NonNull SharedPreferences state,
+                        final @NonNull Handler handler, final @NonNull Listener listener) {
+        this.contentResolver = contentResolver;
+        this.state = state;
+        this.handler = handler;
+        this.listener = listener;
+    }
+
+    /**
+     * Saves the brightness of the user and switches the brightness to manual. The brightness saved
+     * by a previous process that was killed before it stopped is used instead, the system one is
+     * still lowered.
+     *
+     * @return true if the backlight is controlled
+     */
+    boolean start() {
+        if (isStarted) {
+            return true;
+        }
+        final boolean isRestored = state.contains(KEY_ORIGINAL_BRIGHTNESS);
+        try {
+            if (isRestored) {
+                originalBrightness = state.getInt(KEY_ORIGINAL_BRIGHTNESS, 0);
+                originalMode = state.getInt(KEY_ORIGINAL_MODE, Settings.System.SCREEN_BRIGHTNESS_MODE_MANUAL);
+                Log.i(TAG, "Backlight was not restored by the previous process, user brightness: " + originalBrightness);
+            } else {
+                originalBrightness = Settings.System.getInt(contentResolver, Settings.System.SCREEN_BRIGHTNESS);
+                originalMode = Settings.System.getInt(contentResolver, Settings.System.SCREEN_BRIGHTNESS_MODE,
+                        Settings.System.SCREEN_BRIGHTNESS_MODE_MANUAL);
+                // Written right away, the process can be killed at any time once the backlight is lowered
+                state.edit()
+                        .putInt(KEY_ORIGINAL_BRIGHTNESS, originalBrightness)
+                        .putInt(KEY_ORIGINAL_MODE, originalMode)
+                        .commit();
+            }
+            if (originalMode != Settings.System.SCREEN_BRIGHTNESS_MODE_MANUAL) {
+                // The automatic brightness would override the backlight set here
+                Settings.System.putInt(contentResolver, Settings.System.SCREEN_BRIGHTNESS_MODE,
+                        Settings.System.SCREEN_BRIGHTNESS_MODE_MANUAL);
+            }
+        } catch (Settings.SettingNotFoundException | SecurityException e) {
+            Log.w(TAG, "Cannot control the backlight", e);
+            if (!isRestored) {
+                // Nothing was changed, there is nothing to restore
+                state.edit().clear().commit();
+            }
+            return false;
+        }
+        Log.d(TAG, "Backlight controlled, user brightness: " + originalBrightness);
+        // The backlight may still be lowered by the previous process, it is written again on the next dim
+        appliedBrightness = Settings.System.getInt(contentResolver, Settings.System.SCREEN_BRIGHTNESS, originalBrightness);
+        requestedBrightness = appliedBrightness;
+        isStarted = true;
+        return true;
+    }
+
+    /**
+     * Restores the brightness and the brightness mode of the user.
+     */
+    void stop() {
+        if (!isStarted) {
+            return;
+        }
+        isStarted = false;
+        handler.removeCallbacks(write);
+        try {
+            Settings.System.putInt(contentResolver, Settings.System.SCREEN_BRIGHTNESS, originalBrightness);
+            if (originalMode != Settings.System.SCREEN_BRIGHTNESS_MODE_MANUAL) {
+                Settings.System.putInt(contentResolver, Settings.System.SCREEN_BRIGHTNESS_MODE, originalMode);
+            }
+            Log.d(TAG, "User brightness restored: " + originalBrightness);
+        } catch (SecurityException e) {
+            Log.w(TAG, "Cannot restore the user brightness, the access was revoked", e);
+        }
+        // Once the access is revoked it can't be restored later either
+        state.edit().clear().commit();
+    }
+
+    boolean isStarted() {
+        return isStarted;
+    }
+
+    /**
+     * Requests the backlight for the given dim alpha of the overlay.
+     *
+     * @return the dim alpha the overlay has to draw on top of the backlight in effect
+     */
+    int dim(final int dimAlpha) {
+        if (!isStarted) {
+            return dimAlpha;
+        }
+        final int brightness = getBacklight(originalBrightness, dimAlpha);
+        if (brightness != requestedBrightness) {
+            requestedBrightness = brightness;
+            handler.removeCallbacks(write);
+            // Always posted, the listener draws the overlay again and must not be called from here
+            handler.postDelayed(write, Math.max(0, lastWriteTime + MIN_WRITE_INTERVAL_MS - SystemClock.uptimeMillis()));
+        }
+        return getResidualDimAlpha(originalBrightness, appliedBrightness, dimAlpha);
+    }
+
+    private void write() {
+        if (!isStarted || requestedBrightness == appliedBrightness) {
+            return;
+        }
+        try {
+            Settings.System.putInt(contentResolver, Settings.System.SCREEN_BRIGHTNESS, requestedBrightness);
+        } catch (SecurityException e) {
+            Log.w(TAG, "Cannot write the backlight, the access was revoked", e);
+            return;
+        }
+        appliedBrightness = requestedBrightness;
+        lastWriteTime = SystemClock.uptimeMillis();
+        listener.onBacklightChanged();
+    }
+
+    /**
+     * Returns the backlight that shows the user brightness dimmed by the given overlay alpha.
+     */
+    @VisibleForTesting
+    static int getBacklight(final int originalBrightness, final int dimAlpha) {
+        final float kept = 1f - dimAlpha / (float) MAX_ALPHA;
+        final int brightness = Math.round(originalBrightness * kept);
+        return Math.max(Math.min(originalBrightness, MIN_BACKLIGHT), brightness);
+    }
+
+    /**
+     * Returns the overlay alpha still needed to dim the user brightness by the given alpha, once the
+     * backlight is at the given brightness.
+     */
+    @VisibleForTesting
+    static int getResidualDimAlpha(final int originalBrightness, final int appliedBrightness, final int dimAlpha) {
+        if (originalBrightness <= 0 || appliedBrightness <= 0) {
+            return dimAlpha;
+        }
+        final float kept = 1f - dimAlpha / (float) MAX_ALPHA;
+        final float backlightKept = appliedBrightness / (float) originalBrightness;
+        final float overlayKept = Math.min(1f, kept / backlightKept);
+        return Math.round(MAX_ALPHA * (1f - overlayKept));
+    }
+}
@@ -3,37 +3,47 @@
  *****************************************************************/
 package autonightmode.mx.com.alanquintero.autonightmode.service;
 
-import android.app.NotificationChannel;
 import android.app.NotificationManager;
-import android.app.PendingIntent;
 import android.app.Service;
+import android.app.usage.UsageStatsManager;
 import android.content.Context;
 import android.content.Intent;
+import android.content.SharedPreferences;
 import android.content.pm.ServiceInfo;
 import android.graphics.Canvas;
-import android.graphics.Color;
-import android.graphics.PixelFormat;
+import android.hardware.SensorManager;
+import android.hardware.display.DisplayManager;
 import android.os.Build;
 import android.os.Handler;
+import android.os.HandlerThread;
 import android.os.IBinder;
 import android.os.Looper;
+import android.os.PowerManager;
+import android.os.Process;
 import android.provider.Settings;
 import android.service.notification.StatusBarNotification;
 import android.util.Log;
+import android.view.Choreographer;
+import android.view.Display;
 import android.view.View;
 import android.view.WindowManager;
 
 import androidx.annotation.NonNull;
-import androidx.annotation.RequiresApi;
+import androidx.annotation.Nullable;
 import androidx.annotation.VisibleForTesting;
-import androidx.core.app.NotificationCompat;
 
-import autonightmode.mx.com.alanquintero.autonightmode.R;
-import autonightmode.mx.com.alanquintero.autonightmode.ui.MainActivity;
+import autonightmode.mx.com.alanquintero.autonightmode.model.AppProfiles;
+import autonightmode.mx.com.alanquintero.autonightmode.model.OverlaySnapshot;
 import autonightmode.mx.com.alanquintero.autonightmode.util.Constants;
+import autonightmode.mx.com.alanquintero.autonightmode.util.MemoryTrimPolicy;
+import autonightmode.mx.com.alanquintero.autonightmode.util.PerfTrace;
 import autonightmode.mx.com.alanquintero.autonightmode.util.PrefsHelper;
+import autonightmode.mx.com.alanquintero.autonightmode.util.StartupTracer;
 
 import java.lang.ref.WeakReference;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * DrawOverAppsService is an Android foreground service responsible for creating
@@ -50,16 +60,39 @@ import java.lang.ref.WeakReference;
  * <ul>
  *     <li>Adjustable screen color filter (predefined colors or custom color)</li>
  *     <li>Adjustable color intensity and brightness</li>
- *     <li>Foreground notification for persistent service behavior</li>
+ *     <li>Foreground notification for persistent service behavior, with controls to start/stop,
+ *     dim/brighten and change the color without opening the app</li>
  *     <li>Automatic handling of overlay permissions on Android M and above</li>
+ *     <li>One overlay per connected display (external displays, desktop mode, foldables),
+ *     managed by {@link OverlayManager} on a dedicated render thread: the main thread publishes
+ *     immutable {@link OverlayFrame}s, the overlay windows never wait for the UI of the app</li>
+ *     <li>Periodic work is suspended while the screen is OFF, see {@link ScreenStateController}</li>
+ *     <li>Fade in and fade out ramps set by the schedule, drawn by {@link RampAnimator} while the
+ *     screen is ON</li>
+ *     <li>Optional adaptation to the ambient light, read in batches by {@link AmbientLightController}
+ *     while the screen is ON</li>
+ *     <li>Per-app profiles: the profile of the foreground app, tracked by {@link ForegroundAppTracker}
+ *     while the screen is ON, is drawn by the same overlay windows</li>
+ *     <li>The overlay fades in and out when Read Mode is turned ON or OFF, see {@link OverlayTransition}</li>
+ *     <li>Optional hybrid dimming: with the access to the system settings, {@link BacklightController}
+ *     lowers the backlight of the built-in display and the overlay only draws the dimming left</li>
+ *     <li>The overlay can cover the whole screen, a reading band or the screen around the band, see
+ *     {@link autonightmode.mx.com.alanquintero.autonightmode.model.OverlayRegion}</li>
+ *     <li>Can run in its own {@code :overlay} process (the {@code overlayProcess} manifest placeholder),
+ *     which only loads the settings store and the overlay classes, not the UI</li>
  * </ul>
  * </p>
  *
  * <p>Usage:
  * <ul>
- *     <li>The service can be started from an activity with startService(intent)</li>
- *     <li>Color, intensity, and brightness are read from SharedPreferences</li>
- *     <li>The overlay is updated when preferences change using {@link #onUpdate()}</li>
+ *     <li>The service is started and updated through {@link OverlayClient}, each command carries
+ *     the complete {@link OverlaySnapshot} to draw</li>
+ *     <li>Color, intensity, and brightness are only read from SharedPreferences when the service
+ *     is started without a snapshot, e.g. restarted by the system</li>
+ *     <li>The service never writes the settings, the notification controls are handled by
+ *     {@link NotificationActionReceiver} in the main process</li>
+ *     <li>When Read Mode is stopped the overlay goes to standby and the service stops itself
+ *     after {@link PrefsHelper#getStandbyTimeout()} ms</li>
  * </ul>
  * </p>
  *
@@ -74,197 +107,681 @@ public class DrawOverAppsService extends Service {
 
     private static final String TAG = DrawOverAppsService.class.getSimpleName();
 
-    @RequiresApi(Build.VERSION_CODES.O)
-    private static final String CHANNEL_ID = "read_mode_channel";
+    public static final String TRACE_NAME = "OverlayStart";
 
-    private boolean isReadModeEnabled = Constants.DEFAULT_IS_READ_MODE_ENABLED;
     @VisibleForTesting
     @NonNull
-    String screenColor = Constants.DEFAULT_COLOR_WHITE;
+    OverlaySnapshot snapshot = new OverlaySnapshot(Constants.DEFAULT_IS_READ_MODE_ENABLED, Constants.DEFAULT_COLOR_WHITE,
+            Constants.DEFAULT_CUSTOM_COLOR, Constants.DEFAULT_COLOR_TEMPERATURE, Constants.DEFAULT_COLOR_INTENSITY, Constants.DEFAULT_BRIGHTNESS);
+
+    // Only created and released on the main thread, used on the render thread
     @VisibleForTesting
-    int colorIntensity = Constants.DEFAULT_COLOR_INTENSITY;
+    OverlayManager overlayManager;
     @VisibleForTesting
-    int brightness = Constants.DEFAULT_BRIGHTNESS;
-
+    ScreenStateController screenStateController;
     @VisibleForTesting
-    View mView;
+    PrefsHelper prefsHelper;
     @VisibleForTesting
-    WindowManager.LayoutParams mParams;
+    ReadModeNotification readModeNotification;
     @VisibleForTesting
-    WindowManager mWindowManager;
+    RampAnimator rampAnimator;
     @VisibleForTesting
-    PrefsHelper prefsHelper;
+    AmbientLightController ambientLightController;
+    @VisibleForTesting
+    ForegroundAppTracker foregroundAppTracker;
+    @VisibleForTesting
+    BacklightController backlightController;
+
+    // Level of the ramp of the snapshot, 1 when it has no ramp
+    @VisibleForTesting
+    float rampLevel = 1f;
+    // Level set by the ambient light, 1 when the snapshot does not adapt to it
+    @VisibleForTesting
+    float ambientLevel = 1f;
+    // Profile of the foreground app, null when it has none
+    @VisibleForTesting
+    @Nullable
+    AppProfiles.Profile appProfile;
+    // Snapshot drawn for the profile, computed again only when the snapshot or the profile changes
+    private @Nullable OverlaySnapshot drawnSnapshot;
+    private @Nullable OverlaySnapshot drawnBase;
+    private @Nullable AppProfiles.Profile drawnProfile;
 
     private final Handler handler = new Handler(Looper.getMainLooper());
 
+    // Thread that owns the overlay windows: they are added, updated and removed on its looper, so the
+    // work of the UI on the main thread does not delay the overlay, and the other way around
+    private @Nullable HandlerThread renderThread;
+    @VisibleForTesting
+    Handler renderHandler;
+    // Replaces the render thread in tests
+    @VisibleForTesting
+    static @Nullable Looper renderLooperOverride;
+    // Latest frame published by the main thread, read by the render thread and by onDraw without a lock
+    private final AtomicReference<OverlayFrame> frame = new AtomicReference<>();
+    // True while a frame is posted to the render thread, a burst of updates only draws the latest frame
+    private final AtomicBoolean isFramePosted = new AtomicBoolean(false);
+    // Frame applied to the overlays, only used on the render thread
+    private @Nullable OverlayFrame renderedFrame;
+    private @Nullable Runnable renderFrame;
+
     private Runnable notificationMonitor;
 
+    // True while the screen is OFF, periodic work is not scheduled
+    @VisibleForTesting
+    boolean isSuspended = false;
+    // True while the overlay windows are removed during doze
+    @VisibleForTesting
+    boolean isOverlayDetached = false;
+
+    @VisibleForTesting
+    final Runnable standbyTimeout = () -> {
+        Log.d(TAG, "Standby timeout reached, stopping service");
+        stopSelf();
+    };
+
     @VisibleForTesting
     static WeakReference<DrawOverAppsService> instanceRef;
 
     @Override
     public void onCreate() {
-        super.onCreate();
-        Log.d(TAG, "Service onCreate");
-
-        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M && !Settings.canDrawOverlays(this)) {
-            Log.w(TAG, "No overlay permission, stopping service");
-            stopSelf();
-            return;
-        }
-
-        mWindowManager = (WindowManager) getSystemService(WINDOW_SERVICE);
+        PerfTrace.begin("DrawOverAppsService.onCreate");
+        try {
+            super.onCreate();
+            Log.d(TAG, "Service onCreate");
+            // The next commands are plain start commands, in every process of the app
+            OverlayClient.reportServiceState(this, true);
+
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M && !Settings.canDrawOverlays(this)) {
+                Log.w(TAG, "No overlay permission, stopping service");
+                stopSelf();
+                return;
+            }
 
-        final int windowType = Build.VERSION.SDK_INT >= Build.VERSION_CODES.O
-                ? WindowManager.LayoutParams.TYPE_APPLICATION_OVERLAY
-                : WindowManager.LayoutParams.TYPE_SYSTEM_OVERLAY;
+            if (!StartupTracer.isTracing()) {
+                // In its own process the overlay is not traced by the entry point that started it
+                StartupTracer.start(TRACE_NAME);
+            }
+            prefsHelper = PrefsHelper.init(this);
+            readSettings();
+
+            // One overlay window per display is attached for the whole lifetime of the service. When Read
+            // Mode is OFF they stay in standby (attached but not drawing), so turning it ON is just a redraw.
+            startRenderThread();
+            // Created before the first frame, which asks it for the dim alpha of the built-in display
+            backlightController = new BacklightController(getContentResolver(), getBacklightState(), handler,
+                    createBacklightListener());
+            updateBacklight();
+            overlayManager = new OverlayManager((DisplayManager) getSystemService(DISPLAY_SERVICE), createOverlayHost(), renderHandler);
+            final OverlayManager manager = overlayManager;
+            renderFrame = () -> {
+                isFramePosted.set(false);
+                final OverlayFrame next = frame.get();
+                final OverlayFrame previous = renderedFrame;
+                renderedFrame = next;
+                if (previous != null && next.isOnlyRegionChanged(previous)) {
+                    // The band is moved or resized: the windows are laid out again, their content is not redrawn
+                    manager.applyRegion(next.getSnapshot());
+                } else {
+                    manager.apply(next.getSnapshot());
+                }
+            };
+            startOverlays();
+            applyOverlayState();
+            StartupTracer.finish("overlay attached");
+
+            rampAnimator = new RampAnimator(Choreographer.getInstance(), createRampListener());
+            final SensorManager sensorManager = (SensorManager) getSystemService(SENSOR_SERVICE);
+            if (sensorManager != null) {
+                ambientLightController = new AmbientLightController(sensorManager, handler, createAmbientLightListener());
+            }
+            final UsageStatsManager usageStatsManager = Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP_MR1
+                    ? (UsageStatsManager) getSystemService(USAGE_STATS_SERVICE) : null;
+            foregroundAppTracker = new ForegroundAppTracker(usageStatsManager, handler, this::onForegroundAppChanged);
+            foregroundAppTracker.setPushSource(ForegroundAccessibilityService.isConnected());
 
-        mParams = new WindowManager.LayoutParams(
-                WindowManager.LayoutParams.MATCH_PARENT,
-                WindowManager.LayoutParams.MATCH_PARENT,
-                windowType,
-                WindowManager.LayoutParams.FLAG_NOT_FOCUSABLE |
-                        WindowManager.LayoutParams.FLAG_NOT_TOUCHABLE |
-                        WindowManager.LayoutParams.FLAG_LAYOUT_IN_SCREEN,
-                PixelFormat.TRANSLUCENT);
+            startNotification();
 
-        prefsHelper = PrefsHelper.init(this);
-        isReadModeEnabled = prefsHelper.isReadModeOn();
-        colorIntensity = prefsHelper.getColorIntensity();
-        brightness = prefsHelper.getBrightness();
+            instanceRef = new WeakReference<>(this);
+            monitorNotification();
 
-        if (!isReadModeEnabled) {
-            Log.d(TAG, "Read mode is OFF, adding overlay view");
-            mView = new MyLoadView(this);
-            mWindowManager.addView(mView, mParams);
+            screenStateController = new ScreenStateController(this, (PowerManager) getSystemService(POWER_SERVICE),
+                    (DisplayManager) getSystemService(DISPLAY_SERVICE), handler, createScreenStateListener());
+            screenStateController.start();
+        } finally {
+            PerfTrace.end();
         }
-
-        // Delaying the notification creation slightly, in order to give That gives Android a brief moment to fully register the app context before posting the foreground notification
-        new Handler(Looper.getMainLooper()).postDelayed(this::startNotification, 500);
-        startNotification();
-
-        instanceRef = new WeakReference<>(this);
-        monitorNotification();
     }
 
     @Override
     public int onStartCommand(final Intent intent, final int flags, final int startId) {
-        Log.d(TAG, "Service onStartCommand");
+        PerfTrace.begin("DrawOverAppsService.onStartCommand");
+        try {
+            Log.d(TAG, "Service onStartCommand");
 
-        prefsHelper = PrefsHelper.init(this);
-        isReadModeEnabled = prefsHelper.isReadModeOn();
-        screenColor = prefsHelper.getColor();
-        colorIntensity = prefsHelper.getColorIntensity();
-        brightness = prefsHelper.getBrightness();
+            prefsHelper = PrefsHelper.init(this);
+            final OverlaySnapshot received = OverlayClient.readSnapshot(intent);
+            if (received != null) {
+                snapshot = received;
+            } else {
+                // Started without a snapshot, e.g. restarted by the system
+                readSettings();
+            }
 
-        if (mWindowManager == null) {
-            Log.d(TAG, "Initializing WindowManager in onStartCommand");
-            mWindowManager = (WindowManager) getSystemService(WINDOW_SERVICE);
-        }
+            if (overlayManager == null) {
+                // onCreate did not attach the overlays, e.g. the overlay permission is missing
+                Log.w(TAG, "Overlay not attached, ignoring start command");
+                return START_STICKY;
+            }
 
-        if (isReadModeEnabled) {
-            Log.d(TAG, "Read mode is ON, updating overlay view");
-            onUpdate();
-        }
+            if (received != null || snapshot.isReadModeOn()) {
+                Log.d(TAG, "Updating overlay view, Read Mode ON: " + snapshot.isReadModeOn());
+                applySnapshot(snapshot);
+            }
 
-        return START_STICKY;
+            return START_STICKY;
+        } finally {
+            PerfTrace.end();
+        }
     }
 
     @Override
     public void onDestroy() {
         Log.d(TAG, "Service onDestroy");
 
-        if (mView != null) {
-            Log.d(TAG, "Removing overlay view");
-            mWindowManager.removeView(mView);
-            mView = null;
+        if (screenStateController != null) {
+            screenStateController.stop();
+            screenStateController = null;
+        }
+        if (rampAnimator != null) {
+            rampAnimator.stop();
+            rampAnimator = null;
+        }
+        if (ambientLightController != null) {
+            ambientLightController.stop();
+            ambientLightController = null;
+        }
+        if (foregroundAppTracker != null) {
+            foregroundAppTracker.stop();
+            foregroundAppTracker = null;
+        }
+        if (backlightController != null) {
+            // The brightness of the user is restored
+            backlightController.stop();
+            backlightController = null;
+        }
+        if (overlayManager != null) {
+            Log.d(TAG, "Removing overlay views");
+            stopOverlays();
+            overlayManager = null;
+            renderFrame = null;
+        }
+        if (renderThread != null) {
+            // The overlay views are removed first, the looper quits once the posted work is done
+            renderThread.quitSafely();
+            renderThread = null;
         }
 
         stopNotification();
         if (notificationMonitor != null) {
             handler.removeCallbacks(notificationMonitor);
         }
+        handler.removeCallbacks(standbyTimeout);
 
         instanceRef = null;
+        OverlayClient.reportServiceState(this, false);
 
         super.onDestroy();
     }
 
+    @Override
+    public void onTrimMemory(final int level) {
+        super.onTrimMemory(level);
+        // The overlay only needs its snapshot, everything else can be rebuilt on demand
+        if (MemoryTrimPolicy.shouldReleaseSettingsCaches(level)) {
+            Log.d(TAG, "Trim memory level " + level + ", releasing settings caches");
+            if (prefsHelper != null) {
+                prefsHelper.releaseCaches();
+            }
+            if (readModeNotification != null) {
+                readModeNotification.releaseCache();
+            }
+        }
+    }
+
     @Override
     public IBinder onBind(Intent intent) {
         return null;
     }
 
+    /**
+     * Re-reads the settings and applies them to the attached overlay in place.
+     * The overlay window is never removed and re-added, so the change is visible on the next frame.
+     *
+     * <p>Only valid when the settings are written by this process, {@link OverlayClient} sends
+     * the snapshot instead.</p>
+     */
     public void onUpdate() {
-        Log.d(TAG, "Updating overlay view");
-        // Reading new values
-        isReadModeEnabled = prefsHelper.isReadModeOn();
-        screenColor = prefsHelper.getColor();
-        colorIntensity = prefsHelper.getColorIntensity();
-        brightness = prefsHelper.getBrightness();
+        PerfTrace.begin("DrawOverAppsService.onUpdate");
+        try {
+            Log.d(TAG, "Updating overlay view");
+            applySnapshot(OverlaySnapshot.from(prefsHelper));
+        } finally {
+            PerfTrace.end();
+        }
+    }
+
+    /**
+     * Puts the overlay in standby: the window stays attached but stops drawing, and the service
+     * is torn down only if Read Mode is not turned back ON before the idle timeout expires.
+     */
+    public void enterStandby() {
+        Log.d(TAG, "Entering standby");
+        applySnapshot(snapshot.withReadModeOn(false));
+    }
 
-        if (mView != null) {
-            mWindowManager.removeView(mView);
-            mView = null;
+    /**
+     * Applies the given snapshot to the overlays and to the notification.
+     */
+    @VisibleForTesting
+    void applySnapshot(final @NonNull OverlaySnapshot newSnapshot) {
+        if (overlayManager != null && snapshot.isOnlyRegionChanged(newSnapshot)) {
+            // The band is moved or resized, nothing else depends on it
+            snapshot = newSnapshot;
+            drawOverlay();
+            return;
         }
-        mView = new MyLoadView(this);
-        mWindowManager.addView(mView, mParams);
+        snapshot = newSnapshot;
+        rampLevel = snapshot.getRampLevel(System.currentTimeMillis());
+        ambientLevel = snapshot.isAmbientLight() && ambientLightController != null ? ambientLightController.getLevel() : 1f;
+        appProfile = foregroundAppTracker != null ? snapshot.getAppProfiles().get(foregroundAppTracker.getForegroundApp()) : null;
+        // Before the frame is published, it is drawn for the backlight in effect
+        updateBacklight();
+        applyOverlayState();
+        updateNotification();
+        updateRamp();
+        updateAmbientLight();
+        updateForegroundTracking();
     }
 
-    public void startNotification() {
-        Log.d(TAG, "startNotification method");
+    /**
+     * Starts the thread that owns the overlay windows. It runs at the display priority, like the
+     * render threads of the apps, so the overlay is updated on time while the UI is busy.
+     */
+    private void startRenderThread() {
+        if (renderLooperOverride != null) {
+            renderHandler = new Handler(renderLooperOverride);
+            return;
+        }
+        renderThread = new HandlerThread(TAG + "Render", Process.THREAD_PRIORITY_DISPLAY);
+        renderThread.start();
+        renderHandler = new Handler(renderThread.getLooper());
+    }
 
-        try {
-            // Create PendingIntent to open MainActivity when notification is clicked
-            final Intent notificationIntent = new Intent(this, MainActivity.class);
-            final PendingIntent pendingIntent = PendingIntent.getActivity(
-                    this, 0, notificationIntent, PendingIntent.FLAG_IMMUTABLE
-            );
-
-            // Create notification channel for Android 8+
-            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
-                final NotificationChannel channel = new NotificationChannel(
-                        CHANNEL_ID,
-                        "Read Mode Notifications",
-                        NotificationManager.IMPORTANCE_HIGH
-                );
-                channel.setDescription("Notifications for Read Mode overlay");
-                final NotificationManager manager = getSystemService(NotificationManager.class);
-                if (manager != null) {
-                    manager.createNotificationChannel(channel);
+    /**
+     * Runs the given work on the render thread, right away if it is the current thread.
+     */
+    private void runOnRenderThread(final @NonNull Runnable work) {
+        if (Looper.myLooper() == renderHandler.getLooper()) {
+            work.run();
+        } else {
+            renderHandler.post(work);
+        }
+    }
+
+    /**
+     * Publishes the frame of the current snapshot and levels, read by the render thread and by onDraw.
+     */
+    @VisibleForTesting
+    void publishFrame() {
+        final OverlaySnapshot drawn = getDrawnSnapshot();
+        final float level = rampLevel * ambientLevel;
+        final int dimAlpha = drawn.getDimAlpha(level);
+        int panelDimAlpha = dimAlpha;
+        if (backlightController != null) {
+            // Without filter, e.g. in the profile of the foreground app, the backlight goes back up
+            final int residual = backlightController.dim(drawn.isReadModeOn() ? dimAlpha : 0);
+            panelDimAlpha = drawn.isReadModeOn() ? residual : dimAlpha;
+        }
+        frame.set(new OverlayFrame(drawn, level, panelDimAlpha));
+        PerfTrace.setCounter("Overlay.colorIntensity", drawn.getColorIntensity());
+        PerfTrace.setCounter("Overlay.brightness", drawn.getBrightness());
+    }
+
+    /**
+     * Publishes the current frame and has the render thread apply it to the overlays. Only one frame
+     * is posted at a time, the render thread always applies the latest one.
+     */
+    private void drawOverlay() {
+        publishFrame();
+        final Runnable render = renderFrame;
+        if (render != null && !isFramePosted.getAndSet(true)) {
+            runOnRenderThread(render);
+        }
+    }
+
+    /**
+     * Attaches the overlays, on the render thread.
+     */
+    private void startOverlays() {
+        final OverlayManager manager = overlayManager;
+        publishFrame();
+        runOnRenderThread(() -> {
+            renderedFrame = frame.get();
+            manager.start(renderedFrame.getSnapshot());
+        });
+    }
+
+    /**
+     * Removes the overlays, on the render thread.
+     */
+    private void stopOverlays() {
+        final OverlayManager manager = overlayManager;
+        runOnRenderThread(manager::stop);
+    }
+
+    /**
+     * Returns the snapshot drawn by the overlays: the snapshot with the profile of the foreground app.
+     */
+    @VisibleForTesting
+    @NonNull
+    OverlaySnapshot getDrawnSnapshot() {
+        final OverlaySnapshot base = snapshot;
+        final AppProfiles.Profile profile = appProfile;
+        if (drawnSnapshot == null || drawnBase != base || !Objects.equals(drawnProfile, profile)) {
+            drawnBase = base;
+            drawnProfile = profile;
+            drawnSnapshot = base.withAppProfile(profile);
+        }
+        return drawnSnapshot;
+    }
+
+    /**
+     * Tracks the foreground app while the snapshot has profiles, Read Mode is ON and the screen is ON.
+     */
+    private void updateForegroundTracking() {
+        if (foregroundAppTracker == null) {
+            return;
+        }
+        if (snapshot.isReadModeOn() && !snapshot.getAppProfiles().isEmpty() && !isSuspended) {
+            foregroundAppTracker.start();
+        } else {
+            foregroundAppTracker.stop();
+        }
+    }
+
+    /**
+     * Draws the profile of the new foreground app, only if it is not the profile already drawn. The
+     * overlay windows are only redrawn, never added again.
+     */
+    @VisibleForTesting
+    void onForegroundAppChanged(final @NonNull String packageName) {
+        final AppProfiles.Profile profile = snapshot.getAppProfiles().get(packageName);
+        if (Objects.equals(profile, appProfile)) {
+            return;
+        }
+        Log.d(TAG, "Profile of " + packageName + ": " + profile);
+        appProfile = profile;
+        if (overlayManager != null && snapshot.isReadModeOn()) {
+            drawOverlay();
+        }
+    }
+
+    /**
+     * Called by {@link ForegroundAccessibilityService} when a window of the given app changes state.
+     */
+    void onWindowStateChanged(final @NonNull String packageName) {
+        if (foregroundAppTracker != null) {
+            foregroundAppTracker.onWindowStateChanged(packageName);
+        }
+    }
+
+    /**
+     * Called by {@link ForegroundAccessibilityService} when it is enabled or disabled.
+     */
+    void onForegroundSourceChanged(final boolean isPushSource) {
+        if (foregroundAppTracker != null) {
+            foregroundAppTracker.setPushSource(isPushSource);
+        }
+    }
+
+    /**
+     * Drives the ramp of the snapshot while the screen is ON.
+     */
+    private void updateRamp() {
+        if (rampAnimator == null) {
+            return;
+        }
+        if (snapshot.hasRamp() && snapshot.isReadModeOn() && !isSuspended) {
+            rampAnimator.start(snapshot);
+        } else {
+            rampAnimator.stop();
+        }
+    }
+
+    /**
+     * Listens to the ambient light while the snapshot adapts to it, Read Mode is ON and the screen is ON.
+     */
+    private void updateAmbientLight() {
+        if (ambientLightController == null) {
+            return;
+        }
+        if (snapshot.isAmbientLight() && snapshot.isReadModeOn() && !isSuspended) {
+            ambientLightController.start();
+        } else {
+            ambientLightController.stop();
+        }
+    }
+
+    /**
+     * Controls the backlight while the snapshot uses the hybrid dimming, Read Mode is ON and the app can
+     * write the system settings. It is kept while the screen is OFF, the screen turns ON as dim as it was.
+     */
+    private void updateBacklight() {
+        if (backlightController == null) {
+            return;
+        }
+        if (snapshot.isHybridDimming() && snapshot.isReadModeOn() && canWriteSettings()) {
+            backlightController.start();
+        } else {
+            backlightController.stop();
+        }
+    }
+
+    private boolean canWriteSettings() {
+        // Granted by the user in the system settings since Android M
+        return Build.VERSION.SDK_INT < Build.VERSION_CODES.M || Settings.System.canWrite(this);
+    }
+
+    /**
+     * Returns the preferences of {@link BacklightController}, in device protected storage like the
+     * settings, so the brightness of the user is restored when the service is restarted at boot.
+     */
+    private @NonNull SharedPreferences getBacklightState() {
+        final Context storageContext = Build.VERSION.SDK_INT >= Build.VERSION_CODES.N
+                ? createDeviceProtectedStorageContext() : this;
+        return storageContext.getSharedPreferences(Constants.BACKLIGHT_STATE, MODE_PRIVATE);
+    }
+
+    private @NonNull BacklightController.Listener createBacklightListener() {
+        // The overlay draws the dimming left over the new backlight
+        return () -> {
+            if (overlayManager != null) {
+                drawOverlay();
+            }
+        };
+    }
+
+    private @NonNull AmbientLightController.Listener createAmbientLightListener() {
+        // Only called when the light crosses a step, not on every reading
+        return level -> {
+            ambientLevel = level;
+            if (overlayManager != null) {
+                drawOverlay();
+            }
+        };
+    }
+
+    private @NonNull RampAnimator.Listener createRampListener() {
+        return new RampAnimator.Listener() {
+            @Override
+            public void onRampLevel(final float level) {
+                rampLevel = level;
+                if (overlayManager != null) {
+                    drawOverlay();
                 }
             }
 
-            // Build the notification using NotificationCompat
-            NotificationCompat.Builder builder = null; // Makes it persistent (can't swipe away)
-            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
-                builder = new NotificationCompat.Builder(this, CHANNEL_ID)
-                        .setContentTitle(getString(R.string.app_name))
-                        .setContentText(getString(R.string.notification_msg))
-                        .setSmallIcon(R.drawable.ic_notification)
-                        .setContentIntent(pendingIntent)
-                        .setTicker(getString(R.string.notification_msg))
-                        .setPriority(NotificationCompat.PRIORITY_HIGH)
-                        .setOngoing(true);
-            } else {
-                builder = new NotificationCompat.Builder(this)
-                        .setContentTitle(getString(R.string.app_name))
-                        .setContentText(getString(R.string.notification_msg))
-                        .setSmallIcon(R.drawable.ic_notification)
-                        .setContentIntent(pendingIntent)
-                        .setTicker(getString(R.string.notification_msg))
-                        .setPriority(NotificationCompat.PRIORITY_HIGH)
-                        .setOngoing(true);
+            @Override
+            public void onRampFinished() {
+                if (snapshot.isFadeIn()) {
+                    Log.d(TAG, "Fade in finished");
+                    applySnapshot(snapshot.withoutRamp());
+                } else {
+                    // Read Mode was already turned OFF by the schedule, the overlay was only fading out
+                    Log.d(TAG, "Fade out finished");
+                    applySnapshot(snapshot.withoutRamp().withReadModeOn(false));
+                }
+            }
+        };
+    }
+
+    /**
+     * Reads the settings once into an immutable snapshot shared by the overlays of all displays.
+     */
+    private void readSettings() {
+        snapshot = OverlaySnapshot.from(prefsHelper);
+    }
+
+    private @NonNull OverlayManager.Host createOverlayHost() {
+        return new OverlayManager.Host() {
+            @NonNull
+            @Override
+            public Context createDisplayContext(final @NonNull Display display) {
+                if (display.getDisplayId() == Display.DEFAULT_DISPLAY) {
+                    return DrawOverAppsService.this;
+                }
+                final Context displayContext = DrawOverAppsService.this.createDisplayContext(display);
+                if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.R) {
+                    // Android 11+ requires a window context to add windows to a secondary display
+                    return displayContext.createWindowContext(WindowManager.LayoutParams.TYPE_APPLICATION_OVERLAY, null);
+                }
+                return displayContext;
+            }
+
+            @NonNull
+            @Override
+            public View createOverlayView(final @NonNull Context displayContext) {
+                return new MyLoadView(displayContext);
+            }
+        };
+    }
+
+    private @NonNull ScreenStateController.Listener createScreenStateListener() {
+        return new ScreenStateController.Listener() {
+            @Override
+            public void onScreenOff() {
+                suspend();
             }
 
+            @Override
+            public void onScreenOn() {
+                resume();
+            }
+
+            @Override
+            public void onDozeChanged(final boolean isDozing) {
+                if (isDozing && overlayManager != null && !isOverlayDetached && prefsHelper.shouldDetachOverlayInDoze()) {
+                    // Nothing is drawn until the screen turns ON, the windows are added back in resume()
+                    Log.d(TAG, "Doze, removing overlay views");
+                    stopOverlays();
+                    isOverlayDetached = true;
+                }
+            }
+        };
+    }
+
+    /**
+     * The screen turned OFF: stops the periodic work. The standby teardown is kept, it only runs
+     * once and it frees the service.
+     */
+    private void suspend() {
+        if (isSuspended) {
+            return;
+        }
+        Log.d(TAG, "Screen OFF, suspending periodic work");
+        isSuspended = true;
+        if (notificationMonitor != null) {
+            handler.removeCallbacks(notificationMonitor);
+        }
+        if (rampAnimator != null) {
+            // The ramp level is computed from the clock, it is right again on the first frame after resume()
+            rampAnimator.stop();
+        }
+        if (ambientLightController != null) {
+            // Nothing is drawn with the screen OFF, the sensor would only cost battery
+            ambientLightController.stop();
+        }
+        if (foregroundAppTracker != null) {
+            // The app in the foreground is read again on resume()
+            foregroundAppTracker.stop();
+        }
+    }
+
+    /**
+     * The screen turned ON: adds back the overlays removed during doze and restarts the periodic work.
+     */
+    private void resume() {
+        if (!isSuspended) {
+            return;
+        }
+        Log.d(TAG, "Screen ON, resuming periodic work");
+        isSuspended = false;
+        if (isOverlayDetached && overlayManager != null) {
+            Log.d(TAG, "Adding back the overlay views removed during doze");
+            isOverlayDetached = false;
+            startOverlays();
+        }
+        if (notificationMonitor != null) {
+            // Checks right away, the notification may have been dismissed while the screen was OFF
+            handler.removeCallbacks(notificationMonitor);
+            handler.post(notificationMonitor);
+        }
+        updateRamp();
+        updateAmbientLight();
+        updateForegroundTracking();
+    }
+
+    /**
+     * Shows the overlays when Read Mode is ON, otherwise hides them and schedules the idle teardown.
+     */
+    private void applyOverlayState() {
+        if (overlayManager == null) {
+            return;
+        }
+        handler.removeCallbacks(standbyTimeout);
+        drawOverlay();
+        if (!snapshot.isReadModeOn()) {
+            final long timeout = prefsHelper.getStandbyTimeout();
+            Log.d(TAG, "Overlay in standby, tearing down in " + timeout + " ms if not resumed");
+            handler.postDelayed(standbyTimeout, timeout);
+        }
+    }
+
+    public void startNotification() {
+        Log.d(TAG, "startNotification method");
+
+        try {
+            final ReadModeNotification notification = getReadModeNotification();
             // Start the foreground service
             if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.UPSIDE_DOWN_CAKE) { // Android 14+
-                startForeground(Constants.NOTIFICATION_ID, builder.build(), ServiceInfo.FOREGROUND_SERVICE_TYPE_SPECIAL_USE);
+                startForeground(Constants.NOTIFICATION_ID, notification.getNotification(), ServiceInfo.FOREGROUND_SERVICE_TYPE_SPECIAL_USE);
             } else if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
-                startForeground(Constants.NOTIFICATION_ID, builder.build(), ServiceInfo.FOREGROUND_SERVICE_TYPE_MANIFEST);
+                startForeground(Constants.NOTIFICATION_ID, notification.getNotification(), ServiceInfo.FOREGROUND_SERVICE_TYPE_MANIFEST);
             } else {
-                startForeground(Constants.NOTIFICATION_ID, builder.build());
+                startForeground(Constants.NOTIFICATION_ID, notification.getNotification());
             }
+            updateNotification();
         } catch (Exception e) {
             Log.e(TAG, "Failed to start foreground service", e);
             stopSelf();
@@ -272,12 +789,30 @@ public class DrawOverAppsService extends Service {
 
     }
 
+    /**
+     * Refreshes the notification content, the update is throttled by {@link ReadModeNotification}.
+     */
+    private void updateNotification() {
+        getReadModeNotification().update(snapshot.isReadModeOn(), snapshot.getColorIntensity(), snapshot.getBrightness());
+    }
+
+    private @NonNull ReadModeNotification getReadModeNotification() {
+        if (readModeNotification == null) {
+            final NotificationManager manager = (NotificationManager) getSystemService(Context.NOTIFICATION_SERVICE);
+            readModeNotification = new ReadModeNotification(this, manager, handler);
+        }
+        return readModeNotification;
+    }
+
     private void stopNotification() {
         Log.d(TAG, "Stopping notification");
-        final NotificationManager manager = (NotificationManager) getSystemService(Context.NOTIFICATION_SERVICE);
-        manager.cancel(Constants.NOTIFICATION_ID);
+        getReadModeNotification().cancel();
     }
 
+    /**
+     * Returns the running service, only when it runs in the calling process.
+     * Other components use {@link OverlayClient}.
+     */
     public static DrawOverAppsService getInstance() {
         return instanceRef != null ? instanceRef.get() : null;
     }
@@ -302,14 +837,16 @@ public class DrawOverAppsService extends Service {
                     }
                 }
 
-                // If user closed it but Read Mode is ON -> recreate it
-                if (!isNotificationActive && prefsHelper.isReadModeOn()) {
+                // If user closed it but Read Mode is ON -> post the cached notification again
+                if (!isNotificationActive && snapshot.isReadModeOn()) {
                     Log.w(TAG, "Notification was removed — recreating...");
                     startNotification();
                 }
 
-                // check every 5 seconds
-                handler.postDelayed(this, 5000);
+                // check every 5 seconds, until the screen turns OFF
+                if (!isSuspended) {
+                    handler.postDelayed(this, 5000);
+                }
             }
         };
         handler.postDelayed(notificationMonitor, 5000);
@@ -320,7 +857,7 @@ public class DrawOverAppsService extends Service {
      * to draw the "Read Mode" overlay on top of all other apps.
      *
      * <p>The overlay color, intensity, and brightness are determined by
-     * SharedPreferences values:
+     * the current {@link OverlaySnapshot}, read once from SharedPreferences:
      * <ul>
      *     <li>screenColor: the selected overlay color (predefined or custom)</li>
      *     <li>colorIntensity: adjustment for color transparency</li>
@@ -336,8 +873,10 @@ public class DrawOverAppsService extends Service {
      *
      * <p>Usage:
      * <ul>
-     *     <li>Created and added to the WindowManager by {@link DrawOverAppsService}</li>
-     *     <li>Redraw occurs when preferences change via {@link DrawOverAppsService#onUpdate()}</li>
+     *     <li>Created by {@link DrawOverAppsService} and added to the WindowManager of each display by
+     *     {@link OverlayManager}</li>
+     *     <li>Redraw occurs when a new snapshot is applied via {@link OverlayClient}</li>
+     *     <li>Lives on the render thread, it draws the latest published {@link OverlayFrame}</li>
      * </ul>
      * </p>
      *
@@ -352,37 +891,28 @@ public class DrawOverAppsService extends Service {
 
         @Override
         protected void onDraw(final @NonNull Canvas canvas) {
-            super.onDraw(canvas);
-            Log.d(TAG, "Drawing overlay: color=" + screenColor + " intensity=" + colorIntensity + " brightness=" + brightness);
-
-            canvas.drawARGB(150 - brightness, 0, 0, 0);
-            switch (screenColor) {
-                case Constants.COLOR_YELLOW:
-                    canvas.drawARGB(120, 255, 241, 118 - colorIntensity);
-                    break;
-                case Constants.COLOR_PINK:
-                    canvas.drawARGB(120, 255, 209, 220 - colorIntensity);
-                    break;
-                case Constants.COLOR_GREEN:
-                    canvas.drawARGB(120, 168, 230, 207 - colorIntensity);
-                    break;
-                case Constants.COLOR_GRAY:
-                    canvas.drawARGB(120, 176, 190, 197 - colorIntensity);
-                    break;
-                case Constants.COLOR_WHITE:
-                    canvas.drawARGB(120, 255, 255, 255 - colorIntensity);
-                    break;
-                case Constants.CUSTOM_COLOR:
-                    final String customColor = prefsHelper.getCustomColor();
-                    int color = Color.parseColor(customColor);
-                    int alpha = 120;
-                    int red = Color.red(color);
-                    int green = Color.green(color);
-                    int blue = Color.blue(color);
-                    canvas.drawARGB(alpha, red, green, blue - colorIntensity);
-                    break;
-                default:
-                    break;
+            PerfTrace.begin("MyLoadView.onDraw");
+            try {
+                super.onDraw(canvas);
+                // Every display draws the same frame, published by the main thread, no settings are read while drawing
+                final OverlayFrame currentFrame = frame.get();
+                if (currentFrame == null) {
+                    return;
+                }
+                final OverlaySnapshot current = currentFrame.getSnapshot();
+                Log.d(TAG, "Drawing overlay: color=" + current.getScreenColor() + " intensity=" + current.getColorIntensity()
+                        + " brightness=" + current.getBrightness());
+
+                final float level = currentFrame.getLevel();
+                // The backlight only dims the built-in display
+                final Display display = getDisplay();
+                final boolean isBuiltIn = display == null || display.getDisplayId() == Display.DEFAULT_DISPLAY;
+                canvas.drawARGB(isBuiltIn ? currentFrame.getPanelDimAlpha() : current.getDimAlpha(level), 0, 0, 0);
+                if (current.hasColorFilter()) {
+                    canvas.drawARGB(current.getFilterAlpha(level), current.getFilterRed(), current.getFilterGreen(), current.getFilterBlue());
+                }
+            } finally {
+                PerfTrace.end();
             }
         }
     }
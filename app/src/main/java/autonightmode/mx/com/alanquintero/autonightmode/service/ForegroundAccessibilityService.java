@@ -0,0 +1,79 @@
+/*****************************************************************
+ * Copyright (C) 2025 Alan Quintero <https://github.com/alanquintero/>
+ *****************************************************************/
+package autonightmode.mx.com.alanquintero.autonightmode.service;
+
+import android.accessibilityservice.AccessibilityService;
+import android.content.Intent;
+import android.util.Log;
+import android.view.accessibility.AccessibilityEvent;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.VisibleForTesting;
+
+/**
+ * ForegroundAccessibilityService is an optional source of the foreground app for the per-app profiles,
+ * enabled by the user in the accessibility settings. When it is enabled the overlay stops polling
+ * the usage events, see {@link ForegroundAppTracker}.
+ *
+ * <p>It only receives the window state changes and never reads the content of the windows. It runs
+ * in the process of {@link DrawOverAppsService} (the {@code overlayProcess} manifest placeholder), so
+ * the package name is handed to the running service directly, without an intent per app switch.</p>
+ *
+ * @author Alan Quintero
+ */
+public class ForegroundAccessibilityService extends AccessibilityService {
+
+    private static final String TAG = ForegroundAccessibilityService.class.getSimpleName();
+
+    // Read by the overlay service when it is created after this service was connected
+    private static volatile boolean isConnected = false;
+
+    @Override
+    protected void onServiceConnected() {
+        super.onServiceConnected();
+        Log.d(TAG, "Accessibility service connected");
+        setConnected(true);
+    }
+
+    @Override
+    public boolean onUnbind(final @NonNull Intent intent) {
+        Log.d(TAG, "Accessibility service disconnected");
+        setConnected(false);
+        return super.onUnbind(intent);
+    }
+
+    @Override
+    public void onAccessibilityEvent(final @NonNull AccessibilityEvent event) {
+        if (event.getEventType() != AccessibilityEvent.TYPE_WINDOW_STATE_CHANGED || event.getPackageName() == null) {
+            return;
+        }
+        final String packageName = event.getPackageName().toString();
+        if (packageName.equals(getPackageName())) {
+            // This app and its overlay windows keep the profile of the app below
+            return;
+        }
+        final DrawOverAppsService service = DrawOverAppsService.getInstance();
+        if (service != null) {
+            service.onWindowStateChanged(packageName);
+        }
+    }
+
+    @Override
+    public void onInterrupt() {
+        // No feedback to interrupt
+    }
+
+    static boolean isConnected() {
+        return isConnected;
+    }
+
+    @VisibleForTesting
+    static void setConnected(final boolean isConnected) {
+        ForegroundAccessibilityService.isConnected = isConnected;
+        final DrawOverAppsService service = DrawOverAppsService.getInstance();
+        if (service != null) {
+            service.onForegroundSourceChanged(isConnected);
+        }
+    }
+}
@@ -0,0 +1,187 @@
+/*****************************************************************
+ * Copyright (C) 2025 Alan Quintero <https://github.com/alanquintero/>
+ *****************************************************************/
+package autonightmode.mx.com.alanquintero.autonightmode.service;
+
+import android.app.usage.UsageEvents;
+import android.app.usage.UsageStatsManager;
+import android.os.Handler;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+
+/**
+ * ForegroundAppTracker tells {@link DrawOverAppsService} which app is in the foreground, so the overlay
+ * can draw the profile of that app.
+ *
+ * <p>By default the app comes from {@link UsageStatsManager#queryEvents(long, long)}, which needs the
+ * usage access granted by the user. Every query starts at a cursor, right after the last event read,
+ * so only the new events are read and an event that is written late is not missed. The interval
+ * adapts: the events are polled every second after an app switch and the interval doubles, up to
+ * {@link #MAX_POLL_INTERVAL_MS}, while the same app stays in the foreground. The service stops the
+ * tracker while the screen is OFF.</p>
+ *
+ * <p>If the user enables {@link ForegroundAccessibilityService}, the window state events are pushed
+ * by it and the polling stops.</p>
+ *
+ * @author Alan Quintero
+ */
+class ForegroundAppTracker implements Runnable {
+
+    private static final String TAG = ForegroundAppTracker.class.getSimpleName();
+
+    /**
+     * Receives the foreground app when it changes.
+     */
+    interface Listener {
+        void onForegroundAppChanged(@NonNull String packageName);
+    }
+
+    @VisibleForTesting
+    static final long MIN_POLL_INTERVAL_MS = 1_000;
+    @VisibleForTesting
+    static final long MAX_POLL_INTERVAL_MS = 8_000;
+    // How far back the first query looks for the app that is already in the foreground
+    private static final long FIRST_QUERY_WINDOW_MS = 60 * 60 * 1000L;
+    // Without new events the cursor still moves, but never closer to now than this
+    private static final long LATE_EVENT_MARGIN_MS = 5_000;
+
+    private final @Nullable UsageStatsManager usageStatsManager;
+    private final @NonNull Handler handler;
+    private final @NonNull Listener listener;
+    private final @NonNull UsageEvents.Event event = new UsageEvents.Event();
+
+    private boolean isStarted = false;
+    // True while the accessibility service pushes the window state events
+    private boolean isPushSource = false;
+    // Start of the next query, 0 before the first one
+    private long cursor = 0;
+    private long pollInterval = MIN_POLL_INTERVAL_MS;
+    private @Nullable String foregroundApp;
+
+    ForegroundAppTracker(final @Nullable UsageStatsManager usageStatsManager, final @NonNull Handler handler,
+                         final @NonNull Listener listener) {
+        this.usageStatsManager = usageStatsManager;
+        this.handler = handler;
+        this.listener = listener;
+    }
+
+    /**
+     * Starts tracking the foreground app, polls the usage events right away unless they are pushed.
+     */
+    void start() {
+        if (isStarted) {
+            return;
+        }
+        isStarted = true;
+        pollInterval = MIN_POLL_INTERVAL_MS;
+        schedulePoll(0);
+    }
+
+    /**
+     * Stops polling the usage events. The pushed events are still received.
+     */
+    void stop() {
+        if (!isStarted) {
+            return;
+        }
+        isStarted = false;
+        handler.removeCallbacks(this);
+    }
+
+    /**
+     * Switches between the events pushed by the accessibility service and the polled usage events.
+     */
+    void setPushSource(final boolean isPushSource) {
+        if (this.isPushSource == isPushSource) {
+            return;
+        }
+        this.isPushSource = isPushSource;
+        Log.d(TAG, "Foreground app " + (isPushSource ? "pushed by the accessibility service" : "polled from the usage events"));
+        handler.removeCallbacks(this);
+        // The events read before may be old, the next query looks back from now
+        cursor = 0;
+        schedulePoll(0);
+    }
+
+    boolean isPolling() {
+        return isStarted && !isPushSource && usageStatsManager != null;
+    }
+
+    @Nullable
+    String getForegroundApp() {
+        return foregroundApp;
+    }
+
+    /**
+     * Called by the accessibility service when a window of the given app changes state.
+     */
+    void onWindowStateChanged(final @NonNull String packageName) {
+        setForegroundApp(packageName);
+    }
+
+    @Override
+    public void run() {
+        poll(System.currentTimeMillis());
+        schedulePoll(pollInterval);
+    }
+
+    /**
+     * Reads the usage events since the cursor and updates the foreground app and the poll interval.
+     */
+    @VisibleForTesting
+    void poll(final long now) {
+        if (usageStatsManager == null) {
+            return;
+        }
+        final long begin = cursor > 0 ? cursor : now - FIRST_QUERY_WINDOW_MS;
+        String latestApp = null;
+        long lastEventTime = -1;
+        if (begin < now) {
+            final UsageEvents events = usageStatsManager.queryEvents(begin, now);
+            while (events != null && events.hasNextEvent()) {
+                events.getNextEvent(event);
+                lastEventTime = Math.max(lastEventTime, event.getTimeStamp());
+                if (isMoveToForeground(event)) {
+                    latestApp = event.getPackageName();
+                }
+            }
+        }
+        cursor = lastEventTime >= 0 ? lastEventTime + 1 : Math.max(begin, now - LATE_EVENT_MARGIN_MS);
+
+        if (latestApp != null && !latestApp.equals(foregroundApp)) {
+            pollInterval = MIN_POLL_INTERVAL_MS;
+            setForegroundApp(latestApp);
+        } else {
+            pollInterval = Math.min(MAX_POLL_INTERVAL_MS, pollInterval * 2);
+        }
+    }
+
+    @VisibleForTesting
+    long getPollInterval() {
+        return pollInterval;
+    }
+
+    @SuppressWarnings("deprecation")
+    private static boolean isMoveToForeground(final @NonNull UsageEvents.Event event) {
+        // Renamed ACTIVITY_RESUMED in Android 10, same value
+        return event.getEventType() == UsageEvents.Event.MOVE_TO_FOREGROUND;
+    }
+
+    private void setForegroundApp(final @NonNull String packageName) {
+        if (packageName.equals(foregroundApp)) {
+            return;
+        }
+        foregroundApp = packageName;
+        Log.d(TAG, "Foreground app: " + packageName);
+        listener.onForegroundAppChanged(packageName);
+    }
+
+    private void schedulePoll(final long delay) {
+        if (isPolling()) {
+            handler.postDelayed(this, delay);
+        }
+    }
+}
@@ -0,0 +1,128 @@
+/*****************************************************************
+ * Copyright (C) 2025 Alan Quintero <https://github.com/alanquintero/>
+ *****************************************************************/
+package autonightmode.mx.com.alanquintero.autonightmode.service;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+
+import autonightmode.mx.com.alanquintero.autonightmode.manager.ReadModeManager;
+import autonightmode.mx.com.alanquintero.autonightmode.model.ColorPreset;
+import autonightmode.mx.com.alanquintero.autonightmode.model.OverlaySnapshot;
+import autonightmode.mx.com.alanquintero.autonightmode.model.ReadModeSettings;
+import autonightmode.mx.com.alanquintero.autonightmode.util.Constants;
+import autonightmode.mx.com.alanquintero.autonightmode.util.PrefsHelper;
+
+/**
+ * NotificationActionReceiver applies the actions sent from the controls of {@link ReadModeNotification}.
+ *
+ * <p>It runs in the main process, the only one that writes the settings, and sends the resulting
+ * {@link OverlaySnapshot} to {@link DrawOverAppsService} through {@link OverlayClient}, so the
+ * overlay process never writes nor re-reads the settings. Values are staged through the
+ * {@link PrefsHelper} fast path and written in a single batch per action.</p>
+ *
+ * @author Alan Quintero
+ */
+public class NotificationActionReceiver extends BroadcastReceiver {
+
+    private static final String TAG = NotificationActionReceiver.class.getSimpleName();
+
+    @VisibleForTesting
+    static final int BRIGHTNESS_STEP = 10;
+
+    @VisibleForTesting
+    PrefsHelper prefsHelper;
+
+    @Override
+    public void onReceive(final @NonNull Context context, final @NonNull Intent intent) {
+        final Context appContext = context.getApplicationContext();
+        if (prefsHelper == null) {
+            prefsHelper = PrefsHelper.init(appContext);
+        }
+        if (!handleNotificationAction(appContext, intent.getAction())) {
+            Log.w(TAG, "Ignoring unexpected action: " + intent.getAction());
+        }
+    }
+
+    /**
+     * Applies an action sent from the notification controls.
+     *
+     * @return true if the action was handled
+     */
+    @VisibleForTesting
+    boolean handleNotificationAction(final @NonNull Context context, final @Nullable String action) {
+        if (action == null) {
+            return false;
+        }
+        final ReadModeSettings readModeSettings = ReadModeSettings.init();
+        prefsHelper.loadReadModeSettings(readModeSettings);
+        switch (action) {
+            case ReadModeNotification.ACTION_START:
+            case ReadModeNotification.ACTION_STOP:
+                final boolean isReadModeOn = ReadModeNotification.ACTION_START.equals(action);
+                Log.d(TAG, "Notification action, Read Mode ON: " + isReadModeOn);
+                readModeSettings.setIsReadModeOn(isReadModeOn);
+                prefsHelper.saveProperty(Constants.PREF_IS_READ_MODE_ON, isReadModeOn);
+                ReadModeManager.requestTileUpdate(context);
+                break;
+            case ReadModeNotification.ACTION_DIMMER:
+            case ReadModeNotification.ACTION_BRIGHTER:
+                final int step = ReadModeNotification.ACTION_BRIGHTER.equals(action) ? BRIGHTNESS_STEP : -BRIGHTNESS_STEP;
+                final int newBrightness = Math.max(0, Math.min(100, readModeSettings.getBrightness() + step));
+                Log.d(TAG, "Notification action, brightness: " + newBrightness);
+                readModeSettings.setBrightness(newBrightness);
+                prefsHelper.stageProperty(Constants.PREF_BRIGHTNESS, newBrightness);
+                saveColorSettings(readModeSettings);
+                break;
+            case ReadModeNotification.ACTION_NEXT_COLOR:
+                final int presetId = prefsHelper.getPresetStore().getNextPresetId(readModeSettings.getColorDropdownPosition());
+                final ColorPreset preset = prefsHelper.getPreset(presetId);
+                if (preset == null) {
+                    return false;
+                }
+                Log.d(TAG, "Notification action, color: " + preset.getName());
+                readModeSettings.setColorDropdownPosition(presetId);
+                prefsHelper.stageProperty(Constants.PREF_COLOR_DROPDOWN, presetId);
+                prefsHelper.stageProperty(Constants.PREF_COLOR, preset.getScreenColor());
+                loadPresetSettings(readModeSettings, preset);
+                break;
+            default:
+                return false;
+        }
+        // The process may be gone once the broadcast is handled, nothing is left staged
+        prefsHelper.flushPendingProperties();
+        OverlayClient.apply(context, OverlaySnapshot.from(prefsHelper));
+        ReadModeManager.notifySettingsChanged(context,
+                ReadModeNotification.ACTION_START.equals(action) || ReadModeNotification.ACTION_STOP.equals(action));
+        return true;
+    }
+
+    /**
+     * When each color has its own values, remembers the new brightness for the current color.
+     */
+    private void saveColorSettings(final @NonNull ReadModeSettings readModeSettings) {
+        if (readModeSettings.shouldUseSameIntensityBrightnessForAll()) {
+            return;
+        }
+        prefsHelper.tryToSavePresetSettings(readModeSettings);
+    }
+
+    /**
+     * When each color has its own values, applies the values saved for the selected preset.
+     */
+    private void loadPresetSettings(final @NonNull ReadModeSettings readModeSettings, final @NonNull ColorPreset preset) {
+        if (readModeSettings.shouldUseSameIntensityBrightnessForAll()) {
+            return;
+        }
+        readModeSettings.setColorIntensity(preset.getColorIntensity());
+        readModeSettings.setBrightness(preset.getBrightness());
+        prefsHelper.stageProperty(Constants.PREF_COLOR_INTENSITY, preset.getColorIntensity());
+        prefsHelper.stageProperty(Constants.PREF_BRIGHTNESS, preset.getBrightness());
+    }
+}
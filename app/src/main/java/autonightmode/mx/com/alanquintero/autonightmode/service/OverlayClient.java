@@ -0,0 +1,283 @@
+/*****************************************************************
+ * Copyright (C) 2025 Alan Quintero <https://github.com/alanquintero/>
+ *****************************************************************/
+package autonightmode.mx.com.alanquintero.autonightmode.service;
+
+import android.app.ActivityManager;
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+import androidx.core.content.ContextCompat;
+
+import autonightmode.mx.com.alanquintero.autonightmode.model.AppProfiles;
+import autonightmode.mx.com.alanquintero.autonightmode.model.OverlayRegion;
+import autonightmode.mx.com.alanquintero.autonightmode.model.OverlaySnapshot;
+import autonightmode.mx.com.alanquintero.autonightmode.util.Constants;
+
+/**
+ * OverlayClient is the channel used by the UI, the tile and the receivers to talk to
+ * {@link DrawOverAppsService}, which may run in its own {@code :overlay} process.
+ *
+ * <p>Every command is a single start intent carrying a complete {@link OverlaySnapshot} (a few
+ * primitive extras), so the overlay process never has to read settings written by another
+ * process: SharedPreferences are cached per process and are not reloaded when another process
+ * writes them. The main process stays the only writer of the settings.</p>
+ *
+ * <p>The same channel is used when the service runs in the main process, so callers never hold
+ * a reference to the service.</p>
+ *
+ * <p>The service reports when it is created and destroyed, and each process keeps the running state
+ * from these reports, so sending a command never asks the system which services are running.</p>
+ *
+ * @author Alan Quintero
+ */
+public final class OverlayClient {
+
+    private static final String TAG = OverlayClient.class.getSimpleName();
+
+    @VisibleForTesting
+    static final String ACTION_APPLY = "autonightmode.mx.com.alanquintero.autonightmode.action.APPLY";
+    @VisibleForTesting
+    static final String ACTION_SERVICE_STATE = "autonightmode.mx.com.alanquintero.autonightmode.action.SERVICE_STATE";
+    @VisibleForTesting
+    static final String EXTRA_IS_RUNNING = "isRunning";
+
+    private static final String EXTRA_IS_READ_MODE_ON = "isReadModeOn";
+    private static final String EXTRA_SCREEN_COLOR = "screenColor";
+    private static final String EXTRA_CUSTOM_COLOR = "customColor";
+    private static final String EXTRA_COLOR_TEMPERATURE = "colorTemperature";
+    private static final String EXTRA_COLOR_INTENSITY = "colorIntensity";
+    private static final String EXTRA_BRIGHTNESS = "brightness";
+    private static final String EXTRA_RAMP_START = "rampStart";
+    private static final String EXTRA_RAMP_END = "rampEnd";
+    private static final String EXTRA_IS_FADE_IN = "isFadeIn";
+    private static final String EXTRA_IS_AMBIENT_LIGHT = "isAmbientLight";
+    private static final String EXTRA_APP_PROFILES = "appProfiles";
+    private static final String EXTRA_REGION = "region";
+    private static final String EXTRA_REGION_TOP = "regionTop";
+    private static final String EXTRA_REGION_HEIGHT = "regionHeight";
+    private static final String EXTRA_TRANSITION_DURATION = "transitionDuration";
+    private static final String EXTRA_IS_HYBRID_DIMMING = "isHybridDimming";
+
+    // Running state of the overlay service in this process, created on first use
+    private static @Nullable ServiceState serviceState;
+
+    private OverlayClient() {
+    }
+
+    /**
+     * Sends the snapshot to the overlay service. The service is started when the snapshot turns
+     * Read Mode ON and it is not running. When Read Mode is OFF and the service is not running
+     * nothing is sent, there is no overlay to put in standby.
+     *
+     * @return true if the snapshot was sent
+     */
+    public static boolean apply(final @NonNull Context context, final @NonNull OverlaySnapshot snapshot) {
+        final ServiceState state = getServiceState(context);
+        if (!state.isRunning && !snapshot.isReadModeOn()) {
+            Log.d(TAG, "Overlay service is not running, nothing to put in standby");
+            return false;
+        }
+        return send(context, state, snapshot);
+    }
+
+    /**
+     * Sends the snapshot to the overlay service only if it is running, it is never started.
+     *
+     * @return true if the snapshot was sent
+     */
+    public static boolean update(final @NonNull Context context, final @NonNull OverlaySnapshot snapshot) {
+        final ServiceState state = getServiceState(context);
+        return state.isRunning && send(context, state, snapshot);
+    }
+
+    /**
+     * Checks if the overlay service is running, in any process of the app.
+     */
+    public static boolean isRunning(final @NonNull Context context) {
+        return getServiceState(context).isRunning;
+    }
+
+    /**
+     * Called by {@link DrawOverAppsService} when it is created and destroyed. The state is kept by
+     * this process and broadcast to the other processes of the app.
+     */
+    static void reportServiceState(final @NonNull Context context, final boolean isRunning) {
+        synchronized (OverlayClient.class) {
+            // Not created yet when this process never sent a command, it is read from the system on first use
+            if (serviceState != null && serviceState.appContext == getApplicationContext(context)) {
+                serviceState.isRunning = isRunning;
+            }
+        }
+        final Intent intent = new Intent(ACTION_SERVICE_STATE);
+        intent.setPackage(context.getPackageName());
+        intent.putExtra(EXTRA_IS_RUNNING, isRunning);
+        context.sendBroadcast(intent);
+    }
+
+    /**
+     * Sets the running state of the overlay service without asking the system nor listening to the
+     * service reports.
+     */
+    @VisibleForTesting
+    public static synchronized void setServiceRunning(final @NonNull Context context, final boolean isRunning) {
+        serviceState = new ServiceState(getApplicationContext(context), isRunning);
+    }
+
+    private static boolean send(final @NonNull Context context, final @NonNull ServiceState state,
+                                final @NonNull OverlaySnapshot snapshot) {
+        final Intent intent = createApplyIntent(context, snapshot);
+        try {
+            if (state.isRunning) {
+                // Already in the foreground, a plain start command is delivered right away
+                context.startService(intent);
+            } else {
+                ContextCompat.startForegroundService(context, intent);
+                // Until the service reports it, the next commands would start it again
+                state.isRunning = true;
+            }
+            return true;
+        } catch (IllegalStateException e) {
+            // The service stopped itself before its report arrived, and the app is in the background
+            Log.w(TAG, "Failed to send the snapshot to the overlay service", e);
+            state.isRunning = false;
+            if (!snapshot.isReadModeOn()) {
+                // A stopped service is already what Read Mode OFF asks for
+                return false;
+            }
+        }
+        try {
+            // Read Mode ON must not be lost, the service is started again in the foreground
+            ContextCompat.startForegroundService(context, intent);
+            state.isRunning = true;
+            return true;
+        } catch (IllegalStateException e) {
+            Log.w(TAG, "Failed to start the overlay service", e);
+            return false;
+        }
+    }
+
+    private static synchronized @NonNull ServiceState getServiceState(final @NonNull Context context) {
+        final Context appContext = getApplicationContext(context);
+        if (serviceState == null || serviceState.appContext != appContext) {
+            // The overlay may have outlived the previous process of the UI, the system is asked once,
+            // then the reports of the service keep the state
+            serviceState = new ServiceState(appContext, queryRunningServices(appContext));
+            ContextCompat.registerReceiver(appContext, serviceState, new IntentFilter(ACTION_SERVICE_STATE),
+                    ContextCompat.RECEIVER_NOT_EXPORTED);
+        }
+        return serviceState;
+    }
+
+    private static @NonNull Context getApplicationContext(final @NonNull Context context) {
+        final Context appContext = context.getApplicationContext();
+        return appContext != null ? appContext : context;
+    }
+
+    @SuppressWarnings("deprecation")
+    private static boolean queryRunningServices(final @NonNull Context context) {
+        final ActivityManager manager = (ActivityManager) context.getSystemService(Context.ACTIVITY_SERVICE);
+        if (manager == null) {
+            return false;
+        }
+        // Still returns the services of the caller's own app
+        final String serviceClassName = DrawOverAppsService.class.getName();
+        for (final ActivityManager.RunningServiceInfo service : manager.getRunningServices(Integer.MAX_VALUE)) {
+            if (serviceClassName.equals(service.service.getClassName()) && service.started) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @VisibleForTesting
+    static @NonNull Intent createApplyIntent(final @NonNull Context context, final @NonNull OverlaySnapshot snapshot) {
+        final Intent intent = new Intent(context, DrawOverAppsService.class);
+        intent.setAction(ACTION_APPLY);
+        intent.putExtra(EXTRA_IS_READ_MODE_ON, snapshot.isReadModeOn());
+        intent.putExtra(EXTRA_SCREEN_COLOR, snapshot.getScreenColor());
+        intent.putExtra(EXTRA_CUSTOM_COLOR, snapshot.getCustomColor());
+        intent.putExtra(EXTRA_COLOR_TEMPERATURE, snapshot.getColorTemperature());
+        intent.putExtra(EXTRA_COLOR_INTENSITY, snapshot.getColorIntensity());
+        intent.putExtra(EXTRA_BRIGHTNESS, snapshot.getBrightness());
+        intent.putExtra(EXTRA_IS_AMBIENT_LIGHT, snapshot.isAmbientLight());
+        intent.putExtra(EXTRA_TRANSITION_DURATION, snapshot.getTransitionDuration());
+        intent.putExtra(EXTRA_IS_HYBRID_DIMMING, snapshot.isHybridDimming());
+        if (!snapshot.getAppProfiles().isEmpty()) {
+            intent.putExtra(EXTRA_APP_PROFILES, snapshot.getAppProfiles().toString());
+        }
+        if (!snapshot.getRegion().isFull()) {
+            intent.putExtra(EXTRA_REGION, snapshot.getRegion().getMode().name());
+            intent.putExtra(EXTRA_REGION_TOP, snapshot.getRegion().getTop());
+            intent.putExtra(EXTRA_REGION_HEIGHT, snapshot.getRegion().getHeight());
+        }
+        if (snapshot.hasRamp()) {
+            intent.putExtra(EXTRA_RAMP_START, snapshot.getRampStart());
+            intent.putExtra(EXTRA_RAMP_END, snapshot.getRampEnd());
+            intent.putExtra(EXTRA_IS_FADE_IN, snapshot.isFadeIn());
+        }
+        return intent;
+    }
+
+    /**
+     * Reads the snapshot sent by {@link #apply(Context, OverlaySnapshot)}.
+     *
+     * @return the snapshot, or null if the intent is not an apply command
+     */
+    static @Nullable OverlaySnapshot readSnapshot(final @Nullable Intent intent) {
+        if (intent == null || !ACTION_APPLY.equals(intent.getAction())) {
+            return null;
+        }
+        final String screenColor = intent.getStringExtra(EXTRA_SCREEN_COLOR);
+        final String customColor = intent.getStringExtra(EXTRA_CUSTOM_COLOR);
+        if (screenColor == null || customColor == null) {
+            Log.w(TAG, "Apply command without snapshot");
+            return null;
+        }
+        return new OverlaySnapshot(intent.getBooleanExtra(EXTRA_IS_READ_MODE_ON, false), screenColor, customColor,
+                intent.getIntExtra(EXTRA_COLOR_TEMPERATURE, Constants.DEFAULT_COLOR_TEMPERATURE),
+                intent.getIntExtra(EXTRA_COLOR_INTENSITY, 0), intent.getIntExtra(EXTRA_BRIGHTNESS, 0))
+                .withRamp(intent.getLongExtra(EXTRA_RAMP_START, 0), intent.getLongExtra(EXTRA_RAMP_END, 0),
+                        intent.getBooleanExtra(EXTRA_IS_FADE_IN, true))
+                .withAmbientLight(intent.getBooleanExtra(EXTRA_IS_AMBIENT_LIGHT, false))
+                .withAppProfiles(AppProfiles.parseOrEmpty(intent.getStringExtra(EXTRA_APP_PROFILES)))
+                .withRegion(readRegion(intent))
+                .withTransitionDuration(intent.getIntExtra(EXTRA_TRANSITION_DURATION, 0))
+                .withHybridDimming(intent.getBooleanExtra(EXTRA_IS_HYBRID_DIMMING, false));
+    }
+
+    private static @NonNull OverlayRegion readRegion(final @NonNull Intent intent) {
+        final OverlayRegion.Mode mode = OverlayRegion.Mode.fromName(intent.getStringExtra(EXTRA_REGION));
+        if (mode == null || mode == OverlayRegion.Mode.FULL) {
+            return OverlayRegion.FULL;
+        }
+        return new OverlayRegion(mode, intent.getIntExtra(EXTRA_REGION_TOP, Constants.DEFAULT_REGION_TOP),
+                intent.getIntExtra(EXTRA_REGION_HEIGHT, Constants.DEFAULT_REGION_HEIGHT));
+    }
+
+    /**
+     * Running state of the overlay service, updated by the reports of the service.
+     */
+    private static final class ServiceState extends BroadcastReceiver {
+
+        private final @NonNull Context appContext;
+        private volatile boolean isRunning;
+
+        ServiceState(final @NonNull Context appContext, final boolean isRunning) {
+            this.appContext = appContext;
+            this.isRunning = isRunning;
+        }
+
+        @Override
+        public void onReceive(final @NonNull Context context, final @NonNull Intent intent) {
+            isRunning = intent.getBooleanExtra(EXTRA_IS_RUNNING, false);
+            Log.d(TAG, "Overlay service running: " + isRunning);
+        }
+    }
+}
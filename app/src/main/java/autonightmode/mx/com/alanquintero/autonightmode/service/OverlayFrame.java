@@ -0,0 +1,57 @@
+/*****************************************************************
+ * Copyright (C) 2025 Alan Quintero <https://github.com/alanquintero/>
+ *****************************************************************/
+package autonightmode.mx.com.alanquintero.autonightmode.service;
+
+import androidx.annotation.NonNull;
+
+import autonightmode.mx.com.alanquintero.autonightmode.model.OverlaySnapshot;
+
+/**
+ * Immutable frame of the overlay: the snapshot drawn (with the profile of the foreground app) and the
+ * level it is drawn at (ramp and ambient light), and the dim alpha of the built-in display, lower when
+ * the backlight does part of the dimming.
+ *
+ * <p>{@link DrawOverAppsService} publishes a new frame from the main thread every time the overlay
+ * changes, the render thread and {@code onDraw} read the latest one. A frame is never changed once
+ * published, so it is handed over without a lock.</p>
+ *
+ * @author Alan Quintero
+ */
+final class OverlayFrame {
+
+    private final @NonNull OverlaySnapshot snapshot;
+    private final float level;
+    private final int panelDimAlpha;
+
+    OverlayFrame(final @NonNull OverlaySnapshot snapshot, final float level, final int panelDimAlpha) {
+        this.snapshot = snapshot;
+        this.level = level;
+        this.panelDimAlpha = panelDimAlpha;
+    }
+
+    @NonNull
+    OverlaySnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    float getLevel() {
+        return level;
+    }
+
+    /**
+     * Returns the dim alpha drawn on the built-in display, on top of its backlight. The other displays
+     * draw the dim alpha of the snapshot.
+     */
+    int getPanelDimAlpha() {
+        return panelDimAlpha;
+    }
+
+    /**
+     * Returns true if this frame only moves or resizes the windows of the given one, their content
+     * does not have to be drawn again.
+     */
+    boolean isOnlyRegionChanged(final @NonNull OverlayFrame previous) {
+        return level == previous.level && panelDimAlpha == previous.panelDimAlpha && previous.snapshot.isOnlyRegionChanged(snapshot);
+    }
+}
@@ -0,0 +1,474 @@
+/*****************************************************************
+ * Copyright (C) 2025 Alan Quintero <https://github.com/alanquintero/>
+ *****************************************************************/
+package autonightmode.mx.com.alanquintero.autonightmode.service;
+
+import android.content.Context;
+import android.graphics.PixelFormat;
+import android.graphics.Point;
+import android.hardware.display.DisplayManager;
+import android.os.Build;
+import android.os.Handler;
+import android.util.Log;
+import android.util.SparseArray;
+import android.view.Display;
+import android.view.Gravity;
+import android.view.View;
+import android.view.WindowManager;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+
+import autonightmode.mx.com.alanquintero.autonightmode.model.OverlayRegion;
+import autonightmode.mx.com.alanquintero.autonightmode.model.OverlaySnapshot;
+
+/**
+ * OverlayManager keeps one Read Mode overlay window attached on every display: the default
+ * display, external displays, desktop mode and the secondary screen of foldables.
+ *
+ * <p>Displays are tracked with a {@link DisplayManager.DisplayListener}. The overlay of each
+ * display is created from a display context, so it uses the density and the window manager of
+ * that display. All the overlays draw the same immutable {@link OverlaySnapshot}: an update is
+ * applied to every display in a single pass, and the settings are read once no matter how many
+ * displays are connected.</p>
+ *
+ * <p>The windows are configured for the cheapest composition: they never vote for a refresh
+ * rate, so high refresh rate panels can drop to a lower rate while the overlay is shown, and in
+ * standby the window alpha is 0 so the compositor skips the layer and does not have to blend a
+ * full-screen translucent buffer over every app.</p>
+ *
+ * <p>When the snapshot covers only a part of the screen ({@link OverlayRegion}), each window is no
+ * larger than the tinted area: a single window over the reading band, or two windows above and below
+ * it, so the compositor blends fewer pixels. Moving or resizing the band only updates the layout of
+ * the windows, see {@link #applyRegion(OverlaySnapshot)}, their content is not drawn again.</p>
+ *
+ * <p>Each window fades in and out with an {@link OverlayTransition}, in the transition duration of the
+ * snapshot. A window that fades out stays in composition until the fade ends.</p>
+ *
+ * @author Alan Quintero
+ */
+class OverlayManager implements DisplayManager.DisplayListener {
+
+    private static final String TAG = OverlayManager.class.getSimpleName();
+
+    /**
+     * Creates the contexts and the views of the overlays.
+     */
+    interface Host {
+        /**
+         * Returns a context bound to the given display, its window manager is used to add the overlay.
+         */
+        @NonNull
+        Context createDisplayContext(@NonNull Display display);
+
+        /**
+         * Creates the overlay view drawn on a display.
+         */
+        @NonNull
+        View createOverlayView(@NonNull Context displayContext);
+    }
+
+    /**
+     * An overlay window attached to a display.
+     */
+    private static final class Overlay {
+        final @NonNull Display display;
+        final @NonNull Context displayContext;
+        final @NonNull WindowManager windowManager;
+        final @NonNull View view;
+        final @NonNull WindowManager.LayoutParams params;
+        final @NonNull OverlayTransition transition;
+        // Window below the reading band, only added the first time the screen around the band is tinted
+        @Nullable View lowerView;
+        @Nullable WindowManager.LayoutParams lowerParams;
+        @Nullable OverlayTransition lowerTransition;
+
+        Overlay(final @NonNull Display display, final @NonNull Context displayContext, final @NonNull WindowManager windowManager,
+                final @NonNull View view, final @NonNull WindowManager.LayoutParams params,
+                final @NonNull OverlayTransition transition) {
+            this.display = display;
+            this.displayContext = displayContext;
+            this.windowManager = windowManager;
+            this.view = view;
+            this.params = params;
+            this.transition = transition;
+        }
+
+        void cancelTransitions() {
+            transition.cancel();
+            if (lowerTransition != null) {
+                lowerTransition.cancel();
+            }
+        }
+    }
+
+    @VisibleForTesting
+    static final float WINDOW_ALPHA_VISIBLE = 1f;
+    // The compositor skips layers with alpha 0, so a window in standby costs no blending
+    @VisibleForTesting
+    static final float WINDOW_ALPHA_STANDBY = 0f;
+
+    private final @NonNull DisplayManager displayManager;
+    private final @NonNull Host host;
+    private final @NonNull Handler handler;
+    private final @NonNull SparseArray<Overlay> overlays = new SparseArray<>();
+    private final @NonNull Point displaySize = new Point();
+
+    private @Nullable OverlaySnapshot snapshot;
+    private boolean isStarted = false;
+
+    OverlayManager(final @NonNull DisplayManager displayManager, final @NonNull Host host, final @NonNull Handler handler) {
+        this.displayManager = displayManager;
+        this.host = host;
+        this.handler = handler;
+    }
+
+    /**
+     * Attaches an overlay to every display and starts tracking displays.
+     */
+    void start(final @NonNull OverlaySnapshot snapshot) {
+        this.snapshot = snapshot;
+        if (!isStarted) {
+            isStarted = true;
+            displayManager.registerDisplayListener(this, handler);
+            for (final Display display : displayManager.getDisplays()) {
+                attach(display);
+            }
+        }
+        applyToAll();
+    }
+
+    /**
+     * Applies a new snapshot to every overlay in a single pass.
+     */
+    void apply(final @NonNull OverlaySnapshot snapshot) {
+        this.snapshot = snapshot;
+        applyToAll();
+    }
+
+    /**
+     * Applies a snapshot that only differs from the current one by its region: the windows are moved
+     * and resized with {@link WindowManager#updateViewLayout}, their content is not drawn again.
+     */
+    void applyRegion(final @NonNull OverlaySnapshot snapshot) {
+        this.snapshot = snapshot;
+        for (int i = 0; i < overlays.size(); i++) {
+            layout(overlays.valueAt(i), false);
+        }
+    }
+
+    /**
+     * Removes every overlay and stops tracking displays.
+     */
+    void stop() {
+        if (!isStarted) {
+            return;
+        }
+        isStarted = false;
+        displayManager.unregisterDisplayListener(this);
+        for (int i = 0; i < overlays.size(); i++) {
+            final Overlay overlay = overlays.valueAt(i);
+            Log.d(TAG, "Removing overlay view from display " + overlays.keyAt(i));
+            overlay.cancelTransitions();
+            overlay.windowManager.removeView(overlay.view);
+            if (overlay.lowerView != null) {
+                overlay.windowManager.removeView(overlay.lowerView);
+            }
+        }
+        overlays.clear();
+    }
+
+    @Nullable
+    OverlaySnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    @VisibleForTesting
+    int getOverlayCount() {
+        return overlays.size();
+    }
+
+    @VisibleForTesting
+    @Nullable
+    View getOverlayView(final int displayId) {
+        final Overlay overlay = overlays.get(displayId);
+        return overlay != null ? overlay.view : null;
+    }
+
+    @VisibleForTesting
+    @Nullable
+    WindowManager.LayoutParams getOverlayParams(final int displayId) {
+        final Overlay overlay = overlays.get(displayId);
+        return overlay != null ? overlay.params : null;
+    }
+
+    @VisibleForTesting
+    @Nullable
+    WindowManager.LayoutParams getLowerOverlayParams(final int displayId) {
+        final Overlay overlay = overlays.get(displayId);
+        return overlay != null ? overlay.lowerParams : null;
+    }
+
+    @Override
+    public void onDisplayAdded(final int displayId) {
+        final Display display = displayManager.getDisplay(displayId);
+        if (display == null || !isStarted) {
+            return;
+        }
+        if (attach(display)) {
+            applyTo(overlays.get(displayId));
+        }
+    }
+
+    @Override
+    public void onDisplayRemoved(final int displayId) {
+        final Overlay overlay = overlays.get(displayId);
+        if (overlay == null) {
+            return;
+        }
+        Log.d(TAG, "Display " + displayId + " removed");
+        overlays.remove(displayId);
+        overlay.cancelTransitions();
+        try {
+            overlay.windowManager.removeViewImmediate(overlay.view);
+            if (overlay.lowerView != null) {
+                overlay.windowManager.removeViewImmediate(overlay.lowerView);
+            }
+        } catch (IllegalArgumentException e) {
+            // The window was already removed together with the display
+            Log.d(TAG, "Overlay of display " + displayId + " already detached");
+        }
+    }
+
+    @Override
+    public void onDisplayChanged(final int displayId) {
+        // A full screen overlay is MATCH_PARENT, size and rotation changes are handled by the window manager
+        final Overlay overlay = overlays.get(displayId);
+        if (overlay != null && snapshot != null && !snapshot.getRegion().isFull()) {
+            // The band is in percent of the height of the display, it is laid out again for the new size
+            layout(overlay, false);
+        }
+    }
+
+    /**
+     * Adds an overlay window to the display if it does not have one yet.
+     *
+     * @return true if a window was added
+     */
+    private boolean attach(final @NonNull Display display) {
+        final int displayId = display.getDisplayId();
+        if (overlays.get(displayId) != null) {
+            return false;
+        }
+        if ((display.getFlags() & Display.FLAG_PRIVATE) != 0) {
+            // Other apps cannot add windows to private displays (e.g. virtual displays of other apps)
+            Log.d(TAG, "Skipping private display " + displayId);
+            return false;
+        }
+        final Context displayContext = host.createDisplayContext(display);
+        final WindowManager windowManager = (WindowManager) displayContext.getSystemService(Context.WINDOW_SERVICE);
+        final View view = host.createOverlayView(displayContext);
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.VANILLA_ICE_CREAM) {
+            // The overlay only changes when the settings change, it has no reason to raise the refresh rate
+            view.setRequestedFrameRate(View.REQUESTED_FRAME_RATE_CATEGORY_NO_PREFERENCE);
+        }
+        // Hidden like the window, until the first snapshot with Read Mode ON fades it in
+        view.setVisibility(View.INVISIBLE);
+        view.setAlpha(0f);
+        final WindowManager.LayoutParams params = createLayoutParams();
+        try {
+            Log.d(TAG, "Adding overlay view to display " + displayId);
+            windowManager.addView(view, params);
+        } catch (RuntimeException e) {
+            // e.g. the display was removed in the meantime
+            Log.w(TAG, "Failed to add overlay view to display " + displayId, e);
+            return false;
+        }
+        overlays.put(displayId, new Overlay(display, displayContext, windowManager, view, params,
+                createTransition(windowManager, view, params)));
+        return true;
+    }
+
+    /**
+     * Adds the window below the reading band to the overlay, if it does not have one yet.
+     */
+    private void attachLower(final @NonNull Overlay overlay) {
+        if (overlay.lowerView != null) {
+            return;
+        }
+        final View view = host.createOverlayView(overlay.displayContext);
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.VANILLA_ICE_CREAM) {
+            view.setRequestedFrameRate(View.REQUESTED_FRAME_RATE_CATEGORY_NO_PREFERENCE);
+        }
+        view.setVisibility(View.INVISIBLE);
+        view.setAlpha(0f);
+        final WindowManager.LayoutParams params = createLayoutParams();
+        try {
+            Log.d(TAG, "Adding lower overlay view to display " + overlay.display.getDisplayId());
+            overlay.windowManager.addView(view, params);
+        } catch (RuntimeException e) {
+            Log.w(TAG, "Failed to add lower overlay view to display " + overlay.display.getDisplayId(), e);
+            return;
+        }
+        overlay.lowerView = view;
+        overlay.lowerParams = params;
+        overlay.lowerTransition = createTransition(overlay.windowManager, view, params);
+    }
+
+    /**
+     * Creates the transition of a window: once faded out, the view stops drawing and the window is
+     * dropped from composition.
+     */
+    private @NonNull OverlayTransition createTransition(final @NonNull WindowManager windowManager, final @NonNull View view,
+                                                       final @NonNull WindowManager.LayoutParams params) {
+        return new OverlayTransition(view, fadedOutView -> {
+            // INVISIBLE keeps the window attached while skipping onDraw
+            fadedOutView.setVisibility(View.INVISIBLE);
+            updateWindow(windowManager, view, params, params.y, params.height, WINDOW_ALPHA_STANDBY);
+        });
+    }
+
+    private void applyToAll() {
+        for (int i = 0; i < overlays.size(); i++) {
+            applyTo(overlays.valueAt(i));
+        }
+    }
+
+    private void applyTo(final @NonNull Overlay overlay) {
+        layout(overlay, true);
+    }
+
+    /**
+     * Sizes and positions the windows of the overlay for the region of the snapshot.
+     *
+     * @param redraw true to draw the content of the visible windows again
+     */
+    private void layout(final @NonNull Overlay overlay, final boolean redraw) {
+        final boolean isReadModeOn = snapshot != null && snapshot.isReadModeOn();
+        final OverlayRegion region = snapshot != null ? snapshot.getRegion() : OverlayRegion.FULL;
+        if (region.isFull()) {
+            layoutWindow(overlay.windowManager, overlay.transition, overlay.params, 0, WindowManager.LayoutParams.MATCH_PARENT,
+                    isReadModeOn, redraw);
+            if (overlay.lowerTransition != null && overlay.lowerParams != null) {
+                layoutWindow(overlay.windowManager, overlay.lowerTransition, overlay.lowerParams, 0, overlay.lowerParams.height,
+                        false, redraw);
+            }
+            return;
+        }
+
+        final int displayHeight = getDisplayHeight(overlay.display);
+        final int bandTop = region.getBandTop(displayHeight);
+        final int bandBottom = region.getBandBottom(displayHeight);
+        if (region.getMode() == OverlayRegion.Mode.BAND) {
+            layoutWindow(overlay.windowManager, overlay.transition, overlay.params, bandTop, bandBottom - bandTop,
+                    isReadModeOn && bandBottom > bandTop, redraw);
+            if (overlay.lowerTransition != null && overlay.lowerParams != null) {
+                layoutWindow(overlay.windowManager, overlay.lowerTransition, overlay.lowerParams, 0, overlay.lowerParams.height,
+                        false, redraw);
+            }
+            return;
+        }
+
+        // MASK: the window above the band and the window below it
+        if (isReadModeOn) {
+            attachLower(overlay);
+        }
+        layoutWindow(overlay.windowManager, overlay.transition, overlay.params, 0, bandTop, isReadModeOn && bandTop > 0, redraw);
+        if (overlay.lowerTransition != null && overlay.lowerParams != null) {
+            layoutWindow(overlay.windowManager, overlay.lowerTransition, overlay.lowerParams, bandBottom, displayHeight - bandBottom,
+                    isReadModeOn && displayHeight > bandBottom, redraw);
+        }
+    }
+
+    /**
+     * Shows or hides a window at the given position, fading it in or out in the transition duration
+     * of the snapshot.
+     */
+    private void layoutWindow(final @NonNull WindowManager windowManager, final @NonNull OverlayTransition transition,
+                              final @NonNull WindowManager.LayoutParams params, final int y, final int height,
+                              final boolean isVisible, final boolean redraw) {
+        final View view = transition.getView();
+        final long transitionDuration = snapshot != null ? snapshot.getTransitionDuration() : 0;
+        final float alpha;
+        if (isVisible) {
+            final boolean isHidden = view.getVisibility() != View.VISIBLE || transition.isFadingOut();
+            view.setVisibility(View.VISIBLE);
+            if (redraw) {
+                view.invalidate();
+            }
+            if (isHidden) {
+                // From the current alpha, a fade out in progress is reversed
+                transition.fadeIn(transitionDuration);
+            }
+            alpha = WINDOW_ALPHA_VISIBLE;
+        } else {
+            if (view.getVisibility() == View.VISIBLE && !transition.isFadingOut()) {
+                transition.fadeOut(transitionDuration);
+            }
+            // The window stays in composition until the fade out ends, see createTransition()
+            alpha = transition.isFadingOut() ? WINDOW_ALPHA_VISIBLE : WINDOW_ALPHA_STANDBY;
+        }
+        updateWindow(windowManager, view, params, y, height, alpha);
+    }
+
+    /**
+     * Updates the layout of a window, only when its position, its height or its alpha changes, e.g.
+     * when Read Mode is turned ON or OFF or when the band is moved.
+     */
+    private void updateWindow(final @NonNull WindowManager windowManager, final @NonNull View view,
+                              final @NonNull WindowManager.LayoutParams params, final int y, final int height,
+                              final float alpha) {
+        if (params.alpha == alpha && params.y == y && params.height == height) {
+            return;
+        }
+        params.alpha = alpha;
+        params.y = y;
+        params.height = height;
+        try {
+            windowManager.updateViewLayout(view, params);
+        } catch (IllegalArgumentException e) {
+            // The window was removed together with its display
+            Log.w(TAG, "Failed to update overlay window", e);
+        }
+    }
+
+    @SuppressWarnings("deprecation")
+    private int getDisplayHeight(final @NonNull Display display) {
+        // The real size includes the system bars, the windows are laid out in screen coordinates
+        display.getRealSize(displaySize);
+        return displaySize.y;
+    }
+
+    /**
+     * Creates the layout params of an overlay window. The window starts in standby (alpha 0) and
+     * is made visible by the first {@link #apply(OverlaySnapshot)} with Read Mode ON.
+     */
+    @VisibleForTesting
+    static @NonNull WindowManager.LayoutParams createLayoutParams() {
+        final int windowType = Build.VERSION.SDK_INT >= Build.VERSION_CODES.O
+                ? WindowManager.LayoutParams.TYPE_APPLICATION_OVERLAY
+                : WindowManager.LayoutParams.TYPE_SYSTEM_OVERLAY;
+
+        // The filter is blended over the apps, so the buffer cannot be opaque. Instead the window
+        // is dropped from composition while in standby, see WINDOW_ALPHA_STANDBY.
+        final WindowManager.LayoutParams params = new WindowManager.LayoutParams(
+                WindowManager.LayoutParams.MATCH_PARENT,
+                WindowManager.LayoutParams.MATCH_PARENT,
+                windowType,
+                WindowManager.LayoutParams.FLAG_NOT_FOCUSABLE |
+                        WindowManager.LayoutParams.FLAG_NOT_TOUCHABLE |
+                        WindowManager.LayoutParams.FLAG_LAYOUT_IN_SCREEN,
+                PixelFormat.TRANSLUCENT);
+        params.alpha = WINDOW_ALPHA_STANDBY;
+        // The position of a reading band is set from the top of the screen
+        params.gravity = Gravity.TOP | Gravity.START;
+        // No refresh rate vote, the display keeps the rate requested by the app below the overlay
+        params.preferredRefreshRate = 0;
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.VANILLA_ICE_CREAM) {
+            params.setFrameRateBoostOnTouchEnabled(false);
+            params.setFrameRatePowerSavingsBalanced(true);
+        }
+        return params;
+    }
+}
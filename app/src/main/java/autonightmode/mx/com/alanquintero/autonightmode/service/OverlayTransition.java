@@ -0,0 +1,130 @@
+/*****************************************************************
+ * Copyright (C) 2025 Alan Quintero <https://github.com/alanquintero/>
+ *****************************************************************/
+package autonightmode.mx.com.alanquintero.autonightmode.service;
+
+import android.animation.Animator;
+import android.animation.AnimatorListenerAdapter;
+import android.animation.ObjectAnimator;
+import android.animation.ValueAnimator;
+import android.os.Build;
+import android.view.View;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.VisibleForTesting;
+
+/**
+ * OverlayTransition fades an overlay view in and out when Read Mode is turned ON or OFF, instead of
+ * showing or hiding it at once.
+ *
+ * <p>Only the alpha property of the view is animated: the content is drawn once into a hardware
+ * layer when the fade starts, and every frame of the fade only changes the alpha of the render node,
+ * which the RenderThread composites from the cached layer. {@code onDraw} is not called per frame.
+ * Each view has a single animator, created with the view: a fade can be cancelled or started again
+ * in the other direction mid-flight, it goes on from the current alpha.</p>
+ *
+ * <p>A fade with a duration of 0, or while the animations are turned off in the system settings,
+ * is applied at once.</p>
+ *
+ * @author Alan Quintero
+ */
+class OverlayTransition extends AnimatorListenerAdapter {
+
+    /**
+     * Called when a fade out ends, the view can be hidden and its window dropped from composition.
+     */
+    interface Listener {
+        void onFadedOut(@NonNull View view);
+    }
+
+    private final @NonNull View view;
+    private final @NonNull Listener listener;
+    private final @NonNull ObjectAnimator animator;
+
+    private boolean isFadingOut = false;
+    private boolean isCanceled = false;
+
+    OverlayTransition(final @NonNull View view, final @NonNull Listener listener) {
+        this.view = view;
+        this.listener = listener;
+        animator = ObjectAnimator.ofFloat(view, View.ALPHA, 0f, 1f);
+        animator.addListener(this);
+    }
+
+    /**
+     * Fades the view in from its current alpha.
+     */
+    void fadeIn(final long durationMs) {
+        start(1f, false, durationMs);
+    }
+
+    /**
+     * Fades the view out from its current alpha, the listener is called at the end.
+     */
+    void fadeOut(final long durationMs) {
+        start(0f, true, durationMs);
+    }
+
+    /**
+     * Stops the fade where it is, the listener is not called.
+     */
+    void cancel() {
+        if (animator.isStarted()) {
+            isCanceled = true;
+            animator.cancel();
+        }
+        isFadingOut = false;
+    }
+
+    boolean isRunning() {
+        return animator.isStarted();
+    }
+
+    boolean isFadingOut() {
+        return isFadingOut;
+    }
+
+    @NonNull
+    View getView() {
+        return view;
+    }
+
+    private void start(final float targetAlpha, final boolean isFadeOut, final long durationMs) {
+        cancel();
+        isFadingOut = isFadeOut;
+        final float alpha = view.getAlpha();
+        if (durationMs <= 0 || alpha == targetAlpha || !areAnimatorsEnabled()) {
+            view.setAlpha(targetAlpha);
+            finish();
+            return;
+        }
+        animator.setFloatValues(alpha, targetAlpha);
+        // The remaining part of the fade takes the remaining part of the duration
+        animator.setDuration(Math.max(1, Math.round(durationMs * Math.abs(targetAlpha - alpha))));
+        view.setLayerType(View.LAYER_TYPE_HARDWARE, null);
+        animator.start();
+    }
+
+    @Override
+    public void onAnimationEnd(final @NonNull Animator animation) {
+        view.setLayerType(View.LAYER_TYPE_NONE, null);
+        if (isCanceled) {
+            isCanceled = false;
+            return;
+        }
+        finish();
+    }
+
+    private void finish() {
+        if (isFadingOut) {
+            isFadingOut = false;
+            listener.onFadedOut(view);
+        }
+    }
+
+    @VisibleForTesting
+    static boolean areAnimatorsEnabled() {
+        // Turned off in the developer options or by the battery saver
+        return Build.VERSION.SDK_INT < Build.VERSION_CODES.O || ValueAnimator.areAnimatorsEnabled();
+    }
+}
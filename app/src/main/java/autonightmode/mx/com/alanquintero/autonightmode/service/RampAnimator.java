@@ -0,0 +1,96 @@
+/*****************************************************************
+ * Copyright (C) 2025 Alan Quintero <https://github.com/alanquintero/>
+ *****************************************************************/
+package autonightmode.mx.com.alanquintero.autonightmode.service;
+
+import android.view.Choreographer;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+
+import autonightmode.mx.com.alanquintero.autonightmode.model.OverlaySnapshot;
+
+/**
+ * RampAnimator drives the ramp of an {@link OverlaySnapshot} for {@link DrawOverAppsService}.
+ *
+ * <p>Updates are paced by the {@link Choreographer}, so a new level is always drawn on a frame, but
+ * not on every frame: a ramp lasts minutes and the overlay alpha only has a few hundred visible
+ * steps, so the next frame callback is posted when the next step is due. The level is computed from
+ * the wall clock, the service stops the animator while the screen is OFF and starts it again when
+ * the screen turns ON, without any catch up.</p>
+ *
+ * @author Alan Quintero
+ */
+class RampAnimator implements Choreographer.FrameCallback {
+
+    /**
+     * Receives the ramp levels.
+     */
+    interface Listener {
+        void onRampLevel(float level);
+
+        void onRampFinished();
+    }
+
+    // Highest alpha drawn by the overlay, a ramp never has more visible steps
+    private static final int MAX_STEPS = 255;
+    private static final long MIN_STEP_MS = 16;
+
+    private final @NonNull Choreographer choreographer;
+    private final @NonNull Listener listener;
+
+    private @Nullable OverlaySnapshot snapshot;
+
+    RampAnimator(final @NonNull Choreographer choreographer, final @NonNull Listener listener) {
+        this.choreographer = choreographer;
+        this.listener = listener;
+    }
+
+    /**
+     * Starts driving the ramp of the given snapshot, from the next frame. Does nothing if it has no ramp.
+     */
+    void start(final @NonNull OverlaySnapshot snapshot) {
+        stop();
+        if (!snapshot.hasRamp()) {
+            return;
+        }
+        this.snapshot = snapshot;
+        choreographer.postFrameCallback(this);
+    }
+
+    /**
+     * Stops driving the ramp, no more levels are sent.
+     */
+    void stop() {
+        if (snapshot != null) {
+            choreographer.removeFrameCallback(this);
+            snapshot = null;
+        }
+    }
+
+    boolean isRunning() {
+        return snapshot != null;
+    }
+
+    @Override
+    public void doFrame(final long frameTimeNanos) {
+        final OverlaySnapshot current = snapshot;
+        if (current == null) {
+            return;
+        }
+        final long now = System.currentTimeMillis();
+        if (now >= current.getRampEnd()) {
+            snapshot = null;
+            listener.onRampFinished();
+            return;
+        }
+        listener.onRampLevel(current.getRampLevel(now));
+        choreographer.postFrameCallbackDelayed(this, getStepMillis(current));
+    }
+
+    @VisibleForTesting
+    static long getStepMillis(final @NonNull OverlaySnapshot snapshot) {
+        return Math.max(MIN_STEP_MS, (snapshot.getRampEnd() - snapshot.getRampStart()) / MAX_STEPS);
+    }
+}
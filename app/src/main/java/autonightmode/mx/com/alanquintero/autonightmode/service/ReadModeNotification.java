@@ -0,0 +1,228 @@
+/*****************************************************************
+ * Copyright (C) 2025 Alan Quintero <https://github.com/alanquintero/>
+ *****************************************************************/
+package autonightmode.mx.com.alanquintero.autonightmode.service;
+
+import android.app.Notification;
+import android.app.NotificationChannel;
+import android.app.NotificationManager;
+import android.app.PendingIntent;
+import android.content.Context;
+import android.content.Intent;
+import android.os.Build;
+import android.os.Handler;
+import android.os.SystemClock;
+import android.util.Log;
+import android.widget.RemoteViews;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+import androidx.core.app.NotificationCompat;
+
+import autonightmode.mx.com.alanquintero.autonightmode.R;
+import autonightmode.mx.com.alanquintero.autonightmode.util.Constants;
+
+/**
+ * ReadModeNotification builds and caches the foreground notification of {@link DrawOverAppsService}.
+ *
+ * <p>The channel, the pending intents and the {@link Notification} are built once and reused.
+ * The notification offers controls to start/stop Read Mode, make the filter dimmer or brighter
+ * and switch to the next color. These controls send an action to {@link NotificationActionReceiver}
+ * in the main process, which applies it without opening {@code MainActivity}.</p>
+ *
+ * <p>Content updates are throttled: the notification is posted at most once every
+ * {@link #NOTIFY_THROTTLE_MS} ms, and the latest content wins.</p>
+ *
+ * @author Alan Quintero
+ */
+class ReadModeNotification {
+
+    private static final String TAG = ReadModeNotification.class.getSimpleName();
+
+    private static final String CHANNEL_ID = "read_mode_channel";
+    // Referenced by name, the overlay process does not load any UI class
+    private static final String MAIN_ACTIVITY_CLASS = "autonightmode.mx.com.alanquintero.autonightmode.ui.MainActivity";
+
+    static final String ACTION_START = "autonightmode.mx.com.alanquintero.autonightmode.action.START";
+    static final String ACTION_STOP = "autonightmode.mx.com.alanquintero.autonightmode.action.STOP";
+    static final String ACTION_DIMMER = "autonightmode.mx.com.alanquintero.autonightmode.action.DIMMER";
+    static final String ACTION_BRIGHTER = "autonightmode.mx.com.alanquintero.autonightmode.action.BRIGHTER";
+    static final String ACTION_NEXT_COLOR = "autonightmode.mx.com.alanquintero.autonightmode.action.NEXT_COLOR";
+
+    @VisibleForTesting
+    static final long NOTIFY_THROTTLE_MS = 1000;
+
+    // The channel survives service restarts, so it only needs to be created once per process
+    private static boolean isChannelCreated = false;
+
+    private final @NonNull Context context;
+    private final @NonNull NotificationManager notificationManager;
+    private final @NonNull Handler handler;
+
+    private @Nullable NotificationCompat.Builder builder;
+    private @Nullable RemoteViews controls;
+    private @Nullable Notification notification;
+
+    private boolean isReadModeOn = true;
+    private int colorIntensity = Constants.DEFAULT_COLOR_INTENSITY;
+    private int brightness = Constants.DEFAULT_BRIGHTNESS;
+
+    private boolean hasNotified = false;
+    private long lastNotifyTime;
+    private boolean isNotifyPending = false;
+    private final @NonNull Runnable pendingNotify = () -> {
+        isNotifyPending = false;
+        notifyNow();
+    };
+
+    ReadModeNotification(final @NonNull Context context, final @NonNull NotificationManager notificationManager, final @NonNull Handler handler) {
+        this.context = context;
+        this.notificationManager = notificationManager;
+        this.handler = handler;
+    }
+
+    /**
+     * Returns the cached notification, building it on first use.
+     */
+    @NonNull
+    Notification getNotification() {
+        if (notification == null) {
+            notification = getBuilder().build();
+        }
+        return notification;
+    }
+
+    /**
+     * Updates the notification content. Does nothing if the content did not change,
+     * otherwise posts it now or after the throttle window.
+     */
+    void update(final boolean isReadModeOn, final int colorIntensity, final int brightness) {
+        if (notification != null && this.isReadModeOn == isReadModeOn
+                && this.colorIntensity == colorIntensity && this.brightness == brightness) {
+            return;
+        }
+        this.isReadModeOn = isReadModeOn;
+        this.colorIntensity = colorIntensity;
+        this.brightness = brightness;
+        applyContent();
+        notification = null;
+
+        final long now = SystemClock.uptimeMillis();
+        if (!hasNotified || now - lastNotifyTime >= NOTIFY_THROTTLE_MS) {
+            notifyNow();
+        } else if (!isNotifyPending) {
+            isNotifyPending = true;
+            handler.postAtTime(pendingNotify, lastNotifyTime + NOTIFY_THROTTLE_MS);
+        }
+    }
+
+    /**
+     * Cancels the notification and any pending update.
+     */
+    void cancel() {
+        handler.removeCallbacks(pendingNotify);
+        isNotifyPending = false;
+        notificationManager.cancel(Constants.NOTIFICATION_ID);
+    }
+
+    /**
+     * Drops the cached builder, controls and notification under memory pressure. The posted
+     * notification is not affected, the next update builds it again.
+     */
+    void releaseCache() {
+        builder = null;
+        controls = null;
+        notification = null;
+    }
+
+    private void notifyNow() {
+        hasNotified = true;
+        lastNotifyTime = SystemClock.uptimeMillis();
+        notificationManager.notify(Constants.NOTIFICATION_ID, getNotification());
+    }
+
+    @NonNull
+    private NotificationCompat.Builder getBuilder() {
+        if (builder != null) {
+            return builder;
+        }
+        Log.d(TAG, "Building notification");
+        createChannel();
+
+        // Create PendingIntent to open MainActivity when notification is clicked
+        final Intent notificationIntent = new Intent().setClassName(context, MAIN_ACTIVITY_CLASS);
+        final PendingIntent pendingIntent = PendingIntent.getActivity(
+                context, 0, notificationIntent, PendingIntent.FLAG_IMMUTABLE
+        );
+
+        controls = new RemoteViews(context.getPackageName(), R.layout.notification_controls);
+        controls.setOnClickPendingIntent(R.id.notificationDimmer, createActionIntent(ACTION_DIMMER));
+        controls.setOnClickPendingIntent(R.id.notificationBrighter, createActionIntent(ACTION_BRIGHTER));
+        controls.setOnClickPendingIntent(R.id.notificationNextColor, createActionIntent(ACTION_NEXT_COLOR));
+        applyContent();
+
+        // Build the notification using NotificationCompat, the channel is ignored before Android 8
+        builder = new NotificationCompat.Builder(context, CHANNEL_ID)
+                .setContentTitle(context.getString(R.string.app_name))
+                .setContentText(context.getString(R.string.notification_msg))
+                .setSmallIcon(R.drawable.ic_notification)
+                .setContentIntent(pendingIntent)
+                .setTicker(context.getString(R.string.notification_msg))
+                .setPriority(NotificationCompat.PRIORITY_HIGH)
+                .setCustomContentView(controls)
+                .setStyle(new NotificationCompat.DecoratedCustomViewStyle())
+                .setOnlyAlertOnce(true)
+                .setOngoing(true); // Makes it persistent (can't swipe away)
+        return builder;
+    }
+
+    /**
+     * Applies the current state to the controls.
+     */
+    private void applyContent() {
+        if (controls == null) {
+            return;
+        }
+        final String status = context.getString(isReadModeOn ? R.string.notification_msg : R.string.notification_paused);
+        final String levels = context.getString(R.string.notification_levels, colorIntensity, brightness);
+        controls.setTextViewText(R.id.notificationText, status + "\n" + levels);
+        if (isReadModeOn) {
+            controls.setImageViewResource(R.id.notificationStartStop, R.drawable.notification_stop);
+            controls.setOnClickPendingIntent(R.id.notificationStartStop, createActionIntent(ACTION_STOP));
+        } else {
+            controls.setImageViewResource(R.id.notificationStartStop, R.drawable.notification_start);
+            controls.setOnClickPendingIntent(R.id.notificationStartStop, createActionIntent(ACTION_START));
+        }
+    }
+
+    @NonNull
+    private PendingIntent createActionIntent(final @NonNull String action) {
+        final Intent intent = new Intent(context, NotificationActionReceiver.class).setAction(action);
+        return PendingIntent.getBroadcast(context, action.hashCode(), intent,
+                PendingIntent.FLAG_IMMUTABLE | PendingIntent.FLAG_UPDATE_CURRENT);
+    }
+
+    private void createChannel() {
+        // Create notification channel for Android 8+
+        if (isChannelCreated || Build.VERSION.SDK_INT < Build.VERSION_CODES.O) {
+            return;
+        }
+        final NotificationChannel channel = new NotificationChannel(
+                CHANNEL_ID,
+                "Read Mode Notifications",
+                NotificationManager.IMPORTANCE_HIGH
+        );
+        channel.setDescription("Notifications for Read Mode overlay");
+        notificationManager.createNotificationChannel(channel);
+        isChannelCreated = true;
+    }
+
+    /**
+     * IMPORTANT: use it for testing ONLY
+     */
+    @VisibleForTesting
+    static void cleanUp() {
+        isChannelCreated = false;
+    }
+}
@@ -0,0 +1,119 @@
+/*****************************************************************
+ * Copyright (C) 2025 Alan Quintero <https://github.com/alanquintero/>
+ *****************************************************************/
+package autonightmode.mx.com.alanquintero.autonightmode.service;
+
+import android.os.Build;
+import android.service.quicksettings.Tile;
+import android.service.quicksettings.TileService;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.RequiresApi;
+import androidx.annotation.VisibleForTesting;
+
+import autonightmode.mx.com.alanquintero.autonightmode.manager.ReadModeManager;
+import autonightmode.mx.com.alanquintero.autonightmode.model.ReadModeSettings;
+import autonightmode.mx.com.alanquintero.autonightmode.observer.readmode.ReadModeObserver;
+import autonightmode.mx.com.alanquintero.autonightmode.observer.readmode.ReadModeSubject;
+import autonightmode.mx.com.alanquintero.autonightmode.util.PrefsHelper;
+
+/**
+ * ReadModeTileService is a Quick Settings tile that toggles Read Mode
+ * straight from the notification shade.
+ *
+ * <p>The tile talks directly to the {@link ReadModeManager} (and through it to the settings
+ * store and, over {@link OverlayClient}, to the {@link DrawOverAppsService}), so toggling never launches
+ * {@code MainActivity} nor loads any UI class. The tile state is refreshed through the
+ * Read Mode state-change events of its own {@link ReadModeSubject}, an open {@code MainActivity}
+ * is told through {@link ReadModeManager#notifySettingsChanged}.</p>
+ *
+ * <p>It is declared as an active tile: the system only binds it when the tile is clicked
+ * or when {@link ReadModeManager} requests it after Read Mode changed elsewhere.
+ * A long press opens {@code MainActivity} through the {@code QS_TILE_PREFERENCES} intent filter.</p>
+ *
+ * @author Alan Quintero
+ */
+@RequiresApi(Build.VERSION_CODES.N)
+public class ReadModeTileService extends TileService implements ReadModeObserver {
+
+    private static final String TAG = ReadModeTileService.class.getSimpleName();
+
+    private final @NonNull ReadModeSettings readModeSettings = ReadModeSettings.init();
+    private final @NonNull ReadModeSubject readModeSubject = new ReadModeSubject();
+
+    @VisibleForTesting
+    PrefsHelper prefsHelper;
+    @VisibleForTesting
+    ReadModeManager readModeManager;
+
+    @Override
+    public void onCreate() {
+        super.onCreate();
+        Log.d(TAG, "Tile onCreate");
+        prefsHelper = PrefsHelper.init(this);
+        readModeManager = new ReadModeManager(this, prefsHelper, readModeSubject, readModeSettings);
+    }
+
+    @Override
+    public void onStartListening() {
+        super.onStartListening();
+        Log.d(TAG, "Tile onStartListening");
+        readModeSubject.registerObserver(this);
+        prefsHelper.loadReadModeSettings(readModeSettings);
+        updateTile(isReadModeActive());
+    }
+
+    @Override
+    public void onStopListening() {
+        Log.d(TAG, "Tile onStopListening");
+        readModeSubject.unregisterObserver(this);
+        super.onStopListening();
+    }
+
+    @Override
+    public void onClick() {
+        super.onClick();
+        prefsHelper.loadReadModeSettings(readModeSettings);
+        if (isReadModeActive()) {
+            Log.d(TAG, "Tile clicked, stopping Read Mode");
+            readModeManager.stopReadMode();
+        } else {
+            Log.d(TAG, "Tile clicked, starting Read Mode");
+            readModeManager.startReadMode();
+        }
+        ReadModeManager.notifySettingsChanged(this, true);
+    }
+
+    @Override
+    public void onReadModeChanged(final boolean isReadModeOn) {
+        updateTile(isReadModeOn);
+    }
+
+    /**
+     * Read Mode is only active when the setting is ON and the overlay service is alive.
+     * After a reboot or an app update the setting may still be ON while nothing is drawn.
+     */
+    @VisibleForTesting
+    boolean isReadModeActive() {
+        return readModeSettings.isReadModeOn() && OverlayClient.isRunning(this);
+    }
+
+    private void updateTile(final boolean isReadModeOn) {
+        final Tile tile = getQsTile();
+        if (tile == null) {
+            Log.w(TAG, "Tile is not available");
+            return;
+        }
+        applyTileState(tile, isReadModeOn);
+    }
+
+    /**
+     * Reflects the Read Mode state in the given tile.
+     */
+    @VisibleForTesting
+    static void applyTileState(final @NonNull Tile tile, final boolean isReadModeOn) {
+        tile.setState(isReadModeOn ? Tile.STATE_ACTIVE : Tile.STATE_INACTIVE);
+        tile.updateTile();
+    }
+}
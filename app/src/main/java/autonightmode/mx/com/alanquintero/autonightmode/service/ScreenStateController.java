@@ -0,0 +1,177 @@
+/*****************************************************************
+ * Copyright (C) 2025 Alan Quintero <https://github.com/alanquintero/>
+ *****************************************************************/
+package autonightmode.mx.com.alanquintero.autonightmode.service;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.hardware.display.DisplayManager;
+import android.os.Build;
+import android.os.Handler;
+import android.os.PowerManager;
+import android.util.Log;
+import android.view.Display;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.core.content.ContextCompat;
+
+/**
+ * ScreenStateController tells {@link DrawOverAppsService} when the screen turns OFF and ON and
+ * when the device enters or leaves doze, so the service can suspend its periodic work while
+ * nobody can see the overlay.
+ *
+ * <p>The screen state comes from two sources: the state of the default display, which changes
+ * as soon as the panel turns ON (so the service resumes before the first frame is shown), and
+ * the {@code ACTION_SCREEN_OFF} / {@code ACTION_SCREEN_ON} broadcasts, which are delivered later
+ * but are the documented signal. Both are deduplicated, the listener is only called on an
+ * actual change. The initial state is read from {@link PowerManager#isInteractive()}.</p>
+ *
+ * @author Alan Quintero
+ */
+class ScreenStateController extends BroadcastReceiver implements DisplayManager.DisplayListener {
+
+    private static final String TAG = ScreenStateController.class.getSimpleName();
+
+    /**
+     * Receives the screen and doze state changes.
+     */
+    interface Listener {
+        void onScreenOff();
+
+        void onScreenOn();
+
+        void onDozeChanged(boolean isDozing);
+    }
+
+    private final @NonNull Context context;
+    private final @NonNull PowerManager powerManager;
+    private final @Nullable DisplayManager displayManager;
+    private final @NonNull Handler handler;
+    private final @NonNull Listener listener;
+
+    private boolean isStarted = false;
+    private boolean isScreenOn = true;
+    private boolean isDozing = false;
+
+    ScreenStateController(final @NonNull Context context, final @NonNull PowerManager powerManager,
+                          final @Nullable DisplayManager displayManager, final @NonNull Handler handler,
+                          final @NonNull Listener listener) {
+        this.context = context;
+        this.powerManager = powerManager;
+        this.displayManager = displayManager;
+        this.handler = handler;
+        this.listener = listener;
+    }
+
+    /**
+     * Starts tracking the screen state. If the screen is already OFF the listener is told right away.
+     */
+    void start() {
+        if (isStarted) {
+            return;
+        }
+        isStarted = true;
+        final IntentFilter filter = new IntentFilter();
+        filter.addAction(Intent.ACTION_SCREEN_OFF);
+        filter.addAction(Intent.ACTION_SCREEN_ON);
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
+            filter.addAction(PowerManager.ACTION_DEVICE_IDLE_MODE_CHANGED);
+        }
+        ContextCompat.registerReceiver(context, this, filter, null, handler, ContextCompat.RECEIVER_NOT_EXPORTED);
+        if (displayManager != null) {
+            displayManager.registerDisplayListener(this, handler);
+        }
+        if (!powerManager.isInteractive()) {
+            setScreenOn(false);
+        }
+    }
+
+    /**
+     * Stops tracking the screen state.
+     */
+    void stop() {
+        if (!isStarted) {
+            return;
+        }
+        isStarted = false;
+        context.unregisterReceiver(this);
+        if (displayManager != null) {
+            displayManager.unregisterDisplayListener(this);
+        }
+    }
+
+    boolean isScreenOn() {
+        return isScreenOn;
+    }
+
+    boolean isDozing() {
+        return isDozing;
+    }
+
+    @Override
+    public void onReceive(final @NonNull Context context, final @NonNull Intent intent) {
+        final String action = intent.getAction();
+        if (Intent.ACTION_SCREEN_OFF.equals(action)) {
+            setScreenOn(false);
+        } else if (Intent.ACTION_SCREEN_ON.equals(action)) {
+            setScreenOn(true);
+        } else if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M
+                && PowerManager.ACTION_DEVICE_IDLE_MODE_CHANGED.equals(action)) {
+            setDozing(powerManager.isDeviceIdleMode());
+        }
+    }
+
+    @Override
+    public void onDisplayAdded(final int displayId) {
+        // Only the state of the default display is tracked
+    }
+
+    @Override
+    public void onDisplayRemoved(final int displayId) {
+        // Only the state of the default display is tracked
+    }
+
+    @Override
+    public void onDisplayChanged(final int displayId) {
+        if (displayId != Display.DEFAULT_DISPLAY || displayManager == null) {
+            return;
+        }
+        final Display display = displayManager.getDisplay(displayId);
+        if (display == null) {
+            return;
+        }
+        final int state = display.getState();
+        if (state == Display.STATE_UNKNOWN) {
+            return;
+        }
+        // Always-on display (DOZE states) counts as OFF, the overlay is not visible there
+        setScreenOn(state == Display.STATE_ON || state == Display.STATE_VR || state == Display.STATE_ON_SUSPEND);
+    }
+
+    private void setScreenOn(final boolean isScreenOn) {
+        if (this.isScreenOn == isScreenOn) {
+            return;
+        }
+        this.isScreenOn = isScreenOn;
+        Log.d(TAG, "Screen " + (isScreenOn ? "ON" : "OFF"));
+        if (isScreenOn) {
+            // The device cannot be in doze with the screen ON, the broadcast may arrive later
+            setDozing(false);
+            listener.onScreenOn();
+        } else {
+            listener.onScreenOff();
+        }
+    }
+
+    private void setDozing(final boolean isDozing) {
+        if (this.isDozing == isDozing) {
+            return;
+        }
+        this.isDozing = isDozing;
+        Log.d(TAG, "Doze " + (isDozing ? "entered" : "exited"));
+        listener.onDozeChanged(isDozing);
+    }
+}
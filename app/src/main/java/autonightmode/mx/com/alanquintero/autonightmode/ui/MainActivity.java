@@ -4,7 +4,10 @@
 package autonightmode.mx.com.alanquintero.autonightmode.ui;
 
 import android.Manifest;
+import android.content.BroadcastReceiver;
+import android.content.Context;
 import android.content.Intent;
+import android.content.IntentFilter;
 import android.content.pm.PackageManager;
 import android.content.res.Configuration;
 import android.net.Uri;
@@ -13,15 +16,23 @@ import android.os.Bundle;
 import android.provider.Settings;
 import android.util.Log;
 import android.view.View;
+import android.view.ViewGroup;
+import android.view.ViewTreeObserver;
 import android.widget.Toast;
 
 import androidx.activity.result.ActivityResultLauncher;
 import androidx.activity.result.contract.ActivityResultContracts;
 import androidx.annotation.NonNull;
+import androidx.annotation.VisibleForTesting;
 import androidx.appcompat.app.AppCompatActivity;
+import androidx.asynclayoutinflater.view.AsyncLayoutInflater;
 import androidx.core.app.ActivityCompat;
 import androidx.core.content.ContextCompat;
+import androidx.fragment.app.DialogFragment;
+import androidx.fragment.app.Fragment;
+import androidx.fragment.app.FragmentManager;
 
+import autonightmode.mx.com.alanquintero.autonightmode.BuildConfig;
 import autonightmode.mx.com.alanquintero.autonightmode.R;
 import autonightmode.mx.com.alanquintero.autonightmode.command.GeneralReadModeCommand;
 import autonightmode.mx.com.alanquintero.autonightmode.command.SettingsReadModeCommand;
@@ -32,6 +43,7 @@ import autonightmode.mx.com.alanquintero.autonightmode.observer.dropdown.ColorDr
 import autonightmode.mx.com.alanquintero.autonightmode.observer.readmode.ReadModeSubject;
 import autonightmode.mx.com.alanquintero.autonightmode.observer.settings.SettingsObserver;
 import autonightmode.mx.com.alanquintero.autonightmode.observer.settings.SettingsSubject;
+import autonightmode.mx.com.alanquintero.autonightmode.service.OverlayClient;
 import autonightmode.mx.com.alanquintero.autonightmode.ui.controller.ButtonController;
 import autonightmode.mx.com.alanquintero.autonightmode.ui.controller.ColorDropdownController;
 import autonightmode.mx.com.alanquintero.autonightmode.ui.controller.MenuController;
@@ -39,10 +51,17 @@ import autonightmode.mx.com.alanquintero.autonightmode.ui.controller.SeekBarCont
 import autonightmode.mx.com.alanquintero.autonightmode.ui.controller.StatusBarController;
 import autonightmode.mx.com.alanquintero.autonightmode.ui.controller.TextViewController;
 import autonightmode.mx.com.alanquintero.autonightmode.ui.dialog.CustomColorDialog;
+import autonightmode.mx.com.alanquintero.autonightmode.ui.picker.HsvColorPickerView;
 import autonightmode.mx.com.alanquintero.autonightmode.util.Constants;
+import autonightmode.mx.com.alanquintero.autonightmode.util.JankMonitor;
+import autonightmode.mx.com.alanquintero.autonightmode.util.MemoryTrimPolicy;
 import autonightmode.mx.com.alanquintero.autonightmode.util.PrefsHelper;
+import autonightmode.mx.com.alanquintero.autonightmode.util.StartupTracer;
 import autonightmode.mx.com.alanquintero.autonightmode.util.Utils;
 
+import java.io.FileDescriptor;
+import java.io.PrintWriter;
+
 /**
  * MainActivity controls the UI for Read Mode.
  * Users can select colors, brightness, intensity, and start/stop the read mode overlay.
@@ -51,6 +70,7 @@ import autonightmode.mx.com.alanquintero.autonightmode.util.Utils;
  */
 public class MainActivity extends AppCompatActivity implements SettingsObserver {
     private static final String TAG = MainActivity.class.getSimpleName();
+    public static final String TRACE_NAME = "MainActivityStart";
     private final ReadModeSettings readModeSettings = ReadModeSettings.init();
     private PrefsHelper prefsHelper;
     private ReadModeManager readModeManager;
@@ -58,7 +78,24 @@ public class MainActivity extends AppCompatActivity implements SettingsObserver
     private SettingsSubject settingsSubject;
     private CustomColorSubject customColorSubject;
     private ColorDropdownSubject colorDropdownSubject;
+    private GeneralReadModeCommand generalReadModeCommand;
+    private ColorDropdownController colorDropdownController;
+    // Created on first use, see getCustomColorDialog()
+    private CustomColorDialog customColorDialog;
+    private AsyncLayoutInflater asyncLayoutInflater;
+    // Incremented on every initUI, an inflation finished after a newer one was requested is dropped
+    private int uiGeneration = 0;
+    private boolean isInflatingUi = false;
     private String[] colorNames = {};
+    // True when the UI was released because it was hidden, it is built again in onStart
+    private boolean isUiReleased = false;
+    // Settings changed by the tile, the notification, the schedule or an automation request
+    private final BroadcastReceiver settingsChangedReceiver = new BroadcastReceiver() {
+        @Override
+        public void onReceive(final Context context, final Intent intent) {
+            onSettingsChangedOutside(intent.getBooleanExtra(ReadModeManager.EXTRA_IS_READ_MODE_ONLY, false));
+        }
+    };
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -68,6 +105,17 @@ public class MainActivity extends AppCompatActivity implements SettingsObserver
         Utils.setAppTheme(savedTheme);
 
         super.onCreate(savedInstanceState);
+        if (!StartupTracer.isTracing()) {
+            StartupTracer.start(TRACE_NAME);
+        }
+        asyncLayoutInflater = new AsyncLayoutInflater(this);
+        if (BuildConfig.TRACING) {
+            // Diagnostics only: a thread and a callback per frame are not paid for in production builds
+            JankMonitor.attach(getWindow());
+            getSupportFragmentManager().registerFragmentLifecycleCallbacks(createDialogMonitor(), false);
+        }
+        ContextCompat.registerReceiver(this, settingsChangedReceiver,
+                new IntentFilter(ReadModeManager.ACTION_SETTINGS_CHANGED), ContextCompat.RECEIVER_NOT_EXPORTED);
 
         // Register Activity Result launcher for overlay permission
         final ActivityResultLauncher<Intent> overlayPermissionLauncher = registerForActivityResult(
@@ -99,33 +147,53 @@ public class MainActivity extends AppCompatActivity implements SettingsObserver
     }
 
     /**
-     * Initializes the user interface components and sets up their behavior.
-     * <p>
-     * This method handles:
-     * <ul>
-     *     <li>Finding views by ID (SeekBars, TextViews, Buttons, Spinner).</li>
-     *     <li>Setting up color dropdown, SeekBars for color intensity and brightness.</li>
-     *     <li>Configuring event listeners for user interactions (dropdown selection, button clicks, SeekBar changes).</li>
-     *     <li>Applying saved preferences to restore previous app state.</li>
-     *     <li>Enabling or disabling UI elements based on selected color and read mode status.</li>
-     * </ul>
+     * Inflates the main layout in the background, the preferences and the color names are loaded
+     * on the main thread in the meantime. The UI is built once the layout is inflated.
      */
     private void initUI() {
         Log.d(TAG, "initUI");
-        setContentView(R.layout.activity_main);
+        isUiReleased = false;
+        isInflatingUi = true;
+        final int generation = ++uiGeneration;
+        asyncLayoutInflater.inflate(R.layout.activity_main, findViewById(android.R.id.content), (view, resId, parent) -> {
+            if (generation != uiGeneration || isUiReleased || isFinishing()) {
+                Log.d(TAG, "Dropping outdated layout inflation");
+                return;
+            }
+            StartupTracer.mark("layout inflated");
+            setContentView(view);
+            buildUI();
+            isInflatingUi = false;
+        });
 
         Log.d(TAG, "init methods...");
         initSharedPreferences();
         initColorNames();
+    }
 
+    /**
+     * Initializes the user interface components and sets up their behavior.
+     * <p>
+     * This method handles:
+     * <ul>
+     *     <li>Finding views by ID (SeekBars, TextViews, Buttons, RecyclerView).</li>
+     *     <li>Setting up the color presets, SeekBars for color intensity and brightness.</li>
+     *     <li>Configuring event listeners for user interactions (preset selection, button clicks, SeekBar changes).</li>
+     *     <li>Applying saved preferences to restore previous app state.</li>
+     *     <li>Enabling or disabling UI elements based on selected color and read mode status.</li>
+     * </ul>
+     * The custom color dialog and the menu are created the first time they are opened.
+     */
+    private void buildUI() {
         Log.d(TAG, "init classes...");
         final @NonNull View rootView = findViewById(android.R.id.content);
+        releaseCustomColorDialog();
         readModeSubject = new ReadModeSubject();
         colorDropdownSubject = new ColorDropdownSubject();
         customColorSubject = new CustomColorSubject();
         settingsSubject = new SettingsSubject();
         readModeManager = new ReadModeManager(this, prefsHelper, readModeSubject, readModeSettings);
-        final GeneralReadModeCommand generalReadModeCommand = new GeneralReadModeCommand(readModeManager, readModeSettings);
+        generalReadModeCommand = new GeneralReadModeCommand(readModeManager, readModeSettings);
         final SettingsReadModeCommand settingsReadModeCommand = new SettingsReadModeCommand(readModeManager, readModeSettings);
 
         /*
@@ -139,13 +207,12 @@ public class MainActivity extends AppCompatActivity implements SettingsObserver
         }
 
         // UI components
-        final CustomColorDialog customColorDialog = new CustomColorDialog(this, generalReadModeCommand, readModeSettings, customColorSubject);
-        final ButtonController buttonController = new ButtonController(this, this, rootView, generalReadModeCommand, readModeSettings, customColorDialog);
+        final ButtonController buttonController = new ButtonController(this, this, rootView, generalReadModeCommand, readModeSettings, this::getCustomColorDialog);
         final SeekBarController seekBarController = new SeekBarController(this, rootView, generalReadModeCommand, readModeSettings);
         final TextViewController textViewController = new TextViewController(this, rootView, readModeSettings, colorNames);
         final StatusBarController statusBarController = new StatusBarController(this, this);
         final MenuController menuController = new MenuController(this, this, rootView, settingsSubject, readModeSettings);
-        final ColorDropdownController colorDropdownController = new ColorDropdownController(this, this, rootView, customColorDialog, colorDropdownSubject, settingsReadModeCommand, readModeSettings, colorNames);
+        colorDropdownController = new ColorDropdownController(this, this, rootView, this::getCustomColorDialog, colorDropdownSubject, settingsReadModeCommand, readModeSettings, colorNames);
 
         statusBarController.setupStatusBarColor();
         colorDropdownController.setupColorDropdown();
@@ -158,47 +225,117 @@ public class MainActivity extends AppCompatActivity implements SettingsObserver
         readModeSubject.registerObserver(buttonController);
         customColorSubject.registerObserver(buttonController);
         customColorSubject.registerObserver(seekBarController);
+        customColorSubject.registerObserver(colorDropdownController);
         colorDropdownSubject.registerObserver(buttonController);
         colorDropdownSubject.registerObserver(seekBarController);
         colorDropdownSubject.registerObserver(textViewController);
         settingsSubject.registerObserver(textViewController);
         settingsSubject.registerObserver(seekBarController);
         settingsSubject.registerObserver(this);
+        // The preset list does not report the saved selection, the observers start from it
+        colorDropdownSubject.setCurrentColorDropdownPosition(readModeSettings.getColorDropdownPosition());
 
+        StartupTracer.mark("UI initialized");
+        onFirstFrame(rootView);
         Log.i(TAG, "UI initialized successfully.");
     }
 
+    /**
+     * Finishes the startup trace and the theme switch when the first frame with the UI is about to be
+     * drawn.
+     */
+    private void onFirstFrame(final @NonNull View rootView) {
+        rootView.getViewTreeObserver().addOnPreDrawListener(new ViewTreeObserver.OnPreDrawListener() {
+            @Override
+            public boolean onPreDraw() {
+                rootView.getViewTreeObserver().removeOnPreDrawListener(this);
+                if (StartupTracer.isTracing()) {
+                    StartupTracer.finish("first frame");
+                }
+                // The frame drawn now is still tagged, it started before the end
+                JankMonitor.end(JankMonitor.Interaction.THEME_SWITCH);
+                return true;
+            }
+        });
+    }
+
+    /**
+     * Tags the frames drawn while a dialog is shown. A theme switch, started from the theme dialog,
+     * is not replaced by the dialog.
+     */
+    private @NonNull FragmentManager.FragmentLifecycleCallbacks createDialogMonitor() {
+        return new FragmentManager.FragmentLifecycleCallbacks() {
+            @Override
+            public void onFragmentStarted(@NonNull FragmentManager fragmentManager, @NonNull Fragment fragment) {
+                if (fragment instanceof DialogFragment && JankMonitor.getInteraction() != JankMonitor.Interaction.THEME_SWITCH) {
+                    JankMonitor.begin(JankMonitor.Interaction.DIALOG_OPEN);
+                }
+            }
+
+            @Override
+            public void onFragmentStopped(@NonNull FragmentManager fragmentManager, @NonNull Fragment fragment) {
+                if (fragment instanceof DialogFragment) {
+                    JankMonitor.end(JankMonitor.Interaction.DIALOG_OPEN);
+                    // The same theme was selected again, the UI was not built again
+                    JankMonitor.end(JankMonitor.Interaction.THEME_SWITCH);
+                }
+            }
+        };
+    }
+
+    /**
+     * Returns the custom color dialog, creating it the first time it is opened. Its color picker
+     * is the heaviest part of the UI and most sessions never open it.
+     */
+    private @NonNull CustomColorDialog getCustomColorDialog() {
+        if (customColorDialog == null) {
+            Log.d(TAG, "Creating custom color dialog on first use");
+            customColorDialog = new CustomColorDialog(this, generalReadModeCommand, readModeSettings, customColorSubject);
+            colorDropdownController.bindCustomColorDialog(customColorDialog);
+        }
+        return customColorDialog;
+    }
+
+    private void releaseCustomColorDialog() {
+        if (customColorDialog != null) {
+            customColorDialog.release();
+            customColorDialog = null;
+        }
+    }
+
+    /**
+     * Checks if the UI is built, the layout is inflated in the background after the activity
+     * is started. IMPORTANT: use it for testing ONLY
+     */
+    @VisibleForTesting
+    public boolean isUiReady() {
+        return !isInflatingUi && !isUiReleased && readModeSubject != null;
+    }
+
     // ---------------------- Init methods ------------------------
 
     /**
-     * Initialize SharedPreferences and load color settings map.
+     * Initialize SharedPreferences, the color presets are read on first use.
      */
     private void initSharedPreferences() {
-        prefsHelper.initPrefColorSettingsMap();
-
         // Loading saved preferences to the Read Mode Setting obj
-        readModeSettings.setIsReadModeOn(prefsHelper.isReadModeOn());
-        readModeSettings.setColorDropdownPosition(prefsHelper.getColorDropdownPosition());
-        readModeSettings.setCustomColor(prefsHelper.getCustomColor());
-        readModeSettings.setColorIntensity(prefsHelper.getColorIntensity());
-        readModeSettings.setBrightness(prefsHelper.getBrightness());
-        readModeSettings.setAutoStartReadMode(prefsHelper.getAutoStartReadMode());
-        readModeSettings.setShouldUseSameIntensityBrightnessForAll(prefsHelper.shouldUseSameIntensityBrightnessForAll());
+        prefsHelper.loadReadModeSettings(readModeSettings);
     }
 
 
     /**
-     * Initialize the color names for the dropdown.
+     * Initialize the names of the built-in color presets, indexed by preset id.
      */
     private void initColorNames() {
-        // Color names for the color dropdown
+        // Names of the built-in color presets
         final String colorYellow = getString(R.string.color_yellow);
         final String colorPink = getString(R.string.color_pink);
         final String colorGreen = getString(R.string.color_green);
         final String colorGray = getString(R.string.color_gray);
         final String colorWhite = getString(R.string.color_white);
         final String colorCustom = getString(R.string.color_custom);
-        colorNames = new String[]{colorYellow, colorPink, colorGreen, colorGray, colorWhite, colorCustom};
+        final String colorTemperature = getString(R.string.color_temperature);
+        colorNames = new String[]{colorYellow, colorPink, colorGreen, colorGray, colorWhite, colorCustom, colorTemperature};
     }
 
 
@@ -220,19 +357,109 @@ public class MainActivity extends AppCompatActivity implements SettingsObserver
         }
     }
 
+    @Override
+    protected void onStart() {
+        super.onStart();
+        if (isUiReleased) {
+            Log.d(TAG, "Rebuilding the UI released while hidden");
+            initUI();
+        }
+    }
+
+    @Override
+    public void onTrimMemory(final int level) {
+        super.onTrimMemory(level);
+        if (MemoryTrimPolicy.shouldReleaseUi(level)) {
+            releaseUI();
+        }
+        if (MemoryTrimPolicy.shouldReleaseSettingsCaches(level) && prefsHelper != null) {
+            Log.d(TAG, "Trim memory level " + level + ", releasing settings caches");
+            prefsHelper.releaseCaches();
+            HsvColorPickerView.releaseCaches();
+        }
+    }
+
     @Override
     protected void onDestroy() {
         // Clean only when the Read Mode is OFF
         if (!readModeSettings.isReadModeOn()) {
-            // unregister all observers
+            unregisterAllObservers();
+        }
+
+        if (BuildConfig.TRACING) {
+            JankMonitor.detach(getWindow());
+        }
+        unregisterReceiver(settingsChangedReceiver);
+
+        super.onDestroy();
+        Log.i(TAG, "Activity destroyed.");
+    }
+
+    /**
+     * Adds the frame histograms to the activity dump, see {@link JankMonitor}.
+     */
+    @Override
+    public void dump(@NonNull String prefix, FileDescriptor fd, @NonNull PrintWriter writer, String[] args) {
+        super.dump(prefix, fd, writer, args);
+        JankMonitor.dump(prefix, writer);
+    }
+
+    /**
+     * Shows the settings changed outside of the activity. The Read Mode settings are shared with the
+     * tile and the receivers, only the views are behind: a Read Mode change is sent to the Read Mode
+     * observers, any other change builds the UI again from the saved settings.
+     */
+    private void onSettingsChangedOutside(final boolean isReadModeOnly) {
+        if (!isUiReady()) {
+            // The UI is built from the saved settings when it is shown
+            return;
+        }
+        Log.d(TAG, "Settings changed outside of the app, Read Mode only: " + isReadModeOnly);
+        if (isReadModeOnly) {
+            // As in buildUI, a Read Mode ON without its service was lost with the process
+            readModeManager.syncReadMode(prefsHelper.isReadModeOn() && OverlayClient.isRunning(this));
+        } else {
+            initUI();
+        }
+    }
+
+    /**
+     * Releases the views, controllers, observers and dialogs while the UI is hidden, so only the
+     * overlay service state is kept while the user is in other apps.
+     */
+    private void releaseUI() {
+        if (isUiReleased || readModeSubject == null) {
+            // Already released, or not built yet (waiting for permissions)
+            return;
+        }
+        Log.d(TAG, "UI hidden, releasing views, controllers and dialogs");
+        releaseCustomColorDialog();
+        unregisterAllObservers();
+        readModeSubject = null;
+        settingsSubject = null;
+        customColorSubject = null;
+        colorDropdownSubject = null;
+        readModeManager = null;
+        generalReadModeCommand = null;
+        colorDropdownController = null;
+        isInflatingUi = false;
+        ((ViewGroup) findViewById(android.R.id.content)).removeAllViews();
+        isUiReleased = true;
+    }
+
+    private void unregisterAllObservers() {
+        if (readModeSubject != null) {
             readModeSubject.unregisterAllObservers();
+        }
+        if (settingsSubject != null) {
             settingsSubject.unregisterAllObservers();
+        }
+        if (customColorSubject != null) {
             customColorSubject.unregisterAllObservers();
+        }
+        if (colorDropdownSubject != null) {
             colorDropdownSubject.unregisterAllObservers();
         }
-
-        super.onDestroy();
-        Log.i(TAG, "Activity destroyed.");
     }
 
     @Override
@@ -13,17 +13,18 @@ import android.widget.Button;
 import androidx.annotation.NonNull;
 import androidx.annotation.VisibleForTesting;
 import androidx.core.content.ContextCompat;
+import androidx.core.util.Supplier;
 import androidx.fragment.app.FragmentActivity;
 
 import autonightmode.mx.com.alanquintero.autonightmode.R;
 import autonightmode.mx.com.alanquintero.autonightmode.command.ReadModeCommand;
+import autonightmode.mx.com.alanquintero.autonightmode.model.ColorPreset;
 import autonightmode.mx.com.alanquintero.autonightmode.model.ReadModeSettings;
 import autonightmode.mx.com.alanquintero.autonightmode.observer.customcolor.CustomColorObserver;
 import autonightmode.mx.com.alanquintero.autonightmode.observer.dropdown.ColorDropdownObserver;
 import autonightmode.mx.com.alanquintero.autonightmode.observer.readmode.ReadModeObserver;
 import autonightmode.mx.com.alanquintero.autonightmode.ui.dialog.CustomColorDialog;
 import autonightmode.mx.com.alanquintero.autonightmode.util.ColorUtils;
-import autonightmode.mx.com.alanquintero.autonightmode.util.Constants;
 
 /**
  * ButtonController is responsible for applying consistent visual styles to buttons.
@@ -38,15 +39,16 @@ public class ButtonController implements ReadModeObserver, ColorDropdownObserver
     private final @NonNull FragmentActivity activity;
     private final @NonNull ReadModeCommand readModeCommand;
     private final @NonNull ReadModeSettings readModeSettings;
-    private final @NonNull CustomColorDialog customColorDialog;
+    // The dialog is created on first use, most sessions never open it
+    private final @NonNull Supplier<CustomColorDialog> customColorDialogSupplier;
     private final @NonNull Button customColorButton;
     private final @NonNull Button startStopButton;
 
-    public ButtonController(final @NonNull Context context, final @NonNull FragmentActivity activity, final @NonNull View rootView, final @NonNull ReadModeCommand readModeCommand, final @NonNull ReadModeSettings readModeSettings, final @NonNull CustomColorDialog customColorDialog) {
+    public ButtonController(final @NonNull Context context, final @NonNull FragmentActivity activity, final @NonNull View rootView, final @NonNull ReadModeCommand readModeCommand, final @NonNull ReadModeSettings readModeSettings, final @NonNull Supplier<CustomColorDialog> customColorDialogSupplier) {
         this.context = context;
         this.activity = activity;
         this.readModeCommand = readModeCommand;
-        this.customColorDialog = customColorDialog;
+        this.customColorDialogSupplier = customColorDialogSupplier;
         this.readModeSettings = readModeSettings;
         this.customColorButton = rootView.findViewById(R.id.customColorButton);
         this.startStopButton = rootView.findViewById(R.id.startStopButton);
@@ -54,13 +56,13 @@ public class ButtonController implements ReadModeObserver, ColorDropdownObserver
 
     public void setupButtons() {
         // Custom color button
-        if (readModeSettings.getColorDropdownPosition() == Constants.CUSTOM_COLOR_DROPDOWN_POSITION) {
+        if (readModeSettings.getColorDropdownPosition() == ColorPreset.CUSTOM_PRESET_ID) {
             applyCustomColorButtonStyle(readModeSettings.getCustomColor());
             customColorButton.setVisibility(View.VISIBLE);
         }
         // Custom color button listener
         customColorButton.setOnClickListener(v ->
-                customColorDialog.show(activity.getSupportFragmentManager(), "CustomColorDialogOpenedFromButton"));
+                customColorDialogSupplier.get().show(activity.getSupportFragmentManager(), "CustomColorDialogOpenedFromButton"));
         // Start/stop button
         setupStartStopButton();
     }
@@ -122,9 +124,8 @@ public class ButtonController implements ReadModeObserver, ColorDropdownObserver
 
     @Override
     public void onColorDropdownPositionChange(final int currentColorDropdownPosition) {
-        final String selectedColor = Constants.COLOR_HEX_ARRAY[currentColorDropdownPosition];
-        Log.e(TAG, "Selected color: " + selectedColor);
-        if (selectedColor.equals(Constants.CUSTOM_COLOR)) {
+        Log.d(TAG, "Selected preset: " + currentColorDropdownPosition);
+        if (currentColorDropdownPosition == ColorPreset.CUSTOM_PRESET_ID) {
             customColorButton.setVisibility(View.VISIBLE);
             applyStartStopButtonStyle(readModeSettings.isReadModeOn());
         } else {
@@ -7,32 +7,38 @@ import android.content.Context;
 import android.graphics.Color;
 import android.util.Log;
 import android.view.View;
-import android.widget.AdapterView;
-import android.widget.Spinner;
+import android.widget.Toast;
 
+import androidx.annotation.ColorInt;
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import androidx.annotation.VisibleForTesting;
+import androidx.core.util.Supplier;
 import androidx.fragment.app.FragmentActivity;
+import androidx.recyclerview.widget.RecyclerView;
 
 import autonightmode.mx.com.alanquintero.autonightmode.R;
 import autonightmode.mx.com.alanquintero.autonightmode.command.ReadModeCommand;
+import autonightmode.mx.com.alanquintero.autonightmode.model.ColorPreset;
 import autonightmode.mx.com.alanquintero.autonightmode.model.ReadModeSettings;
+import autonightmode.mx.com.alanquintero.autonightmode.observer.customcolor.CustomColorObserver;
 import autonightmode.mx.com.alanquintero.autonightmode.observer.dropdown.ColorDropdownSubject;
 import autonightmode.mx.com.alanquintero.autonightmode.ui.dialog.CustomColorDialog;
-import autonightmode.mx.com.alanquintero.autonightmode.ui.spinner.ColorItem;
-import autonightmode.mx.com.alanquintero.autonightmode.ui.spinner.ColorSpinnerAdapter;
+import autonightmode.mx.com.alanquintero.autonightmode.ui.preset.ColorPresetAdapter;
 import autonightmode.mx.com.alanquintero.autonightmode.util.Constants;
+import autonightmode.mx.com.alanquintero.autonightmode.util.JankMonitor;
+import autonightmode.mx.com.alanquintero.autonightmode.util.PresetStore;
 import autonightmode.mx.com.alanquintero.autonightmode.util.PrefsHelper;
 
-import java.util.ArrayList;
-import java.util.List;
-
 /**
- * ColorDropdownController is responsible for applying consistent visual styles the Color dropdown.
+ * ColorDropdownController manages the list of color presets: the selection of a preset, and the
+ * presets created from the custom color dialog and removed with a long press.
+ *
+ * <p>The selected preset is notified through {@link ColorDropdownSubject} by id.</p>
  *
  * @author Alan Quintero
  */
-public class ColorDropdownController {
+public class ColorDropdownController implements ColorPresetAdapter.OnPresetClickListener, CustomColorObserver {
 
     private static final String TAG = ColorDropdownController.class.getSimpleName();
 
@@ -41,109 +47,162 @@ public class ColorDropdownController {
     private final @NonNull PrefsHelper prefsHelper;
     private final @NonNull ReadModeCommand readModeCommand;
     private final @NonNull ReadModeSettings readModeSettings;
-    private final @NonNull CustomColorDialog customColorDialog;
+    // The dialog is created on first use, most sessions never open it
+    private final @NonNull Supplier<CustomColorDialog> customColorDialogSupplier;
     private final @NonNull String[] colorNames;
     private final @NonNull ColorDropdownSubject colorDropdownSubject;
-    private final @NonNull Spinner colorSpinner;
+    private final @NonNull RecyclerView colorPresetList;
+    private @Nullable ColorPresetAdapter colorPresetAdapter;
 
-    public ColorDropdownController(final @NonNull Context context, final @NonNull FragmentActivity activity, final @NonNull View rootView, final @NonNull CustomColorDialog customColorDialog, final @NonNull ColorDropdownSubject colorDropdownSubject, final @NonNull ReadModeCommand readModeCommand, final @NonNull ReadModeSettings readModeSettings, final @NonNull String[] colorNames) {
+    public ColorDropdownController(final @NonNull Context context, final @NonNull FragmentActivity activity, final @NonNull View rootView, final @NonNull Supplier<CustomColorDialog> customColorDialogSupplier, final @NonNull ColorDropdownSubject colorDropdownSubject, final @NonNull ReadModeCommand readModeCommand, final @NonNull ReadModeSettings readModeSettings, final @NonNull String[] colorNames) {
         this.context = context;
         this.activity = activity;
         this.prefsHelper = PrefsHelper.init(context);
-        this.customColorDialog = customColorDialog;
+        this.customColorDialogSupplier = customColorDialogSupplier;
         this.colorDropdownSubject = colorDropdownSubject;
         this.readModeCommand = readModeCommand;
         this.readModeSettings = readModeSettings;
         this.colorNames = colorNames;
-        colorSpinner = rootView.findViewById(R.id.colorSpinner);
+        colorPresetList = rootView.findViewById(R.id.colorPresetList);
     }
 
     /**
-     * Initializes and configures the color selection dropdown (Spinner) along with
-     * its related UI elements such as intensity and brightness controls.
+     * Initializes the list of color presets and shows the saved selection.
      * <p>
-     * This method sets up a custom adapter for the Spinner, manages item selection
-     * (including handling of the "Custom color" option), and ensures that the
-     * corresponding SeekBars and labels are updated when a color is selected.
+     * Unlike a Spinner, the list does not report the initial selection, the observers are
+     * notified of the saved selection by the caller once they are registered.
      * </p>
      */
     public void setupColorDropdown() {
-        final List<ColorItem> colorItems = createColorItems();
-        final ColorSpinnerAdapter adapter = new ColorSpinnerAdapter(context, colorItems, readModeSettings);
-        colorSpinner.setAdapter(adapter);
-        customColorDialog.setColorItems(colorItems);
-        customColorDialog.setColorSpinnerAdapter(adapter);
-
-        colorSpinner.setSelection(readModeSettings.getColorDropdownPosition());
-
-        setupSelectionListener();
+        colorPresetAdapter = new ColorPresetAdapter(context, colorNames, readModeSettings.getColorDropdownPosition(),
+                Color.parseColor(readModeSettings.getCustomColor()), this);
+        colorPresetList.setHasFixedSize(true);
+        colorPresetList.setAdapter(colorPresetAdapter);
+        colorPresetList.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrollStateChanged(@NonNull RecyclerView recyclerView, int newState) {
+                // Tags the frames drawn while the list is dragged or flung
+                if (newState == RecyclerView.SCROLL_STATE_IDLE) {
+                    JankMonitor.end(JankMonitor.Interaction.PRESET_LIST_SCROLL);
+                } else {
+                    JankMonitor.begin(JankMonitor.Interaction.PRESET_LIST_SCROLL);
+                }
+            }
+        });
+        colorPresetAdapter.submitList(getPresetStore().getPresetList(), this::scrollToSelectedPreset);
     }
 
     /**
-     * Creates the list of color items for the spinner
+     * Lets the custom color dialog save the picked color as a new preset. Called when the dialog
+     * is created.
      */
-    private List<ColorItem> createColorItems() {
-        final List<ColorItem> colorItems = new ArrayList<>();
-        for (int position = 0; position < colorNames.length; position++) {
-            if (position == Constants.CUSTOM_COLOR_DROPDOWN_POSITION) {
-                colorItems.add(new ColorItem(colorNames[position], Color.parseColor(readModeSettings.getCustomColor())));
-            } else {
-                colorItems.add(new ColorItem(colorNames[position], Constants.BACKGROUND_COLOR_FOR_DROPDOWN_ITEMS[position]));
-            }
-        }
-        return colorItems;
+    public void bindCustomColorDialog(final @NonNull CustomColorDialog customColorDialog) {
+        customColorDialog.setOnSavePresetListener(this::addPreset);
     }
 
-    /**
-     * Sets up the selection listener for the color spinner
-     */
-    private void setupSelectionListener() {
-        // Listen for selection
-        colorSpinner.setOnItemSelectedListener(new AdapterView.OnItemSelectedListener() {
-            @Override
-            public void onItemSelected(AdapterView<?> parent, View view, int position, long id) {
-                Log.d(TAG, "Position selected: " + position);
-                handleColorSelection(position);
-            }
+    @Override
+    public void onPresetClick(final @NonNull ColorPreset preset) {
+        Log.d(TAG, "Preset selected: " + preset.getId());
+        handleColorSelection(preset.getId());
+    }
 
-            @Override
-            public void onNothingSelected(AdapterView<?> parent) {
-                // No action needed
-            }
-        });
+    @Override
+    public void onPresetLongClick(final @NonNull ColorPreset preset) {
+        if (!preset.isUserPreset()) {
+            Log.d(TAG, "Built-in presets can't be removed");
+            return;
+        }
+        removePreset(preset.getId());
+    }
+
+    @Override
+    public void onCustomColorChange(final @NonNull String customColor) {
+        if (colorPresetAdapter != null) {
+            colorPresetAdapter.setCustomColor(Color.parseColor(customColor));
+        }
     }
 
     /**
      * Handles color selection logic - extracted for testability
      *
-     * @param position        The selected position
+     * @param presetId The id of the selected preset
      */
-    public void handleColorSelection(final int position) {
-        readModeSettings.setColorDropdownPosition(position);
-        colorDropdownSubject.setCurrentColorDropdownPosition(position);
-        prefsHelper.saveProperty(Constants.PREF_COLOR_DROPDOWN, position);
-
-        final String selectedColor = Constants.COLOR_HEX_ARRAY[position];
-        if (selectedColor.equals(Constants.CUSTOM_COLOR)) {
-            customColorDialog.show(activity.getSupportFragmentManager(), "CustomColorDialogOpenedFromDropdown");
+    public void handleColorSelection(final int presetId) {
+        final ColorPreset preset = prefsHelper.getPreset(presetId);
+        if (preset == null) {
+            Log.w(TAG, "Unknown preset: " + presetId);
+            return;
+        }
+        if (colorPresetAdapter != null) {
+            colorPresetAdapter.setSelectedPresetId(presetId);
+        }
+        readModeSettings.setColorDropdownPosition(presetId);
+        colorDropdownSubject.setCurrentColorDropdownPosition(presetId);
+        prefsHelper.saveProperty(Constants.PREF_COLOR_DROPDOWN, presetId);
+
+        boolean updateReadMode = readModeSettings.isAutoStartReadMode();
+        if (preset.isCustom()) {
+            customColorDialogSupplier.get().show(activity.getSupportFragmentManager(), "CustomColorDialogOpenedFromDropdown");
         } else {
-            prefsHelper.saveProperty(Constants.PREF_COLOR, selectedColor);
-            if (readModeSettings.isReadModeOn()) {
-                readModeCommand.updateReadMode();
-            }
+            prefsHelper.saveProperty(Constants.PREF_COLOR, preset.getScreenColor());
+            updateReadMode |= readModeSettings.isReadModeOn();
         }
 
-        if (readModeSettings.isAutoStartReadMode()) {
+        // A single update, the overlay is redrawn once per selection
+        if (updateReadMode) {
             readModeCommand.updateReadMode();
         }
     }
 
     /**
-     * Getter for the color spinner - useful for testing
+     * Creates a preset with the given color and the current intensity and brightness, and selects it.
+     */
+    @VisibleForTesting
+    void addPreset(final @ColorInt int color) {
+        final ColorPreset preset = getPresetStore().addPreset(color, readModeSettings.getColorIntensity(), readModeSettings.getBrightness());
+        if (colorPresetAdapter != null) {
+            colorPresetAdapter.submitList(getPresetStore().getPresetList(), this::scrollToSelectedPreset);
+        }
+        handleColorSelection(preset.getId());
+    }
+
+    /**
+     * Removes a user preset. When it was selected, the default preset is selected.
+     */
+    @VisibleForTesting
+    void removePreset(final int presetId) {
+        if (!getPresetStore().removePreset(presetId)) {
+            return;
+        }
+        if (colorPresetAdapter != null) {
+            colorPresetAdapter.submitList(getPresetStore().getPresetList());
+        }
+        if (readModeSettings.getColorDropdownPosition() == presetId) {
+            handleColorSelection(Constants.DEFAULT_COLOR_DROPDOWN_POSITION);
+        }
+        Toast.makeText(context, R.string.preset_removed, Toast.LENGTH_SHORT).show();
+    }
+
+    private void scrollToSelectedPreset() {
+        if (colorPresetAdapter == null) {
+            return;
+        }
+        final int position = colorPresetAdapter.getPosition(colorPresetAdapter.getSelectedPresetId());
+        if (position != RecyclerView.NO_POSITION) {
+            colorPresetList.scrollToPosition(position);
+        }
+    }
+
+    private @NonNull PresetStore getPresetStore() {
+        return prefsHelper.getPresetStore();
+    }
+
+    /**
+     * Getter for the color preset list - useful for testing
      */
     @VisibleForTesting
     @NonNull
-    Spinner getColorSpinner() {
-        return colorSpinner;
+    RecyclerView getColorPresetList() {
+        return colorPresetList;
     }
 }
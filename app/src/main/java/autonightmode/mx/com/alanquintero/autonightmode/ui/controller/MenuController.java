@@ -13,6 +13,7 @@ import android.view.ViewGroup;
 import android.widget.ImageView;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import androidx.core.content.ContextCompat;
 import androidx.fragment.app.FragmentActivity;
 
@@ -40,6 +41,8 @@ public class MenuController {
     private final @NonNull SettingsSubject settingsSubject;
     private final @NonNull ReadModeSettings readModeSettings;
     private final @NonNull ImageView menu;
+    // Built on the first click and reused, it is dismissed with the activity
+    private @Nullable PowerMenu powerMenu;
 
     public MenuController(final @NonNull Context context, final @NonNull FragmentActivity activity, final @NonNull View rootView, final @NonNull SettingsSubject settingsSubject, final @NonNull ReadModeSettings readModeSettings) {
         this.context = context;
@@ -50,52 +53,58 @@ public class MenuController {
     }
 
     public void setupMenu() {
-        Log.e(TAG, "Opening menu...");
-
         menu.setOnClickListener(v -> {
-            final PowerMenu powerMenu = new PowerMenu.Builder(context)
-                    .addItem(new PowerMenuItem(context.getString(R.string.menu_settings), false, R.drawable.menu_settings))
-                    .addItem(new PowerMenuItem(context.getString(R.string.menu_theme), false, R.drawable.menu_theme))
-                    .addItem(new PowerMenuItem(context.getString(R.string.menu_feedback), false, R.drawable.menu_feedback))
-                    .setMenuRadius(10f)
-                    .setMenuShadow(10f)
-                    .setWidth(ViewGroup.LayoutParams.WRAP_CONTENT)
-                    .setTextColor(ContextCompat.getColor(context, R.color.text_primary))
-                    .setIconColor(ContextCompat.getColor(context, R.color.text_primary))
-                    .setMenuColor(ContextCompat.getColor(context, R.color.background_primary))
-                    .setMenuColor(ContextCompat.getColor(context, R.color.menu_background))
-                    .setBackgroundColor(Color.WHITE)
-                    .setTextSize(16)
-                    .setAutoDismiss(true)
-                    .setOnMenuItemClickListener(new OnMenuItemClickListener() {
-
-                        @Override
-                        public void onItemClick(int position, Object item) {
-                            Log.d(TAG, "Menu item position: " + position);
-                            switch (position) {
-                                case 0: // Settings
-                                    Log.d(TAG, "Settings selected");
-                                    final SettingsDialog settingDialog = new SettingsDialog(settingsSubject, readModeSettings);
-                                    settingDialog.show(activity.getSupportFragmentManager(), "settingsDialog");
-                                    break;
-                                case 1: // Theme
-                                    Log.d(TAG, "Theme selected");
-                                    final ThemeDialog themeDialog = new ThemeDialog();
-                                    themeDialog.show(activity.getSupportFragmentManager(), "themeDialog");
-                                    break;
-                                case 2: // Feedback
-                                    Log.d(TAG, "Feedback selected");
-                                    final Intent feedbackIntent = new Intent(Intent.ACTION_VIEW, Uri.parse("https://forms.gle/3BcGuBZyWer7m8Gx5"));
-                                    context.startActivity(feedbackIntent);
-                                    break;
-                                default:
-                                    Log.w(TAG, "Invalid menu item selected");
-                                    break;
-                            }
-                        }
-                    }).build();
-
+            Log.d(TAG, "Opening menu...");
+            if (powerMenu == null) {
+                powerMenu = createPowerMenu();
+            }
             powerMenu.showAsDropDown(v);
         });
     }
+
+    private @NonNull PowerMenu createPowerMenu() {
+        Log.d(TAG, "Creating menu on first use");
+        return new PowerMenu.Builder(context)
+                .addItem(new PowerMenuItem(context.getString(R.string.menu_settings), false, R.drawable.menu_settings))
+                .addItem(new PowerMenuItem(context.getString(R.string.menu_theme), false, R.drawable.menu_theme))
+                .addItem(new PowerMenuItem(context.getString(R.string.menu_feedback), false, R.drawable.menu_feedback))
+                .setMenuRadius(10f)
+                .setMenuShadow(10f)
+                .setWidth(ViewGroup.LayoutParams.WRAP_CONTENT)
+                .setTextColor(ContextCompat.getColor(context, R.color.text_primary))
+                .setIconColor(ContextCompat.getColor(context, R.color.text_primary))
+                .setMenuColor(ContextCompat.getColor(context, R.color.background_primary))
+                .setMenuColor(ContextCompat.getColor(context, R.color.menu_background))
+                .setBackgroundColor(Color.WHITE)
+                .setTextSize(16)
+                .setAutoDismiss(true)
+                .setLifecycleOwner(activity)
+                .setOnMenuItemClickListener(new OnMenuItemClickListener() {
+
+                    @Override
+                    public void onItemClick(int position, Object item) {
+                        Log.d(TAG, "Menu item position: " + position);
+                        switch (position) {
+                            case 0: // Settings
+                                Log.d(TAG, "Settings selected");
+                                final SettingsDialog settingDialog = new SettingsDialog(settingsSubject, readModeSettings);
+                                settingDialog.show(activity.getSupportFragmentManager(), "settingsDialog");
+                                break;
+                            case 1: // Theme
+                                Log.d(TAG, "Theme selected");
+                                final ThemeDialog themeDialog = new ThemeDialog();
+                                themeDialog.show(activity.getSupportFragmentManager(), "themeDialog");
+                                break;
+                            case 2: // Feedback
+                                Log.d(TAG, "Feedback selected");
+                                final Intent feedbackIntent = new Intent(Intent.ACTION_VIEW, Uri.parse("https://forms.gle/3BcGuBZyWer7m8Gx5"));
+                                context.startActivity(feedbackIntent);
+                                break;
+                            default:
+                                Log.w(TAG, "Invalid menu item selected");
+                                break;
+                        }
+                    }
+                }).build();
+    }
 }
@@ -18,19 +18,26 @@ import androidx.core.content.ContextCompat;
 
 import autonightmode.mx.com.alanquintero.autonightmode.R;
 import autonightmode.mx.com.alanquintero.autonightmode.command.ReadModeCommand;
-import autonightmode.mx.com.alanquintero.autonightmode.model.ColorSettings;
+import autonightmode.mx.com.alanquintero.autonightmode.model.ColorPreset;
 import autonightmode.mx.com.alanquintero.autonightmode.model.ReadModeSettings;
 import autonightmode.mx.com.alanquintero.autonightmode.observer.customcolor.CustomColorObserver;
 import autonightmode.mx.com.alanquintero.autonightmode.observer.dropdown.ColorDropdownObserver;
 import autonightmode.mx.com.alanquintero.autonightmode.observer.settings.SettingsObserver;
+import autonightmode.mx.com.alanquintero.autonightmode.util.ColorTemperature;
 import autonightmode.mx.com.alanquintero.autonightmode.util.ColorUtils;
 import autonightmode.mx.com.alanquintero.autonightmode.util.Constants;
+import autonightmode.mx.com.alanquintero.autonightmode.util.JankMonitor;
+import autonightmode.mx.com.alanquintero.autonightmode.util.PerfTrace;
 import autonightmode.mx.com.alanquintero.autonightmode.util.PrefsHelper;
 import autonightmode.mx.com.alanquintero.autonightmode.util.Utils;
 
 /**
  * SeekBarController is responsible for applying consistent visual styles to all seeks bars.
  *
+ * <p>The frames drawn while a seek bar is dragged are tagged for {@link JankMonitor}, every tick redraws
+ * the overlay. The values of a drag are only staged in {@link PrefsHelper}, they are written once
+ * when the seek bar is released.</p>
+ *
  * @author Alan Quintero
  */
 public class SeekBarController implements ColorDropdownObserver, CustomColorObserver, SettingsObserver {
@@ -49,8 +56,15 @@ public class SeekBarController implements ColorDropdownObserver, CustomColorObse
     private final @NonNull TextView brightnessLevelText;
     private final @NonNull SeekBar seekBrightnessBar;
     private final @NonNull TextView brightnessLevelPercentageText;
+    private final @NonNull View colorTemperatureContainer;
+    private final @NonNull TextView colorTemperatureText;
+    private final @NonNull SeekBar seekColorTemperatureBar;
+    private final @NonNull TextView colorTemperatureLevelText;
     private final @NonNull LinearLayout containerLayout;
 
+    // True while a seek bar is dragged
+    private boolean isDragging = false;
+
     public SeekBarController(final @NonNull Context context, final @NonNull View rootView, final @NonNull ReadModeCommand readModeCommand, final @NonNull ReadModeSettings readModeSettings) {
         this.context = context;
         this.prefsHelper = PrefsHelper.init(context);
@@ -64,6 +78,10 @@ public class SeekBarController implements ColorDropdownObserver, CustomColorObse
         this.brightnessLevelText = rootView.findViewById(R.id.brightnessLevelText);
         this.seekBrightnessBar = rootView.findViewById(R.id.brightnessLevelBar);
         this.brightnessLevelPercentageText = rootView.findViewById(R.id.brightnessLevelPercentageText);
+        this.colorTemperatureContainer = rootView.findViewById(R.id.colorTemperatureContainer);
+        this.colorTemperatureText = rootView.findViewById(R.id.colorTemperatureText);
+        this.seekColorTemperatureBar = rootView.findViewById(R.id.colorTemperatureBar);
+        this.colorTemperatureLevelText = rootView.findViewById(R.id.colorTemperatureLevelText);
         this.containerLayout = rootView.findViewById(R.id.colorSettingsContainer);
     }
 
@@ -76,7 +94,7 @@ public class SeekBarController implements ColorDropdownObserver, CustomColorObse
         // setup seek bars
         setupSeekColorIntensityBar();
         setupSeekBrightnessBar();
-
+        setupSeekColorTemperatureBar();
     }
 
     /**
@@ -89,6 +107,11 @@ public class SeekBarController implements ColorDropdownObserver, CustomColorObse
         // Brightness
         seekBrightnessBar.setProgress(readModeSettings.getBrightness());
         brightnessLevelPercentageText.setText(context.getString(R.string.brightness_level, readModeSettings.getBrightness()));
+        // Color Temperature, one step of the seek bar per entry of the table
+        seekColorTemperatureBar.setMax(ColorTemperature.MAX_PROGRESS);
+        seekColorTemperatureBar.setProgress(ColorTemperature.toProgress(readModeSettings.getColorTemperature()));
+        colorTemperatureLevelText.setText(context.getString(R.string.temperature_level, readModeSettings.getColorTemperature()));
+        updateColorTemperatureVisibility();
     }
 
     /**
@@ -102,26 +125,37 @@ public class SeekBarController implements ColorDropdownObserver, CustomColorObse
     private void setupSeekBrightnessBar() {
         seekBrightnessBar.setOnSeekBarChangeListener(new SeekBar.OnSeekBarChangeListener() {
             public void onProgressChanged(SeekBar bar, int progress, boolean fromUser) {
-                if (fromUser) {
-                    readModeSettings.setBrightness(progress);
-                    prefsHelper.saveProperty(Constants.PREF_BRIGHTNESS, progress);
-                    prefsHelper.tryToSaveColorSettingsProperty(readModeSettings);
-                    brightnessLevelPercentageText.setText(context.getString(R.string.brightness_level, readModeSettings.getBrightness()));
-                    if (readModeSettings.isAutoStartReadMode()) {
-                        readModeCommand.updateReadMode();
-                    } else {
-                        setContainerColors();
-                        if (readModeSettings.isReadModeOn()) {
+                PerfTrace.begin("SeekBar.brightness");
+                try {
+                    if (fromUser) {
+                        readModeSettings.setBrightness(progress);
+                        saveProgress(Constants.PREF_BRIGHTNESS, progress);
+                        if (!isDragging) {
+                            // Otherwise saved once, when the seek bar is released
+                            prefsHelper.tryToSavePresetSettings(readModeSettings);
+                        }
+                        brightnessLevelPercentageText.setText(context.getString(R.string.brightness_level, readModeSettings.getBrightness()));
+                        if (readModeSettings.isAutoStartReadMode()) {
                             readModeCommand.updateReadMode();
+                        } else {
+                            setContainerColors();
+                            if (readModeSettings.isReadModeOn()) {
+                                readModeCommand.updateReadMode();
+                            }
                         }
                     }
+                } finally {
+                    PerfTrace.end();
                 }
             }
 
             public void onStopTrackingTouch(SeekBar bar) {
+                onDragStopped();
+                prefsHelper.tryToSavePresetSettings(readModeSettings);
             }
 
             public void onStartTrackingTouch(SeekBar bar) {
+                onDragStarted();
             }
         });
     }
@@ -137,35 +171,122 @@ public class SeekBarController implements ColorDropdownObserver, CustomColorObse
     private void setupSeekColorIntensityBar() {
         seekColorIntensityBar.setOnSeekBarChangeListener(new SeekBar.OnSeekBarChangeListener() {
             public void onProgressChanged(SeekBar bar, int progress, boolean fromUser) {
-                if (fromUser) {
-                    readModeSettings.setColorIntensity(progress);
-                    prefsHelper.saveProperty(Constants.PREF_COLOR_INTENSITY, progress);
-                    prefsHelper.tryToSaveColorSettingsProperty(readModeSettings);
-                    colorLevelPercentageText.setText(context.getString(R.string.color_intensity, readModeSettings.getColorIntensity()));
-                    if (readModeSettings.isAutoStartReadMode()) {
-                        readModeCommand.updateReadMode();
-                    } else {
-                        setContainerColors();
-                        if (readModeSettings.isReadModeOn()) {
+                PerfTrace.begin("SeekBar.colorIntensity");
+                try {
+                    if (fromUser) {
+                        readModeSettings.setColorIntensity(progress);
+                        saveProgress(Constants.PREF_COLOR_INTENSITY, progress);
+                        if (!isDragging) {
+                            // Otherwise saved once, when the seek bar is released
+                            prefsHelper.tryToSavePresetSettings(readModeSettings);
+                        }
+                        colorLevelPercentageText.setText(context.getString(R.string.color_intensity, readModeSettings.getColorIntensity()));
+                        if (readModeSettings.isAutoStartReadMode()) {
+                            readModeCommand.updateReadMode();
+                        } else {
+                            setContainerColors();
+                            if (readModeSettings.isReadModeOn()) {
+                                readModeCommand.updateReadMode();
+                            }
+                        }
+                    }
+                } finally {
+                    PerfTrace.end();
+                }
+            }
+
+            public void onStopTrackingTouch(SeekBar bar) {
+                onDragStopped();
+                prefsHelper.tryToSavePresetSettings(readModeSettings);
+            }
+
+            public void onStartTrackingTouch(SeekBar bar) {
+                onDragStarted();
+            }
+        });
+    }
+
+    /**
+     * Configures the SeekBar that controls the color temperature of the temperature preset.
+     * <p>
+     * The progress is the index in the {@link ColorTemperature} table, one step per
+     * {@link ColorTemperature#STEP_KELVIN} Kelvin, so a change is a table lookup.
+     * </p>
+     */
+    private void setupSeekColorTemperatureBar() {
+        seekColorTemperatureBar.setOnSeekBarChangeListener(new SeekBar.OnSeekBarChangeListener() {
+            public void onProgressChanged(SeekBar bar, int progress, boolean fromUser) {
+                PerfTrace.begin("SeekBar.colorTemperature");
+                try {
+                    if (fromUser) {
+                        final int colorTemperature = ColorTemperature.fromProgress(progress);
+                        readModeSettings.setColorTemperature(colorTemperature);
+                        saveProgress(Constants.PREF_COLOR_TEMPERATURE, colorTemperature);
+                        colorTemperatureLevelText.setText(context.getString(R.string.temperature_level, colorTemperature));
+                        if (readModeSettings.isAutoStartReadMode()) {
                             readModeCommand.updateReadMode();
+                        } else {
+                            setContainerColors();
+                            if (readModeSettings.isReadModeOn()) {
+                                readModeCommand.updateReadMode();
+                            }
                         }
                     }
+                } finally {
+                    PerfTrace.end();
                 }
             }
 
             public void onStopTrackingTouch(SeekBar bar) {
+                onDragStopped();
             }
 
             public void onStartTrackingTouch(SeekBar bar) {
+                onDragStarted();
             }
         });
     }
 
+    /**
+     * Saves the value of a seek bar. While it is dragged the value is staged, the getters see it
+     * right away and it is written when the seek bar is released.
+     */
+    private void saveProgress(final @NonNull String property, final int value) {
+        if (isDragging) {
+            prefsHelper.stageProperty(property, value);
+        } else {
+            prefsHelper.saveProperty(property, value);
+        }
+    }
+
+    private void onDragStarted() {
+        isDragging = true;
+        JankMonitor.begin(JankMonitor.Interaction.SLIDER_DRAG);
+    }
+
+    /**
+     * Writes the values staged during the drag, in a single edit.
+     */
+    private void onDragStopped() {
+        isDragging = false;
+        JankMonitor.end(JankMonitor.Interaction.SLIDER_DRAG);
+        prefsHelper.flushPendingProperties();
+    }
+
+    /**
+     * Shows the temperature seek bar only when the temperature preset is selected.
+     */
+    private void updateColorTemperatureVisibility() {
+        final boolean isTemperature = readModeSettings.getColorDropdownPosition() == ColorPreset.TEMPERATURE_PRESET_ID;
+        colorTemperatureContainer.setVisibility(isTemperature ? View.VISIBLE : View.GONE);
+    }
+
     /**
      * Sets the seek bars for the selected color from the dropdown.
      */
     public void updateSeekBarsForSelectedColor() {
         Log.d(TAG, "updateSeekBarsForSelectedColor");
+        updateColorTemperatureVisibility();
 
         if (readModeSettings.shouldUseSameIntensityBrightnessForAll()) {
             Log.d(TAG, "Using same Intensity and Brightness for All");
@@ -180,15 +301,15 @@ public class SeekBarController implements ColorDropdownObserver, CustomColorObse
             Log.d(TAG, "Using Intensity and Brightness for selected color");
             Log.d(TAG, "Selected position: " + readModeSettings.getColorDropdownPosition());
             // change the brightness and color intensity based on selected color
-            final ColorSettings colorSettings = prefsHelper.getColorSettings(readModeSettings.getColorDropdownPosition());
-            if (colorSettings != null) {
-                Log.d(TAG, "Updating seek bars with saved values: colorIntensity: " + colorSettings.getColorIntensity() + "; brightness: " + colorSettings.getBrightness());
+            final ColorPreset preset = prefsHelper.getPreset(readModeSettings.getColorDropdownPosition());
+            if (preset != null) {
+                Log.d(TAG, "Updating seek bars with saved values: colorIntensity: " + preset.getColorIntensity() + "; brightness: " + preset.getBrightness());
                 // Color Intensity
-                readModeSettings.setColorIntensity(colorSettings.getColorIntensity());
+                readModeSettings.setColorIntensity(preset.getColorIntensity());
                 seekColorIntensityBar.setProgress(readModeSettings.getColorIntensity());
                 colorLevelPercentageText.setText(context.getString(R.string.color_intensity, readModeSettings.getColorIntensity()));
                 // Brightness
-                readModeSettings.setBrightness(colorSettings.getBrightness());
+                readModeSettings.setBrightness(preset.getBrightness());
                 seekBrightnessBar.setProgress(readModeSettings.getBrightness());
                 brightnessLevelPercentageText.setText(context.getString(R.string.brightness_level, readModeSettings.getBrightness()));
             } else {
@@ -219,22 +340,26 @@ public class SeekBarController implements ColorDropdownObserver, CustomColorObse
     @VisibleForTesting
     void setContainerColors() {
         // Background color
-        final int position = readModeSettings.getColorDropdownPosition();
+        final int presetId = readModeSettings.getColorDropdownPosition();
+        final boolean isCustomColor = presetId == ColorPreset.CUSTOM_PRESET_ID;
         final int colorIntensity = seekColorIntensityBar.getProgress();
         final int brightness = seekBrightnessBar.getProgress();
 
         final GradientDrawable drawable = (GradientDrawable) containerLayout.getBackground();
 
         int backgroundColor;
-        if (position == Constants.CUSTOM_COLOR_DROPDOWN_POSITION) {
+        if (isCustomColor) {
             backgroundColor = ColorUtils.adjustColor(Color.parseColor(readModeSettings.getCustomColor()), colorIntensity, brightness);
+        } else if (presetId == ColorPreset.TEMPERATURE_PRESET_ID) {
+            backgroundColor = ColorUtils.adjustColor(ColorTemperature.toColor(readModeSettings.getColorTemperature()), colorIntensity, brightness);
         } else {
-            backgroundColor = ColorUtils.adjustColor(Constants.BACKGROUND_COLOR_FOR_DROPDOWN_ITEMS[position], colorIntensity, brightness);
+            final ColorPreset preset = prefsHelper.getPreset(presetId);
+            backgroundColor = ColorUtils.adjustColor(preset != null ? preset.getColor() : Color.WHITE, colorIntensity, brightness);
         }
         drawable.setColor(backgroundColor);
 
         // Text color
-        if (position == Constants.CUSTOM_COLOR_DROPDOWN_POSITION) {
+        if (isCustomColor) {
             if (ColorUtils.isColorDark(backgroundColor)) {
                 setTextColorForAllElementsInColorSettingsContainer(Color.WHITE);
             } else {
@@ -256,6 +381,8 @@ public class SeekBarController implements ColorDropdownObserver, CustomColorObse
         colorLevelPercentageText.setTextColor(color);
         brightnessLevelText.setTextColor(color);
         brightnessLevelPercentageText.setTextColor(color);
+        colorTemperatureText.setTextColor(color);
+        colorTemperatureLevelText.setTextColor(color);
     }
 
     /**
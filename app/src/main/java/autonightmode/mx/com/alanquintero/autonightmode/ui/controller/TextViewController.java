@@ -11,6 +11,7 @@ import android.widget.TextView;
 import androidx.annotation.NonNull;
 
 import autonightmode.mx.com.alanquintero.autonightmode.R;
+import autonightmode.mx.com.alanquintero.autonightmode.model.ColorPreset;
 import autonightmode.mx.com.alanquintero.autonightmode.model.ReadModeSettings;
 import autonightmode.mx.com.alanquintero.autonightmode.observer.dropdown.ColorDropdownObserver;
 import autonightmode.mx.com.alanquintero.autonightmode.observer.settings.SettingsObserver;
@@ -61,7 +62,12 @@ public class TextViewController implements ColorDropdownObserver, SettingsObserv
         if (prefsHelper.shouldUseSameIntensityBrightnessForAll()) {
             colorSettingsText.setText(label);
         } else {
-            String selectedColor = colorNames[readModeSettings.getColorDropdownPosition()];
+            final ColorPreset preset = prefsHelper.getPreset(readModeSettings.getColorDropdownPosition());
+            if (preset == null) {
+                colorSettingsText.setText(label);
+                return;
+            }
+            final String selectedColor = preset.getDisplayName(colorNames);
             colorSettingsText.setText(context.getString(R.string.color_settings_format, label, selectedColor));
         }
     }
@@ -0,0 +1,345 @@
+/*****************************************************************
+ * Copyright (C) 2025 Alan Quintero <https://github.com/alanquintero/>
+ *****************************************************************/
+package autonightmode.mx.com.alanquintero.autonightmode.ui.dialog;
+
+import android.app.AppOpsManager;
+import android.app.Dialog;
+import android.content.ActivityNotFoundException;
+import android.content.ComponentName;
+import android.content.Context;
+import android.content.Intent;
+import android.content.pm.ApplicationInfo;
+import android.content.pm.PackageManager;
+import android.content.pm.ResolveInfo;
+import android.os.Build;
+import android.os.Bundle;
+import android.os.Process;
+import android.provider.Settings;
+import android.util.Log;
+import android.util.TypedValue;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.widget.LinearLayout;
+import android.widget.SeekBar;
+import android.widget.TextView;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.StringRes;
+import androidx.annotation.VisibleForTesting;
+import androidx.core.content.ContextCompat;
+import androidx.fragment.app.DialogFragment;
+
+import autonightmode.mx.com.alanquintero.autonightmode.R;
+import autonightmode.mx.com.alanquintero.autonightmode.model.AppProfiles;
+import autonightmode.mx.com.alanquintero.autonightmode.model.OverlaySnapshot;
+import autonightmode.mx.com.alanquintero.autonightmode.service.ForegroundAccessibilityService;
+import autonightmode.mx.com.alanquintero.autonightmode.service.OverlayClient;
+import autonightmode.mx.com.alanquintero.autonightmode.util.Constants;
+import autonightmode.mx.com.alanquintero.autonightmode.util.PrefsHelper;
+import autonightmode.mx.com.alanquintero.autonightmode.util.Utils;
+import com.google.android.material.button.MaterialButton;
+import com.google.android.material.dialog.MaterialAlertDialogBuilder;
+import com.google.android.material.switchmaterial.SwitchMaterial;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * AppProfilesDialog is a custom dialog used to add, edit and remove the per-app profiles: how Read
+ * Mode is drawn while a given app is in the foreground, e.g. no filter in the camera.
+ *
+ * <p>The overlay reads the foreground app from the usage access or, if the user turns it on, from
+ * {@link ForegroundAccessibilityService}. Both are granted by the user in the system settings, opened
+ * from this dialog. Every change of the profiles is saved and sent to the running overlay.</p>
+ *
+ * @author Alan Quintero
+ */
+public class AppProfilesDialog extends DialogFragment {
+
+    private static final String TAG = AppProfilesDialog.class.getSimpleName();
+
+    private @Nullable View dialogView;
+
+    @Override
+    public @NonNull Dialog onCreateDialog(@Nullable Bundle savedInstanceState) {
+        Log.i(TAG, "Opening app profiles dialog");
+        final PrefsHelper prefsHelper = PrefsHelper.init(requireContext());
+
+        final LayoutInflater inflater = requireActivity().getLayoutInflater();
+        final View view = inflater.inflate(R.layout.dialog_app_profiles, null);
+        dialogView = view;
+
+        final MaterialButton usageAccessButton = view.findViewById(R.id.button_usage_access);
+        final MaterialButton accessibilityButton = view.findViewById(R.id.button_accessibility_service);
+        final MaterialButton addButton = view.findViewById(R.id.button_add_app_profile);
+
+        usageAccessButton.setOnClickListener(v -> {
+            Log.i(TAG, "Requesting usage access");
+            openSystemSettings(new Intent(Settings.ACTION_USAGE_ACCESS_SETTINGS));
+        });
+
+        // The user is told what the service reads before being sent to the system settings
+        accessibilityButton.setOnClickListener(v -> new MaterialAlertDialogBuilder(requireContext(), R.style.AlertDialogCustom)
+                .setCustomTitle(Utils.createDialogTitle(requireContext(), R.string.title_accessibility_service))
+                .setView(getMessageWithStyle(R.string.accessibility_service_description))
+                .setPositiveButton(getString(R.string.ok), (dialog, which) -> {
+                    Log.i(TAG, "Opening the accessibility settings");
+                    openSystemSettings(new Intent(Settings.ACTION_ACCESSIBILITY_SETTINGS));
+                })
+                .setNegativeButton(getString(R.string.cancel), null)
+                .show());
+
+        addButton.setOnClickListener(v -> showAppPicker(prefsHelper));
+
+        showProfiles(prefsHelper);
+        updateGrantButtons();
+
+        return new MaterialAlertDialogBuilder(requireContext(), R.style.AlertDialogCustom)
+                .setCustomTitle(Utils.createDialogTitle(requireContext(), R.string.title_app_profiles))
+                .setView(view)
+                .setPositiveButton(getString(R.string.done), (dialog, which) -> dialog.dismiss())
+                .create();
+    }
+
+    @Override
+    public void onResume() {
+        super.onResume();
+        // The user may be back from the system settings
+        updateGrantButtons();
+    }
+
+    /**
+     * Shows one row per saved profile, a click on a row opens its editor.
+     */
+    private void showProfiles(final @NonNull PrefsHelper prefsHelper) {
+        if (dialogView == null) {
+            return;
+        }
+        final LinearLayout profilesList = dialogView.findViewById(R.id.app_profiles_list);
+        final TextView emptyText = dialogView.findViewById(R.id.app_profiles_empty);
+        final AppProfiles appProfiles = AppProfiles.parseOrEmpty(prefsHelper.getAppProfiles());
+
+        profilesList.removeAllViews();
+        final LayoutInflater inflater = LayoutInflater.from(requireContext());
+        for (final String packageName : appProfiles.getPackageNames()) {
+            final AppProfiles.Profile profile = appProfiles.get(packageName);
+            if (profile == null) {
+                continue;
+            }
+            final CharSequence appName = getAppName(packageName);
+            final TextView row = (TextView) inflater.inflate(R.layout.app_profile_item, profilesList, false);
+            row.setText(profile.isFilterOn()
+                    ? getString(R.string.app_profile_levels, appName, profile.getColorIntensity(), profile.getBrightness())
+                    : getString(R.string.app_profile_no_filter, appName));
+            row.setOnClickListener(v -> showProfileEditor(prefsHelper, packageName, appName, profile));
+            profilesList.addView(row);
+        }
+        emptyText.setVisibility(appProfiles.isEmpty() ? View.VISIBLE : View.GONE);
+    }
+
+    /**
+     * Lists the apps that can be opened from the launcher, the chosen one gets a new profile.
+     */
+    private void showAppPicker(final @NonNull PrefsHelper prefsHelper) {
+        final PackageManager packageManager = requireContext().getPackageManager();
+        final Intent launcherIntent = new Intent(Intent.ACTION_MAIN).addCategory(Intent.CATEGORY_LAUNCHER);
+        final List<ResolveInfo> activities = packageManager.queryIntentActivities(launcherIntent, 0);
+
+        // One entry per app, sorted by name
+        final Set<String> packageNames = new HashSet<>();
+        final List<AppEntry> apps = new ArrayList<>();
+        for (final ResolveInfo activity : activities) {
+            final String packageName = activity.activityInfo.packageName;
+            if (!requireContext().getPackageName().equals(packageName) && packageNames.add(packageName)) {
+                apps.add(new AppEntry(packageName, activity.loadLabel(packageManager)));
+            }
+        }
+        Collections.sort(apps, (first, second) -> first.name.toString().compareToIgnoreCase(second.name.toString()));
+
+        final CharSequence[] appNames = new CharSequence[apps.size()];
+        for (int i = 0; i < apps.size(); i++) {
+            appNames[i] = apps.get(i).name;
+        }
+        new MaterialAlertDialogBuilder(requireContext(), R.style.AlertDialogCustom)
+                .setCustomTitle(Utils.createDialogTitle(requireContext(), R.string.title_choose_app))
+                .setItems(appNames, (dialog, which) -> {
+                    final AppEntry app = apps.get(which);
+                    showProfileEditor(prefsHelper, app.packageName, app.name,
+                            AppProfiles.parseOrEmpty(prefsHelper.getAppProfiles()).get(app.packageName));
+                })
+                .setNegativeButton(getString(R.string.cancel), null)
+                .show();
+    }
+
+    /**
+     * Edits the profile of an app, a new profile has no filter until the user turns it ON.
+     */
+    private void showProfileEditor(final @NonNull PrefsHelper prefsHelper, final @NonNull String packageName,
+                                   final @NonNull CharSequence appName, final @Nullable AppProfiles.Profile profile) {
+        final View view = LayoutInflater.from(requireContext()).inflate(R.layout.dialog_app_profile, null);
+        final SwitchMaterial switchFilter = view.findViewById(R.id.switch_app_profile_filter);
+        final TextView intensityText = view.findViewById(R.id.app_profile_intensity_text);
+        final SeekBar intensityBar = view.findViewById(R.id.app_profile_intensity_bar);
+        final TextView brightnessText = view.findViewById(R.id.app_profile_brightness_text);
+        final SeekBar brightnessBar = view.findViewById(R.id.app_profile_brightness_bar);
+
+        // A profile without filter starts from the saved levels
+        final boolean isFilterOn = profile != null && profile.isFilterOn();
+        final int colorIntensity = isFilterOn ? profile.getColorIntensity() : prefsHelper.getColorIntensity();
+        final int brightness = isFilterOn ? profile.getBrightness() : prefsHelper.getBrightness();
+        switchFilter.setChecked(isFilterOn);
+        intensityBar.setProgress(colorIntensity);
+        intensityText.setText(getString(R.string.app_profile_intensity, colorIntensity));
+        brightnessBar.setProgress(brightness);
+        brightnessText.setText(getString(R.string.app_profile_brightness, brightness));
+        intensityBar.setEnabled(isFilterOn);
+        brightnessBar.setEnabled(isFilterOn);
+
+        switchFilter.setOnCheckedChangeListener((buttonView, isChecked) -> {
+            intensityBar.setEnabled(isChecked);
+            brightnessBar.setEnabled(isChecked);
+        });
+        intensityBar.setOnSeekBarChangeListener(new LevelSeekBarListener(intensityText, R.string.app_profile_intensity));
+        brightnessBar.setOnSeekBarChangeListener(new LevelSeekBarListener(brightnessText, R.string.app_profile_brightness));
+
+        final MaterialAlertDialogBuilder builder = new MaterialAlertDialogBuilder(requireContext(), R.style.AlertDialogCustom)
+                .setCustomTitle(Utils.createDialogTitle(requireContext(), appName))
+                .setView(view)
+                .setPositiveButton(getString(R.string.save), (dialog, which) -> saveAppProfiles(prefsHelper,
+                        AppProfiles.parseOrEmpty(prefsHelper.getAppProfiles()).with(packageName,
+                                new AppProfiles.Profile(switchFilter.isChecked(), intensityBar.getProgress(), brightnessBar.getProgress()))))
+                .setNegativeButton(getString(R.string.cancel), null);
+        if (profile != null) {
+            builder.setNeutralButton(getString(R.string.remove), (dialog, which) -> saveAppProfiles(prefsHelper,
+                    AppProfiles.parseOrEmpty(prefsHelper.getAppProfiles()).without(packageName)));
+        }
+        builder.show();
+    }
+
+    /**
+     * Saves the profiles and sends them to the overlay if it is running.
+     */
+    @VisibleForTesting
+    void saveAppProfiles(final @NonNull PrefsHelper prefsHelper, final @NonNull AppProfiles appProfiles) {
+        Log.d(TAG, "Saving app profiles: " + appProfiles);
+        prefsHelper.saveProperty(Constants.PREF_APP_PROFILES, appProfiles.toString());
+        OverlayClient.update(requireContext(), OverlaySnapshot.from(prefsHelper));
+        showProfiles(prefsHelper);
+    }
+
+    /**
+     * Tells on the buttons which sources of the foreground app are already granted.
+     */
+    private void updateGrantButtons() {
+        if (dialogView == null) {
+            return;
+        }
+        final MaterialButton usageAccessButton = dialogView.findViewById(R.id.button_usage_access);
+        final MaterialButton accessibilityButton = dialogView.findViewById(R.id.button_accessibility_service);
+
+        // The usage events are only read since Android L MR1
+        usageAccessButton.setVisibility(Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP_MR1 ? View.VISIBLE : View.GONE);
+        final boolean hasUsageAccess = hasUsageAccess(requireContext());
+        usageAccessButton.setEnabled(!hasUsageAccess);
+        usageAccessButton.setText(hasUsageAccess ? R.string.app_profiles_usage_access_granted : R.string.app_profiles_usage_access);
+
+        final boolean isAccessibilityServiceOn = isAccessibilityServiceOn(requireContext());
+        accessibilityButton.setEnabled(!isAccessibilityServiceOn);
+        accessibilityButton.setText(isAccessibilityServiceOn
+                ? R.string.app_profiles_accessibility_service_enabled : R.string.app_profiles_accessibility_service);
+    }
+
+    private void openSystemSettings(final @NonNull Intent intent) {
+        try {
+            startActivity(intent);
+        } catch (ActivityNotFoundException e) {
+            Log.w(TAG, "No system settings for " + intent.getAction(), e);
+        }
+    }
+
+    private @NonNull CharSequence getAppName(final @NonNull String packageName) {
+        final PackageManager packageManager = requireContext().getPackageManager();
+        try {
+            final ApplicationInfo applicationInfo = packageManager.getApplicationInfo(packageName, 0);
+            return packageManager.getApplicationLabel(applicationInfo);
+        } catch (PackageManager.NameNotFoundException e) {
+            // The app was uninstalled, its profile is kept
+            return packageName;
+        }
+    }
+
+    @VisibleForTesting
+    static boolean hasUsageAccess(final @NonNull Context context) {
+        final AppOpsManager appOpsManager = (AppOpsManager) context.getSystemService(Context.APP_OPS_SERVICE);
+        if (appOpsManager == null) {
+            return false;
+        }
+        final int mode = Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q
+                ? appOpsManager.unsafeCheckOpNoThrow(AppOpsManager.OPSTR_GET_USAGE_STATS, Process.myUid(), context.getPackageName())
+                : appOpsManager.checkOpNoThrow(AppOpsManager.OPSTR_GET_USAGE_STATS, Process.myUid(), context.getPackageName());
+        return mode == AppOpsManager.MODE_ALLOWED;
+    }
+
+    @VisibleForTesting
+    static boolean isAccessibilityServiceOn(final @NonNull Context context) {
+        final String enabledServices = Settings.Secure.getString(context.getContentResolver(),
+                Settings.Secure.ENABLED_ACCESSIBILITY_SERVICES);
+        final ComponentName service = new ComponentName(context, ForegroundAccessibilityService.class);
+        return enabledServices != null && enabledServices.contains(service.flattenToString());
+    }
+
+    private @NonNull TextView getMessageWithStyle(final @StringRes int resId) {
+        final TextView messageView = new TextView(requireContext());
+        messageView.setText(resId);
+        messageView.setTextSize(TypedValue.COMPLEX_UNIT_SP, 16); // set size in sp
+        messageView.setTextColor(ContextCompat.getColor(requireContext(), R.color.text_primary));
+        messageView.setPadding(64, 32, 64, 32); // left, top, right, bottom
+        return messageView;
+    }
+
+    /**
+     * An app that can be opened from the launcher.
+     */
+    private static final class AppEntry {
+
+        private final @NonNull String packageName;
+        private final @NonNull CharSequence name;
+
+        private AppEntry(final @NonNull String packageName, final @NonNull CharSequence name) {
+            this.packageName = packageName;
+            this.name = name;
+        }
+    }
+
+    /**
+     * Shows the level of a profile seek bar.
+     */
+    private final class LevelSeekBarListener implements SeekBar.OnSeekBarChangeListener {
+
+        private final @NonNull TextView levelText;
+        private final @StringRes int formatRes;
+
+        private LevelSeekBarListener(final @NonNull TextView levelText, final @StringRes int formatRes) {
+            this.levelText = levelText;
+            this.formatRes = formatRes;
+        }
+
+        @Override
+        public void onProgressChanged(SeekBar bar, int progress, boolean fromUser) {
+            levelText.setText(getString(formatRes, progress));
+        }
+
+        @Override
+        public void onStartTrackingTouch(SeekBar bar) {
+        }
+
+        @Override
+        public void onStopTrackingTouch(SeekBar bar) {
+        }
+    }
+}
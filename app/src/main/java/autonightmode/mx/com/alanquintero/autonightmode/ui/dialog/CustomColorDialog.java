@@ -4,40 +4,50 @@
 package autonightmode.mx.com.alanquintero.autonightmode.ui.dialog;
 
 import android.content.Context;
+import android.content.DialogInterface;
 import android.graphics.Color;
 import android.os.Bundle;
 import android.util.Log;
+import android.view.Choreographer;
+import android.view.LayoutInflater;
+import android.view.View;
 
+import androidx.annotation.ColorInt;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
 import androidx.fragment.app.DialogFragment;
 
 import autonightmode.mx.com.alanquintero.autonightmode.R;
 import autonightmode.mx.com.alanquintero.autonightmode.command.ReadModeCommand;
 import autonightmode.mx.com.alanquintero.autonightmode.model.ReadModeSettings;
 import autonightmode.mx.com.alanquintero.autonightmode.observer.customcolor.CustomColorSubject;
-import autonightmode.mx.com.alanquintero.autonightmode.ui.spinner.ColorItem;
-import autonightmode.mx.com.alanquintero.autonightmode.ui.spinner.ColorSpinnerAdapter;
+import autonightmode.mx.com.alanquintero.autonightmode.ui.picker.HsvColorPickerView;
 import autonightmode.mx.com.alanquintero.autonightmode.util.ColorUtils;
 import autonightmode.mx.com.alanquintero.autonightmode.util.Constants;
 import autonightmode.mx.com.alanquintero.autonightmode.util.PrefsHelper;
 import autonightmode.mx.com.alanquintero.autonightmode.util.Utils;
-import com.skydoves.colorpickerview.ColorPickerDialog;
-import com.skydoves.colorpickerview.ColorPickerView;
-import com.skydoves.colorpickerview.flag.BubbleFlag;
-import com.skydoves.colorpickerview.flag.FlagMode;
-import com.skydoves.colorpickerview.listeners.ColorEnvelopeListener;
-
-import java.util.List;
+import com.google.android.material.dialog.MaterialAlertDialogBuilder;
 
 /**
  * CustomColorDialog is a custom dialog used to display and manage
  * the user-configurable settings for choosing a custom color for the Read Mode.
  *
+ * <p>While the user picks a color, the overlay previews it. The picked colors are coalesced to
+ * one update per display frame, nothing is saved until the color is confirmed, and cancelling
+ * puts back the previous overlay. The picked color can also be saved as a new color preset.</p>
+ *
  * @author Alan Quintero
  */
 public class CustomColorDialog extends DialogFragment {
 
+    /**
+     * Listener notified when the picked color is saved as a new color preset.
+     */
+    public interface OnSavePresetListener {
+        void onSavePreset(final @ColorInt int color);
+    }
+
     private static final String TAG = CustomColorDialog.class.getSimpleName();
 
     private final @NonNull Context context;
@@ -46,8 +56,15 @@ public class CustomColorDialog extends DialogFragment {
     private final @NonNull ReadModeSettings readModeSettings;
     private final @NonNull CustomColorSubject customColorSubject;
 
-    private List<ColorItem> colorItems;
-    private ColorSpinnerAdapter colorSpinnerAdapter;
+    private @Nullable OnSavePresetListener onSavePresetListener;
+
+    // Last color picked, previewed on the next frame
+    private @ColorInt int pendingPreviewColor;
+    private boolean isPreviewFrameScheduled = false;
+    private final Choreographer.FrameCallback previewFrameCallback = frameTimeNanos -> {
+        isPreviewFrameScheduled = false;
+        readModeCommand.previewCustomColor(ColorUtils.getHexColor(pendingPreviewColor));
+    };
 
     public CustomColorDialog(final @NonNull Context context, final @NonNull ReadModeCommand readModeCommand, final @NonNull ReadModeSettings readModeSettings, final @NonNull CustomColorSubject customColorSubject) {
         this.context = context;
@@ -56,26 +73,43 @@ public class CustomColorDialog extends DialogFragment {
         this.customColorSubject = customColorSubject;
     }
 
-    public void setColorItems(final List<ColorItem> colorItems) {
-        this.colorItems = colorItems;
+    public void setOnSavePresetListener(final @Nullable OnSavePresetListener onSavePresetListener) {
+        this.onSavePresetListener = onSavePresetListener;
     }
 
-    public void setColorSpinnerAdapter(final ColorSpinnerAdapter colorSpinnerAdapter) {
-        this.colorSpinnerAdapter = colorSpinnerAdapter;
+    /**
+     * Closes the dialog, as if it was cancelled, and drops the reference to the preset listener.
+     * Called when the UI is hidden and its resources are released.
+     */
+    public void release() {
+        if (isAdded()) {
+            Log.d(TAG, "Releasing custom color dialog");
+            revertPreview();
+            dismissAllowingStateLoss();
+        }
+        onSavePresetListener = null;
     }
 
     @Override
     public @NonNull android.app.Dialog onCreateDialog(@Nullable Bundle savedInstanceState) {
         Log.i(TAG, "Opening custom color dialog");
         final PrefsHelper prefsHelper = PrefsHelper.init(requireContext());
-        readModeCommand.pauseReadMode();
 
-        final ColorPickerDialog.Builder colorPickerDialogBuilder = new ColorPickerDialog.Builder(context, R.style.AlertDialogCustom)
+        final View view = LayoutInflater.from(context).inflate(R.layout.dialog_custom_color, null);
+        final HsvColorPickerView colorPickerView = view.findViewById(R.id.customColorPicker);
+        // Initial color
+        Log.d(TAG, "Loading initial custom color: " + readModeSettings.getCustomColor());
+        colorPickerView.setColor(Color.parseColor(readModeSettings.getCustomColor()));
+        // Live preview
+        colorPickerView.setOnColorChangedListener(this::onColorPicked);
+
+        return new MaterialAlertDialogBuilder(context, R.style.AlertDialogCustom)
                 .setCustomTitle(Utils.createDialogTitle(requireContext(), R.string.choose_custom_color))
-                .setPreferenceName("MyColorPickerDialog")
+                .setView(view)
                 .setPositiveButton(R.string.confirm,
-                        (ColorEnvelopeListener) (envelope, fromUser) -> {
-                            final String selectedHexColor = ColorUtils.getHexColor(envelope.getColor());
+                        (dialogInterface, i) -> {
+                            cancelPendingPreview();
+                            final String selectedHexColor = ColorUtils.getHexColor(colorPickerView.getColor());
                             Log.d(TAG, "Selected color: " + selectedHexColor);
 
                             prefsHelper.saveProperty(Constants.PREF_COLOR, Constants.CUSTOM_COLOR);
@@ -85,35 +119,65 @@ public class CustomColorDialog extends DialogFragment {
                             Log.d(TAG, "Updating custom color to: " + selectedHexColor);
                             readModeSettings.setCustomColor(selectedHexColor);
                             customColorSubject.setCustomColor(selectedHexColor);
-                            if (colorItems != null && colorSpinnerAdapter != null && colorItems.size() > Constants.CUSTOM_COLOR_DROPDOWN_POSITION) {
-                                Log.d(TAG, "Updating custom color to in colorItems and notifying DataSet Changed...");
-                                colorItems.get(Constants.CUSTOM_COLOR_DROPDOWN_POSITION).setIconColor(Color.parseColor(selectedHexColor));
-                                colorSpinnerAdapter.notifyDataSetChanged();
-                            }
 
-                            // resume read mode
-                            readModeCommand.resumeReadMode();
+                            // apply the saved color, it replaces the preview
+                            if (readModeSettings.isReadModeOn()) {
+                                readModeCommand.updateReadMode();
+                            }
                         })
+                .setNeutralButton(R.string.save_as_preset,
+                        (dialogInterface, i) -> savePreset(colorPickerView.getColor()))
                 .setNegativeButton(R.string.cancel,
                         (dialogInterface, i) -> {
-                            readModeCommand.resumeReadMode();
+                            revertPreview();
                             dialogInterface.dismiss();
                         })
-                .attachAlphaSlideBar(true)
-                .attachBrightnessSlideBar(true)
-                .setBottomSpace(12); // set a bottom space between the last slidebar and buttons.
+                .create();
+    }
 
+    @Override
+    public void onCancel(@NonNull DialogInterface dialog) {
+        super.onCancel(dialog);
+        revertPreview();
+    }
 
-        final ColorPickerView colorPickerView = colorPickerDialogBuilder.getColorPickerView();
-        // Initial color
-        Log.d(TAG, "Loading initial custom color: " + readModeSettings.getCustomColor());
-        final int initialColor = Color.parseColor(readModeSettings.getCustomColor());
-        colorPickerView.setInitialColor(initialColor);
-        // Flag
-        final BubbleFlag bubbleFlag = new BubbleFlag(context);
-        bubbleFlag.setFlagMode(FlagMode.ALWAYS);
-        colorPickerView.setFlagView(bubbleFlag);
-
-        return colorPickerDialogBuilder.show();
+    /**
+     * Previews the picked color on the next display frame. The picker reports every touch move,
+     * only the last color of each frame is sent to the overlay.
+     */
+    @VisibleForTesting
+    void onColorPicked(final @ColorInt int color) {
+        pendingPreviewColor = color;
+        if (!isPreviewFrameScheduled) {
+            isPreviewFrameScheduled = true;
+            Choreographer.getInstance().postFrameCallback(previewFrameCallback);
+        }
+    }
+
+    /**
+     * Saves the picked color as a new preset, which is selected and replaces the preview.
+     */
+    @VisibleForTesting
+    void savePreset(final @ColorInt int color) {
+        cancelPendingPreview();
+        if (onSavePresetListener == null) {
+            Log.w(TAG, "No listener to save the preset");
+            readModeCommand.revertPreview();
+            return;
+        }
+        Log.d(TAG, "Saving color as preset: " + ColorUtils.getHexColor(color));
+        onSavePresetListener.onSavePreset(color);
+    }
+
+    private void cancelPendingPreview() {
+        if (isPreviewFrameScheduled) {
+            Choreographer.getInstance().removeFrameCallback(previewFrameCallback);
+            isPreviewFrameScheduled = false;
+        }
+    }
+
+    private void revertPreview() {
+        cancelPendingPreview();
+        readModeCommand.revertPreview();
     }
 }
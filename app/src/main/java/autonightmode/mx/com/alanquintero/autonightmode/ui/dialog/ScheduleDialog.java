@@ -0,0 +1,210 @@
+/*****************************************************************
+ * Copyright (C) 2025 Alan Quintero <https://github.com/alanquintero/>
+ *****************************************************************/
+package autonightmode.mx.com.alanquintero.autonightmode.ui.dialog;
+
+import android.app.Dialog;
+import android.app.TimePickerDialog;
+import android.content.DialogInterface;
+import android.os.Bundle;
+import android.text.format.DateFormat;
+import android.util.Log;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.widget.EditText;
+import android.widget.RadioGroup;
+import android.widget.SeekBar;
+import android.widget.TextView;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+import androidx.appcompat.app.AlertDialog;
+import androidx.fragment.app.DialogFragment;
+
+import autonightmode.mx.com.alanquintero.autonightmode.R;
+import autonightmode.mx.com.alanquintero.autonightmode.model.Schedule;
+import autonightmode.mx.com.alanquintero.autonightmode.schedule.ReadModeScheduler;
+import autonightmode.mx.com.alanquintero.autonightmode.util.Constants;
+import autonightmode.mx.com.alanquintero.autonightmode.util.PrefsHelper;
+import autonightmode.mx.com.alanquintero.autonightmode.util.Utils;
+import com.google.android.material.button.MaterialButton;
+import com.google.android.material.dialog.MaterialAlertDialogBuilder;
+
+import java.util.Calendar;
+
+/**
+ * ScheduleDialog is a custom dialog used to display and manage the schedule of Read Mode: the mode
+ * (OFF, custom times or sunset to sunrise), the start and end times, the location and the fade.
+ *
+ * <p>The values are saved when the user taps SAVE, then {@link ReadModeScheduler} applies the last
+ * transition if needed and sets the alarm for the next one.</p>
+ *
+ * @author Alan Quintero
+ */
+public class ScheduleDialog extends DialogFragment {
+
+    private static final String TAG = ScheduleDialog.class.getSimpleName();
+
+    private static final int MINUTES_PER_HOUR = 60;
+
+    // Times shown by the dialog, in minutes of the day, saved when the user taps SAVE
+    private int startMinute;
+    private int endMinute;
+
+    @Override
+    public @NonNull Dialog onCreateDialog(@Nullable Bundle savedInstanceState) {
+        Log.i(TAG, "Opening schedule dialog");
+        final PrefsHelper prefsHelper = PrefsHelper.init(requireContext());
+        final Schedule schedule = Schedule.from(prefsHelper);
+
+        final LayoutInflater inflater = requireActivity().getLayoutInflater();
+        final View view = inflater.inflate(R.layout.dialog_schedule, null);
+
+        final RadioGroup modeGroup = view.findViewById(R.id.schedule_radio_group);
+        final MaterialButton startButton = view.findViewById(R.id.button_schedule_start);
+        final MaterialButton endButton = view.findViewById(R.id.button_schedule_end);
+        final EditText locationInput = view.findViewById(R.id.schedule_location_input);
+        final TextView rampText = view.findViewById(R.id.schedule_ramp_text);
+        final SeekBar rampBar = view.findViewById(R.id.schedule_ramp_bar);
+
+        // Load saved values
+        if (Schedule.Mode.TIMES.equals(schedule.getMode())) {
+            modeGroup.check(R.id.radio_schedule_times);
+        } else if (Schedule.Mode.SUN.equals(schedule.getMode())) {
+            modeGroup.check(R.id.radio_schedule_sun);
+        } else {
+            modeGroup.check(R.id.radio_schedule_off);
+        }
+        startMinute = schedule.getStartMinute();
+        endMinute = schedule.getEndMinute();
+        startButton.setText(getString(R.string.schedule_start, formatTime(startMinute)));
+        endButton.setText(getString(R.string.schedule_end, formatTime(endMinute)));
+        locationInput.setText(prefsHelper.getScheduleLocation());
+        rampBar.setMax(Schedule.MAX_RAMP_MINUTES);
+        rampBar.setProgress(schedule.getRampMinutes());
+        rampText.setText(getString(R.string.schedule_ramp, schedule.getRampMinutes()));
+        updateEnabled(view, modeGroup.getCheckedRadioButtonId());
+
+        modeGroup.setOnCheckedChangeListener((group, checkedId) -> updateEnabled(view, checkedId));
+
+        startButton.setOnClickListener(v -> showTimePicker(startMinute, minute -> {
+            startMinute = minute;
+            startButton.setText(getString(R.string.schedule_start, formatTime(minute)));
+        }));
+        endButton.setOnClickListener(v -> showTimePicker(endMinute, minute -> {
+            endMinute = minute;
+            endButton.setText(getString(R.string.schedule_end, formatTime(minute)));
+        }));
+
+        rampBar.setOnSeekBarChangeListener(new SeekBar.OnSeekBarChangeListener() {
+            @Override
+            public void onProgressChanged(SeekBar bar, int progress, boolean fromUser) {
+                rampText.setText(getString(R.string.schedule_ramp, progress));
+            }
+
+            @Override
+            public void onStartTrackingTouch(SeekBar bar) {
+            }
+
+            @Override
+            public void onStopTrackingTouch(SeekBar bar) {
+            }
+        });
+
+        final AlertDialog scheduleDialog = new MaterialAlertDialogBuilder(requireContext(), R.style.AlertDialogCustom)
+                .setCustomTitle(Utils.createDialogTitle(requireContext(), R.string.title_schedule))
+                .setView(view)
+                .setPositiveButton(getString(R.string.save), null)
+                .setNegativeButton(getString(R.string.cancel), null)
+                .create();
+
+        // The dialog stays open while the location is not valid
+        scheduleDialog.setOnShowListener(dialog -> scheduleDialog.getButton(DialogInterface.BUTTON_POSITIVE).setOnClickListener(v -> {
+            if (saveSchedule(prefsHelper, getMode(modeGroup.getCheckedRadioButtonId()), locationInput.getText().toString(),
+                    rampBar.getProgress())) {
+                scheduleDialog.dismiss();
+            } else {
+                locationInput.setError(getString(R.string.schedule_location_invalid));
+            }
+        }));
+
+        return scheduleDialog;
+    }
+
+    /**
+     * Saves the schedule and hands it to {@link ReadModeScheduler}.
+     *
+     * @return false if the location is not valid, nothing is saved then
+     */
+    @VisibleForTesting
+    boolean saveSchedule(final @NonNull PrefsHelper prefsHelper, final @NonNull Schedule.Mode mode,
+                         final @NonNull String locationText, final int rampMinutes) {
+        final String location;
+        if (locationText.trim().isEmpty()) {
+            location = Constants.DEFAULT_SCHEDULE_LOCATION;
+        } else {
+            final double[] parsedLocation = Schedule.parseLocation(locationText);
+            if (parsedLocation == null) {
+                Log.w(TAG, "Invalid location: " + locationText);
+                return false;
+            }
+            location = parsedLocation[0] + "," + parsedLocation[1];
+        }
+        Log.d(TAG, "Saving schedule: " + mode);
+        prefsHelper.saveProperty(Constants.PREF_SCHEDULE, mode.name());
+        prefsHelper.saveProperty(Constants.PREF_SCHEDULE_START, startMinute);
+        prefsHelper.saveProperty(Constants.PREF_SCHEDULE_END, endMinute);
+        prefsHelper.saveProperty(Constants.PREF_SCHEDULE_RAMP, rampMinutes);
+        prefsHelper.saveProperty(Constants.PREF_SCHEDULE_LOCATION, location);
+        ReadModeScheduler.update(requireContext(), prefsHelper);
+        return true;
+    }
+
+    @VisibleForTesting
+    void setTimes(final int startMinute, final int endMinute) {
+        this.startMinute = startMinute;
+        this.endMinute = endMinute;
+    }
+
+    private static @NonNull Schedule.Mode getMode(final int checkedId) {
+        if (checkedId == R.id.radio_schedule_times) {
+            return Schedule.Mode.TIMES;
+        } else if (checkedId == R.id.radio_schedule_sun) {
+            return Schedule.Mode.SUN;
+        }
+        return Schedule.Mode.OFF;
+    }
+
+    private void updateEnabled(final @NonNull View view, final int checkedId) {
+        final Schedule.Mode mode = getMode(checkedId);
+        view.findViewById(R.id.button_schedule_start).setEnabled(mode != Schedule.Mode.OFF);
+        view.findViewById(R.id.button_schedule_end).setEnabled(mode != Schedule.Mode.OFF);
+        view.findViewById(R.id.schedule_ramp_bar).setEnabled(mode != Schedule.Mode.OFF);
+    }
+
+    private void showTimePicker(final int minuteOfDay, final @NonNull TimeListener listener) {
+        new TimePickerDialog(requireContext(),
+                (picker, hourOfDay, minute) -> listener.onTimeSet(hourOfDay * MINUTES_PER_HOUR + minute),
+                minuteOfDay / MINUTES_PER_HOUR, minuteOfDay % MINUTES_PER_HOUR,
+                DateFormat.is24HourFormat(requireContext()))
+                .show();
+    }
+
+    /**
+     * Formats a time of the schedule, in minutes of the day, in the time format of the user.
+     */
+    private @NonNull String formatTime(final int minuteOfDay) {
+        final Calendar calendar = Calendar.getInstance();
+        calendar.set(Calendar.HOUR_OF_DAY, minuteOfDay / MINUTES_PER_HOUR);
+        calendar.set(Calendar.MINUTE, minuteOfDay % MINUTES_PER_HOUR);
+        return DateFormat.getTimeFormat(requireContext()).format(calendar.getTime());
+    }
+
+    /**
+     * Receives the time picked by the user, in minutes of the day.
+     */
+    private interface TimeListener {
+        void onTimeSet(int minuteOfDay);
+    }
+}
@@ -4,15 +4,23 @@
 package autonightmode.mx.com.alanquintero.autonightmode.ui.dialog;
 
 import android.app.Dialog;
+import android.content.Intent;
+import android.net.Uri;
+import android.os.Build;
 import android.os.Bundle;
+import android.provider.Settings;
 import android.util.Log;
 import android.util.TypedValue;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.widget.ImageButton;
+import android.widget.RadioGroup;
+import android.widget.SeekBar;
 import android.widget.TextView;
 import android.widget.Toast;
 
+import androidx.activity.result.ActivityResultLauncher;
+import androidx.activity.result.contract.ActivityResultContracts;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.annotation.StringRes;
@@ -20,8 +28,11 @@ import androidx.appcompat.app.AlertDialog;
 import androidx.core.content.ContextCompat;
 import androidx.fragment.app.DialogFragment;
 
+import autonightmode.mx.com.alanquintero.autonightmode.model.OverlayRegion;
+import autonightmode.mx.com.alanquintero.autonightmode.model.OverlaySnapshot;
 import autonightmode.mx.com.alanquintero.autonightmode.model.ReadModeSettings;
 import autonightmode.mx.com.alanquintero.autonightmode.observer.settings.SettingsSubject;
+import autonightmode.mx.com.alanquintero.autonightmode.service.OverlayClient;
 import autonightmode.mx.com.alanquintero.autonightmode.util.Constants;
 import autonightmode.mx.com.alanquintero.autonightmode.R;
 import autonightmode.mx.com.alanquintero.autonightmode.util.PrefsHelper;
@@ -34,6 +45,11 @@ import com.google.android.material.switchmaterial.SwitchMaterial;
  * SettingsDialog is a custom dialog used to display and manage
  * the user-configurable settings for "Read Mode" in the application.
  *
+ * <p>The overlay settings (the ambient light, the hybrid dimming and the screen area) are sent to the
+ * running overlay on every change, the values of a slider drag are only staged in {@link PrefsHelper}
+ * and written once when the slider is released. The hybrid dimming needs the permission to write the
+ * system settings, the user is sent to the system settings to grant it when the option is turned ON.</p>
+ *
  * @author Alan Quintero
  */
 public class SettingsDialog extends DialogFragment {
@@ -43,6 +59,11 @@ public class SettingsDialog extends DialogFragment {
     private final @NonNull SettingsSubject settingsSubject;
     private final @NonNull ReadModeSettings readModeSettings;
 
+    // The user is back from the system settings, the hybrid dimming is kept only if the permission is granted
+    private final @NonNull ActivityResultLauncher<Intent> writeSettingsLauncher = registerForActivityResult(
+            new ActivityResultContracts.StartActivityForResult(), result -> onWriteSettingsResult());
+    private @Nullable SwitchMaterial switchHybridDimming;
+
     public SettingsDialog(final @NonNull SettingsSubject settingsSubject, final @NonNull ReadModeSettings readModeSettings) {
         this.settingsSubject = settingsSubject;
         this.readModeSettings = readModeSettings;
@@ -58,9 +79,13 @@ public class SettingsDialog extends DialogFragment {
 
         final SwitchMaterial switchSameIntensityBrightness = view.findViewById(R.id.switch_same_intensity_brightness);
         final SwitchMaterial switchAutoStartReadMode = view.findViewById(R.id.switch_auto_start_read_mode);
+        final SwitchMaterial switchAmbientLight = view.findViewById(R.id.switch_ambient_light);
+        switchHybridDimming = view.findViewById(R.id.switch_hybrid_dimming);
 
         final ImageButton infoSameIntensity = view.findViewById(R.id.info_same_intensity_brightness);
         final ImageButton infoAutoStart = view.findViewById(R.id.info_auto_start_read_mode);
+        final ImageButton infoAmbientLight = view.findViewById(R.id.info_ambient_light);
+        final ImageButton infoHybridDimming = view.findViewById(R.id.info_hybrid_dimming);
 
         infoAutoStart.setOnClickListener(v -> new MaterialAlertDialogBuilder(requireContext(), R.style.AlertDialogCustom)
                 .setCustomTitle(Utils.createDialogTitle(requireContext(), R.string.title_auto_start_read_mode))
@@ -74,9 +99,24 @@ public class SettingsDialog extends DialogFragment {
                 .setPositiveButton(getString(R.string.ok), null)
                 .show());
 
+        infoAmbientLight.setOnClickListener(v -> new MaterialAlertDialogBuilder(requireContext(), R.style.AlertDialogCustom)
+                .setCustomTitle(Utils.createDialogTitle(requireContext(), R.string.title_ambient_light))
+                .setView(getMessageWithStyle(R.string.info_ambient_light))
+                .setPositiveButton(getString(R.string.ok), null)
+                .show());
+
+        infoHybridDimming.setOnClickListener(v -> new MaterialAlertDialogBuilder(requireContext(), R.style.AlertDialogCustom)
+                .setCustomTitle(Utils.createDialogTitle(requireContext(), R.string.title_hybrid_dimming))
+                .setView(getMessageWithStyle(R.string.info_hybrid_dimming))
+                .setPositiveButton(getString(R.string.ok), null)
+                .show());
+
         // Load saved values
         switchAutoStartReadMode.setChecked(prefsHelper.getAutoStartReadMode());
         switchSameIntensityBrightness.setChecked(prefsHelper.shouldUseSameIntensityBrightnessForAll());
+        switchAmbientLight.setChecked(prefsHelper.isAmbientLightOn());
+        // Without the permission the overlay does all the dimming
+        switchHybridDimming.setChecked(prefsHelper.isHybridDimmingOn() && canWriteSettings());
 
         // Save changes when toggled
         switchAutoStartReadMode.setOnCheckedChangeListener((buttonView, isChecked) -> {
@@ -91,6 +131,33 @@ public class SettingsDialog extends DialogFragment {
             settingsSubject.onSettingsChanged(Constants.SETTING_OPTIONS.SAME_SETTINGS_FOR_ALL);
         });
 
+        switchAmbientLight.setOnCheckedChangeListener((buttonView, isChecked) -> {
+            prefsHelper.saveProperty(Constants.PREF_AMBIENT_LIGHT, isChecked);
+            updateOverlay(prefsHelper);
+        });
+
+        switchHybridDimming.setOnCheckedChangeListener((buttonView, isChecked) -> {
+            prefsHelper.saveProperty(Constants.PREF_HYBRID_DIMMING, isChecked);
+            if (isChecked && !canWriteSettings()) {
+                Log.i(TAG, "Requesting write settings permission");
+                final Intent intent = new Intent(
+                        Settings.ACTION_MANAGE_WRITE_SETTINGS,
+                        Uri.parse("package:" + requireContext().getPackageName())
+                );
+                writeSettingsLauncher.launch(intent);
+            } else {
+                updateOverlay(prefsHelper);
+            }
+        });
+
+        setupRegion(view, prefsHelper);
+
+        final MaterialButton scheduleButton = view.findViewById(R.id.button_schedule);
+        scheduleButton.setOnClickListener(v -> new ScheduleDialog().show(getParentFragmentManager(), "scheduleDialog"));
+
+        final MaterialButton appProfilesButton = view.findViewById(R.id.button_app_profiles);
+        appProfilesButton.setOnClickListener(v -> new AppProfilesDialog().show(getParentFragmentManager(), "appProfilesDialog"));
+
         final AlertDialog settingsDialog = new MaterialAlertDialogBuilder(requireContext(), R.style.AlertDialogCustom)
                 .setCustomTitle(Utils.createDialogTitle(requireContext(), R.string.menu_settings))
                 .setView(view)
@@ -124,6 +191,131 @@ public class SettingsDialog extends DialogFragment {
         return settingsDialog;
     }
 
+    /**
+     * Restores the saved screen area and sends every change to the overlay.
+     */
+    private void setupRegion(final @NonNull View view, final @NonNull PrefsHelper prefsHelper) {
+        final ImageButton infoRegion = view.findViewById(R.id.info_region);
+        final RadioGroup regionGroup = view.findViewById(R.id.region_radio_group);
+        final TextView regionTopText = view.findViewById(R.id.region_top_text);
+        final SeekBar regionTopBar = view.findViewById(R.id.region_top_bar);
+        final TextView regionHeightText = view.findViewById(R.id.region_height_text);
+        final SeekBar regionHeightBar = view.findViewById(R.id.region_height_bar);
+
+        infoRegion.setOnClickListener(v -> new MaterialAlertDialogBuilder(requireContext(), R.style.AlertDialogCustom)
+                .setCustomTitle(Utils.createDialogTitle(requireContext(), R.string.title_region))
+                .setView(getMessageWithStyle(R.string.info_region))
+                .setPositiveButton(getString(R.string.ok), null)
+                .show());
+
+        // Load saved values
+        final OverlayRegion.Mode mode = OverlayRegion.Mode.fromName(prefsHelper.getRegion());
+        if (OverlayRegion.Mode.BAND.equals(mode)) {
+            regionGroup.check(R.id.radio_region_band);
+        } else if (OverlayRegion.Mode.MASK.equals(mode)) {
+            regionGroup.check(R.id.radio_region_mask);
+        } else {
+            regionGroup.check(R.id.radio_region_full);
+        }
+        regionTopBar.setProgress(prefsHelper.getRegionTop());
+        regionTopText.setText(getString(R.string.region_top, prefsHelper.getRegionTop()));
+        regionHeightBar.setProgress(prefsHelper.getRegionHeight());
+        regionHeightText.setText(getString(R.string.region_height, prefsHelper.getRegionHeight()));
+        updateRegionBarsEnabled(regionGroup.getCheckedRadioButtonId(), regionTopBar, regionHeightBar);
+
+        regionGroup.setOnCheckedChangeListener((group, checkedId) -> {
+            final OverlayRegion.Mode checkedMode;
+            if (checkedId == R.id.radio_region_band) {
+                checkedMode = OverlayRegion.Mode.BAND;
+            } else if (checkedId == R.id.radio_region_mask) {
+                checkedMode = OverlayRegion.Mode.MASK;
+            } else {
+                checkedMode = OverlayRegion.Mode.FULL;
+            }
+            Log.d(TAG, "Screen area selected: " + checkedMode);
+            prefsHelper.saveProperty(Constants.PREF_REGION, checkedMode.name());
+            updateRegionBarsEnabled(checkedId, regionTopBar, regionHeightBar);
+            updateOverlay(prefsHelper);
+        });
+
+        regionTopBar.setOnSeekBarChangeListener(new RegionSeekBarListener(prefsHelper, Constants.PREF_REGION_TOP) {
+            @Override
+            void onRegionChanged(final int progress) {
+                regionTopText.setText(getString(R.string.region_top, progress));
+            }
+        });
+        regionHeightBar.setOnSeekBarChangeListener(new RegionSeekBarListener(prefsHelper, Constants.PREF_REGION_HEIGHT) {
+            @Override
+            void onRegionChanged(final int progress) {
+                regionHeightText.setText(getString(R.string.region_height, progress));
+            }
+        });
+    }
+
+    private void onWriteSettingsResult() {
+        if (canWriteSettings()) {
+            // The overlay checks the permission on every snapshot
+            updateOverlay(PrefsHelper.init(requireContext()));
+        } else if (switchHybridDimming != null) {
+            Log.w(TAG, "No write settings permission granted, hybrid dimming turned OFF");
+            switchHybridDimming.setChecked(false);
+        }
+    }
+
+    private boolean canWriteSettings() {
+        // Granted by the user in the system settings since Android M
+        return Build.VERSION.SDK_INT < Build.VERSION_CODES.M || Settings.System.canWrite(requireContext());
+    }
+
+    private void updateRegionBarsEnabled(final int checkedId, final @NonNull SeekBar regionTopBar, final @NonNull SeekBar regionHeightBar) {
+        // The band is ignored when the whole screen is covered
+        final boolean isBand = checkedId != R.id.radio_region_full;
+        regionTopBar.setEnabled(isBand);
+        regionHeightBar.setEnabled(isBand);
+    }
+
+    /**
+     * Sends the saved settings to the overlay if it is running, a change of the screen area only
+     * moves and resizes the overlay windows.
+     */
+    private void updateOverlay(final @NonNull PrefsHelper prefsHelper) {
+        OverlayClient.update(requireContext(), OverlaySnapshot.from(prefsHelper));
+    }
+
+    /**
+     * Stages the band value of a slider on every tick, it is written when the slider is released.
+     */
+    private abstract class RegionSeekBarListener implements SeekBar.OnSeekBarChangeListener {
+
+        private final @NonNull PrefsHelper prefsHelper;
+        private final @NonNull String property;
+
+        RegionSeekBarListener(final @NonNull PrefsHelper prefsHelper, final @NonNull String property) {
+            this.prefsHelper = prefsHelper;
+            this.property = property;
+        }
+
+        abstract void onRegionChanged(int progress);
+
+        @Override
+        public void onProgressChanged(SeekBar bar, int progress, boolean fromUser) {
+            if (fromUser) {
+                prefsHelper.stageProperty(property, progress);
+                onRegionChanged(progress);
+                updateOverlay(prefsHelper);
+            }
+        }
+
+        @Override
+        public void onStartTrackingTouch(SeekBar bar) {
+        }
+
+        @Override
+        public void onStopTrackingTouch(SeekBar bar) {
+            prefsHelper.flushPendingProperties();
+        }
+    }
+
     private @NonNull TextView getMessageWithStyle(final @StringRes int resId) {
         final TextView messageView = new TextView(requireContext());
         messageView.setText(resId);
@@ -17,6 +17,7 @@ import androidx.fragment.app.DialogFragment;
 
 import autonightmode.mx.com.alanquintero.autonightmode.R;
 import autonightmode.mx.com.alanquintero.autonightmode.util.Constants;
+import autonightmode.mx.com.alanquintero.autonightmode.util.JankMonitor;
 import autonightmode.mx.com.alanquintero.autonightmode.util.PrefsHelper;
 import autonightmode.mx.com.alanquintero.autonightmode.util.Utils;
 import com.google.android.material.dialog.MaterialAlertDialogBuilder;
@@ -59,6 +60,8 @@ public class ThemeDialog extends DialogFragment {
         final RadioGroup themeGroup = view.findViewById(R.id.theme_radio_group);
         // Add listener for selection changes
         themeGroup.setOnCheckedChangeListener((group, checkedId) -> {
+            // Ended by MainActivity on the first frame of the UI built with the new theme
+            JankMonitor.begin(JankMonitor.Interaction.THEME_SWITCH);
             if (checkedId == R.id.radio_system_default) {
                 Log.d(TAG, "System default selected");
                 Utils.setAppTheme(Constants.ThemeMode.SYSTEM_DEFAULT);
@@ -0,0 +1,270 @@
+/*****************************************************************
+ * Copyright (C) 2025 Alan Quintero <https://github.com/alanquintero/>
+ *****************************************************************/
+package autonightmode.mx.com.alanquintero.autonightmode.ui.picker;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.LinearGradient;
+import android.graphics.Paint;
+import android.graphics.RectF;
+import android.graphics.Shader;
+import android.util.AttributeSet;
+import android.util.Log;
+import android.view.MotionEvent;
+import android.view.View;
+
+import androidx.annotation.ColorInt;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+
+/**
+ * HsvColorPickerView is a color picker made of a saturation/value square and a hue bar.
+ *
+ * <p>Both gradients are rendered once into small bitmaps that are shared by every instance and
+ * scaled when drawn, so opening the picker again does not render them again. The square is the
+ * current hue filled behind a single hue-independent bitmap (white to the left, black to the
+ * bottom), so changing the hue only changes a paint color. Touch handling and drawing do not
+ * allocate.</p>
+ *
+ * @author Alan Quintero
+ */
+public class HsvColorPickerView extends View {
+
+    private static final String TAG = HsvColorPickerView.class.getSimpleName();
+
+    /**
+     * Listener notified when the user picks a color.
+     */
+    public interface OnColorChangedListener {
+        void onColorChanged(@ColorInt int color);
+    }
+
+    // Resolution of the cached gradients, they are smooth enough to be scaled with filtering
+    @VisibleForTesting
+    static final int SATURATION_VALUE_BITMAP_SIZE = 256;
+    @VisibleForTesting
+    static final int HUE_BITMAP_WIDTH = 360;
+
+    private static final float HUE_BAR_HEIGHT_DP = 28;
+    private static final float GAP_DP = 16;
+    private static final float SELECTOR_RADIUS_DP = 10;
+    private static final float SELECTOR_STROKE_DP = 3;
+    // Height of the saturation/value square relative to its width
+    private static final float SATURATION_VALUE_ASPECT_RATIO = 0.75f;
+    private static final int SELECTOR_OUTLINE_COLOR = 0x66000000;
+    private static final int TRANSPARENT_WHITE = 0x00FFFFFF;
+
+    private static @Nullable Bitmap saturationValueBitmap;
+    private static @Nullable Bitmap hueBitmap;
+
+    private final float[] hsv = {0f, 1f, 1f};
+    // The current hue at full saturation and value, drawn behind the saturation/value bitmap
+    private final float[] pureHue = {0f, 1f, 1f};
+    private final @NonNull Paint bitmapPaint = new Paint(Paint.FILTER_BITMAP_FLAG);
+    private final @NonNull Paint hueFillPaint = new Paint();
+    private final @NonNull Paint selectorPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final @NonNull Paint selectorOutlinePaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final @NonNull RectF saturationValueRect = new RectF();
+    private final @NonNull RectF hueRect = new RectF();
+    private final float hueBarHeight;
+    private final float gap;
+    private final float selectorRadius;
+
+    private boolean isDraggingHue = false;
+    private @Nullable OnColorChangedListener onColorChangedListener;
+
+    public HsvColorPickerView(final @NonNull Context context) {
+        this(context, null);
+    }
+
+    public HsvColorPickerView(final @NonNull Context context, final @Nullable AttributeSet attrs) {
+        this(context, attrs, 0);
+    }
+
+    public HsvColorPickerView(final @NonNull Context context, final @Nullable AttributeSet attrs, final int defStyleAttr) {
+        super(context, attrs, defStyleAttr);
+        final float density = getResources().getDisplayMetrics().density;
+        hueBarHeight = HUE_BAR_HEIGHT_DP * density;
+        gap = GAP_DP * density;
+        selectorRadius = SELECTOR_RADIUS_DP * density;
+
+        final float selectorStroke = SELECTOR_STROKE_DP * density;
+        selectorPaint.setStyle(Paint.Style.STROKE);
+        selectorPaint.setStrokeWidth(selectorStroke);
+        selectorPaint.setStrokeCap(Paint.Cap.ROUND);
+        selectorPaint.setColor(Color.WHITE);
+        selectorOutlinePaint.setStyle(Paint.Style.STROKE);
+        selectorOutlinePaint.setStrokeWidth(selectorStroke + 2 * density);
+        selectorOutlinePaint.setStrokeCap(Paint.Cap.ROUND);
+        selectorOutlinePaint.setColor(SELECTOR_OUTLINE_COLOR);
+        hueFillPaint.setColor(Color.HSVToColor(pureHue));
+    }
+
+    public void setOnColorChangedListener(final @Nullable OnColorChangedListener onColorChangedListener) {
+        this.onColorChangedListener = onColorChangedListener;
+    }
+
+    /**
+     * Sets the selected color, the listener is not notified.
+     */
+    public void setColor(final @ColorInt int color) {
+        Color.colorToHSV(color, hsv);
+        updateHue();
+        invalidate();
+    }
+
+    /**
+     * Returns the selected color, always opaque.
+     */
+    public @ColorInt int getColor() {
+        return Color.HSVToColor(hsv);
+    }
+
+    /**
+     * Drops the cached gradients, they are rendered again the next time a picker is drawn.
+     * Called when the UI is hidden and its resources are released.
+     */
+    public static void releaseCaches() {
+        if (saturationValueBitmap != null || hueBitmap != null) {
+            Log.d(TAG, "Releasing color picker gradients");
+        }
+        saturationValueBitmap = null;
+        hueBitmap = null;
+    }
+
+    @Override
+    protected void onMeasure(final int widthMeasureSpec, final int heightMeasureSpec) {
+        final int width = getDefaultSize(getSuggestedMinimumWidth(), widthMeasureSpec);
+        final float contentWidth = width - getPaddingLeft() - getPaddingRight() - 2 * selectorRadius;
+        final int desiredHeight = Math.round(getPaddingTop() + selectorRadius
+                + contentWidth * SATURATION_VALUE_ASPECT_RATIO + gap + hueBarHeight + getPaddingBottom());
+        setMeasuredDimension(width, resolveSize(desiredHeight, heightMeasureSpec));
+    }
+
+    @Override
+    protected void onSizeChanged(final int width, final int height, final int oldWidth, final int oldHeight) {
+        super.onSizeChanged(width, height, oldWidth, oldHeight);
+        // The selectors are centered on the edges, keep room for them
+        final float left = getPaddingLeft() + selectorRadius;
+        final float right = width - getPaddingRight() - selectorRadius;
+        hueRect.set(left, height - getPaddingBottom() - hueBarHeight, right, height - getPaddingBottom());
+        saturationValueRect.set(left, getPaddingTop() + selectorRadius, right, hueRect.top - gap);
+    }
+
+    @Override
+    protected void onDraw(final @NonNull Canvas canvas) {
+        super.onDraw(canvas);
+        // Saturation/value square
+        canvas.drawRect(saturationValueRect, hueFillPaint);
+        canvas.drawBitmap(getSaturationValueBitmap(), null, saturationValueRect, bitmapPaint);
+        final float colorX = saturationValueRect.left + hsv[1] * saturationValueRect.width();
+        final float colorY = saturationValueRect.top + (1f - hsv[2]) * saturationValueRect.height();
+        canvas.drawCircle(colorX, colorY, selectorRadius, selectorOutlinePaint);
+        canvas.drawCircle(colorX, colorY, selectorRadius, selectorPaint);
+
+        // Hue bar
+        canvas.drawBitmap(getHueBitmap(), null, hueRect, bitmapPaint);
+        final float hueX = hueRect.left + hsv[0] / 360f * hueRect.width();
+        canvas.drawLine(hueX, hueRect.top, hueX, hueRect.bottom, selectorOutlinePaint);
+        canvas.drawLine(hueX, hueRect.top, hueX, hueRect.bottom, selectorPaint);
+    }
+
+    @Override
+    public boolean onTouchEvent(final @NonNull MotionEvent event) {
+        if (!isEnabled()) {
+            return false;
+        }
+        final float x = event.getX();
+        final float y = event.getY();
+        switch (event.getActionMasked()) {
+            case MotionEvent.ACTION_DOWN:
+                // The gesture stays on the area where it started
+                isDraggingHue = y > (saturationValueRect.bottom + hueRect.top) / 2;
+                if (getParent() != null) {
+                    getParent().requestDisallowInterceptTouchEvent(true);
+                }
+                pickColor(x, y);
+                return true;
+            case MotionEvent.ACTION_MOVE:
+                pickColor(x, y);
+                return true;
+            case MotionEvent.ACTION_UP:
+                pickColor(x, y);
+                performClick();
+                return true;
+            case MotionEvent.ACTION_CANCEL:
+                return true;
+            default:
+                return super.onTouchEvent(event);
+        }
+    }
+
+    @Override
+    public boolean performClick() {
+        return super.performClick();
+    }
+
+    private void pickColor(final float x, final float y) {
+        if (isDraggingHue) {
+            hsv[0] = fraction(x, hueRect.left, hueRect.width()) * 360f;
+            updateHue();
+        } else {
+            hsv[1] = fraction(x, saturationValueRect.left, saturationValueRect.width());
+            hsv[2] = 1f - fraction(y, saturationValueRect.top, saturationValueRect.height());
+        }
+        invalidate();
+        if (onColorChangedListener != null) {
+            onColorChangedListener.onColorChanged(getColor());
+        }
+    }
+
+    private void updateHue() {
+        pureHue[0] = hsv[0];
+        hueFillPaint.setColor(Color.HSVToColor(pureHue));
+    }
+
+    private static float fraction(final float position, final float start, final float length) {
+        if (length <= 0) {
+            return 0f;
+        }
+        return Math.max(0f, Math.min(1f, (position - start) / length));
+    }
+
+    /**
+     * White fading out to the right (saturation) and black fading in to the bottom (value).
+     * Drawn over the pure hue, it gives exactly the HSV color of each point.
+     */
+    @VisibleForTesting
+    static @NonNull Bitmap getSaturationValueBitmap() {
+        if (saturationValueBitmap == null) {
+            final int size = SATURATION_VALUE_BITMAP_SIZE;
+            final Bitmap bitmap = Bitmap.createBitmap(size, size, Bitmap.Config.ARGB_8888);
+            final Canvas canvas = new Canvas(bitmap);
+            final Paint paint = new Paint();
+            paint.setShader(new LinearGradient(0, 0, size, 0, Color.WHITE, TRANSPARENT_WHITE, Shader.TileMode.CLAMP));
+            canvas.drawPaint(paint);
+            paint.setShader(new LinearGradient(0, 0, 0, size, Color.TRANSPARENT, Color.BLACK, Shader.TileMode.CLAMP));
+            canvas.drawPaint(paint);
+            saturationValueBitmap = bitmap;
+        }
+        return saturationValueBitmap;
+    }
+
+    @VisibleForTesting
+    static @NonNull Bitmap getHueBitmap() {
+        if (hueBitmap == null) {
+            final int[] pixels = new int[HUE_BITMAP_WIDTH];
+            final float[] pixelHsv = {0f, 1f, 1f};
+            for (int i = 0; i < HUE_BITMAP_WIDTH; i++) {
+                pixelHsv[0] = i * 360f / HUE_BITMAP_WIDTH;
+                pixels[i] = Color.HSVToColor(pixelHsv);
+            }
+            hueBitmap = Bitmap.createBitmap(pixels, HUE_BITMAP_WIDTH, 1, Bitmap.Config.ARGB_8888);
+        }
+        return hueBitmap;
+    }
+}
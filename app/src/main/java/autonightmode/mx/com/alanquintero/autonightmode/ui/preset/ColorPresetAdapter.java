@@ -0,0 +1,209 @@
+/*****************************************************************
+ * Copyright (C) 2025 Alan Quintero <https://github.com/alanquintero/>
+ *****************************************************************/
+package autonightmode.mx.com.alanquintero.autonightmode.ui.preset;
+
+import android.content.Context;
+import android.graphics.Color;
+import android.graphics.drawable.GradientDrawable;
+import android.util.SparseIntArray;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.ImageView;
+import android.widget.TextView;
+
+import androidx.annotation.ColorInt;
+import androidx.annotation.NonNull;
+import androidx.annotation.VisibleForTesting;
+import androidx.core.content.ContextCompat;
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.ListAdapter;
+import androidx.recyclerview.widget.RecyclerView;
+
+import autonightmode.mx.com.alanquintero.autonightmode.R;
+import autonightmode.mx.com.alanquintero.autonightmode.model.ColorPreset;
+
+import java.util.List;
+
+/**
+ * Adapter for displaying the color presets in a {@link RecyclerView}.
+ * Each item shows an icon with the color of the preset and its name.
+ *
+ * <p>Lists are compared with {@link DiffUtil}, so adding or removing a preset only binds the items
+ * that changed. Selecting a preset only rebinds the background of the previous and the new
+ * selected items, found by id in constant time.</p>
+ *
+ * @author Alan Quintero
+ */
+public class ColorPresetAdapter extends ListAdapter<ColorPreset, ColorPresetAdapter.PresetViewHolder> {
+
+    /**
+     * Listener notified when a preset is tapped or long pressed.
+     */
+    public interface OnPresetClickListener {
+        void onPresetClick(final @NonNull ColorPreset preset);
+
+        void onPresetLongClick(final @NonNull ColorPreset preset);
+    }
+
+    private static final Object PAYLOAD_SELECTION = new Object();
+    private static final int ICON_STROKE_WIDTH = 3;
+
+    @VisibleForTesting
+    static final DiffUtil.ItemCallback<ColorPreset> DIFF_CALLBACK = new DiffUtil.ItemCallback<ColorPreset>() {
+        @Override
+        public boolean areItemsTheSame(final @NonNull ColorPreset oldItem, final @NonNull ColorPreset newItem) {
+            return oldItem.getId() == newItem.getId();
+        }
+
+        @Override
+        public boolean areContentsTheSame(final @NonNull ColorPreset oldItem, final @NonNull ColorPreset newItem) {
+            // The intensity and brightness of a preset are not displayed
+            return oldItem.getColor() == newItem.getColor() && oldItem.getName().equals(newItem.getName());
+        }
+    };
+
+    private final @NonNull LayoutInflater inflater;
+    private final @NonNull String[] builtInNames;
+    private final @NonNull OnPresetClickListener onPresetClickListener;
+    private final @ColorInt int selectedBackgroundColor;
+    private final @ColorInt int iconStrokeColor;
+    // Position of each preset in the current list, keyed by preset id
+    private final @NonNull SparseIntArray positions = new SparseIntArray();
+    private int selectedPresetId;
+    private @ColorInt int customColor;
+
+    public ColorPresetAdapter(final @NonNull Context context, final @NonNull String[] builtInNames, final int selectedPresetId,
+                              final @ColorInt int customColor, final @NonNull OnPresetClickListener onPresetClickListener) {
+        super(DIFF_CALLBACK);
+        this.inflater = LayoutInflater.from(context);
+        this.builtInNames = builtInNames;
+        this.selectedPresetId = selectedPresetId;
+        this.customColor = customColor;
+        this.onPresetClickListener = onPresetClickListener;
+        this.selectedBackgroundColor = ContextCompat.getColor(context, R.color.spinner_selected_item);
+        this.iconStrokeColor = ContextCompat.getColor(context, R.color.spinner_item_stroke);
+    }
+
+    /**
+     * Returns the position of the preset with the given id, or {@link RecyclerView#NO_POSITION}.
+     */
+    public int getPosition(final int presetId) {
+        return positions.get(presetId, RecyclerView.NO_POSITION);
+    }
+
+    public int getSelectedPresetId() {
+        return selectedPresetId;
+    }
+
+    /**
+     * Marks the given preset as selected. Only the previous and the new selected items are rebound.
+     */
+    public void setSelectedPresetId(final int presetId) {
+        if (selectedPresetId == presetId) {
+            return;
+        }
+        final int previousPresetId = selectedPresetId;
+        selectedPresetId = presetId;
+        notifyPresetChanged(previousPresetId, PAYLOAD_SELECTION);
+        notifyPresetChanged(presetId, PAYLOAD_SELECTION);
+    }
+
+    /**
+     * Updates the icon of the custom preset.
+     */
+    public void setCustomColor(final @ColorInt int customColor) {
+        if (this.customColor == customColor) {
+            return;
+        }
+        this.customColor = customColor;
+        notifyPresetChanged(ColorPreset.CUSTOM_PRESET_ID, null);
+    }
+
+    @Override
+    public void onCurrentListChanged(final @NonNull List<ColorPreset> previousList, final @NonNull List<ColorPreset> currentList) {
+        positions.clear();
+        for (int position = 0; position < currentList.size(); position++) {
+            positions.put(currentList.get(position).getId(), position);
+        }
+    }
+
+    @NonNull
+    @Override
+    public PresetViewHolder onCreateViewHolder(final @NonNull ViewGroup parent, final int viewType) {
+        final PresetViewHolder holder = new PresetViewHolder(inflater.inflate(R.layout.preset_item, parent, false), iconStrokeColor);
+        holder.itemView.setOnClickListener(v -> {
+            final int position = holder.getBindingAdapterPosition();
+            if (position != RecyclerView.NO_POSITION) {
+                onPresetClickListener.onPresetClick(getItem(position));
+            }
+        });
+        holder.itemView.setOnLongClickListener(v -> {
+            final int position = holder.getBindingAdapterPosition();
+            if (position == RecyclerView.NO_POSITION) {
+                return false;
+            }
+            onPresetClickListener.onPresetLongClick(getItem(position));
+            return true;
+        });
+        return holder;
+    }
+
+    @Override
+    public void onBindViewHolder(final @NonNull PresetViewHolder holder, final int position) {
+        final ColorPreset preset = getItem(position);
+        holder.icon.setColor(preset.isCustom() ? customColor : preset.getColor());
+        holder.name.setText(preset.getDisplayName(builtInNames));
+        bindSelection(holder, preset);
+    }
+
+    @Override
+    public void onBindViewHolder(final @NonNull PresetViewHolder holder, final int position, final @NonNull List<Object> payloads) {
+        if (isSelectionOnly(payloads)) {
+            bindSelection(holder, getItem(position));
+        } else {
+            onBindViewHolder(holder, position);
+        }
+    }
+
+    private static boolean isSelectionOnly(final @NonNull List<Object> payloads) {
+        if (payloads.isEmpty()) {
+            return false;
+        }
+        for (final Object payload : payloads) {
+            if (payload != PAYLOAD_SELECTION) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void bindSelection(final @NonNull PresetViewHolder holder, final @NonNull ColorPreset preset) {
+        holder.itemView.setBackgroundColor(preset.getId() == selectedPresetId ? selectedBackgroundColor : Color.TRANSPARENT);
+    }
+
+    private void notifyPresetChanged(final int presetId, final Object payload) {
+        final int position = getPosition(presetId);
+        if (position != RecyclerView.NO_POSITION) {
+            notifyItemChanged(position, payload);
+        }
+    }
+
+    /**
+     * Holds the views of a preset item. The icon drawable is created once per holder.
+     */
+    static class PresetViewHolder extends RecyclerView.ViewHolder {
+        private final @NonNull GradientDrawable icon = new GradientDrawable();
+        private final @NonNull TextView name;
+
+        PresetViewHolder(final @NonNull View itemView, final @ColorInt int iconStrokeColor) {
+            super(itemView);
+            icon.setShape(GradientDrawable.OVAL);
+            icon.setStroke(ICON_STROKE_WIDTH, iconStrokeColor);
+            final ImageView iconView = itemView.findViewById(R.id.icon);
+            iconView.setImageDrawable(icon);
+            name = itemView.findViewById(R.id.name);
+        }
+    }
+}
@@ -0,0 +1,93 @@
+/*****************************************************************
+ * Copyright (C) 2025 Alan Quintero <https://github.com/alanquintero/>
+ *****************************************************************/
+package autonightmode.mx.com.alanquintero.autonightmode.util;
+
+import androidx.annotation.ColorInt;
+import androidx.annotation.VisibleForTesting;
+
+/**
+ * ColorTemperature maps a color temperature, in Kelvin, to the sRGB color of a blackbody at that
+ * temperature.
+ *
+ * <p>The colors from {@link #MIN_KELVIN} to {@link #MAX_KELVIN} are computed once, when the class
+ * is loaded, in steps of {@link #STEP_KELVIN}. A lookup is an array read, so drawing a temperature
+ * costs the same as drawing a preset color. The step is also the step of the temperature slider:
+ * its progress is the index in the table.</p>
+ *
+ * <p>The colors use the approximation of the blackbody curve by Tanner Helland, which is close
+ * enough to the CIE values for a screen filter and only needs a logarithm and a power per
+ * channel.</p>
+ *
+ * @author Alan Quintero
+ */
+public final class ColorTemperature {
+
+    public static final int MIN_KELVIN = 1000;
+    public static final int MAX_KELVIN = 6500;
+    public static final int STEP_KELVIN = 100;
+    // Highest progress of the temperature slider
+    public static final int MAX_PROGRESS = (MAX_KELVIN - MIN_KELVIN) / STEP_KELVIN;
+
+    private static final int[] COLORS = new int[MAX_PROGRESS + 1];
+
+    static {
+        for (int i = 0; i <= MAX_PROGRESS; i++) {
+            COLORS[i] = computeColor(fromProgress(i));
+        }
+    }
+
+    private ColorTemperature() {
+    }
+
+    /**
+     * Returns the opaque color of the given temperature. The temperature is clamped to the
+     * supported range and rounded to the nearest step.
+     */
+    public static @ColorInt int toColor(final int kelvin) {
+        return COLORS[toProgress(kelvin)];
+    }
+
+    /**
+     * Returns the slider progress, the index in the table, of the given temperature.
+     */
+    public static int toProgress(final int kelvin) {
+        final int clampedKelvin = Math.max(MIN_KELVIN, Math.min(MAX_KELVIN, kelvin));
+        return (clampedKelvin - MIN_KELVIN + STEP_KELVIN / 2) / STEP_KELVIN;
+    }
+
+    /**
+     * Returns the temperature of the given slider progress.
+     */
+    public static int fromProgress(final int progress) {
+        return MIN_KELVIN + Math.max(0, Math.min(MAX_PROGRESS, progress)) * STEP_KELVIN;
+    }
+
+    @VisibleForTesting
+    static @ColorInt int computeColor(final int kelvin) {
+        final double temperature = kelvin / 100.0;
+        final double red;
+        final double green;
+        final double blue;
+        if (temperature <= 66) {
+            red = 255;
+            green = 99.4708025861 * Math.log(temperature) - 161.1195681661;
+        } else {
+            red = 329.698727446 * Math.pow(temperature - 60, -0.1332047592);
+            green = 288.1221695283 * Math.pow(temperature - 60, -0.0755148492);
+        }
+        if (temperature >= 66) {
+            blue = 255;
+        } else if (temperature <= 19) {
+            blue = 0;
+        } else {
+            blue = 138.5177312231 * Math.log(temperature - 10) - 305.0447927307;
+        }
+        // Same packing as Color.rgb, without going through the framework
+        return 0xFF000000 | (clamp(red) << 16) | (clamp(green) << 8) | clamp(blue);
+    }
+
+    private static int clamp(final double channel) {
+        return (int) Math.max(0, Math.min(255, Math.round(channel)));
+    }
+}
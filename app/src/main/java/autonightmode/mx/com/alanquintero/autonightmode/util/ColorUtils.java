@@ -30,6 +30,16 @@ public class ColorUtils {
         return String.format("#%08X", color);
     }
 
+    /**
+     * Returns the Hex color, without alpha, for the given ColorInt
+     *
+     * @param color the ColorInt
+     * @return the Hex color in #RRGGBB format
+     */
+    public static @NonNull String getRgbHexColor(final @ColorInt int color) {
+        return String.format("#%06X", 0xFFFFFF & color);
+    }
+
     /**
      * Converts any color into a color compatible with MaterialButton background.
      * MaterialButton may ignore very transparent colors, so this ensures proper alpha blending.
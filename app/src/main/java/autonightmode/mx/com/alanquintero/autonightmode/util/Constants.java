@@ -3,8 +3,6 @@
  *****************************************************************/
 package autonightmode.mx.com.alanquintero.autonightmode.util;
 
-import android.graphics.Color;
-
 /**
  * A utility class that holds constant values used across the application.
  * <p>
@@ -28,22 +26,8 @@ public class Constants {
     public static final String WHITE = "WHITE";
     public static final String COLOR_WHITE = "#FFFFFF";
     public static final String CUSTOM_COLOR = "CUSTOM_COLOR";
-
-
-    // ---------- Colors ----------
-    public final static String[] COLOR_DROPDOWN_OPTIONS = new String[]{YELLOW, PINK, GREEN, GRAY, WHITE, CUSTOM_COLOR};
-    // Color hex corresponding to each dropdown item
-    public static final String[] COLOR_HEX_ARRAY = {COLOR_YELLOW, COLOR_PINK, COLOR_GREEN, COLOR_GRAY, COLOR_WHITE, CUSTOM_COLOR};
-    // Background color to each dropdown item for better visual distinction
-    public static final int[] BACKGROUND_COLOR_FOR_DROPDOWN_ITEMS = {
-            Color.parseColor(COLOR_YELLOW),  // YELLOW
-            Color.parseColor(COLOR_PINK),  // PINK
-            Color.parseColor(COLOR_GREEN),  // GREEN
-            Color.parseColor(COLOR_GRAY),  // GRAY
-            Color.parseColor(COLOR_WHITE),  // WHITE
-            Color.WHITE             // CUSTOM
-    };
-    public final static int CUSTOM_COLOR_DROPDOWN_POSITION = BACKGROUND_COLOR_FOR_DROPDOWN_ITEMS.length - 1;
+    // The color of a blackbody at the selected temperature
+    public static final String TEMPERATURE = "TEMPERATURE";
 
 
     // ---------- Android Settings ----------
@@ -51,13 +35,49 @@ public class Constants {
 
     // ---------- Shared Preference ----------
     public static final String SETTINGS = "SETTINGS";
+    // Written by the overlay service only, the brightness of the user while the backlight is controlled
+    public static final String BACKLIGHT_STATE = "BACKLIGHT_STATE";
     public static final String PREF_IS_READ_MODE_ON = "IS_READ_MODE_ON";
+    // Id of the selected color preset, the built-in ids are the positions of the former color dropdown
     public static final String PREF_COLOR_DROPDOWN = "COLOR_DROPDOWN";
     public static final String PREF_COLOR = "COLOR";
     public static final String PREF_CUSTOM_COLOR = "CUSTOM_COLOR";
+    // Color temperature in Kelvin, used when the screen color is TEMPERATURE
+    public static final String PREF_COLOR_TEMPERATURE = "COLOR_TEMPERATURE";
+    // Color settings map saved by older versions, only read to migrate it to the presets
     public static final String PREF_COLOR_SETTINGS = "COLOR_SETTINGS";
+    public static final String PREF_PRESET_PREFIX = "PRESET_";
+    // Id of the next user preset, it only grows so the id of a removed preset is never given again
+    public static final String PREF_NEXT_PRESET_ID = "NEXT_PRESET_ID";
     public static final String PREF_COLOR_INTENSITY = "COLOR_INTENSITY";
     public static final String PREF_BRIGHTNESS = "BRIGHTNESS";
+    public static final String PREF_STANDBY_TIMEOUT = "STANDBY_TIMEOUT";
+    public static final String PREF_DETACH_OVERLAY_IN_DOZE = "DETACH_OVERLAY_IN_DOZE";
+    // Schedule: the mode (OFF, TIMES or SUN), the ON and OFF times in minutes of the day, the ramp in minutes
+    // and the location used to compute sunset and sunrise ("latitude,longitude")
+    public static final String PREF_SCHEDULE = "SCHEDULE";
+    public static final String PREF_SCHEDULE_START = "SCHEDULE_START";
+    public static final String PREF_SCHEDULE_END = "SCHEDULE_END";
+    public static final String PREF_SCHEDULE_RAMP = "SCHEDULE_RAMP";
+    public static final String PREF_SCHEDULE_LOCATION = "SCHEDULE_LOCATION";
+    // Time of the last transition applied by the schedule, a missed transition is applied on the next update
+    public static final String PREF_SCHEDULE_LAST_TRANSITION = "SCHEDULE_LAST_TRANSITION";
+    // Schedule alarms delivered on the day of PREF_SCHEDULE_WAKEUP_DAY (yyyyMMdd)
+    public static final String PREF_SCHEDULE_WAKEUP_DAY = "SCHEDULE_WAKEUP_DAY";
+    public static final String PREF_SCHEDULE_WAKEUP_COUNT = "SCHEDULE_WAKEUP_COUNT";
+    // Adapts the overlay to the ambient light sensor
+    public static final String PREF_AMBIENT_LIGHT = "AMBIENT_LIGHT";
+    // Per-app profiles, see AppProfiles for the format
+    public static final String PREF_APP_PROFILES = "APP_PROFILES";
+    // Part of the screen covered by the overlay: the mode (FULL, BAND or MASK), the top and the height of
+    // the reading band in percent of the display height
+    public static final String PREF_REGION = "REGION";
+    public static final String PREF_REGION_TOP = "REGION_TOP";
+    public static final String PREF_REGION_HEIGHT = "REGION_HEIGHT";
+    // Time taken by the overlay to fade in and out, in ms
+    public static final String PREF_TRANSITION_DURATION = "TRANSITION_DURATION";
+    // Moves the dimming into the system brightness when the app can write the system settings
+    public static final String PREF_HYBRID_DIMMING = "HYBRID_DIMMING";
 
     // ---------- App Theme ----------
     public enum ThemeMode {
@@ -111,5 +131,20 @@ public class Constants {
     public static final boolean DEFAULT_AUTO_START_READ_MODE = false;
     public static final boolean DEFAULT_SAME_INTENSITY_BRIGHTNESS_FOR_ALL = false;
     public static final String DEFAULT_CUSTOM_COLOR = "#7F7F7F"; // medium gray
+    public static final int DEFAULT_COLOR_TEMPERATURE = 3400; // halogen lamp
     public static final String DEFAULT_COLOR_SETTINGS = "{}";
+    public static final int DEFAULT_STANDBY_TIMEOUT_MS = 5 * 60 * 1000; // 5 minutes
+    public static final boolean DEFAULT_DETACH_OVERLAY_IN_DOZE = false;
+    public static final String DEFAULT_SCHEDULE = "OFF";
+    public static final int DEFAULT_SCHEDULE_START = 21 * 60; // 21:00
+    public static final int DEFAULT_SCHEDULE_END = 7 * 60; // 07:00
+    public static final int DEFAULT_SCHEDULE_RAMP = 10; // minutes
+    public static final String DEFAULT_SCHEDULE_LOCATION = "";
+    public static final boolean DEFAULT_AMBIENT_LIGHT = false;
+    public static final String DEFAULT_APP_PROFILES = "";
+    public static final String DEFAULT_REGION = "FULL";
+    public static final int DEFAULT_REGION_TOP = 40;
+    public static final int DEFAULT_REGION_HEIGHT = 20;
+    public static final int DEFAULT_TRANSITION_DURATION = 300;
+    public static final boolean DEFAULT_HYBRID_DIMMING = false;
 }
@@ -0,0 +1,98 @@
+/*****************************************************************
+ * Copyright (C) 2025 Alan Quintero <https://github.com/alanquintero/>
+ *****************************************************************/
+package autonightmode.mx.com.alanquintero.autonightmode.util;
+
+import androidx.annotation.NonNull;
+
+import java.io.PrintWriter;
+import java.util.Arrays;
+
+/**
+ * Histogram of frame durations with fixed buckets, used by {@link JankMonitor}.
+ *
+ * <p>Recording a frame is a search in a small table and an increment, nothing is allocated, so it
+ * can be done for every frame. The percentiles are the upper bound of the bucket they fall in: they
+ * are precise to a bucket, which is enough to compare two builds.</p>
+ *
+ * @author Alan Quintero
+ */
+final class FrameHistogram {
+
+    private static final long NANOS_PER_MS = 1_000_000L;
+
+    // Upper bounds of the buckets in ms, a last bucket holds the longer frames
+    private static final int[] BUCKET_BOUNDS_MS = {2, 4, 6, 8, 10, 12, 14, 16, 20, 24, 28, 32, 40, 50, 66, 100,
+            150, 250, 500, 1000};
+
+    private final @NonNull long[] counts = new long[BUCKET_BOUNDS_MS.length + 1];
+    private long frameCount = 0;
+    private long jankyFrameCount = 0;
+
+    /**
+     * Records a frame, janky when it missed its deadline.
+     */
+    void record(final long durationNanos, final boolean isJanky) {
+        counts[getBucket(durationNanos)]++;
+        frameCount++;
+        if (isJanky) {
+            jankyFrameCount++;
+        }
+    }
+
+    long getFrameCount() {
+        return frameCount;
+    }
+
+    long getJankyFrameCount() {
+        return jankyFrameCount;
+    }
+
+    /**
+     * Returns the duration, in ms, under which the given percent of the frames were drawn, or -1
+     * without frames. Frames longer than the last bucket are reported at its bound.
+     */
+    int getPercentile(final int percent) {
+        if (frameCount == 0) {
+            return -1;
+        }
+        final long rank = Math.max(1, (long) Math.ceil(frameCount * percent / 100d));
+        long cumulated = 0;
+        for (int i = 0; i < BUCKET_BOUNDS_MS.length; i++) {
+            cumulated += counts[i];
+            if (cumulated >= rank) {
+                return BUCKET_BOUNDS_MS[i];
+            }
+        }
+        return BUCKET_BOUNDS_MS[BUCKET_BOUNDS_MS.length - 1];
+    }
+
+    void reset() {
+        Arrays.fill(counts, 0);
+        frameCount = 0;
+        jankyFrameCount = 0;
+    }
+
+    /**
+     * Prints the frame count, the janky frames and the main percentiles on one line.
+     */
+    void dump(final @NonNull String name, final @NonNull PrintWriter writer) {
+        writer.print(name);
+        writer.print(": frames=" + frameCount + " janky=" + jankyFrameCount);
+        if (frameCount > 0) {
+            writer.print(" (" + Math.round(jankyFrameCount * 100d / frameCount) + "%)");
+            writer.print(" p50=" + getPercentile(50) + "ms p90=" + getPercentile(90) + "ms p95=" + getPercentile(95)
+                    + "ms p99=" + getPercentile(99) + "ms");
+        }
+        writer.println();
+    }
+
+    private static int getBucket(final long durationNanos) {
+        for (int i = 0; i < BUCKET_BOUNDS_MS.length; i++) {
+            if (durationNanos <= BUCKET_BOUNDS_MS[i] * NANOS_PER_MS) {
+                return i;
+            }
+        }
+        return BUCKET_BOUNDS_MS.length;
+    }
+}
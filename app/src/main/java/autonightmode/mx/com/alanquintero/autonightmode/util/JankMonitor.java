@@ -0,0 +1,241 @@
+/*****************************************************************
+ * Copyright (C) 2025 Alan Quintero <https://github.com/alanquintero/>
+ *****************************************************************/
+package autonightmode.mx.com.alanquintero.autonightmode.util;
+
+import android.os.Build;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Process;
+import android.util.Log;
+import android.view.Display;
+import android.view.FrameMetrics;
+import android.view.Window;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.RequiresApi;
+import androidx.annotation.VisibleForTesting;
+
+import java.io.PrintWriter;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * JankMonitor records the duration of every frame of the settings UI, from the FrameMetrics of the
+ * window of the activity (Android 7+), in a {@link FrameHistogram} per interaction.
+ *
+ * <p>The controllers tell which interaction is running with {@link #begin(Interaction)} and
+ * {@link #end(Interaction)}, e.g. while a seek bar is dragged, so the cost of the work done per tick
+ * is measured apart from the idle frames. The frame metrics are delivered on a background thread
+ * after the frame, so a frame is tagged from its vsync time (Android 8+): the interaction running at
+ * that time, even if it ended since. Before Android 8 it is tagged when it is delivered.</p>
+ *
+ * <p>The histograms are printed by the activity dump, e.g.
+ * {@code adb shell dumpsys activity autonightmode.mx.com.alanquintero.autonightmode/.ui.MainActivity}.
+ * A frame is janky when it took longer than its deadline, the refresh interval of the display
+ * before Android 12.</p>
+ *
+ * <p>The activity only attaches it in the builds with {@link autonightmode.mx.com.alanquintero.autonightmode.BuildConfig#TRACING}, like the markers of
+ * {@link PerfTrace}. In the other builds the interactions are tagged but no frame is recorded.</p>
+ *
+ * @author Alan Quintero
+ */
+public final class JankMonitor {
+
+    private static final String TAG = JankMonitor.class.getSimpleName();
+
+    /**
+     * Interaction running while a frame is drawn.
+     */
+    public enum Interaction {
+        NONE,
+        SLIDER_DRAG,
+        PRESET_LIST_SCROLL,
+        DIALOG_OPEN,
+        THEME_SWITCH
+    }
+
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+    private static final float DEFAULT_REFRESH_RATE = 60f;
+
+    private static final Map<Interaction, FrameHistogram> histograms = new EnumMap<>(Interaction.class);
+
+    static {
+        for (final Interaction interaction : Interaction.values()) {
+            histograms.put(interaction, new FrameHistogram());
+        }
+    }
+
+    // Running interaction and the last ended one, with their System.nanoTime() bounds, guarded by histograms
+    private static @NonNull Interaction interaction = Interaction.NONE;
+    private static long interactionStart = 0;
+    private static @NonNull Interaction endedInteraction = Interaction.NONE;
+    private static long endedInteractionStart = 0;
+    private static long endedInteractionEnd = 0;
+    private static volatile long frameIntervalNanos = Math.round(NANOS_PER_SECOND / DEFAULT_REFRESH_RATE);
+    // Created on the first attach, the frame metrics are recorded on it
+    private static @Nullable Handler metricsHandler;
+    private static @Nullable Window.OnFrameMetricsAvailableListener frameMetricsListener;
+
+    private JankMonitor() {
+    }
+
+    /**
+     * Starts recording the frames of the given window. Does nothing before Android 7.
+     */
+    public static void attach(final @NonNull Window window) {
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.N) {
+            return;
+        }
+        final Display display = window.getWindowManager().getDefaultDisplay();
+        final float refreshRate = display != null && display.getRefreshRate() > 0 ? display.getRefreshRate() : DEFAULT_REFRESH_RATE;
+        frameIntervalNanos = Math.round(NANOS_PER_SECOND / refreshRate);
+        window.addOnFrameMetricsAvailableListener(getFrameMetricsListener(), getMetricsHandler());
+    }
+
+    /**
+     * Stops recording the frames of the given window, the histograms are kept.
+     */
+    public static void detach(final @NonNull Window window) {
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.N || frameMetricsListener == null) {
+            return;
+        }
+        try {
+            window.removeOnFrameMetricsAvailableListener(frameMetricsListener);
+        } catch (IllegalArgumentException e) {
+            // Not attached to this window
+            Log.w(TAG, "Frame metrics listener not attached", e);
+        }
+    }
+
+    /**
+     * Tags the next frames with the given interaction, until it ends or another one begins.
+     */
+    public static void begin(final @NonNull Interaction newInteraction) {
+        synchronized (histograms) {
+            if (interaction == newInteraction) {
+                return;
+            }
+            endRunningInteraction();
+            interaction = newInteraction;
+            interactionStart = System.nanoTime();
+        }
+    }
+
+    /**
+     * Ends the given interaction, if it is still the running one.
+     */
+    public static void end(final @NonNull Interaction ended) {
+        synchronized (histograms) {
+            if (interaction == ended) {
+                endRunningInteraction();
+                interaction = Interaction.NONE;
+                interactionStart = System.nanoTime();
+            }
+        }
+    }
+
+    public static @NonNull Interaction getInteraction() {
+        synchronized (histograms) {
+            return interaction;
+        }
+    }
+
+    private static void endRunningInteraction() {
+        endedInteraction = interaction;
+        endedInteractionStart = interactionStart;
+        endedInteractionEnd = System.nanoTime();
+    }
+
+    /**
+     * Records a frame started at the given System.nanoTime(), in the histogram of the interaction
+     * running at that time.
+     */
+    @VisibleForTesting
+    static void onFrame(final long frameStartNanos, final long durationNanos, final long deadlineNanos) {
+        synchronized (histograms) {
+            final Interaction frameInteraction;
+            if (frameStartNanos >= interactionStart) {
+                frameInteraction = interaction;
+            } else if (frameStartNanos >= endedInteractionStart && frameStartNanos < endedInteractionEnd) {
+                frameInteraction = endedInteraction;
+            } else {
+                frameInteraction = Interaction.NONE;
+            }
+            histograms.get(frameInteraction).record(durationNanos, durationNanos > deadlineNanos);
+        }
+    }
+
+    /**
+     * Returns the duration, in ms, under which the given percent of the frames of the interaction were
+     * drawn, or -1 without frames.
+     */
+    public static int getPercentile(final @NonNull Interaction interaction, final int percent) {
+        synchronized (histograms) {
+            return histograms.get(interaction).getPercentile(percent);
+        }
+    }
+
+    public static long getFrameCount(final @NonNull Interaction interaction) {
+        synchronized (histograms) {
+            return histograms.get(interaction).getFrameCount();
+        }
+    }
+
+    /**
+     * Prints one line per interaction with frames, used by the activity dump.
+     */
+    public static void dump(final @NonNull String prefix, final @NonNull PrintWriter writer) {
+        writer.print(prefix);
+        writer.println("JankMonitor (frame interval " + frameIntervalNanos / 1000 + " us):");
+        synchronized (histograms) {
+            for (final Map.Entry<Interaction, FrameHistogram> entry : histograms.entrySet()) {
+                if (entry.getValue().getFrameCount() > 0) {
+                    writer.print(prefix + "  ");
+                    entry.getValue().dump(entry.getKey().name(), writer);
+                }
+            }
+        }
+    }
+
+    /**
+     * IMPORTANT: use it for testing ONLY
+     */
+    @VisibleForTesting
+    static void cleanUp() {
+        synchronized (histograms) {
+            interaction = Interaction.NONE;
+            interactionStart = 0;
+            endedInteraction = Interaction.NONE;
+            endedInteractionStart = 0;
+            endedInteractionEnd = 0;
+            for (final FrameHistogram histogram : histograms.values()) {
+                histogram.reset();
+            }
+        }
+    }
+
+    private static @NonNull Handler getMetricsHandler() {
+        if (metricsHandler == null) {
+            final HandlerThread thread = new HandlerThread(TAG, Process.THREAD_PRIORITY_BACKGROUND);
+            thread.start();
+            metricsHandler = new Handler(thread.getLooper());
+        }
+        return metricsHandler;
+    }
+
+    @RequiresApi(Build.VERSION_CODES.N)
+    private static @NonNull Window.OnFrameMetricsAvailableListener getFrameMetricsListener() {
+        if (frameMetricsListener == null) {
+            frameMetricsListener = (window, frameMetrics, dropCountSinceLastInvocation) -> {
+                final long deadline = Build.VERSION.SDK_INT >= Build.VERSION_CODES.S
+                        ? frameMetrics.getMetric(FrameMetrics.DEADLINE) : frameIntervalNanos;
+                final long frameStart = Build.VERSION.SDK_INT >= Build.VERSION_CODES.O
+                        ? frameMetrics.getMetric(FrameMetrics.INTENDED_VSYNC_TIMESTAMP) : System.nanoTime();
+                onFrame(frameStart, frameMetrics.getMetric(FrameMetrics.TOTAL_DURATION), deadline);
+            };
+        }
+        return frameMetricsListener;
+    }
+}
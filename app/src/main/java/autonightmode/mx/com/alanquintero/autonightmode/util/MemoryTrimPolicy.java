@@ -0,0 +1,44 @@
+/*****************************************************************
+ * Copyright (C) 2025 Alan Quintero <https://github.com/alanquintero/>
+ *****************************************************************/
+package autonightmode.mx.com.alanquintero.autonightmode.util;
+
+import android.content.ComponentCallbacks2;
+
+/**
+ * MemoryTrimPolicy decides what is released for each {@code onTrimMemory} level, so the overlay
+ * process stays small and is less likely to be killed while Read Mode is ON.
+ *
+ * <p>Resources are released in two steps:
+ * <ul>
+ *     <li>UI: views, controllers, observers and dialogs of {@code MainActivity}, as soon as the UI
+ *     is hidden. They are rebuilt when the activity is shown again.</li>
+ *     <li>Settings caches: the color presets, the cached notification and the
+ *     color picker gradients, when the process is in the background list or the device runs low
+ *     on memory. They are rebuilt on demand.</li>
+ * </ul>
+ * The overlay service only keeps its current {@code OverlaySnapshot}, it is never released.</p>
+ *
+ * @author Alan Quintero
+ */
+public final class MemoryTrimPolicy {
+
+    private MemoryTrimPolicy() {
+    }
+
+    /**
+     * Returns true if the UI only resources should be released.
+     */
+    public static boolean shouldReleaseUi(final int level) {
+        return level >= ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN;
+    }
+
+    /**
+     * Returns true if the settings caches should be released.
+     */
+    public static boolean shouldReleaseSettingsCaches(final int level) {
+        return level >= ComponentCallbacks2.TRIM_MEMORY_BACKGROUND
+                || level == ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW
+                || level == ComponentCallbacks2.TRIM_MEMORY_RUNNING_CRITICAL;
+    }
+}
@@ -0,0 +1,55 @@
+/*****************************************************************
+ * Copyright (C) 2025 Alan Quintero <https://github.com/alanquintero/>
+ *****************************************************************/
+package autonightmode.mx.com.alanquintero.autonightmode.util;
+
+import androidx.annotation.NonNull;
+import androidx.tracing.Trace;
+
+import autonightmode.mx.com.alanquintero.autonightmode.BuildConfig;
+
+/**
+ * PerfTrace adds sections and counters to the system trace (Perfetto, {@code adb shell perfetto} or
+ * the Android Studio profiler), so the path from a tap in the UI to the overlay drawing the new tint
+ * can be followed across the two processes.
+ *
+ * <p>The markers are only compiled in debug builds and in release builds made profileable with
+ * {@code ./gradlew assembleRelease -Pprofileable}: {@link BuildConfig#TRACING} is a constant, the
+ * bodies below are removed by the compiler in the other builds and the empty calls by R8.</p>
+ *
+ * <p>A section must be ended on the thread that began it, in a {@code finally} block.</p>
+ *
+ * @author Alan Quintero
+ */
+public final class PerfTrace {
+
+    private PerfTrace() {
+    }
+
+    /**
+     * Begins a section on the current thread.
+     */
+    public static void begin(final @NonNull String section) {
+        if (BuildConfig.TRACING) {
+            Trace.beginSection(section);
+        }
+    }
+
+    /**
+     * Ends the last section begun on the current thread.
+     */
+    public static void end() {
+        if (BuildConfig.TRACING) {
+            Trace.endSection();
+        }
+    }
+
+    /**
+     * Sets the value of a counter track.
+     */
+    public static void setCounter(final @NonNull String counter, final int value) {
+        if (BuildConfig.TRACING) {
+            Trace.setCounter(counter, value);
+        }
+    }
+}
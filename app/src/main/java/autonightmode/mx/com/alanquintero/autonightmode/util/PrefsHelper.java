@@ -5,25 +5,30 @@ package autonightmode.mx.com.alanquintero.autonightmode.util;
 
 import android.content.Context;
 import android.content.SharedPreferences;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
 import android.util.Log;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 import androidx.annotation.VisibleForTesting;
+import androidx.core.os.UserManagerCompat;
 
-import autonightmode.mx.com.alanquintero.autonightmode.model.ColorSettings;
+import autonightmode.mx.com.alanquintero.autonightmode.model.ColorPreset;
 import autonightmode.mx.com.alanquintero.autonightmode.model.ReadModeSettings;
 
-import com.google.gson.Gson;
-import com.google.gson.reflect.TypeToken;
-
-import java.lang.reflect.Type;
 import java.util.HashMap;
 import java.util.Map;
 
 /**
  * PrefsHelper is a utility class that simplifies access to the app's SharedPreferences.
  *
+ * <p>Besides the regular {@code saveProperty} methods it offers a fast path for values that change
+ * in quick bursts (e.g. notification controls): {@code stageProperty} keeps the value in memory,
+ * where the getters see it right away, and writes all staged values in a single
+ * {@link SharedPreferences.Editor#apply()} after {@link #PERSIST_DELAY_MS} ms.</p>
+ *
  * @author Alan Quintero
  */
 public class PrefsHelper {
@@ -33,10 +38,20 @@ public class PrefsHelper {
     private static PrefsHelper instance = null;
 
     private final @NonNull SharedPreferences sharedPreferences;
-    private final @NonNull Gson gson;
+    // The color presets, created on first use
+    private @Nullable PresetStore presetStore;
+
+    @VisibleForTesting
+    static final long PERSIST_DELAY_MS = 500;
 
-    private Map<String, ColorSettings> prefColorSettingsMap = new HashMap<>();
+    // Trace counter of the staged values, see PerfTrace
+    private static final String PENDING_PROPERTIES_COUNTER = "PrefsHelper.pendingProperties";
 
+    // Values staged through the fast path, waiting to be persisted
+    private final @NonNull Map<String, Object> pendingProperties = new HashMap<>();
+    private final @NonNull Runnable flushPendingPropertiesRunnable = this::flushPendingProperties;
+    @VisibleForTesting
+    Handler persistHandler;
 
     public static PrefsHelper init(final @NonNull Context context) {
         if (instance == null) {
@@ -46,58 +61,176 @@ public class PrefsHelper {
     }
 
     private PrefsHelper(final @NonNull Context context) {
-        sharedPreferences = context.getSharedPreferences(Constants.SETTINGS, Context.MODE_PRIVATE);
-        gson = new Gson();
+        Context storageContext = context;
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.N) {
+            storageContext = context.createDeviceProtectedStorageContext();
+            moveToDeviceProtectedStorage(context);
+        }
+        sharedPreferences = storageContext.getSharedPreferences(Constants.SETTINGS, Context.MODE_PRIVATE);
+    }
+
+    /**
+     * Moves the preferences saved by older versions from credential protected storage to device
+     * protected storage. Does nothing before the user unlocks the device, so it is called again
+     * once the boot is completed.
+     */
+    public static void moveToDeviceProtectedStorage(final @NonNull Context context) {
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.N || !UserManagerCompat.isUserUnlocked(context)) {
+            return;
+        }
+        final Context storageContext = context.createDeviceProtectedStorageContext();
+        if (!storageContext.moveSharedPreferencesFrom(context, Constants.SETTINGS)) {
+            Log.w(TAG, "Failed to move preferences to device protected storage");
+        }
     }
 
     /**
      * IMPORTANT: use it for testing ONLY
      */
     @VisibleForTesting
-    static void cleanUp() {
+    public static void cleanUp() {
         instance = null;
     }
 
     /**
-     * Loads color settings map.
+     * Returns the color presets, they are read on first use.
+     */
+    public @NonNull PresetStore getPresetStore() {
+        if (presetStore == null) {
+            presetStore = new PresetStore(sharedPreferences);
+        }
+        return presetStore;
+    }
+
+    /**
+     * Loads the saved preferences into the given Read Mode settings.
+     * Only plain preference reads are done here, the color presets are not read.
      */
-    public void initPrefColorSettingsMap() {
-        final String json = sharedPreferences.getString(Constants.PREF_COLOR_SETTINGS, Constants.DEFAULT_COLOR_SETTINGS);
-        final Type type = new TypeToken<Map<String, ColorSettings>>() {
-        }.getType();
-        prefColorSettingsMap = gson.fromJson(json, type);
-        if (prefColorSettingsMap.isEmpty()) {
-            Log.d(TAG, "prefColorSettingsMap is empty, initializing map...");
-            // There is no pref saved, create the map with default settings
-            prefColorSettingsMap.put(Constants.YELLOW, new ColorSettings(Constants.YELLOW, Constants.COLOR_YELLOW, Constants.DEFAULT_COLOR_INTENSITY, Constants.DEFAULT_BRIGHTNESS));
-            prefColorSettingsMap.put(Constants.PINK, new ColorSettings(Constants.PINK, Constants.COLOR_PINK, Constants.DEFAULT_COLOR_INTENSITY, Constants.DEFAULT_BRIGHTNESS));
-            prefColorSettingsMap.put(Constants.GREEN, new ColorSettings(Constants.GREEN, Constants.COLOR_GREEN, Constants.DEFAULT_COLOR_INTENSITY, Constants.DEFAULT_BRIGHTNESS));
-            prefColorSettingsMap.put(Constants.GRAY, new ColorSettings(Constants.GRAY, Constants.COLOR_GRAY, Constants.DEFAULT_COLOR_INTENSITY, Constants.DEFAULT_BRIGHTNESS));
-            prefColorSettingsMap.put(Constants.WHITE, new ColorSettings(Constants.WHITE, Constants.COLOR_WHITE, Constants.DEFAULT_COLOR_INTENSITY, Constants.DEFAULT_BRIGHTNESS));
-            prefColorSettingsMap.put(Constants.CUSTOM_COLOR, new ColorSettings(Constants.CUSTOM_COLOR, Constants.CUSTOM_COLOR, Constants.DEFAULT_COLOR_INTENSITY, Constants.DEFAULT_BRIGHTNESS));
-        } else {
-            Log.d(TAG, "prefColorSettingsMap loaded from shared preferences!");
+    public void loadReadModeSettings(final @NonNull ReadModeSettings readModeSettings) {
+        PerfTrace.begin("PrefsHelper.load");
+        try {
+            readModeSettings.setIsReadModeOn(isReadModeOn());
+            readModeSettings.setColorDropdownPosition(getColorDropdownPosition());
+            readModeSettings.setCustomColor(getCustomColor());
+            readModeSettings.setColorTemperature(getColorTemperature());
+            readModeSettings.setColorIntensity(getColorIntensity());
+            readModeSettings.setBrightness(getBrightness());
+            readModeSettings.setAutoStartReadMode(getAutoStartReadMode());
+            readModeSettings.setShouldUseSameIntensityBrightnessForAll(shouldUseSameIntensityBrightnessForAll());
+        } finally {
+            PerfTrace.end();
         }
     }
 
     public boolean isReadModeOn() {
-        return sharedPreferences.getBoolean(Constants.PREF_IS_READ_MODE_ON, Constants.DEFAULT_IS_READ_MODE_ENABLED);
+        return getBoolean(Constants.PREF_IS_READ_MODE_ON, Constants.DEFAULT_IS_READ_MODE_ENABLED);
     }
 
     public int getColorDropdownPosition() {
-        return sharedPreferences.getInt(Constants.PREF_COLOR_DROPDOWN, Constants.DEFAULT_COLOR_DROPDOWN_POSITION);
+        return getInt(Constants.PREF_COLOR_DROPDOWN, Constants.DEFAULT_COLOR_DROPDOWN_POSITION);
     }
 
     public String getCustomColor() {
-        return sharedPreferences.getString(Constants.PREF_CUSTOM_COLOR, Constants.DEFAULT_CUSTOM_COLOR);
+        return getString(Constants.PREF_CUSTOM_COLOR, Constants.DEFAULT_CUSTOM_COLOR);
+    }
+
+    /**
+     * Returns the color temperature, in Kelvin, drawn when the screen color is
+     * {@link Constants#TEMPERATURE}.
+     */
+    public int getColorTemperature() {
+        return getInt(Constants.PREF_COLOR_TEMPERATURE, Constants.DEFAULT_COLOR_TEMPERATURE);
     }
 
     public int getColorIntensity() {
-        return sharedPreferences.getInt(Constants.PREF_COLOR_INTENSITY, Constants.DEFAULT_COLOR_INTENSITY);
+        return getInt(Constants.PREF_COLOR_INTENSITY, Constants.DEFAULT_COLOR_INTENSITY);
     }
 
     public int getBrightness() {
-        return sharedPreferences.getInt(Constants.PREF_BRIGHTNESS, Constants.DEFAULT_BRIGHTNESS);
+        return getInt(Constants.PREF_BRIGHTNESS, Constants.DEFAULT_BRIGHTNESS);
+    }
+
+    /**
+     * Returns how long (in ms) the overlay stays in standby after Read Mode is stopped
+     * before the service is torn down.
+     */
+    public int getStandbyTimeout() {
+        return sharedPreferences.getInt(Constants.PREF_STANDBY_TIMEOUT, Constants.DEFAULT_STANDBY_TIMEOUT_MS);
+    }
+
+    /**
+     * Returns true if the overlay windows are removed while the device is in doze, to free their
+     * memory overnight. They are added again when the screen turns on.
+     */
+    public boolean shouldDetachOverlayInDoze() {
+        return sharedPreferences.getBoolean(Constants.PREF_DETACH_OVERLAY_IN_DOZE, Constants.DEFAULT_DETACH_OVERLAY_IN_DOZE);
+    }
+
+    public @NonNull String getSchedule() {
+        final String schedule = getString(Constants.PREF_SCHEDULE, Constants.DEFAULT_SCHEDULE);
+        return schedule != null ? schedule : Constants.DEFAULT_SCHEDULE;
+    }
+
+    public int getScheduleStart() {
+        return getInt(Constants.PREF_SCHEDULE_START, Constants.DEFAULT_SCHEDULE_START);
+    }
+
+    public int getScheduleEnd() {
+        return getInt(Constants.PREF_SCHEDULE_END, Constants.DEFAULT_SCHEDULE_END);
+    }
+
+    public int getScheduleRamp() {
+        return getInt(Constants.PREF_SCHEDULE_RAMP, Constants.DEFAULT_SCHEDULE_RAMP);
+    }
+
+    public @NonNull String getScheduleLocation() {
+        final String location = getString(Constants.PREF_SCHEDULE_LOCATION, Constants.DEFAULT_SCHEDULE_LOCATION);
+        return location != null ? location : Constants.DEFAULT_SCHEDULE_LOCATION;
+    }
+
+    /**
+     * Returns the time of the last transition applied by the schedule, 0 if none was applied.
+     */
+    public long getScheduleLastTransition() {
+        return sharedPreferences.getLong(Constants.PREF_SCHEDULE_LAST_TRANSITION, 0);
+    }
+
+    public int getScheduleWakeupDay() {
+        return sharedPreferences.getInt(Constants.PREF_SCHEDULE_WAKEUP_DAY, 0);
+    }
+
+    public int getScheduleWakeupCount() {
+        return sharedPreferences.getInt(Constants.PREF_SCHEDULE_WAKEUP_COUNT, 0);
+    }
+
+    public boolean isAmbientLightOn() {
+        return getBoolean(Constants.PREF_AMBIENT_LIGHT, Constants.DEFAULT_AMBIENT_LIGHT);
+    }
+
+    public @NonNull String getRegion() {
+        final String region = getString(Constants.PREF_REGION, Constants.DEFAULT_REGION);
+        return region != null ? region : Constants.DEFAULT_REGION;
+    }
+
+    public int getRegionTop() {
+        return getInt(Constants.PREF_REGION_TOP, Constants.DEFAULT_REGION_TOP);
+    }
+
+    public int getRegionHeight() {
+        return getInt(Constants.PREF_REGION_HEIGHT, Constants.DEFAULT_REGION_HEIGHT);
+    }
+
+    public int getTransitionDuration() {
+        return getInt(Constants.PREF_TRANSITION_DURATION, Constants.DEFAULT_TRANSITION_DURATION);
+    }
+
+    public boolean isHybridDimmingOn() {
+        return getBoolean(Constants.PREF_HYBRID_DIMMING, Constants.DEFAULT_HYBRID_DIMMING);
+    }
+
+    public @NonNull String getAppProfiles() {
+        final String appProfiles = getString(Constants.PREF_APP_PROFILES, Constants.DEFAULT_APP_PROFILES);
+        return appProfiles != null ? appProfiles : Constants.DEFAULT_APP_PROFILES;
     }
 
     public boolean shouldUseSameIntensityBrightnessForAll() {
@@ -113,67 +246,193 @@ public class PrefsHelper {
     }
 
     public @NonNull String getColor() {
-        return sharedPreferences.getString(Constants.PREF_COLOR, Constants.DEFAULT_COLOR_WHITE);
+        return getString(Constants.PREF_COLOR, Constants.DEFAULT_COLOR_WHITE);
+    }
+
+    public @Nullable ColorPreset getPreset(final int presetId) {
+        return getPresetStore().getPreset(presetId);
     }
 
-    public @Nullable ColorSettings getColorSettings(final int currentColorDropdownPosition) {
-        return prefColorSettingsMap.get(Constants.COLOR_DROPDOWN_OPTIONS[currentColorDropdownPosition]);
+
+    private boolean getBoolean(final @NonNull String property, final boolean defaultValue) {
+        final Object pendingValue = pendingProperties.get(property);
+        if (pendingValue instanceof Boolean) {
+            return (Boolean) pendingValue;
+        }
+        return sharedPreferences.getBoolean(property, defaultValue);
     }
 
+    private int getInt(final @NonNull String property, final int defaultValue) {
+        final Object pendingValue = pendingProperties.get(property);
+        if (pendingValue instanceof Integer) {
+            return (Integer) pendingValue;
+        }
+        return sharedPreferences.getInt(property, defaultValue);
+    }
+
+    private String getString(final @NonNull String property, final String defaultValue) {
+        final Object pendingValue = pendingProperties.get(property);
+        if (pendingValue instanceof String) {
+            return (String) pendingValue;
+        }
+        return sharedPreferences.getString(property, defaultValue);
+    }
 
     /**
      * Saves an String value to {@link SharedPreferences} under the specified key.
      */
     public void saveProperty(final @NonNull String property, final @NonNull String value) {
-        final SharedPreferences.Editor editor = sharedPreferences.edit();
-        editor.putString(property, value);
-        editor.apply();
+        PerfTrace.begin("PrefsHelper.save");
+        try {
+            pendingProperties.remove(property);
+            final SharedPreferences.Editor editor = sharedPreferences.edit();
+            editor.putString(property, value);
+            editor.apply();
+        } finally {
+            PerfTrace.end();
+        }
     }
 
     /**
      * Saves an boolean value to {@link SharedPreferences} under the specified key.
      */
     public void saveProperty(final @NonNull String property, final boolean value) {
-        final SharedPreferences.Editor editor = sharedPreferences.edit();
-        editor.putBoolean(property, value);
-        editor.apply();
+        PerfTrace.begin("PrefsHelper.save");
+        try {
+            pendingProperties.remove(property);
+            final SharedPreferences.Editor editor = sharedPreferences.edit();
+            editor.putBoolean(property, value);
+            editor.apply();
+        } finally {
+            PerfTrace.end();
+        }
     }
 
     /**
      * Saves an integer value to {@link SharedPreferences} under the specified key.
      */
     public void saveProperty(final @NonNull String property, final int value) {
-        final SharedPreferences.Editor editor = sharedPreferences.edit();
-        editor.putInt(property, value);
-        editor.apply();
+        PerfTrace.begin("PrefsHelper.save");
+        try {
+            pendingProperties.remove(property);
+            final SharedPreferences.Editor editor = sharedPreferences.edit();
+            editor.putInt(property, value);
+            editor.apply();
+        } finally {
+            PerfTrace.end();
+        }
+    }
+
+    /**
+     * Saves a long value to {@link SharedPreferences} under the specified key.
+     */
+    public void saveProperty(final @NonNull String property, final long value) {
+        PerfTrace.begin("PrefsHelper.save");
+        try {
+            pendingProperties.remove(property);
+            final SharedPreferences.Editor editor = sharedPreferences.edit();
+            editor.putLong(property, value);
+            editor.apply();
+        } finally {
+            PerfTrace.end();
+        }
+    }
+
+    /**
+     * Stages a String value, it is visible to the getters right away and persisted later.
+     */
+    public void stageProperty(final @NonNull String property, final @NonNull String value) {
+        stage(property, value);
+    }
+
+    /**
+     * Stages a boolean value, it is visible to the getters right away and persisted later.
+     */
+    public void stageProperty(final @NonNull String property, final boolean value) {
+        stage(property, value);
+    }
+
+    /**
+     * Stages an integer value, it is visible to the getters right away and persisted later.
+     */
+    public void stageProperty(final @NonNull String property, final int value) {
+        stage(property, value);
+    }
+
+    private void stage(final @NonNull String property, final @NonNull Object value) {
+        final boolean isFlushScheduled = !pendingProperties.isEmpty();
+        pendingProperties.put(property, value);
+        PerfTrace.setCounter(PENDING_PROPERTIES_COUNTER, pendingProperties.size());
+        if (!isFlushScheduled) {
+            if (persistHandler == null) {
+                persistHandler = new Handler(Looper.getMainLooper());
+            }
+            persistHandler.postDelayed(flushPendingPropertiesRunnable, PERSIST_DELAY_MS);
+        }
+    }
+
+    /**
+     * Writes all staged values to {@link SharedPreferences} in a single edit.
+     */
+    public void flushPendingProperties() {
+        PerfTrace.begin("PrefsHelper.flush");
+        try {
+            if (persistHandler != null) {
+                persistHandler.removeCallbacks(flushPendingPropertiesRunnable);
+            }
+            if (pendingProperties.isEmpty()) {
+                return;
+            }
+            Log.d(TAG, "Persisting " + pendingProperties.size() + " staged properties");
+            final SharedPreferences.Editor editor = sharedPreferences.edit();
+            for (final Map.Entry<String, Object> entry : pendingProperties.entrySet()) {
+                final Object value = entry.getValue();
+                if (value instanceof Integer) {
+                    editor.putInt(entry.getKey(), (Integer) value);
+                } else if (value instanceof Boolean) {
+                    editor.putBoolean(entry.getKey(), (Boolean) value);
+                } else {
+                    editor.putString(entry.getKey(), (String) value);
+                }
+            }
+            editor.apply();
+            pendingProperties.clear();
+            PerfTrace.setCounter(PENDING_PROPERTIES_COUNTER, 0);
+        } finally {
+            PerfTrace.end();
+        }
+    }
+
+    /**
+     * Returns how many staged values are waiting to be persisted.
+     */
+    public int getPendingPropertiesCount() {
+        return pendingProperties.size();
     }
 
     /**
      * Tries to save (based on settings) the current brightness and color intensity settings
-     * for the selected color into the {@link SharedPreferences}. Updates the ColorSettingsMap
-     * with the latest values and serializes it as JSON for persistence.
+     * for the selected preset into the {@link SharedPreferences}. Only the selected preset is
+     * written.
      */
-    public void tryToSaveColorSettingsProperty(final @NonNull ReadModeSettings readModeSettings) {
+    public void tryToSavePresetSettings(final @NonNull ReadModeSettings readModeSettings) {
         if (readModeSettings.shouldUseSameIntensityBrightnessForAll()) {
             Log.w(TAG, "Not saving values for each color as all colors use the same values!");
             // Only save the properties for each color when setting is disabled
             return;
         }
-        // update the brightness and color intensity values for the selected color
-        final String selectedColor = Constants.COLOR_DROPDOWN_OPTIONS[readModeSettings.getColorDropdownPosition()];
-        final ColorSettings colorSettings = prefColorSettingsMap.get(selectedColor);
-        if (colorSettings != null) {
-            colorSettings.setColorIntensity(readModeSettings.getColorIntensity());
-            colorSettings.setBrightness(readModeSettings.getBrightness());
-            prefColorSettingsMap.put(selectedColor, colorSettings);
-
-            final String json = gson.toJson(prefColorSettingsMap);
+        getPresetStore().saveSettings(readModeSettings.getColorDropdownPosition(),
+                readModeSettings.getColorIntensity(), readModeSettings.getBrightness());
+    }
 
-            final SharedPreferences.Editor editor = sharedPreferences.edit();
-            editor.putString(Constants.PREF_COLOR_SETTINGS, json);
-            editor.apply();
-        } else {
-            Log.d(TAG, "colorSettings not found in prefColorSettingsMap!");
+    /**
+     * Releases the settings caches (the color presets) under memory pressure. They are read
+     * again from the preferences the next time they are needed. Staged values are not cached
+     * data, they are kept until they are persisted.
+     */
+    public void releaseCaches() {
+        if (presetStore != null) {
+            presetStore.release();
         }
     }
 
@@ -185,11 +444,28 @@ public class PrefsHelper {
         saveProperty(Constants.PREF_COLOR_DROPDOWN, Constants.DEFAULT_COLOR_DROPDOWN_POSITION);
         saveProperty(Constants.PREF_COLOR, Constants.DEFAULT_COLOR_WHITE);
         saveProperty(Constants.PREF_CUSTOM_COLOR, Constants.DEFAULT_CUSTOM_COLOR);
-        saveProperty(Constants.PREF_COLOR_SETTINGS, Constants.DEFAULT_COLOR_SETTINGS);
+        saveProperty(Constants.PREF_COLOR_TEMPERATURE, Constants.DEFAULT_COLOR_TEMPERATURE);
+        getPresetStore().reset();
         saveProperty(Constants.PREF_COLOR_INTENSITY, Constants.DEFAULT_COLOR_INTENSITY);
         saveProperty(Constants.PREF_BRIGHTNESS, Constants.DEFAULT_BRIGHTNESS);
         saveProperty(Constants.PREF_THEME, Constants.DEFAULT_THEME);
         saveProperty(Constants.PREF_AUTO_START_READ_MODE, Constants.DEFAULT_AUTO_START_READ_MODE);
         saveProperty(Constants.PREF_SAME_INTENSITY_BRIGHTNESS_FOR_ALL, Constants.DEFAULT_SAME_INTENSITY_BRIGHTNESS_FOR_ALL);
+        saveProperty(Constants.PREF_STANDBY_TIMEOUT, Constants.DEFAULT_STANDBY_TIMEOUT_MS);
+        saveProperty(Constants.PREF_DETACH_OVERLAY_IN_DOZE, Constants.DEFAULT_DETACH_OVERLAY_IN_DOZE);
+        // A pending schedule alarm finds the schedule OFF and does nothing
+        saveProperty(Constants.PREF_SCHEDULE, Constants.DEFAULT_SCHEDULE);
+        saveProperty(Constants.PREF_SCHEDULE_START, Constants.DEFAULT_SCHEDULE_START);
+        saveProperty(Constants.PREF_SCHEDULE_END, Constants.DEFAULT_SCHEDULE_END);
+        saveProperty(Constants.PREF_SCHEDULE_RAMP, Constants.DEFAULT_SCHEDULE_RAMP);
+        saveProperty(Constants.PREF_SCHEDULE_LOCATION, Constants.DEFAULT_SCHEDULE_LOCATION);
+        saveProperty(Constants.PREF_SCHEDULE_LAST_TRANSITION, 0L);
+        saveProperty(Constants.PREF_AMBIENT_LIGHT, Constants.DEFAULT_AMBIENT_LIGHT);
+        saveProperty(Constants.PREF_APP_PROFILES, Constants.DEFAULT_APP_PROFILES);
+        saveProperty(Constants.PREF_REGION, Constants.DEFAULT_REGION);
+        saveProperty(Constants.PREF_REGION_TOP, Constants.DEFAULT_REGION_TOP);
+        saveProperty(Constants.PREF_REGION_HEIGHT, Constants.DEFAULT_REGION_HEIGHT);
+        saveProperty(Constants.PREF_TRANSITION_DURATION, Constants.DEFAULT_TRANSITION_DURATION);
+        saveProperty(Constants.PREF_HYBRID_DIMMING, Constants.DEFAULT_HYBRID_DIMMING);
     }
 }
@@ -0,0 +1,278 @@
+/*****************************************************************
+ * Copyright (C) 2025 Alan Quintero <https://github.com/alanquintero/>
+ *****************************************************************/
+package autonightmode.mx.com.alanquintero.autonightmode.util;
+
+import android.content.SharedPreferences;
+import android.util.Log;
+import android.util.SparseArray;
+
+import androidx.annotation.ColorInt;
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+
+import autonightmode.mx.com.alanquintero.autonightmode.model.ColorPreset;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * PresetStore keeps the color presets, the built-in ones and the ones created by the user.
+ *
+ * <p>Presets are kept in a {@link SparseArray} keyed by their id, ordered by id, so selecting a
+ * preset never goes through names or list positions. Each preset is saved under its own key
+ * ({@code PRESET_<id>}), a change only encodes the preset that changed. A built-in preset is only
+ * saved once its values differ from the defaults.</p>
+ *
+ * <p>The presets are read on first use and can be released under memory pressure, they are read
+ * again the next time they are needed. The JSON map saved by older versions is migrated on the
+ * first read.</p>
+ *
+ * @author Alan Quintero
+ */
+public class PresetStore {
+
+    private static final String TAG = PresetStore.class.getSimpleName();
+
+    // Values of a saved preset: color, color intensity, brightness and name (last, it may contain the separator)
+    private static final String SEPARATOR = ",";
+    private static final int ENCODED_FIELDS = 4;
+
+    private static final ColorPreset[] BUILT_IN_PRESETS = {
+            new ColorPreset(ColorPreset.YELLOW_PRESET_ID, Constants.YELLOW, 0xFFFFF176, Constants.DEFAULT_COLOR_INTENSITY, Constants.DEFAULT_BRIGHTNESS),
+            new ColorPreset(1, Constants.PINK, 0xFFFFD1DC, Constants.DEFAULT_COLOR_INTENSITY, Constants.DEFAULT_BRIGHTNESS),
+            new ColorPreset(2, Constants.GREEN, 0xFFA8E6CF, Constants.DEFAULT_COLOR_INTENSITY, Constants.DEFAULT_BRIGHTNESS),
+            new ColorPreset(3, Constants.GRAY, 0xFFB0BEC5, Constants.DEFAULT_COLOR_INTENSITY, Constants.DEFAULT_BRIGHTNESS),
+            new ColorPreset(4, Constants.WHITE, 0xFFFFFFFF, Constants.DEFAULT_COLOR_INTENSITY, Constants.DEFAULT_BRIGHTNESS),
+            new ColorPreset(ColorPreset.CUSTOM_PRESET_ID, Constants.CUSTOM_COLOR, 0xFFFFFFFF, Constants.DEFAULT_COLOR_INTENSITY, Constants.DEFAULT_BRIGHTNESS),
+            new ColorPreset(ColorPreset.TEMPERATURE_PRESET_ID, Constants.TEMPERATURE, ColorTemperature.toColor(Constants.DEFAULT_COLOR_TEMPERATURE),
+                    Constants.DEFAULT_COLOR_INTENSITY, Constants.DEFAULT_BRIGHTNESS)
+    };
+
+    private final @NonNull SharedPreferences sharedPreferences;
+    // Null until the presets are read, and after they are released
+    private @Nullable SparseArray<ColorPreset> presets;
+
+    PresetStore(final @NonNull SharedPreferences sharedPreferences) {
+        this.sharedPreferences = sharedPreferences;
+    }
+
+    /**
+     * Returns the id of the built-in preset with the given name (e.g. "YELLOW"), ignoring case.
+     *
+     * @return the id, or null if there is no built-in preset with that name
+     */
+    public static @Nullable Integer findBuiltInPresetId(final @Nullable String name) {
+        for (final ColorPreset preset : BUILT_IN_PRESETS) {
+            if (preset.getName().equalsIgnoreCase(name)) {
+                return preset.getId();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the preset with the given id, or null if there is none.
+     */
+    public @Nullable ColorPreset getPreset(final int id) {
+        return getPresets().get(id);
+    }
+
+    /**
+     * Returns all presets ordered by id: the built-in presets first, then the user presets in
+     * the order they were created. The list is a copy.
+     */
+    public @NonNull List<ColorPreset> getPresetList() {
+        final SparseArray<ColorPreset> presets = getPresets();
+        final List<ColorPreset> presetList = new ArrayList<>(presets.size());
+        for (int i = 0; i < presets.size(); i++) {
+            presetList.add(presets.valueAt(i));
+        }
+        return presetList;
+    }
+
+    /**
+     * Returns the id of the preset after the given one, wrapping around to the first preset.
+     */
+    public int getNextPresetId(final int id) {
+        final SparseArray<ColorPreset> presets = getPresets();
+        final int index = presets.indexOfKey(id);
+        // indexOfKey returns a negative index for an unknown id, start again from the first preset
+        final int nextIndex = index < 0 || index + 1 >= presets.size() ? 0 : index + 1;
+        return presets.keyAt(nextIndex);
+    }
+
+    /**
+     * Creates a user preset with the given values. Its name is the color in #RRGGBB format.
+     *
+     * <p>Ids are never reused: a removed preset may still be referenced, e.g. by a per-app profile,
+     * and must not point to a new preset.</p>
+     */
+    public @NonNull ColorPreset addPreset(final @ColorInt int color, final int colorIntensity, final int brightness) {
+        final SparseArray<ColorPreset> presets = getPresets();
+        // The saved presets are also checked, older versions didn't save the next id
+        final int id = Math.max(sharedPreferences.getInt(Constants.PREF_NEXT_PRESET_ID, ColorPreset.FIRST_USER_PRESET_ID),
+                presets.keyAt(presets.size() - 1) + 1);
+        final ColorPreset preset = new ColorPreset(id, ColorUtils.getRgbHexColor(color), color, colorIntensity, brightness);
+        Log.d(TAG, "Adding preset " + id + ": " + preset.getName());
+        presets.put(id, preset);
+        final SharedPreferences.Editor editor = sharedPreferences.edit();
+        editor.putString(getKey(id), encode(preset));
+        editor.putInt(Constants.PREF_NEXT_PRESET_ID, id + 1);
+        editor.apply();
+        return preset;
+    }
+
+    /**
+     * Removes a user preset. Built-in presets can't be removed.
+     *
+     * @return true if the preset was removed
+     */
+    public boolean removePreset(final int id) {
+        if (id < ColorPreset.FIRST_USER_PRESET_ID || getPreset(id) == null) {
+            Log.w(TAG, "Preset can't be removed: " + id);
+            return false;
+        }
+        Log.d(TAG, "Removing preset " + id);
+        getPresets().remove(id);
+        final SharedPreferences.Editor editor = sharedPreferences.edit();
+        editor.remove(getKey(id));
+        editor.apply();
+        return true;
+    }
+
+    /**
+     * Saves the color intensity and brightness of the preset with the given id.
+     */
+    public void saveSettings(final int id, final int colorIntensity, final int brightness) {
+        final ColorPreset preset = getPreset(id);
+        if (preset == null) {
+            Log.d(TAG, "Preset not found: " + id);
+            return;
+        }
+        final ColorPreset updatedPreset = preset.withSettings(colorIntensity, brightness);
+        if (updatedPreset != preset) {
+            savePreset(updatedPreset);
+        }
+    }
+
+    /**
+     * Releases the presets under memory pressure, they are read again on next use.
+     */
+    public void release() {
+        if (presets != null) {
+            Log.d(TAG, "Releasing presets");
+            presets = null;
+        }
+    }
+
+    /**
+     * Removes all the saved presets, the built-in presets go back to their default values. The
+     * next user preset id is kept.
+     */
+    public void reset() {
+        final SharedPreferences.Editor editor = sharedPreferences.edit();
+        for (final String key : sharedPreferences.getAll().keySet()) {
+            if (key.startsWith(Constants.PREF_PRESET_PREFIX)) {
+                editor.remove(key);
+            }
+        }
+        editor.remove(Constants.PREF_COLOR_SETTINGS);
+        editor.apply();
+        presets = null;
+    }
+
+    private void savePreset(final @NonNull ColorPreset preset) {
+        getPresets().put(preset.getId(), preset);
+        final SharedPreferences.Editor editor = sharedPreferences.edit();
+        editor.putString(getKey(preset.getId()), encode(preset));
+        editor.apply();
+    }
+
+    private @NonNull SparseArray<ColorPreset> getPresets() {
+        if (presets == null) {
+            presets = loadPresets();
+        }
+        return presets;
+    }
+
+    private @NonNull SparseArray<ColorPreset> loadPresets() {
+        Log.d(TAG, "Loading presets");
+        final SparseArray<ColorPreset> loadedPresets = new SparseArray<>(BUILT_IN_PRESETS.length);
+        for (final ColorPreset preset : BUILT_IN_PRESETS) {
+            loadedPresets.put(preset.getId(), preset);
+        }
+        if (sharedPreferences.contains(Constants.PREF_COLOR_SETTINGS)) {
+            migrateColorSettings(loadedPresets);
+        }
+        for (final Map.Entry<String, ?> entry : sharedPreferences.getAll().entrySet()) {
+            final String key = entry.getKey();
+            if (key.startsWith(Constants.PREF_PRESET_PREFIX) && entry.getValue() instanceof String) {
+                final ColorPreset preset = decode(key, (String) entry.getValue());
+                if (preset != null) {
+                    loadedPresets.put(preset.getId(), preset);
+                }
+            }
+        }
+        return loadedPresets;
+    }
+
+    /**
+     * Moves the values of the JSON map saved by older versions, keyed by the color names, to the
+     * built-in presets.
+     */
+    private void migrateColorSettings(final @NonNull SparseArray<ColorPreset> loadedPresets) {
+        final String json = sharedPreferences.getString(Constants.PREF_COLOR_SETTINGS, Constants.DEFAULT_COLOR_SETTINGS);
+        final SharedPreferences.Editor editor = sharedPreferences.edit();
+        try {
+            final JSONObject colorSettings = new JSONObject(json != null ? json : Constants.DEFAULT_COLOR_SETTINGS);
+            for (final ColorPreset preset : BUILT_IN_PRESETS) {
+                final JSONObject settings = colorSettings.optJSONObject(preset.getName());
+                if (settings != null) {
+                    final ColorPreset migratedPreset = preset.withSettings(
+                            settings.optInt("colorIntensity", preset.getColorIntensity()),
+                            settings.optInt("brightness", preset.getBrightness()));
+                    loadedPresets.put(migratedPreset.getId(), migratedPreset);
+                    editor.putString(getKey(migratedPreset.getId()), encode(migratedPreset));
+                }
+            }
+            Log.i(TAG, "Color settings migrated to presets");
+        } catch (JSONException e) {
+            Log.w(TAG, "Failed to migrate color settings, using the default values", e);
+        }
+        editor.remove(Constants.PREF_COLOR_SETTINGS);
+        editor.apply();
+    }
+
+    @VisibleForTesting
+    static @NonNull String getKey(final int id) {
+        return Constants.PREF_PRESET_PREFIX + id;
+    }
+
+    @VisibleForTesting
+    static @NonNull String encode(final @NonNull ColorPreset preset) {
+        return preset.getColor() + SEPARATOR + preset.getColorIntensity() + SEPARATOR + preset.getBrightness()
+                + SEPARATOR + preset.getName();
+    }
+
+    @VisibleForTesting
+    static @Nullable ColorPreset decode(final @NonNull String key, final @NonNull String value) {
+        final String[] fields = value.split(SEPARATOR, ENCODED_FIELDS);
+        if (fields.length != ENCODED_FIELDS) {
+            Log.w(TAG, "Ignoring invalid preset " + key + ": " + value);
+            return null;
+        }
+        try {
+            return new ColorPreset(Integer.parseInt(key.substring(Constants.PREF_PRESET_PREFIX.length())), fields[3],
+                    Integer.parseInt(fields[0]), Integer.parseInt(fields[1]), Integer.parseInt(fields[2]));
+        } catch (NumberFormatException e) {
+            Log.w(TAG, "Ignoring invalid preset " + key + ": " + value);
+            return null;
+        }
+    }
+}
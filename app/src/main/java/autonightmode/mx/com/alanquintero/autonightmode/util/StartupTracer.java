@@ -0,0 +1,101 @@
+/*****************************************************************
+ * Copyright (C) 2025 Alan Quintero <https://github.com/alanquintero/>
+ *****************************************************************/
+package autonightmode.mx.com.alanquintero.autonightmode.util;
+
+import android.os.Build;
+import android.os.Process;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * StartupTracer is a lightweight startup instrumentation. A trace is started by an entry point
+ * (e.g. a boot receiver or an activity) and the following milestones are logged with the time
+ * elapsed since the trace started, until the trace is finished.
+ *
+ * <p>When the process was started for this trace (cold start), the elapsed time is measured from
+ * the process start, so the time spent by the platform creating the process is included.</p>
+ *
+ * <p>Logs use the {@code StartupTracer} tag, e.g. {@code adb logcat -s StartupTracer}.</p>
+ *
+ * @author Alan Quintero
+ */
+public final class StartupTracer {
+
+    private static final String TAG = StartupTracer.class.getSimpleName();
+
+    // A trace started later than this after the process start is a warm start
+    private static final long COLD_START_THRESHOLD_MS = 1000;
+
+    private static @Nullable String traceName;
+    private static long traceStartTime;
+    private static final Map<String, Long> milestones = new LinkedHashMap<>();
+
+    private StartupTracer() {
+    }
+
+    /**
+     * Starts a new trace, dropping any unfinished one.
+     */
+    public static void start(final @NonNull String name) {
+        final long now = SystemClock.uptimeMillis();
+        traceName = name;
+        traceStartTime = now;
+        milestones.clear();
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.N) {
+            final long processStartTime = Process.getStartUptimeMillis();
+            if (now - processStartTime < COLD_START_THRESHOLD_MS) {
+                traceStartTime = processStartTime;
+                Log.i(TAG, name + ": cold start, process started " + (now - processStartTime) + " ms ago");
+            }
+        }
+    }
+
+    /**
+     * Records a milestone of the current trace. Does nothing if no trace is running.
+     */
+    public static void mark(final @NonNull String milestone) {
+        if (traceName == null) {
+            return;
+        }
+        final long elapsed = SystemClock.uptimeMillis() - traceStartTime;
+        milestones.put(milestone, elapsed);
+        Log.i(TAG, traceName + ": " + milestone + " at " + elapsed + " ms");
+    }
+
+    /**
+     * Records the last milestone and finishes the current trace.
+     */
+    public static void finish(final @NonNull String milestone) {
+        mark(milestone);
+        traceName = null;
+    }
+
+    public static boolean isTracing() {
+        return traceName != null;
+    }
+
+    /**
+     * Returns the elapsed time recorded for the given milestone of the last trace, or -1.
+     */
+    public static long getElapsed(final @NonNull String milestone) {
+        final Long elapsed = milestones.get(milestone);
+        return elapsed != null ? elapsed : -1;
+    }
+
+    /**
+     * IMPORTANT: use it for testing ONLY
+     */
+    @VisibleForTesting
+    static void cleanUp() {
+        traceName = null;
+        milestones.clear();
+    }
+}
@@ -61,4 +61,14 @@ public class Utils {
         titleView.setText(titleRes);
         return customTitle;
     }
+
+    /**
+     * Returns a title with style for the dialog, e.g. the name of an app.
+     */
+    public static @NonNull View createDialogTitle(final @NonNull Context context, final @NonNull CharSequence title) {
+        final View customTitle = LayoutInflater.from(context).inflate(R.layout.dialog_title, null);
+        final TextView titleView = customTitle.findViewById(R.id.dialog_title);
+        titleView.setText(title);
+        return customTitle;
+    }
 }
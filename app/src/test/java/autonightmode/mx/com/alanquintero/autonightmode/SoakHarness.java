@@ -0,0 +1,330 @@
+/*****************************************************************
+ * Copyright (C) 2025 Alan Quintero <https://github.com/alanquintero/>
+ *****************************************************************/
+package autonightmode.mx.com.alanquintero.autonightmode;
+
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import android.content.ComponentName;
+import android.content.Context;
+import android.content.ContextWrapper;
+import android.content.Intent;
+import android.content.SharedPreferences;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.core.util.Consumer;
+
+import autonightmode.mx.com.alanquintero.autonightmode.service.OverlayClient;
+import autonightmode.mx.com.alanquintero.autonightmode.util.PrefsHelper;
+
+import org.mockito.Mockito;
+import org.mockito.invocation.Invocation;
+
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * SoakHarness holds the workloads and the resource budgets of the soak tests, which drive the real
+ * controllers and the overlay service through thousands of interactions and fail when a change
+ * brings back per-tick window updates, disk writes or service restarts.
+ *
+ * <p>The workloads are deterministic: no thread is started and the time only moves with the main
+ * looper, so the budgets are exact on any machine. Run them alone with
+ * {@code ./gradlew testDebugUnitTest --tests '*SoakTest'}.</p>
+ */
+public final class SoakHarness {
+
+    public static final int SLIDER_TICKS = 10_000;
+    public static final int COLOR_SWITCHES = 1_000;
+    public static final int CONFIGURATION_CHANGES = 500;
+    public static final int START_STOP_CYCLES = 500;
+    public static final int SERVICE_RESTARTS = 100;
+    public static final int PICKED_COLORS = 10_000;
+
+    private SoakHarness() {
+    }
+
+    /**
+     * Creates the real PrefsHelper, on the SharedPreferences of Robolectric opened through the given
+     * context, so its commits are counted. It is also the instance returned by
+     * {@link PrefsHelper#init(Context)} until {@link #releasePrefsHelper()}.
+     */
+    public static @NonNull PrefsHelper createPrefsHelper(final @NonNull PrefsContext context) {
+        PrefsHelper.cleanUp();
+        return PrefsHelper.init(context);
+    }
+
+    /**
+     * Drops the PrefsHelper created by {@link #createPrefsHelper(PrefsContext)}.
+     */
+    public static void releasePrefsHelper() {
+        PrefsHelper.cleanUp();
+    }
+
+    /**
+     * Returns how many times the methods with the given names were called on a mock.
+     */
+    public static long countCalls(final @NonNull Object mock, final @NonNull String... methodNames) {
+        final List<String> names = Arrays.asList(methodNames);
+        long count = 0;
+        for (final Invocation invocation : Mockito.mockingDetails(mock).getInvocations()) {
+            if (names.contains(invocation.getMethod().getName())) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Fails when a resource was used more than its budget.
+     */
+    public static void assertWithinBudget(final @NonNull String resource, final long actual, final long budget) {
+        assertTrue(resource + ": " + actual + " over a budget of " + budget, actual <= budget);
+    }
+
+    /**
+     * Fails when the referenced object is still retained once the garbage collector ran.
+     */
+    public static void assertCollected(final @NonNull String name, final @NonNull WeakReference<?> reference) {
+        for (int i = 0; i < 10 && reference.get() != null; i++) {
+            System.gc();
+        }
+        assertNull(name + " is retained", reference.get());
+    }
+
+    /**
+     * Sets the overlay service as running, or not, for {@link OverlayClient}. The service created
+     * by a test then reports its own state.
+     */
+    public static void setOverlayServiceRunning(final @NonNull Context context, final boolean isRunning) {
+        OverlayClient.setServiceRunning(context, isRunning);
+    }
+
+    /**
+     * Context of the UI. The commands sent to the overlay service are counted and handed to the
+     * given receiver, in place of the system which would deliver them to the service.
+     */
+    public static class ClientContext extends ContextWrapper {
+
+        private final @NonNull Consumer<Intent> receiver;
+        private int commandCount = 0;
+        private int foregroundStartCount = 0;
+
+        public ClientContext(final @NonNull Context base, final @NonNull Consumer<Intent> receiver) {
+            super(base);
+            this.receiver = receiver;
+        }
+
+        @Override
+        public ComponentName startService(final Intent intent) {
+            commandCount++;
+            receiver.accept(intent);
+            return intent.getComponent();
+        }
+
+        @Override
+        public ComponentName startForegroundService(final Intent intent) {
+            // The service was not running, it is started again
+            foregroundStartCount++;
+            receiver.accept(intent);
+            return intent.getComponent();
+        }
+
+        /**
+         * Returns how many commands were sent to the running service.
+         */
+        public int getCommandCount() {
+            return commandCount;
+        }
+
+        /**
+         * Returns how many times the service was started in the foreground, i.e. it was not running.
+         */
+        public int getForegroundStartCount() {
+            return foregroundStartCount;
+        }
+    }
+
+    /**
+     * Context of the settings store. The SharedPreferences opened through it, also in device
+     * protected storage, count every {@code apply()} and {@code commit()} of their editors.
+     */
+    public static class PrefsContext extends ContextWrapper {
+
+        // Shared with the device protected storage context
+        private final int[] writeCount;
+
+        public PrefsContext(final @NonNull Context base) {
+            this(base, new int[1]);
+        }
+
+        private PrefsContext(final @NonNull Context base, final int[] writeCount) {
+            super(base);
+            this.writeCount = writeCount;
+        }
+
+        @Override
+        public Context createDeviceProtectedStorageContext() {
+            return new PrefsContext(getBaseContext().createDeviceProtectedStorageContext(), writeCount);
+        }
+
+        @Override
+        public SharedPreferences getSharedPreferences(final String name, final int mode) {
+            return new CountingSharedPreferences(super.getSharedPreferences(name, mode));
+        }
+
+        /**
+         * Returns how many times SharedPreferences were written.
+         */
+        public int getWriteCount() {
+            return writeCount[0];
+        }
+
+        /**
+         * Starts counting again from 0, so the budgets only count the workload.
+         */
+        public void resetWriteCount() {
+            writeCount[0] = 0;
+        }
+
+        private final class CountingSharedPreferences implements SharedPreferences {
+
+            private final @NonNull SharedPreferences preferences;
+
+            CountingSharedPreferences(final @NonNull SharedPreferences preferences) {
+                this.preferences = preferences;
+            }
+
+            @Override
+            public Map<String, ?> getAll() {
+                return preferences.getAll();
+            }
+
+            @Nullable
+            @Override
+            public String getString(final String key, final @Nullable String defValue) {
+                return preferences.getString(key, defValue);
+            }
+
+            @Nullable
+            @Override
+            public Set<String> getStringSet(final String key, final @Nullable Set<String> defValues) {
+                return preferences.getStringSet(key, defValues);
+            }
+
+            @Override
+            public int getInt(final String key, final int defValue) {
+                return preferences.getInt(key, defValue);
+            }
+
+            @Override
+            public long getLong(final String key, final long defValue) {
+                return preferences.getLong(key, defValue);
+            }
+
+            @Override
+            public float getFloat(final String key, final float defValue) {
+                return preferences.getFloat(key, defValue);
+            }
+
+            @Override
+            public boolean getBoolean(final String key, final boolean defValue) {
+                return preferences.getBoolean(key, defValue);
+            }
+
+            @Override
+            public boolean contains(final String key) {
+                return preferences.contains(key);
+            }
+
+            @Override
+            public Editor edit() {
+                return new CountingEditor(preferences.edit());
+            }
+
+            @Override
+            public void registerOnSharedPreferenceChangeListener(final OnSharedPreferenceChangeListener listener) {
+                preferences.registerOnSharedPreferenceChangeListener(listener);
+            }
+
+            @Override
+            public void unregisterOnSharedPreferenceChangeListener(final OnSharedPreferenceChangeListener listener) {
+                preferences.unregisterOnSharedPreferenceChangeListener(listener);
+            }
+        }
+
+        private final class CountingEditor implements SharedPreferences.Editor {
+
+            private final @NonNull SharedPreferences.Editor editor;
+
+            CountingEditor(final @NonNull SharedPreferences.Editor editor) {
+                this.editor = editor;
+            }
+
+            @Override
+            public SharedPreferences.Editor putString(final String key, final @Nullable String value) {
+                editor.putString(key, value);
+                return this;
+            }
+
+            @Override
+            public SharedPreferences.Editor putStringSet(final String key, final @Nullable Set<String> values) {
+                editor.putStringSet(key, values);
+                return this;
+            }
+
+            @Override
+            public SharedPreferences.Editor putInt(final String key, final int value) {
+                editor.putInt(key, value);
+                return this;
+            }
+
+            @Override
+            public SharedPreferences.Editor putLong(final String key, final long value) {
+                editor.putLong(key, value);
+                return this;
+            }
+
+            @Override
+            public SharedPreferences.Editor putFloat(final String key, final float value) {
+                editor.putFloat(key, value);
+                return this;
+            }
+
+            @Override
+            public SharedPreferences.Editor putBoolean(final String key, final boolean value) {
+                editor.putBoolean(key, value);
+                return this;
+            }
+
+            @Override
+            public SharedPreferences.Editor remove(final String key) {
+                editor.remove(key);
+                return this;
+            }
+
+            @Override
+            public SharedPreferences.Editor clear() {
+                editor.clear();
+                return this;
+            }
+
+            @Override
+            public boolean commit() {
+                writeCount[0]++;
+                return editor.commit();
+            }
+
+            @Override
+            public void apply() {
+                writeCount[0]++;
+                editor.apply();
+            }
+        }
+    }
+}
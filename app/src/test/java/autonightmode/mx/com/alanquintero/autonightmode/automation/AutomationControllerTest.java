@@ -0,0 +1,236 @@
+/*****************************************************************
+ * Copyright (C) 2025 Alan Quintero <https://github.com/alanquintero/>
+ *****************************************************************/
+package autonightmode.mx.com.alanquintero.autonightmode.automation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import android.app.Application;
+import android.content.ContentValues;
+import android.content.Intent;
+import android.os.Build;
+
+import androidx.test.core.app.ApplicationProvider;
+
+import autonightmode.mx.com.alanquintero.autonightmode.model.ColorPreset;
+import autonightmode.mx.com.alanquintero.autonightmode.model.ReadModeSettings;
+import autonightmode.mx.com.alanquintero.autonightmode.service.DrawOverAppsService;
+import autonightmode.mx.com.alanquintero.autonightmode.service.OverlayClient;
+import autonightmode.mx.com.alanquintero.autonightmode.util.Constants;
+import autonightmode.mx.com.alanquintero.autonightmode.util.PrefsHelper;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.Shadows;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowSettings;
+
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = {Build.VERSION_CODES.O})
+public class AutomationControllerTest {
+
+    private Application application;
+    private PrefsHelper mockPrefsHelper;
+    private AutomationController automationController;
+
+    @Before
+    public void setUp() {
+        application = ApplicationProvider.getApplicationContext();
+        mockPrefsHelper = mock(PrefsHelper.class);
+        when(mockPrefsHelper.isReadModeOn()).thenReturn(false);
+        when(mockPrefsHelper.getColorDropdownPosition()).thenReturn(Constants.DEFAULT_COLOR_DROPDOWN_POSITION);
+        when(mockPrefsHelper.getCustomColor()).thenReturn(Constants.DEFAULT_CUSTOM_COLOR);
+        when(mockPrefsHelper.getColorIntensity()).thenReturn(Constants.DEFAULT_COLOR_INTENSITY);
+        when(mockPrefsHelper.getBrightness()).thenReturn(Constants.DEFAULT_BRIGHTNESS);
+        automationController = new AutomationController(application, mockPrefsHelper);
+        OverlayClient.setServiceRunning(application, false);
+    }
+
+    @After
+    public void tearDown() {
+        ShadowSettings.setCanDrawOverlays(false);
+        ReadModeSettings.init().setShouldUseSameIntensityBrightnessForAll(Constants.DEFAULT_SAME_INTENSITY_BRIGHTNESS_FOR_ALL);
+    }
+
+    @Test
+    public void apply_sameValues_isNoOp() {
+        // Given
+        final ContentValues values = new ContentValues();
+        values.put(AutomationContract.KEY_READ_MODE_ON, false);
+        values.put(AutomationContract.KEY_COLOR, Constants.YELLOW);
+        values.put(AutomationContract.KEY_BRIGHTNESS, Constants.DEFAULT_BRIGHTNESS);
+
+        // When
+        final int changes = automationController.apply(AutomationRequest.fromContentValues(values));
+
+        // Then
+        assertEquals(0, changes);
+        verify(mockPrefsHelper, never()).stageProperty(anyString(), anyInt());
+        verify(mockPrefsHelper, never()).stageProperty(anyString(), anyBoolean());
+        verify(mockPrefsHelper, never()).flushPendingProperties();
+        assertNull(Shadows.shadowOf(application).getNextStartedService());
+    }
+
+    @Test
+    public void apply_batch_writesOnlyChangedValuesOnceAndStartsService() {
+        // Given
+        ShadowSettings.setCanDrawOverlays(true);
+        when(mockPrefsHelper.getPreset(1)).thenReturn(new ColorPreset(1, Constants.PINK, 0xFFFFD1DC,
+                Constants.DEFAULT_COLOR_INTENSITY, Constants.DEFAULT_BRIGHTNESS));
+        final ContentValues values = new ContentValues();
+        values.put(AutomationContract.KEY_READ_MODE_ON, true);
+        values.put(AutomationContract.KEY_COLOR, Constants.PINK);
+        values.put(AutomationContract.KEY_COLOR_INTENSITY, 30);
+        values.put(AutomationContract.KEY_BRIGHTNESS, Constants.DEFAULT_BRIGHTNESS);
+
+        // When
+        final int changes = automationController.apply(AutomationRequest.fromContentValues(values));
+
+        // Then
+        assertEquals(3, changes);
+        verify(mockPrefsHelper).stageProperty(Constants.PREF_IS_READ_MODE_ON, true);
+        verify(mockPrefsHelper).stageProperty(Constants.PREF_COLOR_DROPDOWN, 1);
+        verify(mockPrefsHelper).stageProperty(Constants.PREF_COLOR, Constants.COLOR_PINK);
+        verify(mockPrefsHelper).stageProperty(Constants.PREF_COLOR_INTENSITY, 30);
+        verify(mockPrefsHelper, never()).stageProperty(Constants.PREF_BRIGHTNESS, Constants.DEFAULT_BRIGHTNESS);
+        verify(mockPrefsHelper, times(1)).flushPendingProperties();
+        final Intent startedService = Shadows.shadowOf(application).getNextStartedService();
+        assertEquals(DrawOverAppsService.class.getName(), startedService.getComponent().getClassName());
+    }
+
+    @Test
+    public void apply_colorLevelsChanged_savesThemForCurrentColor() {
+        // Given
+        ReadModeSettings.init().setShouldUseSameIntensityBrightnessForAll(false);
+        final ContentValues values = new ContentValues();
+        values.put(AutomationContract.KEY_BRIGHTNESS, 20);
+
+        // When
+        automationController.apply(AutomationRequest.fromContentValues(values));
+
+        // Then
+        verify(mockPrefsHelper).stageProperty(Constants.PREF_BRIGHTNESS, 20);
+        verify(mockPrefsHelper).tryToSavePresetSettings(ReadModeSettings.init());
+    }
+
+    @Test
+    public void apply_colorChanged_loadsTheLevelsOfThePreset() {
+        // Given
+        when(mockPrefsHelper.shouldUseSameIntensityBrightnessForAll()).thenReturn(false);
+        when(mockPrefsHelper.getPreset(1)).thenReturn(new ColorPreset(1, Constants.PINK, 0xFFFFD1DC, 25, 10));
+        final ContentValues values = new ContentValues();
+        values.put(AutomationContract.KEY_COLOR, Constants.PINK);
+
+        // When
+        final int changes = automationController.apply(AutomationRequest.fromContentValues(values));
+
+        // Then
+        assertEquals(3, changes);
+        verify(mockPrefsHelper).stageProperty(Constants.PREF_COLOR_DROPDOWN, 1);
+        verify(mockPrefsHelper).stageProperty(Constants.PREF_COLOR_INTENSITY, 25);
+        verify(mockPrefsHelper).stageProperty(Constants.PREF_BRIGHTNESS, 10);
+    }
+
+    @Test
+    public void apply_colorChangedWithLevels_keepsTheRequestedLevels() {
+        // Given
+        when(mockPrefsHelper.shouldUseSameIntensityBrightnessForAll()).thenReturn(false);
+        when(mockPrefsHelper.getPreset(1)).thenReturn(new ColorPreset(1, Constants.PINK, 0xFFFFD1DC, 25, 10));
+        final ContentValues values = new ContentValues();
+        values.put(AutomationContract.KEY_COLOR, Constants.PINK);
+        values.put(AutomationContract.KEY_BRIGHTNESS, 40);
+
+        // When
+        automationController.apply(AutomationRequest.fromContentValues(values));
+
+        // Then - the requested brightness wins, the intensity comes from the preset
+        verify(mockPrefsHelper).stageProperty(Constants.PREF_COLOR_INTENSITY, 25);
+        verify(mockPrefsHelper).stageProperty(Constants.PREF_BRIGHTNESS, 40);
+        verify(mockPrefsHelper, never()).stageProperty(Constants.PREF_BRIGHTNESS, 10);
+    }
+
+    @Test
+    public void apply_colorChangedSameLevelsForAll_keepsTheCurrentLevels() {
+        // Given
+        when(mockPrefsHelper.shouldUseSameIntensityBrightnessForAll()).thenReturn(true);
+        when(mockPrefsHelper.getPreset(1)).thenReturn(new ColorPreset(1, Constants.PINK, 0xFFFFD1DC, 25, 10));
+        final ContentValues values = new ContentValues();
+        values.put(AutomationContract.KEY_COLOR, Constants.PINK);
+
+        // When
+        final int changes = automationController.apply(AutomationRequest.fromContentValues(values));
+
+        // Then
+        assertEquals(1, changes);
+        verify(mockPrefsHelper, never()).stageProperty(Constants.PREF_COLOR_INTENSITY, 25);
+        verify(mockPrefsHelper, never()).stageProperty(Constants.PREF_BRIGHTNESS, 10);
+    }
+
+    @Test
+    public void apply_whenServiceRunning_updatesOverlayInPlace() {
+        // Given
+        OverlayClient.setServiceRunning(application, true);
+        final ContentValues values = new ContentValues();
+        values.put(AutomationContract.KEY_BRIGHTNESS, 20);
+
+        // When
+        automationController.apply(AutomationRequest.fromContentValues(values));
+
+        // Then - the new values are sent to the running service, still in standby
+        final Intent command = Shadows.shadowOf(application).getNextStartedService();
+        assertEquals(DrawOverAppsService.class.getName(), command.getComponent().getClassName());
+        assertTrue(command.hasExtra("brightness"));
+        assertFalse(command.getBooleanExtra("isReadModeOn", true));
+    }
+
+    @Test
+    public void apply_turnOnWithoutOverlayPermission_savesButDoesNotStartService() {
+        // Given
+        ShadowSettings.setCanDrawOverlays(false);
+        final ContentValues values = new ContentValues();
+        values.put(AutomationContract.KEY_READ_MODE_ON, true);
+
+        // When
+        final int changes = automationController.apply(AutomationRequest.fromContentValues(values));
+
+        // Then
+        assertEquals(1, changes);
+        verify(mockPrefsHelper).flushPendingProperties();
+        assertNull(Shadows.shadowOf(application).getNextStartedService());
+    }
+
+    @Test
+    public void apply_scheduleOnly_stagesItWithoutTouchingTheOverlay() {
+        // Given
+        when(mockPrefsHelper.getSchedule()).thenReturn(Constants.DEFAULT_SCHEDULE);
+        when(mockPrefsHelper.getScheduleStart()).thenReturn(Constants.DEFAULT_SCHEDULE_START);
+        final ContentValues values = new ContentValues();
+        values.put(AutomationContract.KEY_SCHEDULE, "times");
+        values.put(AutomationContract.KEY_SCHEDULE_START, "22:30");
+
+        // When
+        final int changes = automationController.apply(AutomationRequest.fromContentValues(values));
+
+        // Then
+        assertEquals(2, changes);
+        verify(mockPrefsHelper).stageProperty(Constants.PREF_SCHEDULE, "TIMES");
+        verify(mockPrefsHelper).stageProperty(Constants.PREF_SCHEDULE_START, 22 * 60 + 30);
+        verify(mockPrefsHelper).flushPendingProperties();
+        assertNull(Shadows.shadowOf(application).getNextStartedService());
+    }
+}
@@ -0,0 +1,63 @@
+/*****************************************************************
+ * Copyright (C) 2025 Alan Quintero <https://github.com/alanquintero/>
+ *****************************************************************/
+package autonightmode.mx.com.alanquintero.autonightmode.automation;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import android.content.Context;
+import android.content.Intent;
+import android.os.Build;
+
+import androidx.test.core.app.ApplicationProvider;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = {Build.VERSION_CODES.O})
+public class AutomationReceiverTest {
+
+    private Context context;
+    private AutomationReceiver receiver;
+    private AutomationController mockAutomationController;
+
+    @Before
+    public void setUp() {
+        context = ApplicationProvider.getApplicationContext();
+        mockAutomationController = mock(AutomationController.class);
+        receiver = new AutomationReceiver();
+        receiver.automationController = mockAutomationController;
+    }
+
+    @Test
+    public void onReceive_applyAction_appliesBroadcastExtras() {
+        // Given
+        final Intent intent = new Intent(AutomationContract.ACTION_APPLY)
+                .putExtra(AutomationContract.KEY_READ_MODE_ON, true)
+                .putExtra(AutomationContract.KEY_BRIGHTNESS, 40);
+
+        // When
+        receiver.onReceive(context, intent);
+
+        // Then
+        verify(mockAutomationController).apply(argThat(request ->
+                Boolean.TRUE.equals(request.isReadModeOn()) && Integer.valueOf(40).equals(request.getBrightness())));
+    }
+
+    @Test
+    public void onReceive_otherAction_isIgnored() {
+        // When
+        receiver.onReceive(context, new Intent("other.ACTION"));
+
+        // Then
+        verify(mockAutomationController, never()).apply(any(AutomationRequest.class));
+    }
+}
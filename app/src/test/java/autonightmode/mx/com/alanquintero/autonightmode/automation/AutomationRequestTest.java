@@ -0,0 +1,198 @@
+/*****************************************************************
+ * Copyright (C) 2025 Alan Quintero <https://github.com/alanquintero/>
+ *****************************************************************/
+package autonightmode.mx.com.alanquintero.autonightmode.automation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import android.content.ContentValues;
+import android.os.Build;
+import android.os.Bundle;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = {Build.VERSION_CODES.O})
+public class AutomationRequestTest {
+
+    @Test
+    public void fromExtras_parsesAllKeysOfTheBatch() {
+        // Given
+        final Bundle extras = new Bundle();
+        extras.putBoolean(AutomationContract.KEY_READ_MODE_ON, true);
+        extras.putString(AutomationContract.KEY_COLOR, "pink");
+        extras.putString(AutomationContract.KEY_CUSTOM_COLOR, "#a1b2c3");
+        extras.putInt(AutomationContract.KEY_COLOR_INTENSITY, 30);
+        extras.putInt(AutomationContract.KEY_BRIGHTNESS, 70);
+
+        // When
+        final AutomationRequest request = AutomationRequest.fromExtras(extras);
+
+        // Then
+        assertFalse(request.isEmpty());
+        assertEquals(Boolean.TRUE, request.isReadModeOn());
+        assertEquals(Integer.valueOf(1), request.getColorDropdownPosition());
+        assertEquals("#A1B2C3", request.getCustomColor());
+        assertEquals(Integer.valueOf(30), request.getColorIntensity());
+        assertEquals(Integer.valueOf(70), request.getBrightness());
+    }
+
+    @Test
+    public void fromExtras_stringValuesAreAccepted() {
+        // Given - e.g. "adb shell am broadcast --es brightness 40"
+        final Bundle extras = new Bundle();
+        extras.putString(AutomationContract.KEY_READ_MODE_ON, "false");
+        extras.putString(AutomationContract.KEY_BRIGHTNESS, "40");
+        extras.putString(AutomationContract.KEY_AMBIENT_LIGHT, "true");
+        extras.putString(AutomationContract.KEY_HYBRID_DIMMING, "true");
+
+        // When
+        final AutomationRequest request = AutomationRequest.fromExtras(extras);
+
+        // Then
+        assertEquals(Boolean.FALSE, request.isReadModeOn());
+        assertEquals(Integer.valueOf(40), request.getBrightness());
+        assertEquals(Boolean.TRUE, request.isAmbientLightOn());
+        assertEquals(Boolean.TRUE, request.isHybridDimmingOn());
+    }
+
+    @Test
+    public void fromContentValues_invalidValuesAreDropped() {
+        // Given
+        final ContentValues values = new ContentValues();
+        values.put(AutomationContract.KEY_COLOR, "PURPLE");
+        values.put(AutomationContract.KEY_CUSTOM_COLOR, "red");
+        values.put(AutomationContract.KEY_COLOR_INTENSITY, 101);
+        values.put(AutomationContract.KEY_BRIGHTNESS, "bright");
+
+        // When
+        final AutomationRequest request = AutomationRequest.fromContentValues(values);
+
+        // Then
+        assertNull(request.getColorDropdownPosition());
+        assertNull(request.getCustomColor());
+        assertNull(request.getColorIntensity());
+        assertNull(request.getBrightness());
+        assertTrue(request.isEmpty());
+    }
+
+    @Test
+    public void fromExtras_withoutExtras_isEmpty() {
+        assertTrue(AutomationRequest.fromExtras(null).isEmpty());
+        assertTrue(AutomationRequest.fromContentValues(null).isEmpty());
+    }
+
+    @Test
+    public void fromExtras_parsesTheSchedule() {
+        // Given
+        final Bundle extras = new Bundle();
+        extras.putString(AutomationContract.KEY_SCHEDULE, "sun");
+        extras.putString(AutomationContract.KEY_SCHEDULE_START, "21:30");
+        extras.putString(AutomationContract.KEY_SCHEDULE_END, "6:05");
+        extras.putInt(AutomationContract.KEY_SCHEDULE_RAMP, 15);
+        extras.putString(AutomationContract.KEY_SCHEDULE_LOCATION, "19.43, -99.13");
+
+        // When
+        final AutomationRequest request = AutomationRequest.fromExtras(extras);
+
+        // Then
+        assertFalse(request.isEmpty());
+        assertTrue(request.hasSchedule());
+        assertEquals("SUN", request.getSchedule());
+        assertEquals(Integer.valueOf(21 * 60 + 30), request.getScheduleStart());
+        assertEquals(Integer.valueOf(6 * 60 + 5), request.getScheduleEnd());
+        assertEquals(Integer.valueOf(15), request.getScheduleRamp());
+        assertEquals("19.43,-99.13", request.getScheduleLocation());
+    }
+
+    @Test
+    public void fromContentValues_invalidScheduleValuesAreDropped() {
+        // Given
+        final ContentValues values = new ContentValues();
+        values.put(AutomationContract.KEY_SCHEDULE, "ALWAYS");
+        values.put(AutomationContract.KEY_SCHEDULE_START, "24:00");
+        values.put(AutomationContract.KEY_SCHEDULE_END, "7pm");
+        values.put(AutomationContract.KEY_SCHEDULE_RAMP, 121);
+        values.put(AutomationContract.KEY_SCHEDULE_LOCATION, "91,0");
+
+        // When
+        final AutomationRequest request = AutomationRequest.fromContentValues(values);
+
+        // Then
+        assertFalse(request.hasSchedule());
+        assertTrue(request.isEmpty());
+    }
+
+    @Test
+    public void fromExtras_parsesTheAppProfiles() {
+        // Given
+        final Bundle extras = new Bundle();
+        extras.putString(AutomationContract.KEY_APP_PROFILES, " com.example.reader = 80, 20 ;com.android.camera=off;");
+
+        // When
+        final AutomationRequest request = AutomationRequest.fromExtras(extras);
+
+        // Then - normalized
+        assertFalse(request.isEmpty());
+        assertEquals("com.android.camera=OFF;com.example.reader=80,20", request.getAppProfiles());
+    }
+
+    @Test
+    public void fromContentValues_invalidAppProfilesAreDropped() {
+        // Given
+        final String[] invalidProfiles = {"camera=OFF", "com.example.reader=101,20", "com.example.reader=80", "com.example.reader"};
+
+        for (final String invalidProfile : invalidProfiles) {
+            final ContentValues values = new ContentValues();
+            values.put(AutomationContract.KEY_APP_PROFILES, invalidProfile);
+
+            // When
+            final AutomationRequest request = AutomationRequest.fromContentValues(values);
+
+            // Then
+            assertTrue(invalidProfile, request.isEmpty());
+        }
+    }
+
+    @Test
+    public void fromExtras_parsesTheRegion() {
+        // Given
+        final Bundle extras = new Bundle();
+        extras.putString(AutomationContract.KEY_REGION, "band");
+        extras.putInt(AutomationContract.KEY_REGION_TOP, 40);
+        extras.putInt(AutomationContract.KEY_REGION_HEIGHT, 101);
+
+        // When
+        final AutomationRequest request = AutomationRequest.fromExtras(extras);
+
+        // Then - the height out of range is dropped
+        assertEquals("BAND", request.getRegion());
+        assertEquals(Integer.valueOf(40), request.getRegionTop());
+        assertNull(request.getRegionHeight());
+    }
+
+    @Test
+    public void fromContentValues_parsesTheTransitionDuration() {
+        // Given
+        final ContentValues values = new ContentValues();
+        values.put(AutomationContract.KEY_TRANSITION_DURATION, 500);
+        final ContentValues tooLong = new ContentValues();
+        tooLong.put(AutomationContract.KEY_TRANSITION_DURATION, 5000);
+
+        // When / Then
+        assertEquals(Integer.valueOf(500), AutomationRequest.fromContentValues(values).getTransitionDuration());
+        assertTrue(AutomationRequest.fromContentValues(tooLong).isEmpty());
+    }
+
+    @Test
+    public void formatTime_usesTwoDigits() {
+        assertEquals("07:05", AutomationRequest.formatTime(7 * 60 + 5));
+        assertEquals("21:00", AutomationRequest.formatTime(21 * 60));
+    }
+}
@@ -0,0 +1,100 @@
+/*****************************************************************
+ * Copyright (C) 2025 Alan Quintero <https://github.com/alanquintero/>
+ *****************************************************************/
+package autonightmode.mx.com.alanquintero.autonightmode.automation;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import android.content.ContentValues;
+import android.database.Cursor;
+import android.net.Uri;
+import android.os.Build;
+
+import autonightmode.mx.com.alanquintero.autonightmode.util.Constants;
+import autonightmode.mx.com.alanquintero.autonightmode.util.PrefsHelper;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = {Build.VERSION_CODES.O})
+public class ReadModeProviderTest {
+
+    private ReadModeProvider provider;
+    private PrefsHelper mockPrefsHelper;
+    private AutomationController mockAutomationController;
+
+    @Before
+    public void setUp() {
+        provider = Robolectric.buildContentProvider(ReadModeProvider.class).create().get();
+        mockPrefsHelper = mock(PrefsHelper.class);
+        mockAutomationController = mock(AutomationController.class);
+        provider.prefsHelper = mockPrefsHelper;
+        provider.automationController = mockAutomationController;
+    }
+
+    @Test
+    public void query_returnsCurrentSettingsInASingleRow() {
+        // Given
+        when(mockPrefsHelper.isReadModeOn()).thenReturn(true);
+        when(mockPrefsHelper.getColorDropdownPosition()).thenReturn(2);
+        when(mockPrefsHelper.getCustomColor()).thenReturn(Constants.DEFAULT_CUSTOM_COLOR);
+        when(mockPrefsHelper.getColorIntensity()).thenReturn(30);
+        when(mockPrefsHelper.getBrightness()).thenReturn(70);
+
+        // When
+        try (Cursor cursor = provider.query(AutomationContract.SETTINGS_URI, null, null, null, null)) {
+            // Then
+            assertEquals(1, cursor.getCount());
+            assertTrue(cursor.moveToFirst());
+            assertEquals(1, cursor.getInt(cursor.getColumnIndexOrThrow(AutomationContract.KEY_READ_MODE_ON)));
+            assertEquals(Constants.GREEN, cursor.getString(cursor.getColumnIndexOrThrow(AutomationContract.KEY_COLOR)));
+            assertEquals(Constants.DEFAULT_CUSTOM_COLOR, cursor.getString(cursor.getColumnIndexOrThrow(AutomationContract.KEY_CUSTOM_COLOR)));
+            assertEquals(30, cursor.getInt(cursor.getColumnIndexOrThrow(AutomationContract.KEY_COLOR_INTENSITY)));
+            assertEquals(70, cursor.getInt(cursor.getColumnIndexOrThrow(AutomationContract.KEY_BRIGHTNESS)));
+        }
+    }
+
+    @Test
+    public void update_appliesValuesAndReturnsNumberOfChanges() {
+        // Given
+        when(mockAutomationController.apply(any(AutomationRequest.class))).thenReturn(2);
+        final ContentValues values = new ContentValues();
+        values.put(AutomationContract.KEY_READ_MODE_ON, true);
+        values.put(AutomationContract.KEY_BRIGHTNESS, 40);
+
+        // When
+        final int changes = provider.update(AutomationContract.SETTINGS_URI, values, null, null);
+
+        // Then
+        assertEquals(2, changes);
+        verify(mockAutomationController).apply(any(AutomationRequest.class));
+    }
+
+    @Test
+    public void unknownUri_isRejected() {
+        final Uri unknownUri = Uri.parse("content://" + AutomationContract.AUTHORITY + "/unknown");
+
+        assertThrows(IllegalArgumentException.class, () -> provider.update(unknownUri, new ContentValues(), null, null));
+        verify(mockAutomationController, never()).apply(any(AutomationRequest.class));
+    }
+
+    @Test
+    public void insertAndDelete_areIgnored() {
+        assertNull(provider.insert(AutomationContract.SETTINGS_URI, new ContentValues()));
+        assertEquals(0, provider.delete(AutomationContract.SETTINGS_URI, null, null));
+        verify(mockAutomationController, never()).apply(any(AutomationRequest.class));
+    }
+}
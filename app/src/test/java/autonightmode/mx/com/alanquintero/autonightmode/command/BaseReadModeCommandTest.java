@@ -109,6 +109,25 @@ public class BaseReadModeCommandTest extends BaseTest {
         Mockito.verify(readModeManager).startReadMode();
     }
 
+    @Test
+    public void previewCustomColor() {
+        // When
+        baseReadModeCommand.previewCustomColor("#FF00FF00");
+
+        // Then
+        Mockito.verify(readModeManager).previewCustomColor("#FF00FF00");
+        Mockito.verify(readModeManager, Mockito.never()).stopReadMode();
+    }
+
+    @Test
+    public void revertPreview() {
+        // When
+        baseReadModeCommand.revertPreview();
+
+        // Then
+        Mockito.verify(readModeManager).revertPreview();
+    }
+
     @Test
     public void stopReadMode() {
         // When
@@ -8,20 +8,19 @@ import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyBoolean;
 import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doReturn;
-import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.mockStatic;
 import static org.mockito.Mockito.never;
 
-import android.app.ActivityManager;
-import android.content.ComponentName;
 import android.content.Context;
-import android.content.Intent;
+import android.graphics.Color;
 
 import autonightmode.mx.com.alanquintero.autonightmode.BaseTest;
 import autonightmode.mx.com.alanquintero.autonightmode.model.ReadModeSettings;
 import autonightmode.mx.com.alanquintero.autonightmode.observer.readmode.ReadModeSubject;
-import autonightmode.mx.com.alanquintero.autonightmode.service.DrawOverAppsService;
+import autonightmode.mx.com.alanquintero.autonightmode.service.OverlayClient;
 import autonightmode.mx.com.alanquintero.autonightmode.util.Constants;
 import autonightmode.mx.com.alanquintero.autonightmode.util.PrefsHelper;
 
@@ -35,9 +34,6 @@ import org.mockito.Mockito;
 import org.mockito.MockitoAnnotations;
 import org.mockito.junit.jupiter.MockitoExtension;
 
-import java.util.ArrayList;
-import java.util.List;
-
 @ExtendWith(MockitoExtension.class)
 public class ReadModeManagerTest extends BaseTest {
 
@@ -69,15 +65,7 @@ public class ReadModeManagerTest extends BaseTest {
     @Test
     public void startReadMode_serviceIsNotRunning() {
         // Given
-        final ActivityManager manager = mock(ActivityManager.class);
-        final List<ActivityManager.RunningServiceInfo> runningServiceInfos = new ArrayList<>();
-        final ActivityManager.RunningServiceInfo service = mock(ActivityManager.RunningServiceInfo.class);
-        runningServiceInfos.add(service);
-        service.service = mock(ComponentName.class);
-
-        doReturn(manager).when(context).getSystemService(Context.ACTIVITY_SERVICE);
-        doReturn(runningServiceInfos).when(manager).getRunningServices(Integer.MAX_VALUE);
-        doReturn("").when(service.service).getClassName();
+        OverlayClient.setServiceRunning(context, false);
 
         // When
         readModeManager.startReadMode();
@@ -88,50 +76,32 @@ public class ReadModeManagerTest extends BaseTest {
         Mockito.verify(prefsHelper).saveProperty(eq(Constants.PREF_IS_READ_MODE_ON), anyBoolean());
         Mockito.verify(prefsHelper).saveProperty(eq(Constants.PREF_COLOR_INTENSITY), anyInt());
         Mockito.verify(prefsHelper).saveProperty(eq(Constants.PREF_BRIGHTNESS), anyInt());
-        Mockito.verify(prefsHelper).tryToSaveColorSettingsProperty(readModeSettings);
+        Mockito.verify(prefsHelper).tryToSavePresetSettings(readModeSettings);
         Mockito.verify(context).startService(any());
-        Mockito.verify(readModeSettings).setReadModeIntent(any());
     }
 
     @Test
     public void startReadMode_serviceIsRunning() {
         // Given
-        final ActivityManager manager = mock(ActivityManager.class);
-        final List<ActivityManager.RunningServiceInfo> runningServiceInfos = new ArrayList<>();
-        final ActivityManager.RunningServiceInfo service = mock(ActivityManager.RunningServiceInfo.class);
-        runningServiceInfos.add(service);
-        service.service = mock(ComponentName.class);
-
-        doReturn(manager).when(context).getSystemService(Context.ACTIVITY_SERVICE);
-        doReturn(runningServiceInfos).when(manager).getRunningServices(Integer.MAX_VALUE);
-        doReturn("android.content.Intent").when(service.service).getClassName();
+        OverlayClient.setServiceRunning(context, true);
 
         // When
         readModeManager.startReadMode();
 
-        // Then
+        // Then - the overlay is in standby, the snapshot is sent to the running service
         Mockito.verify(readModeSubject).setReadModeOn(eq(true));
         Mockito.verify(readModeSettings).setIsReadModeOn(eq(true));
         Mockito.verify(prefsHelper).saveProperty(eq(Constants.PREF_IS_READ_MODE_ON), anyBoolean());
         Mockito.verify(prefsHelper).saveProperty(eq(Constants.PREF_COLOR_INTENSITY), anyInt());
         Mockito.verify(prefsHelper).saveProperty(eq(Constants.PREF_BRIGHTNESS), anyInt());
-        Mockito.verify(prefsHelper).tryToSaveColorSettingsProperty(readModeSettings);
-        Mockito.verify(context, never()).startService(any());
-        Mockito.verify(readModeSettings, never()).setReadModeIntent(any());
+        Mockito.verify(prefsHelper).tryToSavePresetSettings(readModeSettings);
+        Mockito.verify(context).startService(any());
     }
 
     @Test
     public void readModeServiceIsRunning() {
         // Given
-        final ActivityManager manager = mock(ActivityManager.class);
-        final List<ActivityManager.RunningServiceInfo> runningServiceInfos = new ArrayList<>();
-        final ActivityManager.RunningServiceInfo service = mock(ActivityManager.RunningServiceInfo.class);
-        runningServiceInfos.add(service);
-        service.service = mock(ComponentName.class);
-
-        doReturn(manager).when(context).getSystemService(Context.ACTIVITY_SERVICE);
-        doReturn(runningServiceInfos).when(manager).getRunningServices(Integer.MAX_VALUE);
-        doReturn("android.content.Intent").when(service.service).getClassName();
+        OverlayClient.setServiceRunning(context, true);
 
         // When
         readModeManager.startReadMode();
@@ -149,15 +119,7 @@ public class ReadModeManagerTest extends BaseTest {
     @Test
     public void readModeServiceShouldNotBeRunningAfterStopReadMode() {
         // Given
-        final ActivityManager manager = mock(ActivityManager.class);
-        final List<ActivityManager.RunningServiceInfo> runningServiceInfos = new ArrayList<>();
-        final ActivityManager.RunningServiceInfo service = mock(ActivityManager.RunningServiceInfo.class);
-        runningServiceInfos.add(service);
-        service.service = mock(ComponentName.class);
-
-        doReturn(manager).when(context).getSystemService(Context.ACTIVITY_SERVICE);
-        doReturn(runningServiceInfos).when(manager).getRunningServices(Integer.MAX_VALUE);
-        doReturn("android.content.Intent").when(service.service).getClassName();
+        OverlayClient.setServiceRunning(context, true);
 
         // When
         readModeManager.startReadMode();
@@ -169,9 +131,25 @@ public class ReadModeManagerTest extends BaseTest {
     }
 
     @Test
-    public void stopReadMode() {
+    public void syncReadMode_notifiesObserversWithoutSavingOrSending() {
+        // Given
+        OverlayClient.setServiceRunning(context, true);
+
+        // When
+        readModeManager.syncReadMode(true);
+
+        // Then
+        Mockito.verify(readModeSubject).setReadModeOn(eq(true));
+        Mockito.verify(readModeSettings).setIsReadModeOn(eq(true));
+        assertTrue(readModeManager.isReadModeServiceRunning());
+        Mockito.verify(prefsHelper, never()).saveProperty(anyString(), anyBoolean());
+        Mockito.verify(context, never()).startService(any());
+    }
+
+    @Test
+    public void stopReadMode_whenServiceNotRunning_doesNotStartIt() {
         // Given
-        readModeSettings.setReadModeIntent(mock(Intent.class));
+        OverlayClient.setServiceRunning(context, false);
 
         // When
         readModeManager.stopReadMode();
@@ -180,52 +158,102 @@ public class ReadModeManagerTest extends BaseTest {
         Mockito.verify(readModeSubject).setReadModeOn(eq(false));
         Mockito.verify(readModeSettings).setIsReadModeOn(eq(false));
         Mockito.verify(prefsHelper).saveProperty(eq(Constants.PREF_IS_READ_MODE_ON), anyBoolean());
-        Mockito.verify(context).stopService(any());
-        Mockito.verify(readModeSettings).setReadModeIntent(null);
+        Mockito.verify(context, never()).startService(any());
+        Mockito.verify(context, never()).stopService(any());
     }
 
     @Test
-    public void updateOverlay_whenServiceAvailable_callsOnUpdate() {
-        try (MockedStatic<DrawOverAppsService> mockedStatic =
-                     Mockito.mockStatic(DrawOverAppsService.class)) {
-            // Given
-            final DrawOverAppsService serviceMock = mock(DrawOverAppsService.class);
-            mockedStatic.when(DrawOverAppsService::getInstance).thenReturn(serviceMock);
+    public void stopReadMode_whenServiceRunning_sendsStandbyWithoutStoppingService() {
+        // Given
+        OverlayClient.setServiceRunning(context, true);
 
-            final ReadModeManager manager = new ReadModeManager(context, prefsHelper, readModeSubject, readModeSettings);
+        // When
+        readModeManager.stopReadMode();
+
+        // Then
+        Mockito.verify(readModeSubject).setReadModeOn(eq(false));
+        Mockito.verify(prefsHelper).saveProperty(eq(Constants.PREF_IS_READ_MODE_ON), anyBoolean());
+        Mockito.verify(context).startService(any());
+        Mockito.verify(context, never()).stopService(any());
+        assertFalse(readModeManager.isReadModeServiceRunning());
+    }
+
+    @Test
+    public void updateOverlay_whenServiceRunning_sendsSnapshot() {
+        // Given
+        OverlayClient.setServiceRunning(context, true);
+        final ReadModeManager manager = Mockito.spy(new ReadModeManager(context, prefsHelper, readModeSubject, readModeSettings));
+
+        // When
+        manager.updateOverlay();
+
+        // Then
+        Mockito.verify(context).startService(any());
+        Mockito.verify(manager, never()).startReadMode();
+    }
+
+    @Test
+    public void updateOverlay_whenServiceNotRunning_callsStartReadMode() {
+        // Given
+        OverlayClient.setServiceRunning(context, false);
+        final ReadModeManager manager = Mockito.spy(new ReadModeManager(context, prefsHelper, readModeSubject, readModeSettings));
+
+        // When
+        manager.updateOverlay();
+
+        // Then
+        Mockito.verify(manager).startReadMode();
+    }
+
+    @Test
+    public void previewCustomColor_whenReadModeOn_sendsPreviewWithoutSaving() {
+        try (MockedStatic<Color> ignored = mockStatic(Color.class)) {
+            // Given
+            OverlayClient.setServiceRunning(context, true);
+            doReturn(true).when(readModeSettings).isReadModeOn();
+            doReturn(true).when(prefsHelper).isReadModeOn();
 
             // When
-            manager.updateOverlay();
+            readModeManager.previewCustomColor("#FF112233");
+            readModeManager.previewCustomColor("#FF445566");
 
             // Then
-            Mockito.verify(serviceMock).onUpdate();
+            Mockito.verify(context, Mockito.times(2)).startService(any());
+            Mockito.verify(prefsHelper, never()).saveProperty(anyString(), anyString());
+            Mockito.verify(prefsHelper, never()).saveProperty(anyString(), anyBoolean());
+            // The overlay to go back to is read once per preview
+            Mockito.verify(prefsHelper, Mockito.times(1)).getColor();
         }
     }
 
     @Test
-    public void updateOverlay_whenServiceNull_callsStartReadMode() {
+    public void previewCustomColor_whenReadModeOff_sendsNothing() {
         // Given
-        final ActivityManager activityManager = mock(ActivityManager.class);
-        final List<ActivityManager.RunningServiceInfo> runningServiceInfos = new ArrayList<>();
-        final ActivityManager.RunningServiceInfo service = mock(ActivityManager.RunningServiceInfo.class);
-        runningServiceInfos.add(service);
-        service.service = mock(ComponentName.class);
+        doReturn(false).when(readModeSettings).isReadModeOn();
 
-        doReturn(activityManager).when(context).getSystemService(Context.ACTIVITY_SERVICE);
-        doReturn(runningServiceInfos).when(activityManager).getRunningServices(Integer.MAX_VALUE);
-        doReturn("android.content.Intent").when(service.service).getClassName();
+        // When
+        readModeManager.previewCustomColor("#FF112233");
+        readModeManager.revertPreview();
 
-        try (MockedStatic<DrawOverAppsService> mockedStatic =
-                     Mockito.mockStatic(DrawOverAppsService.class)) {
-            mockedStatic.when(DrawOverAppsService::getInstance).thenReturn(null);
+        // Then
+        Mockito.verify(context, never()).startService(any());
+    }
 
-            final ReadModeManager manager = Mockito.spy(new ReadModeManager(context, prefsHelper, readModeSubject, readModeSettings));
+    @Test
+    public void revertPreview_sendsPreviousSnapshotOnce() {
+        try (MockedStatic<Color> ignored = mockStatic(Color.class)) {
+            // Given
+            OverlayClient.setServiceRunning(context, true);
+            doReturn(true).when(readModeSettings).isReadModeOn();
+            doReturn(true).when(prefsHelper).isReadModeOn();
+            readModeManager.previewCustomColor("#FF112233");
 
             // When
-            manager.updateOverlay();
+            readModeManager.revertPreview();
+            readModeManager.revertPreview();
 
-            // Then
-            Mockito.verify(manager).startReadMode();
+            // Then - one preview and one revert
+            Mockito.verify(context, Mockito.times(2)).startService(any());
         }
     }
 }
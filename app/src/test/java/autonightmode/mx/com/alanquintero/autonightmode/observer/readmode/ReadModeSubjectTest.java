@@ -71,6 +71,21 @@ public class ReadModeSubjectTest extends BaseTest {
         Mockito.verify(observer2, never()).onReadModeChanged(anyBoolean());
     }
 
+    @Test
+    public void unregisterObserver() {
+        // Given
+        readModeSubject.registerObserver(observer1);
+        readModeSubject.registerObserver(observer2);
+        readModeSubject.unregisterObserver(observer1);
+
+        // When
+        readModeSubject.setReadModeOn(readModeOn);
+
+        // Then
+        Mockito.verify(observer1, never()).onReadModeChanged(anyBoolean());
+        Mockito.verify(observer2).onReadModeChanged(readModeOn);
+    }
+
     @Test
     public void notifyObservers_NoObservers_NoCrash() {
         // When
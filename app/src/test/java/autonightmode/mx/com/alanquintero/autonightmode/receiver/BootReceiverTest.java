@@ -0,0 +1,157 @@
+/*****************************************************************
+ * Copyright (C) 2025 Alan Quintero <https://github.com/alanquintero/>
+ *****************************************************************/
+package autonightmode.mx.com.alanquintero.autonightmode.receiver;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.mockStatic;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import android.app.Application;
+import android.content.Intent;
+import android.os.Build;
+
+import androidx.test.core.app.ApplicationProvider;
+
+import autonightmode.mx.com.alanquintero.autonightmode.service.DrawOverAppsService;
+import autonightmode.mx.com.alanquintero.autonightmode.service.OverlayClient;
+import autonightmode.mx.com.alanquintero.autonightmode.util.Constants;
+import autonightmode.mx.com.alanquintero.autonightmode.util.PrefsHelper;
+import autonightmode.mx.com.alanquintero.autonightmode.util.StartupTracer;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.MockedStatic;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.Shadows;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowSettings;
+
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = {Build.VERSION_CODES.O})
+public class BootReceiverTest {
+
+    private Application application;
+    private MockedStatic<PrefsHelper> prefsHelperStatic;
+    private PrefsHelper mockPrefsHelper;
+    private BootReceiver bootReceiver;
+
+    @Before
+    public void setUp() {
+        application = ApplicationProvider.getApplicationContext();
+        mockPrefsHelper = mock(PrefsHelper.class);
+        prefsHelperStatic = mockStatic(PrefsHelper.class);
+        prefsHelperStatic.when(() -> PrefsHelper.init(any())).thenReturn(mockPrefsHelper);
+        ShadowSettings.setCanDrawOverlays(true);
+        bootReceiver = new BootReceiver();
+        OverlayClient.setServiceRunning(application, false);
+    }
+
+    @After
+    public void tearDown() {
+        prefsHelperStatic.close();
+        ShadowSettings.setCanDrawOverlays(false);
+        StartupTracer.finish("test finished");
+    }
+
+    @Test
+    public void onReceive_bootCompletedAndReadModeOn_startsOnlyTheService() {
+        // Given
+        when(mockPrefsHelper.isReadModeOn()).thenReturn(true);
+
+        // When
+        bootReceiver.onReceive(application, new Intent(Intent.ACTION_BOOT_COMPLETED));
+
+        // Then
+        final Intent startedService = Shadows.shadowOf(application).getNextStartedService();
+        assertEquals(DrawOverAppsService.class.getName(), startedService.getComponent().getClassName());
+        assertNull(Shadows.shadowOf(application).getNextStartedActivity());
+        verify(mockPrefsHelper, never()).stageProperty(anyString(), anyBoolean());
+        prefsHelperStatic.verify(() -> PrefsHelper.moveToDeviceProtectedStorage(any()));
+        // The restore is timed until the service is requested
+        assertFalse(StartupTracer.isTracing());
+        assertTrue(StartupTracer.getElapsed("settings read") >= 0);
+        assertTrue(StartupTracer.getElapsed("service requested") >= 0);
+    }
+
+    @Test
+    public void onReceive_lockedBootWithAutoStart_turnsReadModeOnAndStartsService() {
+        // Given
+        when(mockPrefsHelper.isReadModeOn()).thenReturn(false);
+        when(mockPrefsHelper.getAutoStartReadMode()).thenReturn(true);
+
+        // When
+        bootReceiver.onReceive(application, new Intent(Intent.ACTION_LOCKED_BOOT_COMPLETED));
+
+        // Then
+        verify(mockPrefsHelper).stageProperty(Constants.PREF_IS_READ_MODE_ON, true);
+        verify(mockPrefsHelper).flushPendingProperties();
+        final Intent startedService = Shadows.shadowOf(application).getNextStartedService();
+        assertEquals(DrawOverAppsService.class.getName(), startedService.getComponent().getClassName());
+        // The service gets the snapshot to draw, it does not read the staged value
+        assertTrue(startedService.getBooleanExtra("isReadModeOn", false));
+        // Credential storage is not available yet
+        prefsHelperStatic.verify(() -> PrefsHelper.moveToDeviceProtectedStorage(any()), never());
+    }
+
+    @Test
+    public void onReceive_packageReplacedAndReadModeOff_doesNothing() {
+        // Given
+        when(mockPrefsHelper.isReadModeOn()).thenReturn(false);
+        when(mockPrefsHelper.getAutoStartReadMode()).thenReturn(false);
+
+        // When
+        bootReceiver.onReceive(application, new Intent(Intent.ACTION_MY_PACKAGE_REPLACED));
+
+        // Then
+        assertNull(Shadows.shadowOf(application).getNextStartedService());
+    }
+
+    @Test
+    public void onReceive_withoutOverlayPermission_doesNotStartService() {
+        // Given
+        ShadowSettings.setCanDrawOverlays(false);
+        when(mockPrefsHelper.isReadModeOn()).thenReturn(true);
+
+        // When
+        bootReceiver.onReceive(application, new Intent(Intent.ACTION_BOOT_COMPLETED));
+
+        // Then
+        assertNull(Shadows.shadowOf(application).getNextStartedService());
+    }
+
+    @Test
+    public void onReceive_whenAlreadyRestored_doesNotReadSettings() {
+        // Given - the overlay was restored on LOCKED_BOOT_COMPLETED
+        OverlayClient.setServiceRunning(application, true);
+
+        // When
+        bootReceiver.onReceive(application, new Intent(Intent.ACTION_BOOT_COMPLETED));
+
+        // Then
+        prefsHelperStatic.verify(() -> PrefsHelper.init(any()), never());
+        assertNull(Shadows.shadowOf(application).getNextStartedService());
+    }
+
+    @Test
+    public void onReceive_unexpectedAction_isIgnored() {
+        // When
+        bootReceiver.onReceive(application, new Intent(Intent.ACTION_SCREEN_ON));
+
+        // Then
+        prefsHelperStatic.verify(() -> PrefsHelper.init(any()), never());
+        assertNull(Shadows.shadowOf(application).getNextStartedService());
+    }
+}
@@ -0,0 +1,218 @@
+/*****************************************************************
+ * Copyright (C) 2025 Alan Quintero <https://github.com/alanquintero/>
+ *****************************************************************/
+package autonightmode.mx.com.alanquintero.autonightmode.schedule;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import android.app.AlarmManager;
+import android.app.Application;
+import android.content.Context;
+import android.content.Intent;
+import android.os.Build;
+
+import androidx.test.core.app.ApplicationProvider;
+
+import autonightmode.mx.com.alanquintero.autonightmode.model.Schedule;
+import autonightmode.mx.com.alanquintero.autonightmode.service.DrawOverAppsService;
+import autonightmode.mx.com.alanquintero.autonightmode.service.OverlayClient;
+import autonightmode.mx.com.alanquintero.autonightmode.util.Constants;
+import autonightmode.mx.com.alanquintero.autonightmode.util.PrefsHelper;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.Shadows;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowAlarmManager;
+import org.robolectric.shadows.ShadowSettings;
+
+import java.util.Calendar;
+import java.util.TimeZone;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = {Build.VERSION_CODES.O})
+public class ReadModeSchedulerTest {
+
+    private static final TimeZone UTC = TimeZone.getTimeZone("UTC");
+    private static final Schedule SCHEDULE = new Schedule(Schedule.Mode.TIMES, 21 * 60, 7 * 60, 10, Double.NaN, Double.NaN);
+
+    private Application application;
+    private PrefsHelper mockPrefsHelper;
+    private ShadowAlarmManager shadowAlarmManager;
+
+    @Before
+    public void setUp() {
+        application = ApplicationProvider.getApplicationContext();
+        mockPrefsHelper = mock(PrefsHelper.class);
+        when(mockPrefsHelper.getSchedule()).thenReturn(Schedule.Mode.TIMES.name());
+        when(mockPrefsHelper.getScheduleStart()).thenReturn(21 * 60);
+        when(mockPrefsHelper.getScheduleEnd()).thenReturn(7 * 60);
+        when(mockPrefsHelper.getScheduleRamp()).thenReturn(10);
+        when(mockPrefsHelper.getScheduleLocation()).thenReturn(Constants.DEFAULT_SCHEDULE_LOCATION);
+        shadowAlarmManager = Shadows.shadowOf((AlarmManager) application.getSystemService(Context.ALARM_SERVICE));
+        ShadowSettings.setCanDrawOverlays(true);
+        OverlayClient.setServiceRunning(application, false);
+    }
+
+    @After
+    public void tearDown() {
+        ShadowSettings.setCanDrawOverlays(false);
+    }
+
+    @Test
+    public void update_scheduleOff_setsNoAlarm() {
+        // Given
+        when(mockPrefsHelper.getSchedule()).thenReturn(Schedule.Mode.OFF.name());
+
+        // When
+        final boolean isApplied = ReadModeScheduler.update(application, mockPrefsHelper);
+
+        // Then
+        assertFalse(isApplied);
+        assertNull(shadowAlarmManager.getNextScheduledAlarm());
+        verify(mockPrefsHelper, never()).saveProperty(eq(Constants.PREF_SCHEDULE_LAST_TRANSITION), anyLong());
+    }
+
+    @Test
+    public void update_firstTime_appliesTheCurrentStateAndSetsOneAlarmForTheNextTransition() {
+        // Given
+        final long now = System.currentTimeMillis();
+        final TimeZone timeZone = TimeZone.getDefault();
+        final ScheduleCalculator.Transition previous = ScheduleCalculator.getPreviousTransition(SCHEDULE, now, timeZone);
+        final ScheduleCalculator.Transition next = ScheduleCalculator.getNextTransition(SCHEDULE, now, timeZone);
+        assertNotNull(previous);
+        assertNotNull(next);
+
+        // When
+        final boolean isApplied = ReadModeScheduler.update(application, mockPrefsHelper);
+
+        // Then
+        assertTrue(isApplied);
+        verify(mockPrefsHelper).saveProperty(Constants.PREF_SCHEDULE_LAST_TRANSITION, previous.getTime());
+        assertEquals(1, shadowAlarmManager.getScheduledAlarms().size());
+        final ShadowAlarmManager.ScheduledAlarm alarm = shadowAlarmManager.getNextScheduledAlarm();
+        assertEquals(AlarmManager.RTC, alarm.type);
+        assertEquals(next.getTime(), alarm.triggerAtTime);
+    }
+
+    @Test
+    public void update_transitionAlreadyApplied_onlySetsTheAlarm() {
+        // Given
+        final ScheduleCalculator.Transition previous = ScheduleCalculator.getPreviousTransition(SCHEDULE,
+                System.currentTimeMillis(), TimeZone.getDefault());
+        assertNotNull(previous);
+        when(mockPrefsHelper.getScheduleLastTransition()).thenReturn(previous.getTime());
+
+        // When
+        final boolean isApplied = ReadModeScheduler.update(application, mockPrefsHelper);
+
+        // Then
+        assertFalse(isApplied);
+        verify(mockPrefsHelper, never()).stageProperty(eq(Constants.PREF_IS_READ_MODE_ON), anyBoolean());
+        assertNotNull(shadowAlarmManager.getNextScheduledAlarm());
+    }
+
+    @Test
+    public void applyTransition_turnOnDuringTheRamp_startsTheOverlayWithAFadeIn() {
+        // Given
+        final long now = System.currentTimeMillis();
+        final ScheduleCalculator.Transition transition = new ScheduleCalculator.Transition(now - 60_000, true);
+
+        // When
+        ReadModeScheduler.applyTransition(application, mockPrefsHelper, SCHEDULE, transition, now);
+
+        // Then
+        verify(mockPrefsHelper).stageProperty(Constants.PREF_IS_READ_MODE_ON, true);
+        verify(mockPrefsHelper).flushPendingProperties();
+        final Intent started = Shadows.shadowOf(application).getNextStartedService();
+        assertNotNull(started);
+        assertEquals(DrawOverAppsService.class.getName(), started.getComponent().getClassName());
+        assertTrue(started.getBooleanExtra("isReadModeOn", false));
+        assertEquals(transition.getTime(), started.getLongExtra("rampStart", 0));
+        assertEquals(transition.getTime() + SCHEDULE.getRampMillis(), started.getLongExtra("rampEnd", 0));
+        assertTrue(started.getBooleanExtra("isFadeIn", false));
+    }
+
+    @Test
+    public void applyTransition_turnOnAfterTheRamp_startsTheOverlayWithoutRamp() {
+        // Given - the device was OFF at the transition time
+        final long now = System.currentTimeMillis();
+        final ScheduleCalculator.Transition transition = new ScheduleCalculator.Transition(now - 60 * 60_000, true);
+
+        // When
+        ReadModeScheduler.applyTransition(application, mockPrefsHelper, SCHEDULE, transition, now);
+
+        // Then
+        final Intent started = Shadows.shadowOf(application).getNextStartedService();
+        assertNotNull(started);
+        assertTrue(started.getBooleanExtra("isReadModeOn", false));
+        assertFalse(started.hasExtra("rampStart"));
+    }
+
+    @Test
+    public void applyTransition_sameState_doesNotWriteTheSettings() {
+        // Given
+        when(mockPrefsHelper.isReadModeOn()).thenReturn(false);
+        final long now = System.currentTimeMillis();
+
+        // When
+        ReadModeScheduler.applyTransition(application, mockPrefsHelper, SCHEDULE, new ScheduleCalculator.Transition(now, false), now);
+
+        // Then
+        verify(mockPrefsHelper, never()).stageProperty(eq(Constants.PREF_IS_READ_MODE_ON), anyBoolean());
+        // The overlay service is not running, there is nothing to put in standby
+        assertNull(Shadows.shadowOf(application).getNextStartedService());
+    }
+
+    @Test
+    public void countWakeup_countsPerDay() {
+        // Given
+        final long now = utc(2024, Calendar.JUNE, 21, 21, 0);
+        when(mockPrefsHelper.getScheduleWakeupDay()).thenReturn(20240621);
+        when(mockPrefsHelper.getScheduleWakeupCount()).thenReturn(1);
+
+        // When
+        final int count = ReadModeScheduler.countWakeup(mockPrefsHelper, now, UTC);
+
+        // Then
+        assertEquals(2, count);
+        verify(mockPrefsHelper).saveProperty(Constants.PREF_SCHEDULE_WAKEUP_COUNT, 2);
+    }
+
+    @Test
+    public void countWakeup_newDay_startsAgain() {
+        // Given
+        final long now = utc(2024, Calendar.JUNE, 22, 7, 0);
+        when(mockPrefsHelper.getScheduleWakeupDay()).thenReturn(20240621);
+        when(mockPrefsHelper.getScheduleWakeupCount()).thenReturn(2);
+
+        // When
+        final int count = ReadModeScheduler.countWakeup(mockPrefsHelper, now, UTC);
+
+        // Then
+        assertEquals(1, count);
+        verify(mockPrefsHelper).saveProperty(Constants.PREF_SCHEDULE_WAKEUP_DAY, 20240622);
+        verify(mockPrefsHelper).saveProperty(Constants.PREF_SCHEDULE_WAKEUP_COUNT, 1);
+    }
+
+    private static long utc(final int year, final int month, final int day, final int hour, final int minute) {
+        final Calendar calendar = Calendar.getInstance(UTC);
+        calendar.clear();
+        calendar.set(year, month, day, hour, minute);
+        return calendar.getTimeInMillis();
+    }
+}
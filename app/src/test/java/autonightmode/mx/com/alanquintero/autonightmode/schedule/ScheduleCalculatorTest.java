@@ -0,0 +1,158 @@
+/*****************************************************************
+ * Copyright (C) 2025 Alan Quintero <https://github.com/alanquintero/>
+ *****************************************************************/
+package autonightmode.mx.com.alanquintero.autonightmode.schedule;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import autonightmode.mx.com.alanquintero.autonightmode.model.Schedule;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Calendar;
+import java.util.List;
+import java.util.TimeZone;
+
+public class ScheduleCalculatorTest {
+
+    private static final TimeZone UTC = TimeZone.getTimeZone("UTC");
+    private static final Schedule TIMES = new Schedule(Schedule.Mode.TIMES, 21 * 60, 7 * 60, 10, Double.NaN, Double.NaN);
+    private static final Schedule SUN_LONDON = new Schedule(Schedule.Mode.SUN, 21 * 60, 7 * 60, 10, 51.4779, 0.0);
+
+    @Test
+    public void getTransitions_scheduleOff_isEmpty() {
+        // Given
+        final Schedule schedule = new Schedule(Schedule.Mode.OFF, 21 * 60, 7 * 60, 10, Double.NaN, Double.NaN);
+        final long now = utc(2024, Calendar.JUNE, 21, 12, 0);
+
+        // When / Then
+        assertNull(ScheduleCalculator.getPreviousTransition(schedule, now, UTC));
+        assertNull(ScheduleCalculator.getNextTransition(schedule, now, UTC));
+    }
+
+    @Test
+    public void getTransitions_duringTheDay_readModeIsOffUntilTheStartTime() {
+        // Given
+        final long now = utc(2024, Calendar.JUNE, 21, 12, 0);
+
+        // When
+        final ScheduleCalculator.Transition previous = ScheduleCalculator.getPreviousTransition(TIMES, now, UTC);
+        final ScheduleCalculator.Transition next = ScheduleCalculator.getNextTransition(TIMES, now, UTC);
+
+        // Then
+        assertEquals(new ScheduleCalculator.Transition(utc(2024, Calendar.JUNE, 21, 7, 0), false), previous);
+        assertEquals(new ScheduleCalculator.Transition(utc(2024, Calendar.JUNE, 21, 21, 0), true), next);
+    }
+
+    @Test
+    public void getTransitions_atNight_readModeIsOnUntilTheEndTimeOfTheNextDay() {
+        // Given
+        final long now = utc(2024, Calendar.JUNE, 21, 23, 0);
+
+        // When
+        final ScheduleCalculator.Transition previous = ScheduleCalculator.getPreviousTransition(TIMES, now, UTC);
+        final ScheduleCalculator.Transition next = ScheduleCalculator.getNextTransition(TIMES, now, UTC);
+
+        // Then
+        assertEquals(new ScheduleCalculator.Transition(utc(2024, Calendar.JUNE, 21, 21, 0), true), previous);
+        assertEquals(new ScheduleCalculator.Transition(utc(2024, Calendar.JUNE, 22, 7, 0), false), next);
+    }
+
+    @Test
+    public void getTransitions_atTheTransitionTime_itIsThePreviousOne() {
+        // Given
+        final long now = utc(2024, Calendar.JUNE, 21, 21, 0);
+
+        // When
+        final ScheduleCalculator.Transition previous = ScheduleCalculator.getPreviousTransition(TIMES, now, UTC);
+        final ScheduleCalculator.Transition next = ScheduleCalculator.getNextTransition(TIMES, now, UTC);
+
+        // Then
+        assertNotNull(previous);
+        assertEquals(now, previous.getTime());
+        assertTrue(previous.isReadModeOn());
+        assertNotNull(next);
+        assertFalse(next.isReadModeOn());
+    }
+
+    @Test
+    public void getTransitions_sunMode_readModeIsOnFromSunset() {
+        // Given
+        final long now = utc(2024, Calendar.JUNE, 21, 12, 0);
+
+        // When
+        final ScheduleCalculator.Transition next = ScheduleCalculator.getNextTransition(SUN_LONDON, now, UTC);
+
+        // Then
+        assertNotNull(next);
+        assertTrue(next.isReadModeOn());
+        assertEquals(SunCalculator.getSunset(2024, Calendar.JUNE, 21, 51.4779, 0.0), next.getTime());
+    }
+
+    @Test
+    public void getTransitions_sunModeWithoutSunset_usesTheScheduleTimes() {
+        // Given - midnight sun in Tromsø
+        final Schedule schedule = new Schedule(Schedule.Mode.SUN, 21 * 60, 7 * 60, 10, 69.65, 18.96);
+        final long now = utc(2024, Calendar.JUNE, 21, 12, 0);
+
+        // When
+        final ScheduleCalculator.Transition next = ScheduleCalculator.getNextTransition(schedule, now, UTC);
+
+        // Then
+        assertEquals(new ScheduleCalculator.Transition(utc(2024, Calendar.JUNE, 21, 21, 0), true), next);
+    }
+
+    @Test
+    public void getTransitions_sunModeWithoutLocation_usesTheScheduleTimes() {
+        // Given
+        final Schedule schedule = new Schedule(Schedule.Mode.SUN, 21 * 60, 7 * 60, 10, Double.NaN, Double.NaN);
+        final long now = utc(2024, Calendar.JUNE, 21, 12, 0);
+
+        // When
+        final ScheduleCalculator.Transition next = ScheduleCalculator.getNextTransition(schedule, now, UTC);
+
+        // Then
+        assertEquals(new ScheduleCalculator.Transition(utc(2024, Calendar.JUNE, 21, 21, 0), true), next);
+    }
+
+    @Test
+    public void getTransitions_oneDay_twoTransitionsWhateverTheRamp() {
+        // Given
+        final long from = utc(2024, Calendar.JUNE, 21, 0, 0);
+        final long to = utc(2024, Calendar.JUNE, 22, 0, 0);
+
+        // When
+        final List<ScheduleCalculator.Transition> times = ScheduleCalculator.getTransitions(TIMES, from, to, UTC);
+        final List<ScheduleCalculator.Transition> sun = ScheduleCalculator.getTransitions(SUN_LONDON, from, to, UTC);
+
+        // Then
+        assertEquals(2, times.size());
+        assertFalse(times.get(0).isReadModeOn());
+        assertTrue(times.get(1).isReadModeOn());
+        assertEquals(2, sun.size());
+    }
+
+    @Test
+    public void getTransitions_followsTheLocalTimeZone() {
+        // Given - 21:00 in Mexico City is 03:00 UTC
+        final TimeZone mexicoCity = TimeZone.getTimeZone("America/Mexico_City");
+        final long now = utc(2025, Calendar.MARCH, 20, 20, 0);
+
+        // When
+        final ScheduleCalculator.Transition next = ScheduleCalculator.getNextTransition(TIMES, now, mexicoCity);
+
+        // Then
+        assertEquals(new ScheduleCalculator.Transition(utc(2025, Calendar.MARCH, 21, 3, 0), true), next);
+    }
+
+    private static long utc(final int year, final int month, final int day, final int hour, final int minute) {
+        final Calendar calendar = Calendar.getInstance(UTC);
+        calendar.clear();
+        calendar.set(year, month, day, hour, minute);
+        return calendar.getTimeInMillis();
+    }
+}
@@ -0,0 +1,78 @@
+/*****************************************************************
+ * Copyright (C) 2025 Alan Quintero <https://github.com/alanquintero/>
+ *****************************************************************/
+package autonightmode.mx.com.alanquintero.autonightmode.schedule;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Calendar;
+import java.util.TimeZone;
+
+public class SunCalculatorTest {
+
+    // The almanac times are rounded to the minute, allow a couple of minutes for the approximation
+    private static final long TOLERANCE_MS = 3 * 60_000L;
+
+    private static final double LONDON_LATITUDE = 51.4779;
+    private static final double LONDON_LONGITUDE = 0.0;
+
+    @Test
+    public void getSunrise_summerSolsticeInLondon() {
+        // 04:43 BST
+        assertTime(utc(2024, Calendar.JUNE, 21, 3, 43),
+                SunCalculator.getSunrise(2024, Calendar.JUNE, 21, LONDON_LATITUDE, LONDON_LONGITUDE));
+    }
+
+    @Test
+    public void getSunset_summerSolsticeInLondon() {
+        // 21:21 BST
+        assertTime(utc(2024, Calendar.JUNE, 21, 20, 21),
+                SunCalculator.getSunset(2024, Calendar.JUNE, 21, LONDON_LATITUDE, LONDON_LONGITUDE));
+    }
+
+    @Test
+    public void getSunriseAndSunset_winterSolsticeInLondon() {
+        assertTime(utc(2024, Calendar.DECEMBER, 21, 8, 4),
+                SunCalculator.getSunrise(2024, Calendar.DECEMBER, 21, LONDON_LATITUDE, LONDON_LONGITUDE));
+        assertTime(utc(2024, Calendar.DECEMBER, 21, 15, 53),
+                SunCalculator.getSunset(2024, Calendar.DECEMBER, 21, LONDON_LATITUDE, LONDON_LONGITUDE));
+    }
+
+    @Test
+    public void getSunriseAndSunset_westOfGreenwich() {
+        // Mexico City, 06:41 and 18:47 CST
+        assertTime(utc(2025, Calendar.MARCH, 20, 12, 41),
+                SunCalculator.getSunrise(2025, Calendar.MARCH, 20, 19.4326, -99.1332));
+        assertTime(utc(2025, Calendar.MARCH, 21, 0, 47),
+                SunCalculator.getSunset(2025, Calendar.MARCH, 20, 19.4326, -99.1332));
+    }
+
+    @Test
+    public void getSunrise_eastOfGreenwich_fallsOnThePreviousUtcDay() {
+        // Sydney, 07:00 AEST
+        assertTime(utc(2024, Calendar.JUNE, 20, 21, 0),
+                SunCalculator.getSunrise(2024, Calendar.JUNE, 21, -33.87, 151.21));
+    }
+
+    @Test
+    public void getSunriseAndSunset_insideThePolarCircle_noEvent() {
+        // Tromsø: midnight sun in June, polar night in December
+        assertEquals(SunCalculator.NO_EVENT, SunCalculator.getSunset(2024, Calendar.JUNE, 21, 69.65, 18.96));
+        assertEquals(SunCalculator.NO_EVENT, SunCalculator.getSunrise(2024, Calendar.DECEMBER, 21, 69.65, 18.96));
+    }
+
+    private static long utc(final int year, final int month, final int day, final int hour, final int minute) {
+        final Calendar calendar = Calendar.getInstance(TimeZone.getTimeZone("UTC"));
+        calendar.clear();
+        calendar.set(year, month, day, hour, minute);
+        return calendar.getTimeInMillis();
+    }
+
+    private static void assertTime(final long expected, final long actual) {
+        assertTrue(Math.abs(expected - actual) <= TOLERANCE_MS,
+                "Expected " + expected + " but was " + actual + " (" + (actual - expected) / 60_000 + " minutes off)");
+    }
+}
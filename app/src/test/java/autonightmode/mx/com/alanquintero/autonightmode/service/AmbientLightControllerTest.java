@@ -0,0 +1,149 @@
+/*****************************************************************
+ * Copyright (C) 2025 Alan Quintero <https://github.com/alanquintero/>
+ *****************************************************************/
+package autonightmode.mx.com.alanquintero.autonightmode.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.anyFloat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import android.content.Context;
+import android.hardware.Sensor;
+import android.hardware.SensorEvent;
+import android.hardware.SensorManager;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+
+import androidx.test.core.app.ApplicationProvider;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.Shadows;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowSensor;
+import org.robolectric.shadows.ShadowSensorManager;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = {Build.VERSION_CODES.O})
+public class AmbientLightControllerTest {
+
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+
+    private ShadowSensorManager shadowSensorManager;
+    private AmbientLightController.Listener listener;
+    private AmbientLightController ambientLightController;
+
+    @Before
+    public void setUp() {
+        final Context context = ApplicationProvider.getApplicationContext();
+        final SensorManager sensorManager = (SensorManager) context.getSystemService(Context.SENSOR_SERVICE);
+        shadowSensorManager = Shadows.shadowOf(sensorManager);
+        listener = mock(AmbientLightController.Listener.class);
+        ambientLightController = new AmbientLightController(sensorManager, new Handler(Looper.getMainLooper()), listener);
+    }
+
+    @After
+    public void tearDown() {
+        ambientLightController.stop();
+    }
+
+    @Test
+    public void start_withoutLightSensor_doesNotRegister() {
+        // When
+        ambientLightController.start();
+
+        // Then
+        assertFalse(ambientLightController.isStarted());
+        assertFalse(shadowSensorManager.hasListener(ambientLightController));
+        assertEquals(1f, ambientLightController.getLevel(), 0f);
+    }
+
+    @Test
+    public void startAndStop_registersAndUnregistersTheLightSensor() {
+        // Given
+        final Sensor lightSensor = ShadowSensor.newInstance(Sensor.TYPE_LIGHT);
+        shadowSensorManager.addSensor(lightSensor);
+
+        // When
+        ambientLightController.start();
+
+        // Then
+        assertTrue(ambientLightController.isStarted());
+        assertTrue(shadowSensorManager.hasListener(ambientLightController, lightSensor));
+
+        // When
+        ambientLightController.stop();
+
+        // Then
+        assertFalse(ambientLightController.isStarted());
+        assertFalse(shadowSensorManager.hasListener(ambientLightController));
+    }
+
+    @Test
+    public void batchedReadings_callListenerOnlyWhenTheStepChanges() {
+        // Given - a dark room
+        shadowSensorManager.addSensor(ShadowSensor.newInstance(Sensor.TYPE_LIGHT));
+        ambientLightController.start();
+        shadowSensorManager.sendSensorEventToListeners(createLightEvent(0, 5f));
+        verify(listener).onAmbientLevel(1f);
+
+        // When - a batch of 10 readings with a lamp flickering around the same light
+        for (int i = 1; i <= 10; i++) {
+            shadowSensorManager.sendSensorEventToListeners(createLightEvent(i * NANOS_PER_SECOND, i % 2 == 0 ? 4f : 8f));
+        }
+
+        // Then - still the same step
+        verify(listener, times(1)).onAmbientLevel(anyFloat());
+
+        // When - a batch of 10 readings after the lights were turned ON
+        for (int i = 11; i <= 20; i++) {
+            shadowSensorManager.sendSensorEventToListeners(createLightEvent(i * NANOS_PER_SECOND, 300f));
+        }
+
+        // Then - the filtered light moved up a few steps, the overlay is lighter
+        assertTrue(ambientLightController.getLevel() < 1f);
+        verify(listener, never()).onAmbientLevel(0.25f);
+    }
+
+    @Test
+    public void filter_followsTheReadingsByTheElapsedTime() {
+        // Then
+        assertEquals(100f, AmbientLightController.filter(100f, 400f, 0f), 0f);
+        assertEquals(250f, AmbientLightController.filter(100f, 400f, 3f), 0.01f);
+        assertTrue(AmbientLightController.filter(100f, 400f, 60f) > 380f);
+    }
+
+    @Test
+    public void getStep_usesHysteresisAroundTheBoundaries() {
+        // Then - first reading
+        assertEquals(0, AmbientLightController.getStep(-1, 5f));
+        assertEquals(2, AmbientLightController.getStep(-1, 60f));
+        assertEquals(5, AmbientLightController.getStep(-1, 20_000f));
+
+        // Then - 50 lux is a boundary, it is only crossed 20% past it
+        assertEquals(1, AmbientLightController.getStep(1, 55f));
+        assertEquals(2, AmbientLightController.getStep(1, 61f));
+        assertEquals(2, AmbientLightController.getStep(2, 45f));
+        assertEquals(1, AmbientLightController.getStep(2, 39f));
+
+        // Then - a big change crosses several steps at once
+        assertEquals(4, AmbientLightController.getStep(0, 2000f));
+        assertEquals(0, AmbientLightController.getStep(4, 1f));
+    }
+
+    private static SensorEvent createLightEvent(final long timestamp, final float lux) {
+        final SensorEvent event = ShadowSensorManager.createSensorEvent(1, Sensor.TYPE_LIGHT);
+        event.timestamp = timestamp;
+        event.values[0] = lux;
+        return event;
+    }
+}
@@ -0,0 +1,198 @@
+/*****************************************************************
+ * Copyright (C) 2025 Alan Quintero <https://github.com/alanquintero/>
+ *****************************************************************/
+package autonightmode.mx.com.alanquintero.autonightmode.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import android.content.ContentResolver;
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.provider.Settings;
+
+import androidx.test.core.app.ApplicationProvider;
+
+import autonightmode.mx.com.alanquintero.autonightmode.util.Constants;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.Shadows;
+import org.robolectric.annotation.Config;
+
+import java.time.Duration;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = {Build.VERSION_CODES.O})
+public class BacklightControllerTest {
+
+    private static final int USER_BRIGHTNESS = 200;
+
+    private ContentResolver contentResolver;
+    private SharedPreferences state;
+    private BacklightController.Listener listener;
+    private BacklightController backlightController;
+
+    @Before
+    public void setUp() {
+        final Context context = ApplicationProvider.getApplicationContext();
+        contentResolver = context.getContentResolver();
+        Settings.System.putInt(contentResolver, Settings.System.SCREEN_BRIGHTNESS, USER_BRIGHTNESS);
+        Settings.System.putInt(contentResolver, Settings.System.SCREEN_BRIGHTNESS_MODE,
+                Settings.System.SCREEN_BRIGHTNESS_MODE_AUTOMATIC);
+        state = context.getSharedPreferences(Constants.BACKLIGHT_STATE, Context.MODE_PRIVATE);
+        state.edit().clear().commit();
+        listener = mock(BacklightController.Listener.class);
+        backlightController = createBacklightController();
+    }
+
+    @After
+    public void tearDown() {
+        backlightController.stop();
+    }
+
+    @Test
+    public void dim_movesTheDimmingIntoTheBacklight() throws Exception {
+        // Given
+        assertTrue(backlightController.start());
+        assertEquals(Settings.System.SCREEN_BRIGHTNESS_MODE_MANUAL,
+                Settings.System.getInt(contentResolver, Settings.System.SCREEN_BRIGHTNESS_MODE));
+
+        // When - the backlight is not written yet, the overlay dims the screen
+        assertEquals(128, backlightController.dim(128));
+        idleFor(0);
+
+        // Then - the backlight is halved and the overlay draws almost nothing
+        assertEquals(100, Settings.System.getInt(contentResolver, Settings.System.SCREEN_BRIGHTNESS));
+        verify(listener).onBacklightChanged();
+        assertTrue(backlightController.dim(128) <= 1);
+    }
+
+    @Test
+    public void dim_writesAreThrottled() throws Exception {
+        // Given
+        backlightController.start();
+        backlightController.dim(128);
+        idleFor(0);
+
+        // When - a burst of levels within the interval
+        backlightController.dim(100);
+        backlightController.dim(50);
+        idleFor(BacklightController.MIN_WRITE_INTERVAL_MS / 2);
+
+        // Then
+        assertEquals(100, Settings.System.getInt(contentResolver, Settings.System.SCREEN_BRIGHTNESS));
+        verify(listener, times(1)).onBacklightChanged();
+
+        // When
+        idleFor(BacklightController.MIN_WRITE_INTERVAL_MS);
+
+        // Then - only the latest level is written
+        assertEquals(BacklightController.getBacklight(USER_BRIGHTNESS, 50),
+                Settings.System.getInt(contentResolver, Settings.System.SCREEN_BRIGHTNESS));
+        verify(listener, times(2)).onBacklightChanged();
+    }
+
+    @Test
+    public void stop_restoresTheUserBrightness() throws Exception {
+        // Given
+        backlightController.start();
+        backlightController.dim(150);
+        idleFor(0);
+
+        // When
+        backlightController.dim(50);
+        backlightController.stop();
+        idleFor(BacklightController.MIN_WRITE_INTERVAL_MS);
+
+        // Then - the pending write is dropped
+        assertFalse(backlightController.isStarted());
+        assertEquals(USER_BRIGHTNESS, Settings.System.getInt(contentResolver, Settings.System.SCREEN_BRIGHTNESS));
+        assertEquals(Settings.System.SCREEN_BRIGHTNESS_MODE_AUTOMATIC,
+                Settings.System.getInt(contentResolver, Settings.System.SCREEN_BRIGHTNESS_MODE));
+    }
+
+    @Test
+    public void start_afterTheProcessWasKilled_restoresTheSavedUserBrightness() throws Exception {
+        // Given - the process is killed with the backlight lowered
+        backlightController.start();
+        backlightController.dim(128);
+        idleFor(0);
+        assertEquals(100, Settings.System.getInt(contentResolver, Settings.System.SCREEN_BRIGHTNESS));
+
+        // When - the restarted service controls the backlight again, then stops
+        final BacklightController restarted = createBacklightController();
+        assertTrue(restarted.start());
+        restarted.dim(128);
+        idleFor(BacklightController.MIN_WRITE_INTERVAL_MS);
+
+        // Then - the dimming is not compounded and the brightness of the user is restored
+        assertEquals(100, Settings.System.getInt(contentResolver, Settings.System.SCREEN_BRIGHTNESS));
+        restarted.stop();
+        assertEquals(USER_BRIGHTNESS, Settings.System.getInt(contentResolver, Settings.System.SCREEN_BRIGHTNESS));
+        assertEquals(Settings.System.SCREEN_BRIGHTNESS_MODE_AUTOMATIC,
+                Settings.System.getInt(contentResolver, Settings.System.SCREEN_BRIGHTNESS_MODE));
+        assertFalse(state.contains(BacklightController.KEY_ORIGINAL_BRIGHTNESS));
+    }
+
+    @Test
+    public void stop_clearsTheSavedUserBrightness() {
+        // Given
+        backlightController.start();
+        assertEquals(USER_BRIGHTNESS, state.getInt(BacklightController.KEY_ORIGINAL_BRIGHTNESS, 0));
+
+        // When
+        backlightController.stop();
+
+        // Then - the next start reads the brightness of the user again
+        assertTrue(state.getAll().isEmpty());
+        Settings.System.putInt(contentResolver, Settings.System.SCREEN_BRIGHTNESS, 150);
+        createBacklightController().start();
+        assertEquals(150, state.getInt(BacklightController.KEY_ORIGINAL_BRIGHTNESS, 0));
+    }
+
+    @Test
+    public void dim_whenNotStarted_isDrawnByTheOverlay() {
+        // When
+        final int dimAlpha = backlightController.dim(128);
+        idleFor(BacklightController.MIN_WRITE_INTERVAL_MS);
+
+        // Then
+        assertEquals(128, dimAlpha);
+        verify(listener, never()).onBacklightChanged();
+    }
+
+    @Test
+    public void getBacklight_neverGoesUnderTheMinimum() {
+        assertEquals(USER_BRIGHTNESS, BacklightController.getBacklight(USER_BRIGHTNESS, 0));
+        assertEquals(BacklightController.MIN_BACKLIGHT, BacklightController.getBacklight(USER_BRIGHTNESS, 255));
+        // A user brightness already under the minimum is kept
+        assertEquals(5, BacklightController.getBacklight(5, 255));
+    }
+
+    @Test
+    public void getResidualDimAlpha_isTheDimmingTheBacklightCannotDo() {
+        assertEquals(100, BacklightController.getResidualDimAlpha(USER_BRIGHTNESS, USER_BRIGHTNESS, 100));
+        assertEquals(0, BacklightController.getResidualDimAlpha(USER_BRIGHTNESS, 100, 100));
+        assertEquals(255, BacklightController.getResidualDimAlpha(USER_BRIGHTNESS, BacklightController.MIN_BACKLIGHT, 255));
+    }
+
+    private BacklightController createBacklightController() {
+        return new BacklightController(contentResolver, state, new Handler(Looper.getMainLooper()), listener);
+    }
+
+    private static void idleFor(final long millis) {
+        Shadows.shadowOf(Looper.getMainLooper()).idleFor(Duration.ofMillis(millis));
+    }
+}
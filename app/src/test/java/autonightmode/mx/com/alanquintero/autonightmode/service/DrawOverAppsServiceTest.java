@@ -4,29 +4,46 @@
 package autonightmode.mx.com.alanquintero.autonightmode.service;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.atLeast;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.mockStatic;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import android.app.Service;
+import android.content.ComponentCallbacks2;
 import android.content.Context;
 import android.content.Intent;
 import android.graphics.Canvas;
+import android.hardware.Sensor;
+import android.hardware.SensorEvent;
+import android.hardware.SensorManager;
 import android.os.Build;
 import android.os.IBinder;
+import android.os.Looper;
+import android.os.PowerManager;
 import android.provider.Settings;
+import android.view.Display;
 import android.view.View;
 import android.view.WindowManager;
 
 import androidx.test.core.app.ApplicationProvider;
 
+import autonightmode.mx.com.alanquintero.autonightmode.model.AppProfiles;
+import autonightmode.mx.com.alanquintero.autonightmode.model.OverlaySnapshot;
 import autonightmode.mx.com.alanquintero.autonightmode.util.Constants;
 import autonightmode.mx.com.alanquintero.autonightmode.util.PrefsHelper;
 
@@ -41,6 +58,11 @@ import org.robolectric.RobolectricTestRunner;
 import org.robolectric.Shadows;
 import org.robolectric.annotation.Config;
 import org.robolectric.shadows.ShadowApplication;
+import org.robolectric.shadows.ShadowSensor;
+import org.robolectric.shadows.ShadowSensorManager;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicReference;
 
 @RunWith(RobolectricTestRunner.class)
 @Config(sdk = {Build.VERSION_CODES.O})
@@ -57,6 +79,9 @@ public class DrawOverAppsServiceTest {
         mocks = MockitoAnnotations.openMocks(this);
         context = ApplicationProvider.getApplicationContext();
 
+        // The overlay windows are owned by the main looper, so the tests see every update right away
+        DrawOverAppsService.renderLooperOverride = Looper.getMainLooper();
+
         // Create the service using Robolectric
         service = Robolectric.setupService(DrawOverAppsService.class);
 
@@ -74,6 +99,7 @@ public class DrawOverAppsServiceTest {
             service.onDestroy();
         }
         DrawOverAppsService.instanceRef = null;
+        DrawOverAppsService.renderLooperOverride = null;
     }
 
     @Test
@@ -120,7 +146,39 @@ public class DrawOverAppsServiceTest {
     }
 
     @Test
-    public void onCreate_whenHasOverlayPermissionAndReadModeOn_doesNotAddView() {
+    public void onCreate_overlayWindowIsAddedOnTheRenderThread() {
+        try (MockedStatic<Settings> settingsStatic = mockStatic(Settings.class);
+             MockedStatic<PrefsHelper> prefsHelperStatic = mockStatic(PrefsHelper.class)) {
+
+            // Given - a service with its own render thread
+            DrawOverAppsService.renderLooperOverride = null;
+            final DrawOverAppsService renderService = Robolectric.buildService(DrawOverAppsService.class).get();
+            settingsStatic.when(() -> Settings.canDrawOverlays(renderService)).thenReturn(true);
+            prefsHelperStatic.when(() -> PrefsHelper.init(renderService)).thenReturn(mockPrefsHelper);
+            when(mockPrefsHelper.isReadModeOn()).thenReturn(true);
+            when(mockPrefsHelper.getColor()).thenReturn(Constants.COLOR_YELLOW);
+            final AtomicReference<Thread> addViewThread = new AtomicReference<>();
+            doAnswer(invocation -> {
+                addViewThread.set(Thread.currentThread());
+                return null;
+            }).when(mockWindowManager).addView(any(View.class), any(WindowManager.LayoutParams.class));
+            Shadows.shadowOf(renderService.getApplication()).setSystemService(Context.WINDOW_SERVICE, mockWindowManager);
+
+            // When
+            renderService.onCreate();
+            Shadows.shadowOf(renderService.renderHandler.getLooper()).idle();
+
+            // Then - not on the main thread
+            assertNotSame(Looper.getMainLooper(), renderService.renderHandler.getLooper());
+            assertSame(renderService.renderHandler.getLooper().getThread(), addViewThread.get());
+            assertNotSame(Thread.currentThread(), addViewThread.get());
+
+            renderService.onDestroy();
+        }
+    }
+
+    @Test
+    public void onCreate_whenHasOverlayPermissionAndReadModeOn_addsSingleOverlayView() {
         try (MockedStatic<Settings> settingsStatic = mockStatic(Settings.class);
              MockedStatic<PrefsHelper> prefsHelperStatic = mockStatic(PrefsHelper.class)) {
 
@@ -140,7 +198,375 @@ public class DrawOverAppsServiceTest {
 
             // Then
             assertNotNull(DrawOverAppsService.instanceRef);
-            verify(mockWindowManager, never()).addView(any(View.class), any(WindowManager.LayoutParams.class));
+            verify(mockWindowManager, times(1)).addView(any(View.class), any(WindowManager.LayoutParams.class));
+            assertEquals(View.VISIBLE, service.overlayManager.getOverlayView(Display.DEFAULT_DISPLAY).getVisibility());
+        }
+    }
+
+    @Test
+    public void toggleReadMode_onlyOneOverlayWindowIsEverAttached() {
+        try (MockedStatic<Settings> settingsStatic = mockStatic(Settings.class);
+             MockedStatic<PrefsHelper> prefsHelperStatic = mockStatic(PrefsHelper.class)) {
+
+            // Given - Service created with read mode ON
+            settingsStatic.when(() -> Settings.canDrawOverlays(service)).thenReturn(true);
+            prefsHelperStatic.when(() -> PrefsHelper.init(service)).thenReturn(mockPrefsHelper);
+            when(mockPrefsHelper.isReadModeOn()).thenReturn(true);
+            when(mockPrefsHelper.getColor()).thenReturn(Constants.COLOR_YELLOW);
+            when(mockPrefsHelper.getStandbyTimeout()).thenReturn(Constants.DEFAULT_STANDBY_TIMEOUT_MS);
+
+            final ShadowApplication shadowApplication = Shadows.shadowOf(service.getApplication());
+            shadowApplication.setSystemService(Context.WINDOW_SERVICE, mockWindowManager);
+
+            service.onCreate();
+            service.onStartCommand(new Intent(), 0, 0);
+
+            // When - toggling several times
+            for (int i = 0; i < 10; i++) {
+                service.enterStandby();
+                when(mockPrefsHelper.isReadModeOn()).thenReturn(false);
+                service.onUpdate();
+                when(mockPrefsHelper.isReadModeOn()).thenReturn(true);
+                service.onUpdate();
+            }
+
+            // Then - the window was added once and never removed
+            verify(mockWindowManager, times(1)).addView(any(View.class), any(WindowManager.LayoutParams.class));
+            verify(mockWindowManager, never()).removeView(any(View.class));
+            assertEquals(View.VISIBLE, service.overlayManager.getOverlayView(Display.DEFAULT_DISPLAY).getVisibility());
+        }
+    }
+
+    @Test
+    public void enterStandby_hidesOverlayAndStopsServiceAfterIdleTimeout() {
+        try (MockedStatic<Settings> settingsStatic = mockStatic(Settings.class);
+             MockedStatic<PrefsHelper> prefsHelperStatic = mockStatic(PrefsHelper.class)) {
+
+            // A service that was not created yet, so it has not stopped itself for lack of permission
+            final DrawOverAppsService standbyService = Robolectric.buildService(DrawOverAppsService.class).get();
+
+            // Given - Service created with read mode ON
+            settingsStatic.when(() -> Settings.canDrawOverlays(standbyService)).thenReturn(true);
+            prefsHelperStatic.when(() -> PrefsHelper.init(standbyService)).thenReturn(mockPrefsHelper);
+            when(mockPrefsHelper.isReadModeOn()).thenReturn(true);
+            when(mockPrefsHelper.getColor()).thenReturn(Constants.COLOR_YELLOW);
+            when(mockPrefsHelper.getStandbyTimeout()).thenReturn(1000);
+
+            final ShadowApplication shadowApplication = Shadows.shadowOf(standbyService.getApplication());
+            shadowApplication.setSystemService(Context.WINDOW_SERVICE, mockWindowManager);
+
+            standbyService.onCreate();
+
+            // When
+            standbyService.enterStandby();
+
+            // Then - still attached, not drawing, and not stopped yet
+            assertEquals(View.INVISIBLE, standbyService.overlayManager.getOverlayView(Display.DEFAULT_DISPLAY).getVisibility());
+            assertFalse(Shadows.shadowOf(standbyService).isStoppedBySelf());
+
+            // When - idle timeout expires
+            Shadows.shadowOf(Looper.getMainLooper()).idleFor(Duration.ofMillis(1000));
+
+            // Then
+            assertTrue(Shadows.shadowOf(standbyService).isStoppedBySelf());
+
+            standbyService.onDestroy();
+        }
+    }
+
+    @Test
+    public void onUpdate_beforeIdleTimeout_cancelsTeardown() {
+        try (MockedStatic<Settings> settingsStatic = mockStatic(Settings.class);
+             MockedStatic<PrefsHelper> prefsHelperStatic = mockStatic(PrefsHelper.class)) {
+
+            // A service that was not created yet, so it has not stopped itself for lack of permission
+            final DrawOverAppsService standbyService = Robolectric.buildService(DrawOverAppsService.class).get();
+
+            // Given - Service in standby
+            settingsStatic.when(() -> Settings.canDrawOverlays(standbyService)).thenReturn(true);
+            prefsHelperStatic.when(() -> PrefsHelper.init(standbyService)).thenReturn(mockPrefsHelper);
+            when(mockPrefsHelper.isReadModeOn()).thenReturn(false);
+            when(mockPrefsHelper.getColor()).thenReturn(Constants.COLOR_YELLOW);
+            when(mockPrefsHelper.getStandbyTimeout()).thenReturn(1000);
+
+            final ShadowApplication shadowApplication = Shadows.shadowOf(standbyService.getApplication());
+            shadowApplication.setSystemService(Context.WINDOW_SERVICE, mockWindowManager);
+
+            standbyService.onCreate();
+            assertEquals(View.INVISIBLE, standbyService.overlayManager.getOverlayView(Display.DEFAULT_DISPLAY).getVisibility());
+
+            // When - Read Mode turned ON before the timeout
+            when(mockPrefsHelper.isReadModeOn()).thenReturn(true);
+            standbyService.onUpdate();
+            Shadows.shadowOf(Looper.getMainLooper()).idleFor(Duration.ofMillis(1000));
+
+            // Then
+            assertEquals(View.VISIBLE, standbyService.overlayManager.getOverlayView(Display.DEFAULT_DISPLAY).getVisibility());
+            assertFalse(Shadows.shadowOf(standbyService).isStoppedBySelf());
+
+            standbyService.onDestroy();
+        }
+    }
+
+    @Test
+    public void screenOffInDoze_detachesOverlayAndScreenOnAttachesItBack() {
+        try (MockedStatic<Settings> settingsStatic = mockStatic(Settings.class);
+             MockedStatic<PrefsHelper> prefsHelperStatic = mockStatic(PrefsHelper.class)) {
+
+            // A service that was not created yet, so it has not stopped itself for lack of permission
+            final DrawOverAppsService screenService = Robolectric.buildService(DrawOverAppsService.class).get();
+
+            // Given - Service created with read mode ON and detach in doze enabled
+            settingsStatic.when(() -> Settings.canDrawOverlays(screenService)).thenReturn(true);
+            prefsHelperStatic.when(() -> PrefsHelper.init(screenService)).thenReturn(mockPrefsHelper);
+            when(mockPrefsHelper.isReadModeOn()).thenReturn(true);
+            when(mockPrefsHelper.getColor()).thenReturn(Constants.COLOR_YELLOW);
+            when(mockPrefsHelper.shouldDetachOverlayInDoze()).thenReturn(true);
+
+            final ShadowApplication shadowApplication = Shadows.shadowOf(screenService.getApplication());
+            shadowApplication.setSystemService(Context.WINDOW_SERVICE, mockWindowManager);
+
+            screenService.onCreate();
+
+            // When - screen OFF, then doze
+            context.sendBroadcast(new Intent(Intent.ACTION_SCREEN_OFF));
+            final PowerManager powerManager = (PowerManager) context.getSystemService(Context.POWER_SERVICE);
+            Shadows.shadowOf(powerManager).setIsDeviceIdleMode(true);
+            context.sendBroadcast(new Intent(PowerManager.ACTION_DEVICE_IDLE_MODE_CHANGED));
+            Shadows.shadowOf(Looper.getMainLooper()).idle();
+
+            // Then
+            assertTrue(screenService.isSuspended);
+            assertTrue(screenService.isOverlayDetached);
+            assertEquals(0, screenService.overlayManager.getOverlayCount());
+            verify(mockWindowManager).removeView(any(View.class));
+
+            // When - screen ON
+            context.sendBroadcast(new Intent(Intent.ACTION_SCREEN_ON));
+            Shadows.shadowOf(Looper.getMainLooper()).idle();
+
+            // Then
+            assertFalse(screenService.isSuspended);
+            assertFalse(screenService.isOverlayDetached);
+            assertEquals(View.VISIBLE, screenService.overlayManager.getOverlayView(Display.DEFAULT_DISPLAY).getVisibility());
+            verify(mockWindowManager, times(2)).addView(any(View.class), any(WindowManager.LayoutParams.class));
+
+            screenService.onDestroy();
+        }
+    }
+
+    @Test
+    public void ramp_runsOnlyWhileTheScreenIsOn() {
+        try (MockedStatic<Settings> settingsStatic = mockStatic(Settings.class);
+             MockedStatic<PrefsHelper> prefsHelperStatic = mockStatic(PrefsHelper.class)) {
+
+            final DrawOverAppsService rampService = Robolectric.buildService(DrawOverAppsService.class).get();
+
+            // Given - a fade in that started a second ago and lasts a minute
+            settingsStatic.when(() -> Settings.canDrawOverlays(rampService)).thenReturn(true);
+            prefsHelperStatic.when(() -> PrefsHelper.init(rampService)).thenReturn(mockPrefsHelper);
+            Shadows.shadowOf(rampService.getApplication()).setSystemService(Context.WINDOW_SERVICE, mockWindowManager);
+            rampService.onCreate();
+            final long now = System.currentTimeMillis();
+            final OverlaySnapshot rampSnapshot = new OverlaySnapshot(true, Constants.COLOR_YELLOW, Constants.DEFAULT_CUSTOM_COLOR,
+                    Constants.DEFAULT_COLOR_TEMPERATURE, 50, 30).withRamp(now - 1000, now + 60_000, true);
+
+            // When
+            rampService.onStartCommand(OverlayClient.createApplyIntent(context, rampSnapshot), 0, 1);
+
+            // Then
+            assertTrue(rampService.rampAnimator.isRunning());
+            assertTrue(rampService.rampLevel > 0f && rampService.rampLevel < 0.1f);
+
+            // When - screen OFF
+            context.sendBroadcast(new Intent(Intent.ACTION_SCREEN_OFF));
+            Shadows.shadowOf(Looper.getMainLooper()).idle();
+
+            // Then
+            assertFalse(rampService.rampAnimator.isRunning());
+
+            // When - screen ON
+            context.sendBroadcast(new Intent(Intent.ACTION_SCREEN_ON));
+            Shadows.shadowOf(Looper.getMainLooper()).idle();
+
+            // Then
+            assertTrue(rampService.rampAnimator.isRunning());
+
+            rampService.onDestroy();
+        }
+    }
+
+    @Test
+    public void ramp_fadeOutFinished_putsOverlayInStandby() {
+        try (MockedStatic<Settings> settingsStatic = mockStatic(Settings.class);
+             MockedStatic<PrefsHelper> prefsHelperStatic = mockStatic(PrefsHelper.class)) {
+
+            final DrawOverAppsService rampService = Robolectric.buildService(DrawOverAppsService.class).get();
+
+            // Given - a fade out that is already over, e.g. the screen was OFF until now
+            settingsStatic.when(() -> Settings.canDrawOverlays(rampService)).thenReturn(true);
+            prefsHelperStatic.when(() -> PrefsHelper.init(rampService)).thenReturn(mockPrefsHelper);
+            Shadows.shadowOf(rampService.getApplication()).setSystemService(Context.WINDOW_SERVICE, mockWindowManager);
+            rampService.onCreate();
+            final long now = System.currentTimeMillis();
+            final OverlaySnapshot rampSnapshot = new OverlaySnapshot(true, Constants.COLOR_YELLOW, Constants.DEFAULT_CUSTOM_COLOR,
+                    Constants.DEFAULT_COLOR_TEMPERATURE, 50, 30).withRamp(now - 60_000, now - 1000, false);
+
+            // When
+            rampService.onStartCommand(OverlayClient.createApplyIntent(context, rampSnapshot), 0, 1);
+            Shadows.shadowOf(Looper.getMainLooper()).idleFor(Duration.ofMillis(100));
+
+            // Then
+            assertFalse(rampService.rampAnimator.isRunning());
+            assertFalse(rampService.snapshot.isReadModeOn());
+            assertFalse(rampService.snapshot.hasRamp());
+            assertEquals(View.INVISIBLE, rampService.overlayManager.getOverlayView(Display.DEFAULT_DISPLAY).getVisibility());
+
+            rampService.onDestroy();
+        }
+    }
+
+    @Test
+    public void ambientLight_sensorIsRegisteredOnlyWhileTheScreenIsOn() {
+        try (MockedStatic<Settings> settingsStatic = mockStatic(Settings.class);
+             MockedStatic<PrefsHelper> prefsHelperStatic = mockStatic(PrefsHelper.class)) {
+
+            final DrawOverAppsService lightService = Robolectric.buildService(DrawOverAppsService.class).get();
+
+            // Given - a device with a light sensor
+            settingsStatic.when(() -> Settings.canDrawOverlays(lightService)).thenReturn(true);
+            prefsHelperStatic.when(() -> PrefsHelper.init(lightService)).thenReturn(mockPrefsHelper);
+            Shadows.shadowOf(lightService.getApplication()).setSystemService(Context.WINDOW_SERVICE, mockWindowManager);
+            final ShadowSensorManager shadowSensorManager = Shadows.shadowOf((SensorManager) context.getSystemService(Context.SENSOR_SERVICE));
+            shadowSensorManager.addSensor(ShadowSensor.newInstance(Sensor.TYPE_LIGHT));
+            lightService.onCreate();
+            final OverlaySnapshot lightSnapshot = new OverlaySnapshot(true, Constants.COLOR_YELLOW, Constants.DEFAULT_CUSTOM_COLOR,
+                    Constants.DEFAULT_COLOR_TEMPERATURE, 50, 30).withAmbientLight(true);
+
+            // When
+            lightService.onStartCommand(OverlayClient.createApplyIntent(context, lightSnapshot), 0, 1);
+
+            // Then
+            assertTrue(shadowSensorManager.hasListener(lightService.ambientLightController));
+
+            // When - a bright room
+            final SensorEvent event = ShadowSensorManager.createSensorEvent(1, Sensor.TYPE_LIGHT);
+            event.values[0] = 20_000f;
+            shadowSensorManager.sendSensorEventToListeners(event);
+
+            // Then
+            assertEquals(0.25f, lightService.ambientLevel, 0f);
+
+            // When - a settings change, then a dark reading at the same instant
+            lightService.onStartCommand(OverlayClient.createApplyIntent(context, new OverlaySnapshot(true, Constants.COLOR_YELLOW,
+                    Constants.DEFAULT_CUSTOM_COLOR, Constants.DEFAULT_COLOR_TEMPERATURE, 50, 40).withAmbientLight(true)), 0, 1);
+            final SensorEvent darkEvent = ShadowSensorManager.createSensorEvent(1, Sensor.TYPE_LIGHT);
+            darkEvent.timestamp = event.timestamp;
+            darkEvent.values[0] = 0f;
+            shadowSensorManager.sendSensorEventToListeners(darkEvent);
+
+            // Then - the sensor stayed registered, the filtered light is kept
+            assertTrue(shadowSensorManager.hasListener(lightService.ambientLightController));
+            assertEquals(0.25f, lightService.ambientLevel, 0f);
+
+            // When - screen OFF
+            context.sendBroadcast(new Intent(Intent.ACTION_SCREEN_OFF));
+            Shadows.shadowOf(Looper.getMainLooper()).idle();
+
+            // Then
+            assertFalse(shadowSensorManager.hasListener(lightService.ambientLightController));
+
+            // When - screen ON
+            context.sendBroadcast(new Intent(Intent.ACTION_SCREEN_ON));
+            Shadows.shadowOf(Looper.getMainLooper()).idle();
+
+            // Then
+            assertTrue(shadowSensorManager.hasListener(lightService.ambientLightController));
+
+            // When - the ambient light is turned OFF
+            lightService.onStartCommand(OverlayClient.createApplyIntent(context, lightSnapshot.withAmbientLight(false)), 0, 1);
+
+            // Then
+            assertFalse(shadowSensorManager.hasListener(lightService.ambientLightController));
+            assertEquals(1f, lightService.ambientLevel, 0f);
+
+            lightService.onDestroy();
+        }
+    }
+
+    @Test
+    public void appProfiles_switchingAppsRedrawsTheSameOverlayWindow() {
+        try (MockedStatic<Settings> settingsStatic = mockStatic(Settings.class);
+             MockedStatic<PrefsHelper> prefsHelperStatic = mockStatic(PrefsHelper.class)) {
+
+            final DrawOverAppsService profileService = Robolectric.buildService(DrawOverAppsService.class).get();
+
+            // Given - no filter in the camera, a stronger filter in two readers
+            settingsStatic.when(() -> Settings.canDrawOverlays(profileService)).thenReturn(true);
+            prefsHelperStatic.when(() -> PrefsHelper.init(profileService)).thenReturn(mockPrefsHelper);
+            Shadows.shadowOf(profileService.getApplication()).setSystemService(Context.WINDOW_SERVICE, mockWindowManager);
+            profileService.onCreate();
+            final OverlaySnapshot profileSnapshot = new OverlaySnapshot(true, Constants.COLOR_YELLOW, Constants.DEFAULT_CUSTOM_COLOR,
+                    Constants.DEFAULT_COLOR_TEMPERATURE, 50, 30)
+                    .withAppProfiles(AppProfiles.parseOrEmpty("com.android.camera=OFF;com.example.reader=80,20;com.example.books=80,20"));
+            profileService.onStartCommand(OverlayClient.createApplyIntent(context, profileSnapshot), 0, 1);
+            final View overlayView = profileService.overlayManager.getOverlayView(Display.DEFAULT_DISPLAY);
+
+            // Then
+            assertTrue(profileService.foregroundAppTracker.isPolling());
+
+            // When
+            profileService.onWindowStateChanged("com.android.camera");
+
+            // Then - the filter is hidden, Read Mode stays ON
+            assertEquals(View.INVISIBLE, overlayView.getVisibility());
+            assertTrue(profileService.snapshot.isReadModeOn());
+
+            // When
+            profileService.onWindowStateChanged("com.example.reader");
+            final OverlaySnapshot drawnSnapshot = profileService.getDrawnSnapshot();
+
+            // Then
+            assertEquals(View.VISIBLE, overlayView.getVisibility());
+            assertEquals(80, drawnSnapshot.getColorIntensity());
+            assertEquals(20, drawnSnapshot.getBrightness());
+
+            // When - another app with the same profile
+            profileService.onWindowStateChanged("com.example.books");
+
+            // Then - nothing to redraw
+            assertSame(drawnSnapshot, profileService.getDrawnSnapshot());
+
+            // When - an app without profile
+            profileService.onWindowStateChanged("com.example.browser");
+
+            // Then - the saved settings, in the same window
+            assertEquals(50, profileService.getDrawnSnapshot().getColorIntensity());
+            assertSame(overlayView, profileService.overlayManager.getOverlayView(Display.DEFAULT_DISPLAY));
+            verify(mockWindowManager, times(1)).addView(any(View.class), any(WindowManager.LayoutParams.class));
+            verify(mockWindowManager, never()).removeView(any(View.class));
+
+            // When - the polls back off, then a settings change
+            final long now = System.currentTimeMillis();
+            profileService.foregroundAppTracker.poll(now);
+            profileService.foregroundAppTracker.poll(now + 1);
+            final long pollInterval = profileService.foregroundAppTracker.getPollInterval();
+            profileService.onStartCommand(OverlayClient.createApplyIntent(context, new OverlaySnapshot(true, Constants.COLOR_YELLOW,
+                    Constants.DEFAULT_CUSTOM_COLOR, Constants.DEFAULT_COLOR_TEMPERATURE, 50, 40)
+                    .withAppProfiles(profileSnapshot.getAppProfiles())), 0, 1);
+
+            // Then - the tracker was not restarted
+            assertTrue(pollInterval > ForegroundAppTracker.MIN_POLL_INTERVAL_MS);
+            assertEquals(pollInterval, profileService.foregroundAppTracker.getPollInterval());
+
+            // When - screen OFF
+            context.sendBroadcast(new Intent(Intent.ACTION_SCREEN_OFF));
+            Shadows.shadowOf(Looper.getMainLooper()).idle();
+
+            // Then
+            assertFalse(profileService.foregroundAppTracker.isPolling());
+
+            profileService.onDestroy();
         }
     }
 
@@ -158,9 +584,6 @@ public class DrawOverAppsServiceTest {
             final ShadowApplication shadowApplication = Shadows.shadowOf(service.getApplication());
             shadowApplication.setSystemService(Context.WINDOW_SERVICE, mockWindowManager);
 
-            // Initialize service first
-            service.mWindowManager = mockWindowManager;
-
             // When
             int result = service.onStartCommand(new Intent(), 0, 0);
 
@@ -175,24 +598,59 @@ public class DrawOverAppsServiceTest {
     }
 
     @Test
-    public void onStartCommand_whenWindowManagerNull_initializesWindowManager() {
+    public void onStartCommand_withSnapshot_appliesItWithoutReadingSettings() {
+        try (MockedStatic<Settings> settingsStatic = mockStatic(Settings.class);
+             MockedStatic<PrefsHelper> prefsHelperStatic = mockStatic(PrefsHelper.class)) {
+            // A service that was not created yet, so it has not stopped itself for lack of permission
+            final DrawOverAppsService commandService = Robolectric.buildService(DrawOverAppsService.class).get();
+
+            // Given - Service created with read mode ON
+            settingsStatic.when(() -> Settings.canDrawOverlays(commandService)).thenReturn(true);
+            prefsHelperStatic.when(() -> PrefsHelper.init(commandService)).thenReturn(mockPrefsHelper);
+            when(mockPrefsHelper.isReadModeOn()).thenReturn(true);
+            when(mockPrefsHelper.getColor()).thenReturn(Constants.COLOR_YELLOW);
+            when(mockPrefsHelper.getStandbyTimeout()).thenReturn(Constants.DEFAULT_STANDBY_TIMEOUT_MS);
+
+            final ShadowApplication shadowApplication = Shadows.shadowOf(commandService.getApplication());
+            shadowApplication.setSystemService(Context.WINDOW_SERVICE, mockWindowManager);
+
+            commandService.onCreate();
+
+            // When - Read Mode stopped from another process
+            final OverlaySnapshot snapshotOff = new OverlaySnapshot(false, Constants.COLOR_PINK,
+                    Constants.DEFAULT_CUSTOM_COLOR, Constants.DEFAULT_COLOR_TEMPERATURE, 30, 60);
+            final int result = commandService.onStartCommand(OverlayClient.createApplyIntent(context, snapshotOff), 0, 0);
+
+            // Then - the settings were read once, in onCreate
+            assertEquals(Service.START_STICKY, result);
+            assertEquals(snapshotOff, commandService.snapshot);
+            verify(mockPrefsHelper, times(1)).isReadModeOn();
+            verify(mockPrefsHelper, never()).saveProperty(anyString(), anyBoolean());
+            assertEquals(View.INVISIBLE, commandService.overlayManager.getOverlayView(Display.DEFAULT_DISPLAY).getVisibility());
+            verify(mockWindowManager, times(1)).addView(any(View.class), any(WindowManager.LayoutParams.class));
+
+            commandService.onDestroy();
+        }
+    }
+
+    @Test
+    public void onStartCommand_whenOverlayNotAttached_doesNotAddView() {
         try (MockedStatic<PrefsHelper> prefsHelperStatic = mockStatic(PrefsHelper.class)) {
-            // Given
+            // Given - onCreate stopped the service, e.g. no overlay permission
             prefsHelperStatic.when(() -> PrefsHelper.init(service)).thenReturn(mockPrefsHelper);
-            when(mockPrefsHelper.isReadModeOn()).thenReturn(false);
+            when(mockPrefsHelper.isReadModeOn()).thenReturn(true);
 
             // Mock system services
             final ShadowApplication shadowApplication = Shadows.shadowOf(service.getApplication());
             shadowApplication.setSystemService(Context.WINDOW_SERVICE, mockWindowManager);
 
-            // Ensure WindowManager is null initially
-            service.mWindowManager = null;
-
             // When
-            service.onStartCommand(new Intent(), 0, 0);
+            final int result = service.onStartCommand(new Intent(), 0, 0);
 
             // Then
-            assertNotNull(service.mWindowManager);
+            assertEquals(Service.START_STICKY, result);
+            assertNull(service.overlayManager);
+            verify(mockWindowManager, never()).addView(any(View.class), any(WindowManager.LayoutParams.class));
         }
     }
 
@@ -210,16 +668,16 @@ public class DrawOverAppsServiceTest {
             shadowApplication.setSystemService(Context.WINDOW_SERVICE, mockWindowManager);
 
             service.onCreate();
-
-            // Ensure view exists
-            service.mView = mock(View.class);
+            final OverlayManager overlayManager = service.overlayManager;
+            assertEquals(1, overlayManager.getOverlayCount());
 
             // When
             service.onDestroy();
 
             // Then
             verify(mockWindowManager).removeView(any());
-            assertNull(service.mView);
+            assertEquals(0, overlayManager.getOverlayCount());
+            assertNull(service.overlayManager);
             assertNull(DrawOverAppsService.instanceRef);
         }
     }
@@ -266,11 +724,10 @@ public class DrawOverAppsServiceTest {
             // Given
             prefsHelperStatic.when(() -> PrefsHelper.init(service)).thenReturn(mockPrefsHelper);
 
-            service.screenColor = Constants.COLOR_YELLOW;
-            service.colorIntensity = 50;
-            service.brightness = 30;
+            service.snapshot = new OverlaySnapshot(true, Constants.COLOR_YELLOW, Constants.DEFAULT_CUSTOM_COLOR, Constants.DEFAULT_COLOR_TEMPERATURE, 50, 30);
             service.prefsHelper = mockPrefsHelper;
 
+            service.publishFrame();
             final DrawOverAppsService.MyLoadView myLoadView = service.new MyLoadView(context);
             final Canvas mockCanvas = mock(Canvas.class);
 
@@ -283,18 +740,57 @@ public class DrawOverAppsServiceTest {
         }
     }
 
+    @Test
+    public void myLoadView_onDraw_duringRamp_drawsAtTheRampLevel() {
+        // Given - halfway through a fade in
+        service.snapshot = new OverlaySnapshot(true, Constants.COLOR_YELLOW, Constants.DEFAULT_CUSTOM_COLOR, Constants.DEFAULT_COLOR_TEMPERATURE, 50, 30);
+        service.rampLevel = 0.5f;
+
+        service.publishFrame();
+        final DrawOverAppsService.MyLoadView myLoadView = service.new MyLoadView(context);
+        final Canvas mockCanvas = mock(Canvas.class);
+
+        // When
+        myLoadView.onDraw(mockCanvas);
+
+        // Then
+        verify(mockCanvas).drawARGB(60, 0, 0, 0);
+        verify(mockCanvas).drawARGB(60, 255, 241, 118 - 50);
+    }
+
+    @Test
+    public void myLoadView_onDraw_inBrightLight_drawsAtTheAmbientLevel() {
+        // Given - halfway through a fade in, in a bright room
+        service.snapshot = new OverlaySnapshot(true, Constants.COLOR_YELLOW, Constants.DEFAULT_CUSTOM_COLOR, Constants.DEFAULT_COLOR_TEMPERATURE, 50, 30);
+        service.rampLevel = 0.5f;
+        service.ambientLevel = 0.5f;
+
+        service.publishFrame();
+        final DrawOverAppsService.MyLoadView myLoadView = service.new MyLoadView(context);
+        final Canvas mockCanvas = mock(Canvas.class);
+
+        // When
+        myLoadView.onDraw(mockCanvas);
+
+        // Then
+        verify(mockCanvas).drawARGB(30, 0, 0, 0);
+        verify(mockCanvas).drawARGB(30, 255, 241, 118 - 50);
+    }
+
     @Test
     public void myLoadView_onDraw_withCustomColor_drawsParsedColor() {
         try (MockedStatic<PrefsHelper> prefsHelperStatic = mockStatic(PrefsHelper.class)) {
             // Given
             prefsHelperStatic.when(() -> PrefsHelper.init(service)).thenReturn(mockPrefsHelper);
+            when(mockPrefsHelper.getColor()).thenReturn(Constants.CUSTOM_COLOR);
             when(mockPrefsHelper.getCustomColor()).thenReturn("#FF5733"); // Some custom color
+            when(mockPrefsHelper.getColorIntensity()).thenReturn(40);
+            when(mockPrefsHelper.getBrightness()).thenReturn(20);
 
-            service.screenColor = Constants.CUSTOM_COLOR;
-            service.colorIntensity = 40;
-            service.brightness = 20;
+            service.snapshot = OverlaySnapshot.from(mockPrefsHelper);
             service.prefsHelper = mockPrefsHelper;
 
+            service.publishFrame();
             final DrawOverAppsService.MyLoadView myLoadView = service.new MyLoadView(context);
             final Canvas mockCanvas = mock(Canvas.class);
 
@@ -313,11 +809,10 @@ public class DrawOverAppsServiceTest {
             // Given
             prefsHelperStatic.when(() -> PrefsHelper.init(service)).thenReturn(mockPrefsHelper);
 
-            service.screenColor = "UNKNOWN_COLOR";
-            service.colorIntensity = 50;
-            service.brightness = 30;
+            service.snapshot = new OverlaySnapshot(true, "UNKNOWN_COLOR", Constants.DEFAULT_CUSTOM_COLOR, Constants.DEFAULT_COLOR_TEMPERATURE, 50, 30);
             service.prefsHelper = mockPrefsHelper;
 
+            service.publishFrame();
             final DrawOverAppsService.MyLoadView myLoadView = service.new MyLoadView(context);
             final Canvas mockCanvas = mock(Canvas.class);
 
@@ -328,6 +823,29 @@ public class DrawOverAppsServiceTest {
             // Only the brightness adjustment should be drawn
             verify(mockCanvas).drawARGB(150 - 30, 0, 0, 0);
             // No additional drawARGB calls for unknown color
+            verify(mockCanvas, times(1)).drawARGB(anyInt(), anyInt(), anyInt(), anyInt());
+        }
+    }
+
+    @Test
+    public void myLoadView_onDraw_withTemperature_drawsBlackbodyColor() {
+        try (MockedStatic<PrefsHelper> prefsHelperStatic = mockStatic(PrefsHelper.class)) {
+            // Given
+            prefsHelperStatic.when(() -> PrefsHelper.init(service)).thenReturn(mockPrefsHelper);
+
+            service.snapshot = new OverlaySnapshot(true, Constants.TEMPERATURE, Constants.DEFAULT_CUSTOM_COLOR, 3400, 50, 30);
+            service.prefsHelper = mockPrefsHelper;
+
+            service.publishFrame();
+            final DrawOverAppsService.MyLoadView myLoadView = service.new MyLoadView(context);
+            final Canvas mockCanvas = mock(Canvas.class);
+
+            // When
+            myLoadView.onDraw(mockCanvas);
+
+            // Then
+            verify(mockCanvas).drawARGB(150 - 30, 0, 0, 0); // Brightness adjustment
+            verify(mockCanvas).drawARGB(120, 255, 190, 135 - 50); // 3400K with intensity
         }
     }
 
@@ -354,11 +872,10 @@ public class DrawOverAppsServiceTest {
             };
 
             for (int i = 0; i < colors.length; i++) {
-                service.screenColor = colors[i];
-                service.colorIntensity = 25;
-                service.brightness = 15;
+                service.snapshot = new OverlaySnapshot(true, colors[i], Constants.DEFAULT_CUSTOM_COLOR, Constants.DEFAULT_COLOR_TEMPERATURE, 25, 15);
                 service.prefsHelper = mockPrefsHelper;
 
+                service.publishFrame();
                 final DrawOverAppsService.MyLoadView myLoadView = service.new MyLoadView(context);
                 final Canvas mockCanvas = mock(Canvas.class);
 
@@ -372,6 +889,26 @@ public class DrawOverAppsServiceTest {
         }
     }
 
+    @Test
+    public void onTrimMemory_releasesSettingsCachesOnlyUnderPressure() {
+        // Given
+        service.prefsHelper = mockPrefsHelper;
+        service.readModeNotification = mock(ReadModeNotification.class);
+
+        // When - UI hidden, the service has no UI to release
+        service.onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN);
+
+        // Then
+        verify(mockPrefsHelper, never()).releaseCaches();
+
+        // When
+        service.onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_BACKGROUND);
+
+        // Then
+        verify(mockPrefsHelper).releaseCaches();
+        verify(service.readModeNotification).releaseCache();
+    }
+
     @Test
     public void onBind_returnsNull() {
         // When
@@ -0,0 +1,137 @@
+/*****************************************************************
+ * Copyright (C) 2025 Alan Quintero <https://github.com/alanquintero/>
+ *****************************************************************/
+package autonightmode.mx.com.alanquintero.autonightmode.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import android.app.usage.UsageEvents;
+import android.app.usage.UsageStatsManager;
+import android.content.Context;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+
+import androidx.test.core.app.ApplicationProvider;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.Shadows;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowUsageStatsManager;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = {Build.VERSION_CODES.O})
+public class ForegroundAppTrackerTest {
+
+    private static final String CAMERA = "com.android.camera";
+    private static final String READER = "com.example.reader";
+    private static final long NOW = 1_700_000_000_000L;
+
+    private ShadowUsageStatsManager shadowUsageStatsManager;
+    private ForegroundAppTracker.Listener listener;
+    private ForegroundAppTracker foregroundAppTracker;
+
+    @Before
+    public void setUp() {
+        final Context context = ApplicationProvider.getApplicationContext();
+        final UsageStatsManager usageStatsManager = (UsageStatsManager) context.getSystemService(Context.USAGE_STATS_SERVICE);
+        shadowUsageStatsManager = Shadows.shadowOf(usageStatsManager);
+        listener = mock(ForegroundAppTracker.Listener.class);
+        foregroundAppTracker = new ForegroundAppTracker(usageStatsManager, new Handler(Looper.getMainLooper()), listener);
+    }
+
+    @After
+    public void tearDown() {
+        foregroundAppTracker.stop();
+    }
+
+    @Test
+    public void poll_readsEachEventOnce() {
+        // Given - the camera was opened before the tracker started
+        shadowUsageStatsManager.addEvent(CAMERA, NOW - 10_000, UsageEvents.Event.MOVE_TO_FOREGROUND);
+
+        // When
+        foregroundAppTracker.poll(NOW);
+        foregroundAppTracker.poll(NOW + 1000);
+
+        // Then
+        assertEquals(CAMERA, foregroundAppTracker.getForegroundApp());
+        verify(listener, times(1)).onForegroundAppChanged(CAMERA);
+    }
+
+    @Test
+    public void poll_eventWrittenLate_isNotMissed() {
+        // Given
+        shadowUsageStatsManager.addEvent(CAMERA, NOW - 10_000, UsageEvents.Event.MOVE_TO_FOREGROUND);
+        foregroundAppTracker.poll(NOW);
+
+        // When - an event from before the last query is only written now
+        shadowUsageStatsManager.addEvent(READER, NOW - 500, UsageEvents.Event.MOVE_TO_FOREGROUND);
+        foregroundAppTracker.poll(NOW + 1000);
+
+        // Then
+        assertEquals(READER, foregroundAppTracker.getForegroundApp());
+        verify(listener).onForegroundAppChanged(READER);
+    }
+
+    @Test
+    public void poll_intervalBacksOffWhileTheSameAppStaysInTheForeground() {
+        // Given
+        shadowUsageStatsManager.addEvent(CAMERA, NOW - 10_000, UsageEvents.Event.MOVE_TO_FOREGROUND);
+        foregroundAppTracker.poll(NOW);
+        assertEquals(ForegroundAppTracker.MIN_POLL_INTERVAL_MS, foregroundAppTracker.getPollInterval());
+
+        // When - nothing happens for a while
+        for (int i = 1; i <= 10; i++) {
+            foregroundAppTracker.poll(NOW + i * 1000L);
+        }
+
+        // Then
+        assertEquals(ForegroundAppTracker.MAX_POLL_INTERVAL_MS, foregroundAppTracker.getPollInterval());
+
+        // When - an app switch
+        shadowUsageStatsManager.addEvent(READER, NOW + 10_500, UsageEvents.Event.MOVE_TO_FOREGROUND);
+        foregroundAppTracker.poll(NOW + 11_000);
+
+        // Then
+        assertEquals(ForegroundAppTracker.MIN_POLL_INTERVAL_MS, foregroundAppTracker.getPollInterval());
+    }
+
+    @Test
+    public void poll_otherEvents_doNotChangeTheForegroundApp() {
+        // Given
+        shadowUsageStatsManager.addEvent(CAMERA, NOW - 10_000, UsageEvents.Event.MOVE_TO_BACKGROUND);
+
+        // When
+        foregroundAppTracker.poll(NOW);
+
+        // Then
+        verify(listener, never()).onForegroundAppChanged(CAMERA);
+    }
+
+    @Test
+    public void pushSource_stopsPolling() {
+        // Given
+        foregroundAppTracker.start();
+        assertTrue(foregroundAppTracker.isPolling());
+
+        // When
+        foregroundAppTracker.setPushSource(true);
+        foregroundAppTracker.onWindowStateChanged(READER);
+        foregroundAppTracker.onWindowStateChanged(READER);
+
+        // Then
+        assertFalse(foregroundAppTracker.isPolling());
+        verify(listener, times(1)).onForegroundAppChanged(READER);
+    }
+}
@@ -0,0 +1,172 @@
+/*****************************************************************
+ * Copyright (C) 2025 Alan Quintero <https://github.com/alanquintero/>
+ *****************************************************************/
+package autonightmode.mx.com.alanquintero.autonightmode.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import android.app.Application;
+import android.content.Intent;
+import android.os.Build;
+
+import androidx.test.core.app.ApplicationProvider;
+
+import autonightmode.mx.com.alanquintero.autonightmode.manager.ReadModeManager;
+import autonightmode.mx.com.alanquintero.autonightmode.model.ColorPreset;
+import autonightmode.mx.com.alanquintero.autonightmode.model.ReadModeSettings;
+import autonightmode.mx.com.alanquintero.autonightmode.util.Constants;
+import autonightmode.mx.com.alanquintero.autonightmode.util.PresetStore;
+import autonightmode.mx.com.alanquintero.autonightmode.util.PrefsHelper;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.Shadows;
+import org.robolectric.annotation.Config;
+
+import java.util.List;
+
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = {Build.VERSION_CODES.O})
+public class NotificationActionReceiverTest {
+
+    private final ReadModeSettings readModeSettings = ReadModeSettings.init();
+
+    private Application application;
+    private PrefsHelper mockPrefsHelper;
+    private NotificationActionReceiver receiver;
+
+    @Before
+    public void setUp() {
+        application = ApplicationProvider.getApplicationContext();
+        mockPrefsHelper = mock(PrefsHelper.class);
+        receiver = new NotificationActionReceiver();
+        receiver.prefsHelper = mockPrefsHelper;
+        OverlayClient.setServiceRunning(application, false);
+    }
+
+    @After
+    public void tearDown() {
+        readModeSettings.setIsReadModeOn(false);
+        readModeSettings.setShouldUseSameIntensityBrightnessForAll(Constants.DEFAULT_SAME_INTENSITY_BRIGHTNESS_FOR_ALL);
+        readModeSettings.setColorDropdownPosition(Constants.DEFAULT_COLOR_DROPDOWN_POSITION);
+        readModeSettings.setColorIntensity(Constants.DEFAULT_COLOR_INTENSITY);
+        readModeSettings.setBrightness(Constants.DEFAULT_BRIGHTNESS);
+    }
+
+    @Test
+    public void handleNotificationAction_brighter_stagesClampedBrightness() {
+        // Given
+        readModeSettings.setShouldUseSameIntensityBrightnessForAll(true);
+        readModeSettings.setBrightness(95);
+
+        // When
+        final boolean handled = receiver.handleNotificationAction(application, ReadModeNotification.ACTION_BRIGHTER);
+
+        // Then
+        assertTrue(handled);
+        verify(mockPrefsHelper).stageProperty(Constants.PREF_BRIGHTNESS, 100);
+        verify(mockPrefsHelper, never()).saveProperty(anyString(), anyInt());
+        verify(mockPrefsHelper, never()).tryToSavePresetSettings(any());
+        verify(mockPrefsHelper).flushPendingProperties();
+    }
+
+    @Test
+    public void handleNotificationAction_dimmer_savesBrightnessForCurrentColor() {
+        // Given
+        readModeSettings.setShouldUseSameIntensityBrightnessForAll(false);
+        readModeSettings.setBrightness(5);
+
+        // When
+        receiver.handleNotificationAction(application, ReadModeNotification.ACTION_DIMMER);
+
+        // Then
+        verify(mockPrefsHelper).stageProperty(Constants.PREF_BRIGHTNESS, 0);
+        verify(mockPrefsHelper).tryToSavePresetSettings(readModeSettings);
+    }
+
+    @Test
+    public void handleNotificationAction_nextColor_stagesNextColorAndItsValues() {
+        // Given
+        readModeSettings.setShouldUseSameIntensityBrightnessForAll(false);
+        readModeSettings.setColorDropdownPosition(0);
+        final PresetStore mockPresetStore = mock(PresetStore.class);
+        when(mockPrefsHelper.getPresetStore()).thenReturn(mockPresetStore);
+        when(mockPresetStore.getNextPresetId(0)).thenReturn(1);
+        when(mockPrefsHelper.getPreset(1)).thenReturn(new ColorPreset(1, Constants.PINK, 0xFFFFD1DC, 30, 60));
+
+        // When
+        receiver.handleNotificationAction(application, ReadModeNotification.ACTION_NEXT_COLOR);
+
+        // Then
+        verify(mockPrefsHelper).stageProperty(Constants.PREF_COLOR_DROPDOWN, 1);
+        verify(mockPrefsHelper).stageProperty(Constants.PREF_COLOR, Constants.COLOR_PINK);
+        verify(mockPrefsHelper).stageProperty(Constants.PREF_COLOR_INTENSITY, 30);
+        verify(mockPrefsHelper).stageProperty(Constants.PREF_BRIGHTNESS, 60);
+    }
+
+    @Test
+    public void handleNotificationAction_stop_savesStateAndSendsStandbyToRunningService() {
+        // Given
+        OverlayClient.setServiceRunning(application, true);
+        when(mockPrefsHelper.isReadModeOn()).thenReturn(false);
+
+        // When - stop tapped in the notification
+        receiver.onReceive(application, new Intent(ReadModeNotification.ACTION_STOP));
+
+        // Then
+        verify(mockPrefsHelper).saveProperty(Constants.PREF_IS_READ_MODE_ON, false);
+        assertFalse(readModeSettings.isReadModeOn());
+        final Intent command = Shadows.shadowOf(application).getNextStartedService();
+        assertEquals(OverlayClient.ACTION_APPLY, command.getAction());
+        assertFalse(OverlayClient.readSnapshot(command).isReadModeOn());
+    }
+
+    @Test
+    public void handleNotificationAction_stopWhenServiceNotRunning_doesNotStartIt() {
+        // When
+        receiver.handleNotificationAction(application, ReadModeNotification.ACTION_STOP);
+
+        // Then
+        assertNull(Shadows.shadowOf(application).getNextStartedService());
+    }
+
+    @Test
+    public void handleNotificationAction_tellsTheAppWhatChanged() {
+        // Given
+        readModeSettings.setShouldUseSameIntensityBrightnessForAll(true);
+
+        // When
+        receiver.handleNotificationAction(application, ReadModeNotification.ACTION_STOP);
+        receiver.handleNotificationAction(application, ReadModeNotification.ACTION_DIMMER);
+
+        // Then - the open MainActivity refreshes its views
+        final List<Intent> broadcasts = Shadows.shadowOf(application).getBroadcastIntents();
+        assertEquals(2, broadcasts.size());
+        assertEquals(ReadModeManager.ACTION_SETTINGS_CHANGED, broadcasts.get(0).getAction());
+        assertEquals(application.getPackageName(), broadcasts.get(0).getPackage());
+        assertTrue(broadcasts.get(0).getBooleanExtra(ReadModeManager.EXTRA_IS_READ_MODE_ONLY, false));
+        assertFalse(broadcasts.get(1).getBooleanExtra(ReadModeManager.EXTRA_IS_READ_MODE_ONLY, true));
+    }
+
+    @Test
+    public void handleNotificationAction_unknownAction_isNotHandled() {
+        // Then
+        assertFalse(receiver.handleNotificationAction(application, null));
+        assertFalse(receiver.handleNotificationAction(application, "unknown"));
+        verify(mockPrefsHelper, never()).flushPendingProperties();
+    }
+}
@@ -0,0 +1,290 @@
+/*****************************************************************
+ * Copyright (C) 2025 Alan Quintero <https://github.com/alanquintero/>
+ *****************************************************************/
+package autonightmode.mx.com.alanquintero.autonightmode.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import android.app.ActivityManager;
+import android.app.Application;
+import android.content.ComponentName;
+import android.content.Context;
+import android.content.ContextWrapper;
+import android.content.Intent;
+import android.os.Build;
+import android.os.Looper;
+
+import androidx.test.core.app.ApplicationProvider;
+
+import autonightmode.mx.com.alanquintero.autonightmode.model.AppProfiles;
+import autonightmode.mx.com.alanquintero.autonightmode.model.OverlayRegion;
+import autonightmode.mx.com.alanquintero.autonightmode.model.OverlaySnapshot;
+import autonightmode.mx.com.alanquintero.autonightmode.util.Constants;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.Shadows;
+import org.robolectric.annotation.Config;
+
+import java.util.Collections;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = {Build.VERSION_CODES.O})
+public class OverlayClientTest {
+
+    private static final OverlaySnapshot SNAPSHOT_ON = new OverlaySnapshot(true, Constants.CUSTOM_COLOR,
+            "#FF5733", Constants.DEFAULT_COLOR_TEMPERATURE, 20, 40);
+
+    private Application application;
+    private ActivityManager activityManager;
+
+    @Before
+    public void setUp() {
+        application = ApplicationProvider.getApplicationContext();
+        activityManager = (ActivityManager) application.getSystemService(Context.ACTIVITY_SERVICE);
+    }
+
+    @Test
+    public void apply_readModeOnAndServiceNotRunning_startsService() {
+        // Given
+        OverlayClient.setServiceRunning(application, false);
+
+        // When
+        final boolean sent = OverlayClient.apply(application, SNAPSHOT_ON);
+
+        // Then - the next commands are plain start commands
+        assertTrue(sent);
+        final Intent command = Shadows.shadowOf(application).getNextStartedService();
+        assertEquals(DrawOverAppsService.class.getName(), command.getComponent().getClassName());
+        assertEquals(SNAPSHOT_ON, OverlayClient.readSnapshot(command));
+        assertTrue(OverlayClient.isRunning(application));
+    }
+
+    @Test
+    public void apply_readModeOffAndServiceNotRunning_sendsNothing() {
+        // Given
+        OverlayClient.setServiceRunning(application, false);
+
+        // When
+        final boolean sent = OverlayClient.apply(application, SNAPSHOT_ON.withReadModeOn(false));
+
+        // Then
+        assertFalse(sent);
+        assertNull(Shadows.shadowOf(application).getNextStartedService());
+    }
+
+    @Test
+    public void apply_readModeOffAndServiceRunning_sendsStandby() {
+        // Given
+        OverlayClient.setServiceRunning(application, true);
+
+        // When
+        final boolean sent = OverlayClient.apply(application, SNAPSHOT_ON.withReadModeOn(false));
+
+        // Then
+        assertTrue(sent);
+        assertEquals(SNAPSHOT_ON.withReadModeOn(false),
+                OverlayClient.readSnapshot(Shadows.shadowOf(application).getNextStartedService()));
+    }
+
+    @Test
+    public void apply_serviceStoppedBeforeItsReport_startsItInTheForeground() {
+        // Given - the service is believed running, but a plain start is refused in the background
+        OverlayClient.setServiceRunning(application, true);
+        final Context backgroundContext = new ContextWrapper(application) {
+            @Override
+            public ComponentName startService(final Intent service) {
+                throw new IllegalStateException("Not allowed to start service");
+            }
+        };
+
+        // When
+        final boolean sent = OverlayClient.apply(backgroundContext, SNAPSHOT_ON);
+
+        // Then
+        assertTrue(sent);
+        assertEquals(SNAPSHOT_ON, OverlayClient.readSnapshot(Shadows.shadowOf(application).getNextStartedService()));
+        assertTrue(OverlayClient.isRunning(application));
+    }
+
+    @Test
+    public void apply_readModeOffAndServiceStoppedBeforeItsReport_sendsNothing() {
+        // Given
+        OverlayClient.setServiceRunning(application, true);
+        final Context backgroundContext = new ContextWrapper(application) {
+            @Override
+            public ComponentName startService(final Intent service) {
+                throw new IllegalStateException("Not allowed to start service");
+            }
+        };
+
+        // When
+        final boolean sent = OverlayClient.apply(backgroundContext, SNAPSHOT_ON.withReadModeOn(false));
+
+        // Then
+        assertFalse(sent);
+        assertNull(Shadows.shadowOf(application).getNextStartedService());
+        assertFalse(OverlayClient.isRunning(application));
+    }
+
+    @Test
+    public void update_serviceNotRunning_sendsNothing() {
+        // Given
+        OverlayClient.setServiceRunning(application, false);
+
+        // When
+        final boolean sent = OverlayClient.update(application, SNAPSHOT_ON);
+
+        // Then - the service is not started
+        assertFalse(sent);
+        assertNull(Shadows.shadowOf(application).getNextStartedService());
+    }
+
+    @Test
+    public void update_serviceRunning_sendsSnapshot() {
+        // Given
+        OverlayClient.setServiceRunning(application, true);
+
+        // When
+        final boolean sent = OverlayClient.update(application, SNAPSHOT_ON);
+
+        // Then
+        assertTrue(sent);
+        assertEquals(SNAPSHOT_ON, OverlayClient.readSnapshot(Shadows.shadowOf(application).getNextStartedService()));
+    }
+
+    @Test
+    @Config(sdk = Build.VERSION_CODES.TIRAMISU)
+    public void isRunning_readsTheSystemOnceThenFollowsTheServiceReports() {
+        // Given - bound but not started
+        setOverlayServiceRunning(false);
+
+        // Then
+        assertFalse(OverlayClient.isRunning(application));
+
+        // When - started, the system is not asked again
+        setOverlayServiceRunning(true);
+
+        // Then
+        assertFalse(OverlayClient.isRunning(application));
+
+        // When - reported by the service from its process
+        application.sendBroadcast(new Intent(OverlayClient.ACTION_SERVICE_STATE)
+                .setPackage(application.getPackageName())
+                .putExtra(OverlayClient.EXTRA_IS_RUNNING, true));
+        Shadows.shadowOf(Looper.getMainLooper()).idle();
+
+        // Then
+        assertTrue(OverlayClient.isRunning(application));
+    }
+
+    @Test
+    public void reportServiceState_updatesThisProcessAndTheOthers() {
+        // Given
+        OverlayClient.setServiceRunning(application, true);
+
+        // When
+        OverlayClient.reportServiceState(application, false);
+
+        // Then
+        assertFalse(OverlayClient.isRunning(application));
+        final Intent report = Shadows.shadowOf(application).getBroadcastIntents().get(0);
+        assertEquals(OverlayClient.ACTION_SERVICE_STATE, report.getAction());
+        assertEquals(application.getPackageName(), report.getPackage());
+        assertFalse(report.getBooleanExtra(OverlayClient.EXTRA_IS_RUNNING, true));
+    }
+
+    @Test
+    public void readSnapshot_keepsTheRamp() {
+        // Given
+        final OverlaySnapshot snapshot = new OverlaySnapshot(true, Constants.COLOR_YELLOW, Constants.DEFAULT_CUSTOM_COLOR,
+                Constants.DEFAULT_COLOR_TEMPERATURE, 50, 30).withRamp(1000, 61_000, false);
+
+        // When
+        final OverlaySnapshot received = OverlayClient.readSnapshot(OverlayClient.createApplyIntent(application, snapshot));
+
+        // Then
+        assertEquals(snapshot, received);
+        assertTrue(received.hasRamp());
+        assertFalse(received.isFadeIn());
+    }
+
+    @Test
+    public void readSnapshot_keepsTheAmbientLight() {
+        // Given
+        final OverlaySnapshot snapshot = new OverlaySnapshot(true, Constants.COLOR_YELLOW, Constants.DEFAULT_CUSTOM_COLOR,
+                Constants.DEFAULT_COLOR_TEMPERATURE, 50, 30).withAmbientLight(true);
+
+        // When
+        final OverlaySnapshot received = OverlayClient.readSnapshot(OverlayClient.createApplyIntent(application, snapshot));
+
+        // Then
+        assertEquals(snapshot, received);
+        assertTrue(received.isAmbientLight());
+    }
+
+    @Test
+    public void readSnapshot_keepsTheHybridDimming() {
+        // Given
+        final OverlaySnapshot snapshot = new OverlaySnapshot(true, Constants.COLOR_YELLOW, Constants.DEFAULT_CUSTOM_COLOR,
+                Constants.DEFAULT_COLOR_TEMPERATURE, 50, 30).withHybridDimming(true);
+
+        // When
+        final OverlaySnapshot received = OverlayClient.readSnapshot(OverlayClient.createApplyIntent(application, snapshot));
+
+        // Then
+        assertEquals(snapshot, received);
+        assertTrue(received.isHybridDimming());
+    }
+
+    @Test
+    public void readSnapshot_keepsTheAppProfiles() {
+        // Given
+        final OverlaySnapshot snapshot = new OverlaySnapshot(true, Constants.COLOR_YELLOW, Constants.DEFAULT_CUSTOM_COLOR,
+                Constants.DEFAULT_COLOR_TEMPERATURE, 50, 30)
+                .withAppProfiles(AppProfiles.parseOrEmpty("com.android.camera=OFF;com.example.reader=80,20"));
+
+        // When
+        final OverlaySnapshot received = OverlayClient.readSnapshot(OverlayClient.createApplyIntent(application, snapshot));
+
+        // Then
+        assertEquals(snapshot, received);
+        assertEquals(new AppProfiles.Profile(true, 80, 20), received.getAppProfiles().get("com.example.reader"));
+        assertFalse(received.getAppProfiles().get("com.android.camera").isFilterOn());
+    }
+
+    @Test
+    public void readSnapshot_keepsTheRegionAndTheTransition() {
+        // Given
+        final OverlayRegion band = new OverlayRegion(OverlayRegion.Mode.MASK, 30, 25);
+        final OverlaySnapshot snapshot = new OverlaySnapshot(true, Constants.COLOR_YELLOW, Constants.DEFAULT_CUSTOM_COLOR,
+                Constants.DEFAULT_COLOR_TEMPERATURE, 50, 30).withRegion(band).withTransitionDuration(500);
+
+        // When
+        final OverlaySnapshot received = OverlayClient.readSnapshot(OverlayClient.createApplyIntent(application, snapshot));
+
+        // Then
+        assertEquals(snapshot, received);
+        assertEquals(band, received.getRegion());
+        assertEquals(500, received.getTransitionDuration());
+    }
+
+    @Test
+    public void readSnapshot_otherIntents_returnNull() {
+        assertNull(OverlayClient.readSnapshot(null));
+        assertNull(OverlayClient.readSnapshot(new Intent(Intent.ACTION_MAIN)));
+        assertNull(OverlayClient.readSnapshot(new Intent(OverlayClient.ACTION_APPLY)));
+    }
+
+    private void setOverlayServiceRunning(final boolean isStarted) {
+        final ActivityManager.RunningServiceInfo runningService = new ActivityManager.RunningServiceInfo();
+        runningService.service = new ComponentName(application, DrawOverAppsService.class);
+        runningService.started = isStarted;
+        Shadows.shadowOf(activityManager).setServices(Collections.singletonList(runningService));
+    }
+}
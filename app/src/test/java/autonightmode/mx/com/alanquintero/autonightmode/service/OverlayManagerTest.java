@@ -0,0 +1,340 @@
+/*****************************************************************
+ * Copyright (C) 2025 Alan Quintero <https://github.com/alanquintero/>
+ *****************************************************************/
+package autonightmode.mx.com.alanquintero.autonightmode.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import android.content.Context;
+import android.content.ContextWrapper;
+import android.graphics.Point;
+import android.hardware.display.DisplayManager;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.SparseArray;
+import android.view.Display;
+import android.view.View;
+import android.view.WindowManager;
+
+import androidx.annotation.NonNull;
+import androidx.test.core.app.ApplicationProvider;
+
+import autonightmode.mx.com.alanquintero.autonightmode.model.OverlayRegion;
+import autonightmode.mx.com.alanquintero.autonightmode.model.OverlaySnapshot;
+import autonightmode.mx.com.alanquintero.autonightmode.util.Constants;
+import autonightmode.mx.com.alanquintero.autonightmode.util.PrefsHelper;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.Shadows;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowDisplayManager;
+
+import java.time.Duration;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = {Build.VERSION_CODES.O})
+public class OverlayManagerTest {
+
+    private static final OverlaySnapshot SNAPSHOT_ON = new OverlaySnapshot(true, Constants.COLOR_YELLOW,
+            Constants.DEFAULT_CUSTOM_COLOR, Constants.DEFAULT_COLOR_TEMPERATURE, 20, 40);
+
+    private Context context;
+    private OverlayManager overlayManager;
+    private final SparseArray<WindowManager> windowManagers = new SparseArray<>();
+
+    @Before
+    public void setUp() {
+        context = ApplicationProvider.getApplicationContext();
+        final DisplayManager displayManager = (DisplayManager) context.getSystemService(Context.DISPLAY_SERVICE);
+        overlayManager = new OverlayManager(displayManager, new FakeHost(), new Handler(Looper.getMainLooper()));
+    }
+
+    @After
+    public void tearDown() {
+        overlayManager.stop();
+    }
+
+    @Test
+    public void start_addsOneOverlayPerDisplay() {
+        // Given
+        final int externalDisplayId = ShadowDisplayManager.addDisplay("w1920dp-h1080dp");
+
+        // When
+        overlayManager.start(SNAPSHOT_ON);
+
+        // Then
+        assertEquals(2, overlayManager.getOverlayCount());
+        verify(windowManagers.get(Display.DEFAULT_DISPLAY), times(1)).addView(any(View.class), any(WindowManager.LayoutParams.class));
+        verify(windowManagers.get(externalDisplayId), times(1)).addView(any(View.class), any(WindowManager.LayoutParams.class));
+        assertEquals(View.VISIBLE, overlayManager.getOverlayView(externalDisplayId).getVisibility());
+    }
+
+    @Test
+    public void apply_updatesEveryDisplayInOnePass() {
+        // Given
+        final int externalDisplayId = ShadowDisplayManager.addDisplay("w1920dp-h1080dp");
+        overlayManager.start(SNAPSHOT_ON);
+
+        // When
+        final OverlaySnapshot snapshotOff = SNAPSHOT_ON.withReadModeOn(false);
+        overlayManager.apply(snapshotOff);
+
+        // Then
+        assertEquals(snapshotOff, overlayManager.getSnapshot());
+        assertEquals(View.INVISIBLE, overlayManager.getOverlayView(Display.DEFAULT_DISPLAY).getVisibility());
+        assertEquals(View.INVISIBLE, overlayManager.getOverlayView(externalDisplayId).getVisibility());
+    }
+
+    @Test
+    public void apply_readsSettingsOnceRegardlessOfDisplayCount() {
+        // Given
+        ShadowDisplayManager.addDisplay("w1920dp-h1080dp");
+        ShadowDisplayManager.addDisplay("w1280dp-h720dp");
+        final PrefsHelper prefsHelper = mock(PrefsHelper.class);
+        when(prefsHelper.isReadModeOn()).thenReturn(true);
+        when(prefsHelper.getColor()).thenReturn(Constants.COLOR_GREEN);
+        overlayManager.start(OverlaySnapshot.from(prefsHelper));
+
+        // When
+        overlayManager.apply(OverlaySnapshot.from(prefsHelper));
+
+        // Then
+        assertEquals(3, overlayManager.getOverlayCount());
+        verify(prefsHelper, times(2)).isReadModeOn();
+        verify(prefsHelper, times(2)).getColor();
+    }
+
+    @Test
+    public void apply_standby_dropsWindowFromCompositionOnlyOnStateChange() {
+        // Given
+        overlayManager.start(SNAPSHOT_ON);
+        final WindowManager windowManager = windowManagers.get(Display.DEFAULT_DISPLAY);
+        assertEquals(OverlayManager.WINDOW_ALPHA_VISIBLE,
+                overlayManager.getOverlayParams(Display.DEFAULT_DISPLAY).alpha, 0f);
+
+        // When - several updates while in standby
+        final OverlaySnapshot snapshotOff = SNAPSHOT_ON.withReadModeOn(false);
+        overlayManager.apply(snapshotOff);
+        overlayManager.apply(snapshotOff);
+        overlayManager.apply(snapshotOff);
+
+        // Then - ON at start, then OFF once
+        assertEquals(OverlayManager.WINDOW_ALPHA_STANDBY,
+                overlayManager.getOverlayParams(Display.DEFAULT_DISPLAY).alpha, 0f);
+        verify(windowManager, times(2)).updateViewLayout(any(View.class), any(WindowManager.LayoutParams.class));
+    }
+
+    @Test
+    public void createLayoutParams_doesNotVoteForRefreshRate() {
+        // When
+        final WindowManager.LayoutParams params = OverlayManager.createLayoutParams();
+
+        // Then
+        assertEquals(0f, params.preferredRefreshRate, 0f);
+        assertEquals(0, params.preferredDisplayModeId);
+        assertEquals(OverlayManager.WINDOW_ALPHA_STANDBY, params.alpha, 0f);
+        assertEquals(WindowManager.LayoutParams.FLAG_NOT_TOUCHABLE,
+                params.flags & WindowManager.LayoutParams.FLAG_NOT_TOUCHABLE);
+    }
+
+    @Test
+    public void onDisplayAdded_attachesOverlayWithCurrentSnapshot() {
+        // Given
+        overlayManager.start(SNAPSHOT_ON);
+
+        // When
+        final int externalDisplayId = ShadowDisplayManager.addDisplay("w1920dp-h1080dp");
+        Shadows.shadowOf(Looper.getMainLooper()).idle();
+
+        // Then
+        assertEquals(2, overlayManager.getOverlayCount());
+        assertNotNull(overlayManager.getOverlayView(externalDisplayId));
+        assertEquals(View.VISIBLE, overlayManager.getOverlayView(externalDisplayId).getVisibility());
+    }
+
+    @Test
+    public void onDisplayRemoved_removesOnlyThatOverlay() {
+        // Given
+        final int externalDisplayId = ShadowDisplayManager.addDisplay("w1920dp-h1080dp");
+        overlayManager.start(SNAPSHOT_ON);
+        final WindowManager externalWindowManager = windowManagers.get(externalDisplayId);
+        final View externalView = overlayManager.getOverlayView(externalDisplayId);
+
+        // When
+        ShadowDisplayManager.removeDisplay(externalDisplayId);
+        Shadows.shadowOf(Looper.getMainLooper()).idle();
+
+        // Then
+        assertEquals(1, overlayManager.getOverlayCount());
+        assertNull(overlayManager.getOverlayView(externalDisplayId));
+        verify(externalWindowManager).removeViewImmediate(eq(externalView));
+    }
+
+    @Test
+    public void stop_removesAllOverlays() {
+        // Given
+        final int externalDisplayId = ShadowDisplayManager.addDisplay("w1920dp-h1080dp");
+        overlayManager.start(SNAPSHOT_ON);
+
+        // When
+        overlayManager.stop();
+
+        // Then
+        assertEquals(0, overlayManager.getOverlayCount());
+        verify(windowManagers.get(Display.DEFAULT_DISPLAY)).removeView(any(View.class));
+        verify(windowManagers.get(externalDisplayId)).removeView(any(View.class));
+    }
+
+    @Test
+    public void start_band_windowCoversOnlyTheBand() {
+        // Given
+        final int displayHeight = getDefaultDisplayHeight();
+        final OverlayRegion band = new OverlayRegion(OverlayRegion.Mode.BAND, 40, 20);
+
+        // When
+        overlayManager.start(SNAPSHOT_ON.withRegion(band));
+
+        // Then
+        final WindowManager.LayoutParams params = overlayManager.getOverlayParams(Display.DEFAULT_DISPLAY);
+        assertEquals(band.getBandTop(displayHeight), params.y);
+        assertEquals(band.getBandBottom(displayHeight) - band.getBandTop(displayHeight), params.height);
+        assertNull(overlayManager.getLowerOverlayParams(Display.DEFAULT_DISPLAY));
+    }
+
+    @Test
+    public void start_mask_addsAWindowBelowTheBand() {
+        // Given
+        final int displayHeight = getDefaultDisplayHeight();
+        final OverlayRegion mask = new OverlayRegion(OverlayRegion.Mode.MASK, 40, 20);
+
+        // When
+        overlayManager.start(SNAPSHOT_ON.withRegion(mask));
+
+        // Then
+        verify(windowManagers.get(Display.DEFAULT_DISPLAY), times(2)).addView(any(View.class), any(WindowManager.LayoutParams.class));
+        final WindowManager.LayoutParams upperParams = overlayManager.getOverlayParams(Display.DEFAULT_DISPLAY);
+        assertEquals(0, upperParams.y);
+        assertEquals(mask.getBandTop(displayHeight), upperParams.height);
+        final WindowManager.LayoutParams lowerParams = overlayManager.getLowerOverlayParams(Display.DEFAULT_DISPLAY);
+        assertNotNull(lowerParams);
+        assertEquals(mask.getBandBottom(displayHeight), lowerParams.y);
+        assertEquals(displayHeight - mask.getBandBottom(displayHeight), lowerParams.height);
+        assertEquals(OverlayManager.WINDOW_ALPHA_VISIBLE, lowerParams.alpha, 0f);
+
+        // When - back to the whole screen
+        overlayManager.apply(SNAPSHOT_ON);
+
+        // Then - the lower window stays attached, dropped from composition
+        assertEquals(WindowManager.LayoutParams.MATCH_PARENT, upperParams.height);
+        assertEquals(OverlayManager.WINDOW_ALPHA_STANDBY, lowerParams.alpha, 0f);
+        verify(windowManagers.get(Display.DEFAULT_DISPLAY), times(2)).addView(any(View.class), any(WindowManager.LayoutParams.class));
+    }
+
+    @Test
+    public void applyRegion_movesTheBandWithoutRedrawing() {
+        // Given
+        final OverlaySnapshot snapshot = SNAPSHOT_ON.withRegion(new OverlayRegion(OverlayRegion.Mode.BAND, 40, 20));
+        overlayManager.start(snapshot);
+        final WindowManager windowManager = windowManagers.get(Display.DEFAULT_DISPLAY);
+        final CountingView view = (CountingView) overlayManager.getOverlayView(Display.DEFAULT_DISPLAY);
+        final int invalidateCount = view.invalidateCount;
+        final OverlayRegion moved = new OverlayRegion(OverlayRegion.Mode.BAND, 10, 20);
+
+        // When
+        overlayManager.applyRegion(snapshot.withRegion(moved));
+
+        // Then - the layout is updated once at start and once for the move
+        assertEquals(moved.getBandTop(getDefaultDisplayHeight()), overlayManager.getOverlayParams(Display.DEFAULT_DISPLAY).y);
+        verify(windowManager, times(2)).updateViewLayout(any(View.class), any(WindowManager.LayoutParams.class));
+        assertEquals(invalidateCount, view.invalidateCount);
+    }
+
+    @Test
+    public void apply_standbyWithTransition_keepsTheWindowUntilTheFadeEnds() {
+        // Given
+        final OverlaySnapshot snapshot = SNAPSHOT_ON.withTransitionDuration(300);
+        overlayManager.start(snapshot);
+        Shadows.shadowOf(Looper.getMainLooper()).idleFor(Duration.ofMillis(300));
+        final View view = overlayManager.getOverlayView(Display.DEFAULT_DISPLAY);
+        final WindowManager.LayoutParams params = overlayManager.getOverlayParams(Display.DEFAULT_DISPLAY);
+        assertEquals(1f, view.getAlpha(), 0f);
+
+        // When
+        overlayManager.apply(snapshot.withReadModeOn(false));
+        Shadows.shadowOf(Looper.getMainLooper()).idleFor(Duration.ofMillis(150));
+
+        // Then - fading out, still in composition
+        assertEquals(View.VISIBLE, view.getVisibility());
+        assertEquals(OverlayManager.WINDOW_ALPHA_VISIBLE, params.alpha, 0f);
+
+        // When
+        Shadows.shadowOf(Looper.getMainLooper()).idleFor(Duration.ofMillis(300));
+
+        // Then
+        assertEquals(View.INVISIBLE, view.getVisibility());
+        assertEquals(OverlayManager.WINDOW_ALPHA_STANDBY, params.alpha, 0f);
+    }
+
+    private int getDefaultDisplayHeight() {
+        final DisplayManager displayManager = (DisplayManager) context.getSystemService(Context.DISPLAY_SERVICE);
+        final Point size = new Point();
+        displayManager.getDisplay(Display.DEFAULT_DISPLAY).getRealSize(size);
+        return size.y;
+    }
+
+    /**
+     * A view that counts the redraws requested by the overlay manager.
+     */
+    private static class CountingView extends View {
+
+        int invalidateCount = 0;
+
+        CountingView(final @NonNull Context context) {
+            super(context);
+        }
+
+        @Override
+        public void invalidate() {
+            invalidateCount++;
+            super.invalidate();
+        }
+    }
+
+    /**
+     * Returns a context per display whose window manager is a mock.
+     */
+    private class FakeHost implements OverlayManager.Host {
+
+        @NonNull
+        @Override
+        public Context createDisplayContext(final @NonNull Display display) {
+            final WindowManager windowManager = mock(WindowManager.class);
+            windowManagers.put(display.getDisplayId(), windowManager);
+            return new ContextWrapper(context) {
+                @Override
+                public Object getSystemService(final String name) {
+                    return Context.WINDOW_SERVICE.equals(name) ? windowManager : super.getSystemService(name);
+                }
+            };
+        }
+
+        @NonNull
+        @Override
+        public View createOverlayView(final @NonNull Context displayContext) {
+            return new CountingView(displayContext);
+        }
+    }
+}
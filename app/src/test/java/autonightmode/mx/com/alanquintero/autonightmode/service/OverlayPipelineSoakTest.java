@@ -0,0 +1,405 @@
+/*****************************************************************
+ * Copyright (C) 2025 Alan Quintero <https://github.com/alanquintero/>
+ *****************************************************************/
+package autonightmode.mx.com.alanquintero.autonightmode.service;
+
+import static autonightmode.mx.com.alanquintero.autonightmode.SoakHarness.assertCollected;
+import static autonightmode.mx.com.alanquintero.autonightmode.SoakHarness.assertWithinBudget;
+import static autonightmode.mx.com.alanquintero.autonightmode.SoakHarness.countCalls;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.mockStatic;
+import static org.mockito.Mockito.verify;
+
+import android.app.Application;
+import android.content.Context;
+import android.content.Intent;
+import android.content.res.Configuration;
+import android.graphics.drawable.GradientDrawable;
+import android.os.Build;
+import android.os.Looper;
+import android.provider.Settings;
+import android.view.Display;
+import android.view.View;
+import android.view.WindowManager;
+import android.widget.Button;
+import android.widget.LinearLayout;
+import android.widget.SeekBar;
+import android.widget.TextView;
+
+import androidx.annotation.NonNull;
+import androidx.fragment.app.FragmentActivity;
+import androidx.recyclerview.widget.RecyclerView;
+import androidx.test.core.app.ApplicationProvider;
+
+import autonightmode.mx.com.alanquintero.autonightmode.R;
+import autonightmode.mx.com.alanquintero.autonightmode.SoakHarness;
+import autonightmode.mx.com.alanquintero.autonightmode.command.GeneralReadModeCommand;
+import autonightmode.mx.com.alanquintero.autonightmode.command.SettingsReadModeCommand;
+import autonightmode.mx.com.alanquintero.autonightmode.manager.ReadModeManager;
+import autonightmode.mx.com.alanquintero.autonightmode.model.ColorPreset;
+import autonightmode.mx.com.alanquintero.autonightmode.model.OverlaySnapshot;
+import autonightmode.mx.com.alanquintero.autonightmode.model.ReadModeSettings;
+import autonightmode.mx.com.alanquintero.autonightmode.observer.dropdown.ColorDropdownObserver;
+import autonightmode.mx.com.alanquintero.autonightmode.observer.dropdown.ColorDropdownSubject;
+import autonightmode.mx.com.alanquintero.autonightmode.observer.readmode.ReadModeObserver;
+import autonightmode.mx.com.alanquintero.autonightmode.observer.readmode.ReadModeSubject;
+import autonightmode.mx.com.alanquintero.autonightmode.ui.controller.ButtonController;
+import autonightmode.mx.com.alanquintero.autonightmode.ui.controller.ColorDropdownController;
+import autonightmode.mx.com.alanquintero.autonightmode.ui.controller.SeekBarController;
+import autonightmode.mx.com.alanquintero.autonightmode.ui.dialog.CustomColorDialog;
+import autonightmode.mx.com.alanquintero.autonightmode.util.Constants;
+import autonightmode.mx.com.alanquintero.autonightmode.util.PrefsHelper;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.MockedStatic;
+import org.mockito.MockitoAnnotations;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.Shadows;
+import org.robolectric.annotation.Config;
+
+import java.lang.ref.WeakReference;
+import java.time.Duration;
+
+// The UI controllers and the overlay service wired like MainActivity.buildUI(), the commands sent by
+// OverlayClient are delivered to the service right away
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = {Build.VERSION_CODES.O})
+public class OverlayPipelineSoakTest {
+
+    // Longer than the default transition, the fade in or out is over
+    private static final Duration TRANSITION = Duration.ofMillis(Constants.DEFAULT_TRANSITION_DURATION + 100);
+    private static final int STANDBY_TIMEOUT_MS = 1000;
+    private static final String[] COLOR_NAMES = {Constants.YELLOW, Constants.PINK};
+
+    private AutoCloseable mocks;
+    private MockedStatic<Settings> settingsStatic;
+    private Application application;
+    private SoakHarness.PrefsContext prefsContext;
+    private PrefsHelper prefsHelper;
+    private ColorPreset yellowPreset;
+    private ColorPreset pinkPreset;
+    private WindowManager mockWindowManager;
+    private FragmentActivity mockActivity;
+    private CustomColorDialog mockCustomColorDialog;
+    private ReadModeObserver mockReadModeObserver;
+    private ColorDropdownObserver mockColorDropdownObserver;
+    private final ReadModeSettings readModeSettings = ReadModeSettings.init();
+    private SoakHarness.ClientContext clientContext;
+    private DrawOverAppsService service;
+    private int startId = 0;
+
+    // The UI, built again on every theme change
+    private View rootView;
+    private SeekBarController seekBarController;
+    private ColorDropdownController colorDropdownController;
+
+    @Before
+    public void setUp() {
+        mocks = MockitoAnnotations.openMocks(this);
+        application = ApplicationProvider.getApplicationContext();
+
+        // The overlay windows are owned by the main looper, so every update is seen right away
+        DrawOverAppsService.renderLooperOverride = Looper.getMainLooper();
+        DrawOverAppsService.instanceRef = null;
+
+        settingsStatic = mockStatic(Settings.class);
+        settingsStatic.when(() -> Settings.canDrawOverlays(any())).thenReturn(true);
+        prefsContext = new SoakHarness.PrefsContext(application);
+        prefsHelper = SoakHarness.createPrefsHelper(prefsContext);
+        yellowPreset = prefsHelper.getPreset(ColorPreset.YELLOW_PRESET_ID);
+        pinkPreset = prefsHelper.getPreset(1);
+
+        mockWindowManager = mock(WindowManager.class);
+        Shadows.shadowOf(application).setSystemService(Context.WINDOW_SERVICE, mockWindowManager);
+        mockActivity = mock(FragmentActivity.class);
+        mockCustomColorDialog = mock(CustomColorDialog.class);
+        mockReadModeObserver = mock(ReadModeObserver.class);
+        mockColorDropdownObserver = mock(ColorDropdownObserver.class);
+
+        // Given - Read Mode ON with the yellow preset, applied as soon as it changes
+        prefsHelper.saveProperty(Constants.PREF_IS_READ_MODE_ON, true);
+        prefsHelper.saveProperty(Constants.PREF_COLOR, yellowPreset.getScreenColor());
+        prefsHelper.saveProperty(Constants.PREF_STANDBY_TIMEOUT, STANDBY_TIMEOUT_MS);
+        prefsHelper.saveProperty(Constants.PREF_SAME_INTENSITY_BRIGHTNESS_FOR_ALL, true);
+        readModeSettings.setIsReadModeOn(true);
+        readModeSettings.setWasReadModeOn(false);
+        readModeSettings.setCustomColor(Constants.DEFAULT_CUSTOM_COLOR);
+        readModeSettings.setColorTemperature(Constants.DEFAULT_COLOR_TEMPERATURE);
+        readModeSettings.setColorDropdownPosition(ColorPreset.YELLOW_PRESET_ID);
+        readModeSettings.setColorIntensity(Constants.DEFAULT_COLOR_INTENSITY);
+        readModeSettings.setBrightness(Constants.DEFAULT_BRIGHTNESS);
+        readModeSettings.setAutoStartReadMode(true);
+        readModeSettings.setShouldUseSameIntensityBrightnessForAll(true);
+
+        clientContext = new SoakHarness.ClientContext(application, this::deliver);
+        SoakHarness.setOverlayServiceRunning(application, false);
+        createService();
+        buildUi();
+        Shadows.shadowOf(Looper.getMainLooper()).idleFor(TRANSITION);
+
+        // The budgets only count the workload
+        clearInvocations(mockWindowManager, mockReadModeObserver, mockColorDropdownObserver);
+        prefsContext.resetWriteCount();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        if (service != null) {
+            service.onDestroy();
+        }
+        SoakHarness.setOverlayServiceRunning(application, false);
+        SoakHarness.releasePrefsHelper();
+        settingsStatic.close();
+        mocks.close();
+        readModeSettings.setIsReadModeOn(false);
+        readModeSettings.setAutoStartReadMode(Constants.DEFAULT_AUTO_START_READ_MODE);
+        readModeSettings.setShouldUseSameIntensityBrightnessForAll(Constants.DEFAULT_SAME_INTENSITY_BRIGHTNESS_FOR_ALL);
+        DrawOverAppsService.instanceRef = null;
+        DrawOverAppsService.renderLooperOverride = null;
+    }
+
+    @Test
+    public void sliderDrag_redrawsTheSameWindowAndWritesOnRelease() {
+        // Given
+        final SeekBar brightnessBar = rootView.findViewById(R.id.brightnessLevelBar);
+        final SeekBar.OnSeekBarChangeListener listener = getSeekBarListener(brightnessBar);
+        WeakReference<OverlaySnapshot> firstSnapshot = null;
+        int progress = 0;
+
+        // When
+        listener.onStartTrackingTouch(brightnessBar);
+        for (int i = 0; i < SoakHarness.SLIDER_TICKS; i++) {
+            progress = i % 100 + 1;
+            listener.onProgressChanged(brightnessBar, progress, true);
+            if (firstSnapshot == null) {
+                firstSnapshot = new WeakReference<>(service.snapshot);
+            }
+        }
+        listener.onStopTrackingTouch(brightnessBar);
+
+        // Then - every tick is drawn in place, the drag is written once
+        assertEquals(progress, service.getDrawnSnapshot().getBrightness());
+        assertWithinBudget("addView", countCalls(mockWindowManager, "addView"), 0);
+        assertWithinBudget("removeView", countCalls(mockWindowManager, "removeView", "removeViewImmediate"), 0);
+        assertWithinBudget("updateViewLayout", countCalls(mockWindowManager, "updateViewLayout"), 0);
+        assertWithinBudget("SharedPreferences writes", prefsContext.getWriteCount(), 2);
+        assertWithinBudget("commands", clientContext.getCommandCount(), SoakHarness.SLIDER_TICKS);
+        assertWithinBudget("service starts", clientContext.getForegroundStartCount(), 0);
+        assertWithinBudget("Read Mode dispatches", countCalls(mockReadModeObserver, "onReadModeChanged"), 0);
+        assertFalse(Shadows.shadowOf(service).isStoppedBySelf());
+        assertEquals(1, service.overlayManager.getOverlayCount());
+        assertCollected("first snapshot", firstSnapshot);
+    }
+
+    @Test
+    public void colorSwitches_redrawOncePerSwitch() {
+        // When
+        ColorPreset preset = yellowPreset;
+        for (int i = 0; i < SoakHarness.COLOR_SWITCHES; i++) {
+            preset = i % 2 == 0 ? pinkPreset : yellowPreset;
+            colorDropdownController.handleColorSelection(preset.getId());
+        }
+
+        // Then
+        assertEquals(preset.getScreenColor(), service.getDrawnSnapshot().getScreenColor());
+        assertWithinBudget("addView", countCalls(mockWindowManager, "addView"), 0);
+        assertWithinBudget("removeView", countCalls(mockWindowManager, "removeView", "removeViewImmediate"), 0);
+        assertWithinBudget("updateViewLayout", countCalls(mockWindowManager, "updateViewLayout"), 0);
+        assertWithinBudget("commands", clientContext.getCommandCount(), SoakHarness.COLOR_SWITCHES);
+        assertWithinBudget("service starts", clientContext.getForegroundStartCount(), 0);
+        assertWithinBudget("SharedPreferences writes", prefsContext.getWriteCount(), 2L * SoakHarness.COLOR_SWITCHES);
+        assertWithinBudget("dropdown dispatches", countCalls(mockColorDropdownObserver, "onColorDropdownPositionChange"),
+                SoakHarness.COLOR_SWITCHES);
+        assertWithinBudget("Read Mode dispatches", countCalls(mockReadModeObserver, "onReadModeChanged"), 0);
+    }
+
+    @Test
+    public void startStopStorm_keepsTheWindowAttached() {
+        // Given
+        final Button startStopButton = rootView.findViewById(R.id.startStopButton);
+        final View.OnClickListener listener = getClickListener(startStopButton);
+
+        // When - stopped and started again, each time once the fade is over
+        for (int i = 0; i < SoakHarness.START_STOP_CYCLES; i++) {
+            listener.onClick(startStopButton);
+            Shadows.shadowOf(Looper.getMainLooper()).idleFor(TRANSITION);
+            listener.onClick(startStopButton);
+            Shadows.shadowOf(Looper.getMainLooper()).idleFor(TRANSITION);
+        }
+
+        // Then - the window is only faded, one layout update for each fade
+        assertTrue(service.getDrawnSnapshot().isReadModeOn());
+        assertFalse(Shadows.shadowOf(service).isStoppedBySelf());
+        assertEquals(1, service.overlayManager.getOverlayCount());
+        assertWithinBudget("addView", countCalls(mockWindowManager, "addView"), 0);
+        assertWithinBudget("removeView", countCalls(mockWindowManager, "removeView", "removeViewImmediate"), 0);
+        assertWithinBudget("updateViewLayout", countCalls(mockWindowManager, "updateViewLayout"), 2L * SoakHarness.START_STOP_CYCLES);
+        assertWithinBudget("commands", clientContext.getCommandCount(), 2L * SoakHarness.START_STOP_CYCLES);
+        assertWithinBudget("service starts", clientContext.getForegroundStartCount(), 0);
+        assertWithinBudget("Read Mode dispatches", countCalls(mockReadModeObserver, "onReadModeChanged"), 2L * SoakHarness.START_STOP_CYCLES);
+        // Start saves the state, the intensity and the brightness, stop saves the state. With the same
+        // values for all colors the preset is not written
+        assertWithinBudget("SharedPreferences writes", prefsContext.getWriteCount(), 4L * SoakHarness.START_STOP_CYCLES);
+    }
+
+    @Test
+    public void configurationChanges_leaveTheWindowAloneAndReleaseTheOldUi() {
+        // Given
+        final WeakReference<SeekBarController> firstUi = new WeakReference<>(seekBarController);
+        final Configuration initial = application.getResources().getConfiguration();
+
+        // When - the theme and the orientation flip, the activity builds its UI again
+        for (int i = 0; i < SoakHarness.CONFIGURATION_CHANGES; i++) {
+            final Configuration configuration = new Configuration(initial);
+            configuration.uiMode = (initial.uiMode & ~Configuration.UI_MODE_NIGHT_MASK)
+                    | (i % 2 == 0 ? Configuration.UI_MODE_NIGHT_YES : Configuration.UI_MODE_NIGHT_NO);
+            configuration.orientation = i % 2 == 0 ? Configuration.ORIENTATION_LANDSCAPE : Configuration.ORIENTATION_PORTRAIT;
+            service.onConfigurationChanged(configuration);
+            service.overlayManager.onDisplayChanged(Display.DEFAULT_DISPLAY);
+            buildUi();
+        }
+        Shadows.shadowOf(Looper.getMainLooper()).idle();
+
+        // Then - a full screen window follows the display by itself
+        assertWithinBudget("addView", countCalls(mockWindowManager, "addView"), 0);
+        assertWithinBudget("removeView", countCalls(mockWindowManager, "removeView", "removeViewImmediate"), 0);
+        assertWithinBudget("updateViewLayout", countCalls(mockWindowManager, "updateViewLayout"), 0);
+        assertWithinBudget("commands", clientContext.getCommandCount(), 0);
+        assertWithinBudget("service starts", clientContext.getForegroundStartCount(), 0);
+        assertWithinBudget("SharedPreferences writes", prefsContext.getWriteCount(), 0);
+        // Each UI starts from the saved selection, once
+        assertWithinBudget("dropdown dispatches", countCalls(mockColorDropdownObserver, "onColorDropdownPositionChange"),
+                SoakHarness.CONFIGURATION_CHANGES);
+        assertCollected("first UI", firstUi);
+    }
+
+    @Test
+    public void serviceRestarts_releaseEveryWindowAndReceiver() {
+        // Given
+        final Button startStopButton = rootView.findViewById(R.id.startStopButton);
+        final View.OnClickListener listener = getClickListener(startStopButton);
+        final int receiverCount = Shadows.shadowOf(application).getRegisteredReceivers().size();
+
+        for (int i = 0; i < SoakHarness.SERVICE_RESTARTS; i++) {
+            // When - stopped, the service stops itself once the standby is over
+            listener.onClick(startStopButton);
+            Shadows.shadowOf(Looper.getMainLooper()).idleFor(Duration.ofMillis(STANDBY_TIMEOUT_MS).plus(TRANSITION));
+            assertTrue(Shadows.shadowOf(service).isStoppedBySelf());
+            destroyService();
+
+            // When - started again
+            listener.onClick(startStopButton);
+            Shadows.shadowOf(Looper.getMainLooper()).idleFor(TRANSITION);
+        }
+
+        // Then - one window and one set of receivers, whatever the number of restarts
+        assertEquals(SoakHarness.SERVICE_RESTARTS, clientContext.getForegroundStartCount());
+        assertEquals(1, service.overlayManager.getOverlayCount());
+        assertEquals(receiverCount, Shadows.shadowOf(application).getRegisteredReceivers().size());
+        assertEquals(countCalls(mockWindowManager, "addView"), countCalls(mockWindowManager, "removeView", "removeViewImmediate"));
+        assertWithinBudget("addView", countCalls(mockWindowManager, "addView"), SoakHarness.SERVICE_RESTARTS);
+        assertWithinBudget("updateViewLayout", countCalls(mockWindowManager, "updateViewLayout"), 2L * SoakHarness.SERVICE_RESTARTS);
+        assertWithinBudget("commands", clientContext.getCommandCount(), SoakHarness.SERVICE_RESTARTS);
+
+        // When
+        destroyService();
+
+        // Then - the window added before the workload is removed too
+        assertNull(DrawOverAppsService.instanceRef);
+        assertEquals(countCalls(mockWindowManager, "addView") + 1, countCalls(mockWindowManager, "removeView", "removeViewImmediate"));
+    }
+
+    /**
+     * Delivers a command to the service, like the system: the service is created first if it is not running.
+     */
+    private void deliver(final @NonNull Intent intent) {
+        if (service == null) {
+            createService();
+        }
+        service.onStartCommand(intent, 0, ++startId);
+    }
+
+    private void createService() {
+        service = Robolectric.buildService(DrawOverAppsService.class).get();
+        service.onCreate();
+    }
+
+    private void destroyService() {
+        service.onDestroy();
+        service = null;
+    }
+
+    /**
+     * Builds the UI like MainActivity.buildUI(), on new views.
+     */
+    private void buildUi() {
+        rootView = createRootView();
+        final ReadModeSubject readModeSubject = new ReadModeSubject();
+        final ColorDropdownSubject colorDropdownSubject = new ColorDropdownSubject();
+        final ReadModeManager readModeManager = new ReadModeManager(clientContext, prefsHelper, readModeSubject, readModeSettings);
+        final GeneralReadModeCommand generalReadModeCommand = new GeneralReadModeCommand(readModeManager, readModeSettings);
+        final SettingsReadModeCommand settingsReadModeCommand = new SettingsReadModeCommand(readModeManager, readModeSettings);
+
+        final ButtonController buttonController = new ButtonController(clientContext, mockActivity, rootView, generalReadModeCommand,
+                readModeSettings, () -> mockCustomColorDialog);
+        seekBarController = new SeekBarController(clientContext, rootView, generalReadModeCommand, readModeSettings);
+        colorDropdownController = new ColorDropdownController(clientContext, mockActivity, rootView, () -> mockCustomColorDialog,
+                colorDropdownSubject, settingsReadModeCommand, readModeSettings, COLOR_NAMES);
+        seekBarController.setupSeekBars();
+        buttonController.setupButtons();
+
+        readModeSubject.registerObserver(buttonController);
+        readModeSubject.registerObserver(mockReadModeObserver);
+        colorDropdownSubject.registerObserver(buttonController);
+        colorDropdownSubject.registerObserver(seekBarController);
+        colorDropdownSubject.registerObserver(mockColorDropdownObserver);
+        colorDropdownSubject.setCurrentColorDropdownPosition(readModeSettings.getColorDropdownPosition());
+    }
+
+    private @NonNull View createRootView() {
+        final View view = mock(View.class);
+        final LinearLayout containerLayout = mock(LinearLayout.class);
+        doReturn(mock(GradientDrawable.class)).when(containerLayout).getBackground();
+        doReturn(containerLayout).when(view).findViewById(R.id.colorSettingsContainer);
+        doReturn(mock(TextView.class)).when(view).findViewById(R.id.labelColorSettings);
+        doReturn(mock(View.class)).when(view).findViewById(R.id.lineColorSettings);
+        doReturn(mock(SeekBar.class)).when(view).findViewById(R.id.colorLevelBar);
+        doReturn(mock(TextView.class)).when(view).findViewById(R.id.colorLevelText);
+        doReturn(mock(TextView.class)).when(view).findViewById(R.id.colorLevelPercentageText);
+        doReturn(mock(TextView.class)).when(view).findViewById(R.id.brightnessLevelText);
+        doReturn(mock(SeekBar.class)).when(view).findViewById(R.id.brightnessLevelBar);
+        doReturn(mock(TextView.class)).when(view).findViewById(R.id.brightnessLevelPercentageText);
+        doReturn(mock(View.class)).when(view).findViewById(R.id.colorTemperatureContainer);
+        doReturn(mock(TextView.class)).when(view).findViewById(R.id.colorTemperatureText);
+        doReturn(mock(SeekBar.class)).when(view).findViewById(R.id.colorTemperatureBar);
+        doReturn(mock(TextView.class)).when(view).findViewById(R.id.colorTemperatureLevelText);
+        doReturn(mock(Button.class)).when(view).findViewById(R.id.customColorButton);
+        doReturn(mock(Button.class)).when(view).findViewById(R.id.startStopButton);
+        doReturn(mock(RecyclerView.class)).when(view).findViewById(R.id.colorPresetList);
+        return view;
+    }
+
+    private @NonNull SeekBar.OnSeekBarChangeListener getSeekBarListener(final @NonNull SeekBar seekBar) {
+        final ArgumentCaptor<SeekBar.OnSeekBarChangeListener> listenerCaptor = ArgumentCaptor.forClass(SeekBar.OnSeekBarChangeListener.class);
+        verify(seekBar).setOnSeekBarChangeListener(listenerCaptor.capture());
+        return listenerCaptor.getValue();
+    }
+
+    private @NonNull View.OnClickListener getClickListener(final @NonNull Button button) {
+        final ArgumentCaptor<View.OnClickListener> listenerCaptor = ArgumentCaptor.forClass(View.OnClickListener.class);
+        verify(button).setOnClickListener(listenerCaptor.capture());
+        return listenerCaptor.getValue();
+    }
+}
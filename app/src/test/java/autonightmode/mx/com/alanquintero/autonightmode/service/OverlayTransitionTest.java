@@ -0,0 +1,138 @@
+/*****************************************************************
+ * Copyright (C) 2025 Alan Quintero <https://github.com/alanquintero/>
+ *****************************************************************/
+package autonightmode.mx.com.alanquintero.autonightmode.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import android.content.Context;
+import android.os.Build;
+import android.os.Looper;
+import android.view.View;
+
+import androidx.annotation.NonNull;
+import androidx.test.core.app.ApplicationProvider;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.Shadows;
+import org.robolectric.annotation.Config;
+
+import java.time.Duration;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = {Build.VERSION_CODES.O})
+public class OverlayTransitionTest {
+
+    private static final long DURATION_MS = 400;
+
+    private CountingView view;
+    private OverlayTransition.Listener listener;
+    private OverlayTransition overlayTransition;
+
+    @Before
+    public void setUp() {
+        final Context context = ApplicationProvider.getApplicationContext();
+        view = new CountingView(context);
+        listener = mock(OverlayTransition.Listener.class);
+        overlayTransition = new OverlayTransition(view, listener);
+    }
+
+    @Test
+    public void fadeOut_onlyAnimatesTheAlpha() {
+        // When
+        overlayTransition.fadeOut(DURATION_MS);
+        idleFor(DURATION_MS / 2);
+
+        // Then - half way, drawn from a hardware layer
+        assertTrue(overlayTransition.isRunning());
+        assertTrue(view.getAlpha() > 0f && view.getAlpha() < 1f);
+        assertEquals(View.LAYER_TYPE_HARDWARE, view.getLayerType());
+        verify(listener, never()).onFadedOut(view);
+
+        // When
+        idleFor(DURATION_MS);
+
+        // Then - the content was never drawn again
+        assertFalse(overlayTransition.isRunning());
+        assertEquals(0f, view.getAlpha(), 0f);
+        assertEquals(View.LAYER_TYPE_NONE, view.getLayerType());
+        assertEquals(0, view.invalidateCount);
+        verify(listener).onFadedOut(view);
+    }
+
+    @Test
+    public void fadeIn_midFlight_reversesFromTheCurrentAlpha() {
+        // Given
+        overlayTransition.fadeOut(DURATION_MS);
+        idleFor(DURATION_MS / 2);
+        final float alpha = view.getAlpha();
+
+        // When
+        overlayTransition.fadeIn(DURATION_MS);
+
+        // Then - no jump, and the fade out never ends
+        assertEquals(alpha, view.getAlpha(), 0.01f);
+        assertFalse(overlayTransition.isFadingOut());
+        idleFor(DURATION_MS);
+        assertEquals(1f, view.getAlpha(), 0f);
+        verify(listener, never()).onFadedOut(view);
+    }
+
+    @Test
+    public void cancel_stopsWhereItIs() {
+        // Given
+        overlayTransition.fadeOut(DURATION_MS);
+        idleFor(DURATION_MS / 2);
+
+        // When
+        overlayTransition.cancel();
+        idleFor(DURATION_MS);
+
+        // Then
+        assertFalse(overlayTransition.isRunning());
+        assertTrue(view.getAlpha() > 0f);
+        assertEquals(View.LAYER_TYPE_NONE, view.getLayerType());
+        verify(listener, never()).onFadedOut(view);
+    }
+
+    @Test
+    public void fadeOut_withoutDuration_isApplied() {
+        // When
+        overlayTransition.fadeOut(0);
+
+        // Then
+        assertFalse(overlayTransition.isRunning());
+        assertEquals(0f, view.getAlpha(), 0f);
+        verify(listener).onFadedOut(view);
+    }
+
+    private static void idleFor(final long millis) {
+        Shadows.shadowOf(Looper.getMainLooper()).idleFor(Duration.ofMillis(millis));
+    }
+
+    /**
+     * A view that counts the redraws requested during a transition.
+     */
+    private static class CountingView extends View {
+
+        int invalidateCount = 0;
+
+        CountingView(final @NonNull Context context) {
+            super(context);
+        }
+
+        @Override
+        public void invalidate() {
+            invalidateCount++;
+            super.invalidate();
+        }
+    }
+}
@@ -0,0 +1,108 @@
+/*****************************************************************
+ * Copyright (C) 2025 Alan Quintero <https://github.com/alanquintero/>
+ *****************************************************************/
+package autonightmode.mx.com.alanquintero.autonightmode.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyFloat;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import android.view.Choreographer;
+
+import autonightmode.mx.com.alanquintero.autonightmode.model.OverlaySnapshot;
+import autonightmode.mx.com.alanquintero.autonightmode.util.Constants;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class RampAnimatorTest {
+
+    private Choreographer choreographer;
+    private RampAnimator.Listener listener;
+    private RampAnimator rampAnimator;
+
+    @BeforeEach
+    public void setUp() {
+        choreographer = mock(Choreographer.class);
+        listener = mock(RampAnimator.Listener.class);
+        rampAnimator = new RampAnimator(choreographer, listener);
+    }
+
+    @Test
+    public void start_withoutRamp_doesNothing() {
+        // When
+        rampAnimator.start(createSnapshot());
+
+        // Then
+        assertFalse(rampAnimator.isRunning());
+        verify(choreographer, never()).postFrameCallback(rampAnimator);
+    }
+
+    @Test
+    public void doFrame_duringRamp_sendsLevelAndWaitsForTheNextStep() {
+        // Given - a ten minutes fade in, started five minutes ago
+        final long now = System.currentTimeMillis();
+        final OverlaySnapshot snapshot = createSnapshot().withRamp(now - 5 * 60_000, now + 5 * 60_000, true);
+        rampAnimator.start(snapshot);
+
+        // When
+        rampAnimator.doFrame(0);
+
+        // Then
+        assertTrue(rampAnimator.isRunning());
+        verify(listener).onRampLevel(anyFloat());
+        verify(choreographer).postFrameCallbackDelayed(eq(rampAnimator), eq(RampAnimator.getStepMillis(snapshot)));
+        verify(listener, never()).onRampFinished();
+    }
+
+    @Test
+    public void doFrame_afterTheRamp_finishes() {
+        // Given
+        final long now = System.currentTimeMillis();
+        rampAnimator.start(createSnapshot().withRamp(now - 2000, now - 1000, false));
+
+        // When
+        rampAnimator.doFrame(0);
+
+        // Then
+        assertFalse(rampAnimator.isRunning());
+        verify(listener).onRampFinished();
+        verify(listener, never()).onRampLevel(anyFloat());
+        verify(choreographer, never()).postFrameCallbackDelayed(eq(rampAnimator), anyLong());
+    }
+
+    @Test
+    public void stop_removesTheFrameCallback() {
+        // Given
+        final long now = System.currentTimeMillis();
+        rampAnimator.start(createSnapshot().withRamp(now, now + 60_000, true));
+
+        // When
+        rampAnimator.stop();
+        rampAnimator.doFrame(0);
+
+        // Then
+        assertFalse(rampAnimator.isRunning());
+        verify(choreographer).removeFrameCallback(rampAnimator);
+        verify(listener, never()).onRampLevel(anyFloat());
+    }
+
+    @Test
+    public void getStepMillis_aLongRampIsUpdatedEveryFewSecondsNotEveryFrame() {
+        // A ten minutes ramp has one step every 2352 ms
+        assertEquals(600_000 / 255, RampAnimator.getStepMillis(createSnapshot().withRamp(0, 600_000, true)));
+        // A short ramp is never faster than a frame
+        assertEquals(16, RampAnimator.getStepMillis(createSnapshot().withRamp(0, 1000, true)));
+    }
+
+    private static OverlaySnapshot createSnapshot() {
+        return new OverlaySnapshot(true, Constants.COLOR_YELLOW, Constants.DEFAULT_CUSTOM_COLOR, Constants.DEFAULT_COLOR_TEMPERATURE,
+                Constants.DEFAULT_COLOR_INTENSITY, Constants.DEFAULT_BRIGHTNESS);
+    }
+}
@@ -0,0 +1,124 @@
+/*****************************************************************
+ * Copyright (C) 2025 Alan Quintero <https://github.com/alanquintero/>
+ *****************************************************************/
+package autonightmode.mx.com.alanquintero.autonightmode.service;
+
+import static org.junit.Assert.assertSame;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import android.app.Notification;
+import android.app.NotificationChannel;
+import android.app.NotificationManager;
+import android.content.Context;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+
+import androidx.test.core.app.ApplicationProvider;
+
+import autonightmode.mx.com.alanquintero.autonightmode.util.Constants;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.Shadows;
+import org.robolectric.annotation.Config;
+
+import java.time.Duration;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = {Build.VERSION_CODES.O})
+public class ReadModeNotificationTest {
+
+    private Context context;
+    private NotificationManager mockNotificationManager;
+    private ReadModeNotification readModeNotification;
+
+    @Before
+    public void setUp() {
+        context = ApplicationProvider.getApplicationContext();
+        mockNotificationManager = mock(NotificationManager.class);
+        readModeNotification = new ReadModeNotification(context, mockNotificationManager, new Handler(Looper.getMainLooper()));
+    }
+
+    @After
+    public void tearDown() {
+        ReadModeNotification.cleanUp();
+    }
+
+    @Test
+    public void getNotification_isBuiltOnceAndReused() {
+        // When
+        final Notification first = readModeNotification.getNotification();
+        final Notification second = readModeNotification.getNotification();
+
+        // Then
+        assertSame(first, second);
+    }
+
+    @Test
+    public void getNotification_createsChannelOncePerProcess() {
+        // Given
+        final ReadModeNotification other = new ReadModeNotification(context, mockNotificationManager, new Handler(Looper.getMainLooper()));
+
+        // When
+        readModeNotification.getNotification();
+        other.getNotification();
+
+        // Then
+        verify(mockNotificationManager, times(1)).createNotificationChannel(any(NotificationChannel.class));
+    }
+
+    @Test
+    public void update_burstOfChanges_notifiesAtMostOncePerSecond() {
+        // Given
+        readModeNotification.update(true, 20, 50);
+        verify(mockNotificationManager, times(1)).notify(eq(Constants.NOTIFICATION_ID), any(Notification.class));
+
+        // When - several changes within the throttle window
+        readModeNotification.update(true, 20, 40);
+        readModeNotification.update(true, 20, 30);
+        readModeNotification.update(true, 20, 20);
+
+        // Then - nothing is posted until the window ends, then only the latest content is posted
+        verify(mockNotificationManager, times(1)).notify(eq(Constants.NOTIFICATION_ID), any(Notification.class));
+        Shadows.shadowOf(Looper.getMainLooper()).idleFor(Duration.ofMillis(ReadModeNotification.NOTIFY_THROTTLE_MS));
+        verify(mockNotificationManager, times(2)).notify(eq(Constants.NOTIFICATION_ID), any(Notification.class));
+    }
+
+    @Test
+    public void update_sameContent_doesNotNotify() {
+        // Given
+        readModeNotification.update(true, 20, 50);
+        Shadows.shadowOf(Looper.getMainLooper()).idleFor(Duration.ofMillis(ReadModeNotification.NOTIFY_THROTTLE_MS));
+
+        // When
+        readModeNotification.update(true, 20, 50);
+        Shadows.shadowOf(Looper.getMainLooper()).idleFor(Duration.ofMillis(ReadModeNotification.NOTIFY_THROTTLE_MS));
+
+        // Then
+        verify(mockNotificationManager, times(1)).notify(anyInt(), any(Notification.class));
+    }
+
+    @Test
+    public void cancel_dropsPendingUpdate() {
+        // Given
+        readModeNotification.update(true, 20, 50);
+        readModeNotification.update(false, 20, 50);
+
+        // When
+        readModeNotification.cancel();
+        Shadows.shadowOf(Looper.getMainLooper()).idleFor(Duration.ofMillis(ReadModeNotification.NOTIFY_THROTTLE_MS));
+
+        // Then
+        verify(mockNotificationManager, times(1)).notify(anyInt(), any(Notification.class));
+        verify(mockNotificationManager).cancel(Constants.NOTIFICATION_ID);
+    }
+}
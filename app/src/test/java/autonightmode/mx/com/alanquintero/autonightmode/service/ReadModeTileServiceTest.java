@@ -0,0 +1,152 @@
+/*****************************************************************
+ * Copyright (C) 2025 Alan Quintero <https://github.com/alanquintero/>
+ *****************************************************************/
+package autonightmode.mx.com.alanquintero.autonightmode.service;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.mockStatic;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import android.content.Intent;
+import android.os.Build;
+import android.service.quicksettings.Tile;
+
+import autonightmode.mx.com.alanquintero.autonightmode.manager.ReadModeManager;
+import autonightmode.mx.com.alanquintero.autonightmode.model.ReadModeSettings;
+import autonightmode.mx.com.alanquintero.autonightmode.util.PrefsHelper;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.MockedStatic;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.Shadows;
+import org.robolectric.annotation.Config;
+
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = {Build.VERSION_CODES.N})
+public class ReadModeTileServiceTest {
+
+    private MockedStatic<PrefsHelper> prefsHelperStatic;
+    private ReadModeTileService tileService;
+    private ReadModeManager mockReadModeManager;
+    private final ReadModeSettings readModeSettings = ReadModeSettings.init();
+
+    @Before
+    public void setUp() {
+        prefsHelperStatic = mockStatic(PrefsHelper.class);
+        prefsHelperStatic.when(() -> PrefsHelper.init(any())).thenReturn(mock(PrefsHelper.class));
+
+        tileService = Robolectric.buildService(ReadModeTileService.class).create().get();
+        mockReadModeManager = mock(ReadModeManager.class);
+        tileService.readModeManager = mockReadModeManager;
+        setOverlayServiceRunning(false);
+    }
+
+    @After
+    public void tearDown() {
+        prefsHelperStatic.close();
+        readModeSettings.setIsReadModeOn(false);
+    }
+
+    @Test
+    public void onClick_whenReadModeOff_startsReadMode() {
+        // Given
+        readModeSettings.setIsReadModeOn(false);
+
+        // When
+        tileService.onClick();
+
+        // Then
+        verify(mockReadModeManager).startReadMode();
+        verify(mockReadModeManager, never()).stopReadMode();
+    }
+
+    @Test
+    public void onClick_tellsTheAppThatReadModeChanged() {
+        // When
+        tileService.onClick();
+
+        // Then - an open MainActivity updates its start/stop button
+        final Intent broadcast = Shadows.shadowOf(tileService.getApplication()).getBroadcastIntents().get(0);
+        assertEquals(ReadModeManager.ACTION_SETTINGS_CHANGED, broadcast.getAction());
+        assertTrue(broadcast.getBooleanExtra(ReadModeManager.EXTRA_IS_READ_MODE_ONLY, false));
+    }
+
+    @Test
+    public void onClick_whenReadModeOnAndServiceRunning_stopsReadMode() {
+        // Given
+        readModeSettings.setIsReadModeOn(true);
+        setOverlayServiceRunning(true);
+
+        // When
+        tileService.onClick();
+
+        // Then
+        verify(mockReadModeManager).stopReadMode();
+        verify(mockReadModeManager, never()).startReadMode();
+    }
+
+    @Test
+    public void onClick_whenReadModeOnButServiceNotRunning_startsReadMode() {
+        // Given - e.g. after a reboot the setting is still ON but nothing is drawn
+        readModeSettings.setIsReadModeOn(true);
+
+        // When
+        tileService.onClick();
+
+        // Then
+        verify(mockReadModeManager).startReadMode();
+    }
+
+    @Test
+    public void isReadModeActive_requiresSettingAndRunningService() {
+        readModeSettings.setIsReadModeOn(false);
+        setOverlayServiceRunning(true);
+        assertFalse(tileService.isReadModeActive());
+
+        readModeSettings.setIsReadModeOn(true);
+        assertTrue(tileService.isReadModeActive());
+
+        setOverlayServiceRunning(false);
+        assertFalse(tileService.isReadModeActive());
+    }
+
+    @Test
+    public void applyTileState_readModeOn_setsActiveState() {
+        // Given
+        final Tile tile = mock(Tile.class);
+
+        // When
+        ReadModeTileService.applyTileState(tile, true);
+
+        // Then
+        verify(tile).setState(Tile.STATE_ACTIVE);
+        verify(tile).updateTile();
+    }
+
+    @Test
+    public void applyTileState_readModeOff_setsInactiveState() {
+        // Given
+        final Tile tile = mock(Tile.class);
+
+        // When
+        ReadModeTileService.applyTileState(tile, false);
+
+        // Then
+        verify(tile).setState(Tile.STATE_INACTIVE);
+        verify(tile).updateTile();
+    }
+
+    private void setOverlayServiceRunning(final boolean isRunning) {
+        OverlayClient.setServiceRunning(tileService, isRunning);
+    }
+}
@@ -0,0 +1,125 @@
+/*****************************************************************
+ * Copyright (C) 2025 Alan Quintero <https://github.com/alanquintero/>
+ *****************************************************************/
+package autonightmode.mx.com.alanquintero.autonightmode.service;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import android.content.Context;
+import android.content.Intent;
+import android.hardware.display.DisplayManager;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.PowerManager;
+
+import androidx.test.core.app.ApplicationProvider;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.Shadows;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowPowerManager;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = {Build.VERSION_CODES.O})
+public class ScreenStateControllerTest {
+
+    private Context context;
+    private PowerManager powerManager;
+    private ScreenStateController.Listener listener;
+    private ScreenStateController screenStateController;
+
+    @Before
+    public void setUp() {
+        context = ApplicationProvider.getApplicationContext();
+        powerManager = (PowerManager) context.getSystemService(Context.POWER_SERVICE);
+        listener = mock(ScreenStateController.Listener.class);
+        screenStateController = new ScreenStateController(context, powerManager,
+                (DisplayManager) context.getSystemService(Context.DISPLAY_SERVICE), new Handler(Looper.getMainLooper()), listener);
+    }
+
+    @After
+    public void tearDown() {
+        screenStateController.stop();
+    }
+
+    @Test
+    public void start_whenScreenIsOff_suspendsRightAway() {
+        // Given
+        Shadows.shadowOf(powerManager).setIsInteractive(false);
+
+        // When
+        screenStateController.start();
+
+        // Then
+        assertFalse(screenStateController.isScreenOn());
+        verify(listener).onScreenOff();
+    }
+
+    @Test
+    public void screenOffAndOn_callsListenerOncePerChange() {
+        // Given
+        screenStateController.start();
+
+        // When
+        sendBroadcast(Intent.ACTION_SCREEN_OFF);
+        sendBroadcast(Intent.ACTION_SCREEN_OFF);
+        sendBroadcast(Intent.ACTION_SCREEN_ON);
+        sendBroadcast(Intent.ACTION_SCREEN_ON);
+
+        // Then
+        verify(listener, times(1)).onScreenOff();
+        verify(listener, times(1)).onScreenOn();
+        assertTrue(screenStateController.isScreenOn());
+    }
+
+    @Test
+    public void deviceIdleModeChanged_callsListenerWithDozeState() {
+        // Given
+        screenStateController.start();
+        sendBroadcast(Intent.ACTION_SCREEN_OFF);
+
+        // When
+        final ShadowPowerManager shadowPowerManager = Shadows.shadowOf(powerManager);
+        shadowPowerManager.setIsDeviceIdleMode(true);
+        sendBroadcast(PowerManager.ACTION_DEVICE_IDLE_MODE_CHANGED);
+
+        // Then
+        assertTrue(screenStateController.isDozing());
+        verify(listener).onDozeChanged(true);
+
+        // When - screen turned ON before the idle broadcast
+        sendBroadcast(Intent.ACTION_SCREEN_ON);
+
+        // Then
+        assertFalse(screenStateController.isDozing());
+        verify(listener).onDozeChanged(false);
+    }
+
+    @Test
+    public void stop_ignoresFurtherBroadcasts() {
+        // Given
+        screenStateController.start();
+
+        // When
+        screenStateController.stop();
+        sendBroadcast(Intent.ACTION_SCREEN_OFF);
+
+        // Then
+        verify(listener, never()).onScreenOff();
+    }
+
+    private void sendBroadcast(final String action) {
+        context.sendBroadcast(new Intent(action));
+        Shadows.shadowOf(Looper.getMainLooper()).idle();
+    }
+}
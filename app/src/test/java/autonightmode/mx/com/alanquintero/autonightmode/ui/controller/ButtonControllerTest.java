@@ -22,6 +22,7 @@ import androidx.fragment.app.FragmentManager;
 
 import autonightmode.mx.com.alanquintero.autonightmode.R;
 import autonightmode.mx.com.alanquintero.autonightmode.command.ReadModeCommand;
+import autonightmode.mx.com.alanquintero.autonightmode.model.ColorPreset;
 import autonightmode.mx.com.alanquintero.autonightmode.model.ReadModeSettings;
 import autonightmode.mx.com.alanquintero.autonightmode.ui.dialog.CustomColorDialog;
 import autonightmode.mx.com.alanquintero.autonightmode.util.ColorUtils;
@@ -86,7 +87,7 @@ public class ButtonControllerTest {
         // When
         new ButtonController(
                 mockContext, mockActivity, mockRootView,
-                mockReadModeCommand, mockReadModeSettings, mockCustomColorDialog
+                mockReadModeCommand, mockReadModeSettings, () -> mockCustomColorDialog
         );
 
         // Then
@@ -98,13 +99,13 @@ public class ButtonControllerTest {
     public void setupButtons_whenCustomColorPosition_showsCustomColorButton() {
         try (MockedStatic<ContextCompat> contextCompatStatic = mockStatic(ContextCompat.class)) {
             // Given
-            when(mockReadModeSettings.getColorDropdownPosition()).thenReturn(Constants.CUSTOM_COLOR_DROPDOWN_POSITION);
+            when(mockReadModeSettings.getColorDropdownPosition()).thenReturn(ColorPreset.CUSTOM_PRESET_ID);
             when(mockReadModeSettings.getCustomColor()).thenReturn("#FF0000");
             mockContextCompatForStartButton(contextCompatStatic);
 
             final ButtonController controller = new ButtonController(
                     mockContext, mockActivity, mockRootView,
-                    mockReadModeCommand, mockReadModeSettings, mockCustomColorDialog
+                    mockReadModeCommand, mockReadModeSettings, () -> mockCustomColorDialog
             );
 
             // When
@@ -126,7 +127,7 @@ public class ButtonControllerTest {
 
             final ButtonController controller = new ButtonController(
                     mockContext, mockActivity, mockRootView,
-                    mockReadModeCommand, mockReadModeSettings, mockCustomColorDialog
+                    mockReadModeCommand, mockReadModeSettings, () -> mockCustomColorDialog
             );
 
             // When
@@ -143,13 +144,13 @@ public class ButtonControllerTest {
     public void customColorButtonClick_showsCustomColorDialog() {
         try (MockedStatic<ContextCompat> contextCompatStatic = mockStatic(ContextCompat.class)) {
             // Given
-            when(mockReadModeSettings.getColorDropdownPosition()).thenReturn(Constants.CUSTOM_COLOR_DROPDOWN_POSITION);
+            when(mockReadModeSettings.getColorDropdownPosition()).thenReturn(ColorPreset.CUSTOM_PRESET_ID);
             when(mockReadModeSettings.getCustomColor()).thenReturn("#FF0000");
             mockContextCompatForStartButton(contextCompatStatic);
 
             final ButtonController controller = new ButtonController(
                     mockContext, mockActivity, mockRootView,
-                    mockReadModeCommand, mockReadModeSettings, mockCustomColorDialog
+                    mockReadModeCommand, mockReadModeSettings, () -> mockCustomColorDialog
             );
             controller.setupButtons();
 
@@ -175,7 +176,7 @@ public class ButtonControllerTest {
 
             final ButtonController controller = new ButtonController(
                     mockContext, mockActivity, mockRootView,
-                    mockReadModeCommand, mockReadModeSettings, mockCustomColorDialog
+                    mockReadModeCommand, mockReadModeSettings, () -> mockCustomColorDialog
             );
             controller.setupButtons();
 
@@ -201,7 +202,7 @@ public class ButtonControllerTest {
 
             final ButtonController controller = new ButtonController(
                     mockContext, mockActivity, mockRootView,
-                    mockReadModeCommand, mockReadModeSettings, mockCustomColorDialog
+                    mockReadModeCommand, mockReadModeSettings, () -> mockCustomColorDialog
             );
             controller.setupButtons();
 
@@ -227,7 +228,7 @@ public class ButtonControllerTest {
 
             final ButtonController controller = new ButtonController(
                     mockContext, mockActivity, mockRootView,
-                    mockReadModeCommand, mockReadModeSettings, mockCustomColorDialog
+                    mockReadModeCommand, mockReadModeSettings, () -> mockCustomColorDialog
             );
 
             // When
@@ -247,7 +248,7 @@ public class ButtonControllerTest {
 
             final ButtonController controller = new ButtonController(
                     mockContext, mockActivity, mockRootView,
-                    mockReadModeCommand, mockReadModeSettings, mockCustomColorDialog
+                    mockReadModeCommand, mockReadModeSettings, () -> mockCustomColorDialog
             );
 
             // When
@@ -268,7 +269,7 @@ public class ButtonControllerTest {
 
             final ButtonController controller = new ButtonController(
                     mockContext, mockActivity, mockRootView,
-                    mockReadModeCommand, mockReadModeSettings, mockCustomColorDialog
+                    mockReadModeCommand, mockReadModeSettings, () -> mockCustomColorDialog
             );
 
             // When
@@ -290,7 +291,7 @@ public class ButtonControllerTest {
 
             final ButtonController controller = new ButtonController(
                     mockContext, mockActivity, mockRootView,
-                    mockReadModeCommand, mockReadModeSettings, mockCustomColorDialog
+                    mockReadModeCommand, mockReadModeSettings, () -> mockCustomColorDialog
             );
 
             // When
@@ -311,7 +312,7 @@ public class ButtonControllerTest {
 
             final ButtonController controller = new ButtonController(
                     mockContext, mockActivity, mockRootView,
-                    mockReadModeCommand, mockReadModeSettings, mockCustomColorDialog
+                    mockReadModeCommand, mockReadModeSettings, () -> mockCustomColorDialog
             );
 
             // When
@@ -329,16 +330,13 @@ public class ButtonControllerTest {
             when(mockReadModeSettings.isReadModeOn()).thenReturn(false);
             mockContextCompatForStartButton(contextCompatStatic);
 
-            // Set up custom color in constants
-            Constants.COLOR_HEX_ARRAY[Constants.CUSTOM_COLOR_DROPDOWN_POSITION] = Constants.CUSTOM_COLOR;
-
             final ButtonController controller = new ButtonController(
                     mockContext, mockActivity, mockRootView,
-                    mockReadModeCommand, mockReadModeSettings, mockCustomColorDialog
+                    mockReadModeCommand, mockReadModeSettings, () -> mockCustomColorDialog
             );
 
             // When
-            controller.onColorDropdownPositionChange(Constants.CUSTOM_COLOR_DROPDOWN_POSITION);
+            controller.onColorDropdownPositionChange(ColorPreset.CUSTOM_PRESET_ID);
 
             // Then
             verify(mockCustomColorButton).setVisibility(View.VISIBLE);
@@ -355,7 +353,7 @@ public class ButtonControllerTest {
 
             final ButtonController controller = new ButtonController(
                     mockContext, mockActivity, mockRootView,
-                    mockReadModeCommand, mockReadModeSettings, mockCustomColorDialog
+                    mockReadModeCommand, mockReadModeSettings, () -> mockCustomColorDialog
             );
 
             // When
@@ -377,7 +375,7 @@ public class ButtonControllerTest {
 
             final ButtonController controller = new ButtonController(
                     mockContext, mockActivity, mockRootView,
-                    mockReadModeCommand, mockReadModeSettings, mockCustomColorDialog
+                    mockReadModeCommand, mockReadModeSettings, () -> mockCustomColorDialog
             );
 
             // When
@@ -3,26 +3,34 @@
  *****************************************************************/
 package autonightmode.mx.com.alanquintero.autonightmode.ui.controller;
 
+import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.mockStatic;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import android.content.Context;
 import android.os.Build;
 import android.view.View;
-import android.widget.Spinner;
 
 import androidx.fragment.app.FragmentActivity;
 import androidx.fragment.app.FragmentManager;
+import androidx.recyclerview.widget.RecyclerView;
+import androidx.test.core.app.ApplicationProvider;
 
 import autonightmode.mx.com.alanquintero.autonightmode.R;
 import autonightmode.mx.com.alanquintero.autonightmode.command.ReadModeCommand;
+import autonightmode.mx.com.alanquintero.autonightmode.model.ColorPreset;
 import autonightmode.mx.com.alanquintero.autonightmode.model.ReadModeSettings;
 import autonightmode.mx.com.alanquintero.autonightmode.observer.dropdown.ColorDropdownSubject;
 import autonightmode.mx.com.alanquintero.autonightmode.ui.dialog.CustomColorDialog;
 import autonightmode.mx.com.alanquintero.autonightmode.util.Constants;
+import autonightmode.mx.com.alanquintero.autonightmode.util.PresetStore;
 import autonightmode.mx.com.alanquintero.autonightmode.util.PrefsHelper;
 
 import org.junit.After;
@@ -38,6 +46,14 @@ import org.robolectric.annotation.Config;
 @Config(sdk = {Build.VERSION_CODES.M})
 public class ColorDropdownControllerTest {
 
+    private static final ColorPreset YELLOW_PRESET = new ColorPreset(ColorPreset.YELLOW_PRESET_ID, Constants.YELLOW, 0xFFFFF176,
+            Constants.DEFAULT_COLOR_INTENSITY, Constants.DEFAULT_BRIGHTNESS);
+    private static final ColorPreset PINK_PRESET = new ColorPreset(1, Constants.PINK, 0xFFFFD1DC,
+            Constants.DEFAULT_COLOR_INTENSITY, Constants.DEFAULT_BRIGHTNESS);
+    private static final ColorPreset CUSTOM_PRESET = new ColorPreset(ColorPreset.CUSTOM_PRESET_ID, Constants.CUSTOM_COLOR, 0xFFFFFFFF,
+            Constants.DEFAULT_COLOR_INTENSITY, Constants.DEFAULT_BRIGHTNESS);
+    private static final ColorPreset USER_PRESET = new ColorPreset(ColorPreset.FIRST_USER_PRESET_ID, "#336699", 0xFF336699, 40, 60);
+
     private AutoCloseable mocks;
     private Context mockContext;
     private FragmentActivity mockActivity;
@@ -47,7 +63,8 @@ public class ColorDropdownControllerTest {
     private ReadModeCommand mockReadModeCommand;
     private ReadModeSettings mockReadModeSettings;
     private PrefsHelper mockPrefsHelper;
-    private Spinner mockColorSpinner;
+    private PresetStore mockPresetStore;
+    private RecyclerView mockColorPresetList;
     private FragmentManager mockFragmentManager;
 
     private String[] colorNames;
@@ -65,15 +82,20 @@ public class ColorDropdownControllerTest {
         mockReadModeCommand = mock(ReadModeCommand.class);
         mockReadModeSettings = mock(ReadModeSettings.class);
         mockPrefsHelper = mock(PrefsHelper.class);
-        mockColorSpinner = mock(Spinner.class);
+        mockPresetStore = mock(PresetStore.class);
+        mockColorPresetList = mock(RecyclerView.class);
         mockFragmentManager = mock(FragmentManager.class);
 
         // Setup common mock behavior
-        when(mockRootView.findViewById(R.id.colorSpinner)).thenReturn(mockColorSpinner);
+        when(mockRootView.findViewById(R.id.colorPresetList)).thenReturn(mockColorPresetList);
         when(mockActivity.getSupportFragmentManager()).thenReturn(mockFragmentManager);
+        when(mockPrefsHelper.getPresetStore()).thenReturn(mockPresetStore);
+        when(mockPrefsHelper.getPreset(YELLOW_PRESET.getId())).thenReturn(YELLOW_PRESET);
+        when(mockPrefsHelper.getPreset(PINK_PRESET.getId())).thenReturn(PINK_PRESET);
+        when(mockPrefsHelper.getPreset(CUSTOM_PRESET.getId())).thenReturn(CUSTOM_PRESET);
 
         // Setup test data
-        colorNames = new String[]{"Red", "Green", "Blue", "Custom"};
+        colorNames = new String[]{"Yellow", "Pink", "Green", "Gray", "White", "Custom"};
         when(mockReadModeSettings.getCustomColor()).thenReturn("#FF0000");
     }
 
@@ -89,14 +111,12 @@ public class ColorDropdownControllerTest {
             prefsHelperStatic.when(() -> PrefsHelper.init(mockContext)).thenReturn(mockPrefsHelper);
 
             // When
-            new ColorDropdownController(
-                    mockContext, mockActivity, mockRootView, mockCustomColorDialog,
-                    mockColorDropdownSubject, mockReadModeCommand, mockReadModeSettings, colorNames
-            );
+            final ColorDropdownController controller = createController(mockContext);
 
             // Then
             prefsHelperStatic.verify(() -> PrefsHelper.init(mockContext));
-            verify(mockRootView).findViewById(R.id.colorSpinner);
+            verify(mockRootView).findViewById(R.id.colorPresetList);
+            assertEquals(mockColorPresetList, controller.getColorPresetList());
         }
     }
 
@@ -105,20 +125,16 @@ public class ColorDropdownControllerTest {
         try (MockedStatic<PrefsHelper> prefsHelperStatic = mockStatic(PrefsHelper.class)) {
             // Given
             prefsHelperStatic.when(() -> PrefsHelper.init(mockContext)).thenReturn(mockPrefsHelper);
+            final ColorDropdownController controller = createController(mockContext);
 
-            ColorDropdownController controller = new ColorDropdownController(
-                    mockContext, mockActivity, mockRootView, mockCustomColorDialog,
-                    mockColorDropdownSubject, mockReadModeCommand, mockReadModeSettings, colorNames
-            );
-
-            // When - Select non-custom color (position 1)
+            // When - Select non-custom color (id 1)
             controller.handleColorSelection(1);
 
             // Then
             verify(mockReadModeSettings).setColorDropdownPosition(1);
             verify(mockColorDropdownSubject).setCurrentColorDropdownPosition(1);
             verify(mockPrefsHelper).saveProperty(Constants.PREF_COLOR_DROPDOWN, 1);
-            verify(mockPrefsHelper).saveProperty(Constants.PREF_COLOR, Constants.COLOR_HEX_ARRAY[1]);
+            verify(mockPrefsHelper).saveProperty(Constants.PREF_COLOR, Constants.COLOR_PINK);
         }
     }
 
@@ -128,11 +144,7 @@ public class ColorDropdownControllerTest {
             // Given
             prefsHelperStatic.when(() -> PrefsHelper.init(mockContext)).thenReturn(mockPrefsHelper);
             when(mockReadModeSettings.isReadModeOn()).thenReturn(true);
-
-            ColorDropdownController controller = new ColorDropdownController(
-                    mockContext, mockActivity, mockRootView, mockCustomColorDialog,
-                    mockColorDropdownSubject, mockReadModeCommand, mockReadModeSettings, colorNames
-            );
+            final ColorDropdownController controller = createController(mockContext);
 
             // When
             controller.handleColorSelection(1);
@@ -142,17 +154,30 @@ public class ColorDropdownControllerTest {
         }
     }
 
+    @Test
+    public void handleColorSelection_whenReadModeOnAndAutoStart_updatesReadModeOnce() {
+        try (MockedStatic<PrefsHelper> prefsHelperStatic = mockStatic(PrefsHelper.class)) {
+            // Given
+            prefsHelperStatic.when(() -> PrefsHelper.init(mockContext)).thenReturn(mockPrefsHelper);
+            when(mockReadModeSettings.isReadModeOn()).thenReturn(true);
+            when(mockReadModeSettings.isAutoStartReadMode()).thenReturn(true);
+            final ColorDropdownController controller = createController(mockContext);
+
+            // When
+            controller.handleColorSelection(1);
+
+            // Then
+            verify(mockReadModeCommand, times(1)).updateReadMode();
+        }
+    }
+
     @Test
     public void handleColorSelection_whenNonCustomColorAndReadModeOff_doesNotUpdateReadMode() {
         try (MockedStatic<PrefsHelper> prefsHelperStatic = mockStatic(PrefsHelper.class)) {
             // Given
             prefsHelperStatic.when(() -> PrefsHelper.init(mockContext)).thenReturn(mockPrefsHelper);
             when(mockReadModeSettings.isReadModeOn()).thenReturn(false);
-
-            ColorDropdownController controller = new ColorDropdownController(
-                    mockContext, mockActivity, mockRootView, mockCustomColorDialog,
-                    mockColorDropdownSubject, mockReadModeCommand, mockReadModeSettings, colorNames
-            );
+            final ColorDropdownController controller = createController(mockContext);
 
             // When
             controller.handleColorSelection(1);
@@ -167,38 +192,131 @@ public class ColorDropdownControllerTest {
         try (MockedStatic<PrefsHelper> prefsHelperStatic = mockStatic(PrefsHelper.class)) {
             // Given
             prefsHelperStatic.when(() -> PrefsHelper.init(mockContext)).thenReturn(mockPrefsHelper);
+            final ColorDropdownController controller = createController(mockContext);
 
-            ColorDropdownController controller = new ColorDropdownController(
-                    mockContext, mockActivity, mockRootView, mockCustomColorDialog,
-                    mockColorDropdownSubject, mockReadModeCommand, mockReadModeSettings, colorNames
-            );
-
-            // When - Select custom color position
-            int customPosition = Constants.CUSTOM_COLOR_DROPDOWN_POSITION;
-            controller.handleColorSelection(customPosition);
+            // When - Select the custom preset
+            controller.handleColorSelection(ColorPreset.CUSTOM_PRESET_ID);
 
             // Then
             verify(mockCustomColorDialog).show(mockFragmentManager, "CustomColorDialogOpenedFromDropdown");
+            verify(mockPrefsHelper, never()).saveProperty(Constants.PREF_COLOR, Constants.CUSTOM_COLOR);
             verify(mockReadModeCommand, never()).updateReadMode();
         }
     }
 
     @Test
-    public void getColorSpinner_returnsCorrectSpinner() {
+    public void handleColorSelection_whenNonCustomColor_doesNotCreateCustomColorDialog() {
         try (MockedStatic<PrefsHelper> prefsHelperStatic = mockStatic(PrefsHelper.class)) {
             // Given
             prefsHelperStatic.when(() -> PrefsHelper.init(mockContext)).thenReturn(mockPrefsHelper);
+            final int[] createdDialogs = {0};
 
-            ColorDropdownController controller = new ColorDropdownController(
-                    mockContext, mockActivity, mockRootView, mockCustomColorDialog,
+            final ColorDropdownController controller = new ColorDropdownController(
+                    mockContext, mockActivity, mockRootView, () -> {
+                        createdDialogs[0]++;
+                        return mockCustomColorDialog;
+                    },
                     mockColorDropdownSubject, mockReadModeCommand, mockReadModeSettings, colorNames
             );
 
             // When
-            Spinner spinner = controller.getColorSpinner();
+            controller.handleColorSelection(1);
+
+            // Then
+            assertEquals(0, createdDialogs[0]);
+        }
+    }
+
+    @Test
+    public void handleColorSelection_whenUnknownPreset_doesNothing() {
+        try (MockedStatic<PrefsHelper> prefsHelperStatic = mockStatic(PrefsHelper.class)) {
+            // Given - e.g. a removed preset
+            prefsHelperStatic.when(() -> PrefsHelper.init(mockContext)).thenReturn(mockPrefsHelper);
+            final ColorDropdownController controller = createController(mockContext);
+
+            // When
+            controller.handleColorSelection(ColorPreset.FIRST_USER_PRESET_ID + 50);
+
+            // Then
+            verify(mockReadModeSettings, never()).setColorDropdownPosition(anyInt());
+            verify(mockPrefsHelper, never()).saveProperty(anyString(), anyInt());
+        }
+    }
+
+    @Test
+    public void bindCustomColorDialog_setsSavePresetListener() {
+        try (MockedStatic<PrefsHelper> prefsHelperStatic = mockStatic(PrefsHelper.class)) {
+            // Given
+            prefsHelperStatic.when(() -> PrefsHelper.init(mockContext)).thenReturn(mockPrefsHelper);
+            final ColorDropdownController controller = createController(mockContext);
+
+            // When
+            controller.bindCustomColorDialog(mockCustomColorDialog);
+
+            // Then
+            verify(mockCustomColorDialog).setOnSavePresetListener(any(CustomColorDialog.OnSavePresetListener.class));
+        }
+    }
+
+    @Test
+    public void addPreset_savesAndSelectsTheNewPreset() {
+        try (MockedStatic<PrefsHelper> prefsHelperStatic = mockStatic(PrefsHelper.class)) {
+            // Given
+            prefsHelperStatic.when(() -> PrefsHelper.init(mockContext)).thenReturn(mockPrefsHelper);
+            when(mockReadModeSettings.getColorIntensity()).thenReturn(40);
+            when(mockReadModeSettings.getBrightness()).thenReturn(60);
+            when(mockPresetStore.addPreset(0xFF336699, 40, 60)).thenReturn(USER_PRESET);
+            when(mockPrefsHelper.getPreset(USER_PRESET.getId())).thenReturn(USER_PRESET);
+            final ColorDropdownController controller = createController(mockContext);
+
+            // When
+            controller.addPreset(0xFF336699);
+
+            // Then
+            verify(mockPresetStore).addPreset(0xFF336699, 40, 60);
+            verify(mockPrefsHelper).saveProperty(Constants.PREF_COLOR_DROPDOWN, USER_PRESET.getId());
+            verify(mockPrefsHelper).saveProperty(Constants.PREF_COLOR, "#336699");
+        }
+    }
+
+    @Test
+    public void removePreset_whenSelected_selectsTheDefaultPreset() {
+        final Context context = ApplicationProvider.getApplicationContext();
+        try (MockedStatic<PrefsHelper> prefsHelperStatic = mockStatic(PrefsHelper.class)) {
+            // Given
+            prefsHelperStatic.when(() -> PrefsHelper.init(context)).thenReturn(mockPrefsHelper);
+            when(mockPresetStore.removePreset(USER_PRESET.getId())).thenReturn(true);
+            when(mockReadModeSettings.getColorDropdownPosition()).thenReturn(USER_PRESET.getId());
+            final ColorDropdownController controller = createController(context);
+
+            // When
+            controller.onPresetLongClick(USER_PRESET);
 
             // Then
-            assert spinner == mockColorSpinner;
+            verify(mockPresetStore).removePreset(USER_PRESET.getId());
+            verify(mockPrefsHelper).saveProperty(Constants.PREF_COLOR_DROPDOWN, Constants.DEFAULT_COLOR_DROPDOWN_POSITION);
         }
     }
-}
\ No newline at end of file
+
+    @Test
+    public void onPresetLongClick_whenBuiltInPreset_doesNotRemoveIt() {
+        try (MockedStatic<PrefsHelper> prefsHelperStatic = mockStatic(PrefsHelper.class)) {
+            // Given
+            prefsHelperStatic.when(() -> PrefsHelper.init(mockContext)).thenReturn(mockPrefsHelper);
+            final ColorDropdownController controller = createController(mockContext);
+
+            // When
+            controller.onPresetLongClick(PINK_PRESET);
+
+            // Then
+            verify(mockPresetStore, never()).removePreset(anyInt());
+        }
+    }
+
+    private ColorDropdownController createController(final Context context) {
+        return new ColorDropdownController(
+                context, mockActivity, mockRootView, () -> mockCustomColorDialog,
+                mockColorDropdownSubject, mockReadModeCommand, mockReadModeSettings, colorNames
+        );
+    }
+}
@@ -17,7 +17,7 @@ import androidx.core.content.ContextCompat;
 
 import autonightmode.mx.com.alanquintero.autonightmode.R;
 import autonightmode.mx.com.alanquintero.autonightmode.command.ReadModeCommand;
-import autonightmode.mx.com.alanquintero.autonightmode.model.ColorSettings;
+import autonightmode.mx.com.alanquintero.autonightmode.model.ColorPreset;
 import autonightmode.mx.com.alanquintero.autonightmode.model.ReadModeSettings;
 import autonightmode.mx.com.alanquintero.autonightmode.util.ColorUtils;
 import autonightmode.mx.com.alanquintero.autonightmode.util.Constants;
@@ -37,6 +37,7 @@ import org.robolectric.annotation.Config;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.mockStatic;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -58,6 +59,10 @@ public class SeekBarControllerTest {
     private TextView mockBrightnessLevelText;
     private SeekBar mockSeekBrightnessBar;
     private TextView mockBrightnessLevelPercentageText;
+    private View mockColorTemperatureContainer;
+    private TextView mockColorTemperatureText;
+    private SeekBar mockSeekColorTemperatureBar;
+    private TextView mockColorTemperatureLevelText;
     private LinearLayout mockContainerLayout;
     private GradientDrawable mockGradientDrawable;
 
@@ -79,6 +84,10 @@ public class SeekBarControllerTest {
         mockBrightnessLevelText = mock(TextView.class);
         mockSeekBrightnessBar = mock(SeekBar.class);
         mockBrightnessLevelPercentageText = mock(TextView.class);
+        mockColorTemperatureContainer = mock(View.class);
+        mockColorTemperatureText = mock(TextView.class);
+        mockSeekColorTemperatureBar = mock(SeekBar.class);
+        mockColorTemperatureLevelText = mock(TextView.class);
         mockContainerLayout = mock(LinearLayout.class);
         mockGradientDrawable = mock(GradientDrawable.class);
         final Resources mockResources = mock(Resources.class);
@@ -92,6 +101,10 @@ public class SeekBarControllerTest {
         when(mockRootView.findViewById(R.id.brightnessLevelText)).thenReturn(mockBrightnessLevelText);
         when(mockRootView.findViewById(R.id.brightnessLevelBar)).thenReturn(mockSeekBrightnessBar);
         when(mockRootView.findViewById(R.id.brightnessLevelPercentageText)).thenReturn(mockBrightnessLevelPercentageText);
+        when(mockRootView.findViewById(R.id.colorTemperatureContainer)).thenReturn(mockColorTemperatureContainer);
+        when(mockRootView.findViewById(R.id.colorTemperatureText)).thenReturn(mockColorTemperatureText);
+        when(mockRootView.findViewById(R.id.colorTemperatureBar)).thenReturn(mockSeekColorTemperatureBar);
+        when(mockRootView.findViewById(R.id.colorTemperatureLevelText)).thenReturn(mockColorTemperatureLevelText);
         when(mockRootView.findViewById(R.id.colorSettingsContainer)).thenReturn(mockContainerLayout);
 
         when(mockContainerLayout.getBackground()).thenReturn(mockGradientDrawable);
@@ -150,11 +163,97 @@ public class SeekBarControllerTest {
             // Then
             verify(mockReadModeSettings).setBrightness(60);
             verify(mockPrefsHelper).saveProperty(Constants.PREF_BRIGHTNESS, 60);
-            verify(mockPrefsHelper).tryToSaveColorSettingsProperty(mockReadModeSettings);
+            verify(mockPrefsHelper).tryToSavePresetSettings(mockReadModeSettings);
             verify(mockReadModeCommand).updateReadMode();
         }
     }
 
+    @Test
+    public void setupSeekBrightnessBar_whileDragged_stagesTicksAndWritesOnceOnRelease() {
+        try (MockedStatic<PrefsHelper> prefsHelperStatic = mockStatic(PrefsHelper.class)) {
+            // Given
+            prefsHelperStatic.when(() -> PrefsHelper.init(mockContext)).thenReturn(mockPrefsHelper);
+            when(mockReadModeSettings.isAutoStartReadMode()).thenReturn(true);
+
+            final SeekBarController controller = new SeekBarController(mockContext, mockRootView, mockReadModeCommand, mockReadModeSettings);
+            controller.setupSeekBars();
+
+            ArgumentCaptor<SeekBar.OnSeekBarChangeListener> listenerCaptor = ArgumentCaptor.forClass(SeekBar.OnSeekBarChangeListener.class);
+            verify(mockSeekBrightnessBar).setOnSeekBarChangeListener(listenerCaptor.capture());
+            SeekBar.OnSeekBarChangeListener listener = listenerCaptor.getValue();
+
+            // When
+            listener.onStartTrackingTouch(mockSeekBrightnessBar);
+            for (int progress = 1; progress <= 50; progress++) {
+                listener.onProgressChanged(mockSeekBrightnessBar, progress, true);
+            }
+
+            // Then - the ticks redraw the overlay but are only staged
+            verify(mockPrefsHelper).stageProperty(Constants.PREF_BRIGHTNESS, 50);
+            verify(mockPrefsHelper, never()).saveProperty(org.mockito.ArgumentMatchers.eq(Constants.PREF_BRIGHTNESS), org.mockito.ArgumentMatchers.anyInt());
+            verify(mockPrefsHelper, never()).tryToSavePresetSettings(mockReadModeSettings);
+            verify(mockReadModeCommand, times(50)).updateReadMode();
+
+            // When
+            listener.onStopTrackingTouch(mockSeekBrightnessBar);
+
+            // Then
+            verify(mockPrefsHelper).flushPendingProperties();
+            verify(mockPrefsHelper).tryToSavePresetSettings(mockReadModeSettings);
+        }
+    }
+
+    @Test
+    public void setupSeekColorTemperatureBar_whenProgressChangedAndFromUser_savesTemperature() {
+        try (MockedStatic<PrefsHelper> prefsHelperStatic = mockStatic(PrefsHelper.class)) {
+            // Given
+            prefsHelperStatic.when(() -> PrefsHelper.init(mockContext)).thenReturn(mockPrefsHelper);
+            when(mockReadModeSettings.isAutoStartReadMode()).thenReturn(true);
+            when(mockContext.getString(R.string.temperature_level, 2700)).thenReturn("2700K");
+
+            final SeekBarController controller = new SeekBarController(mockContext, mockRootView, mockReadModeCommand, mockReadModeSettings);
+            controller.setupSeekBars();
+
+            // Capture the listener
+            ArgumentCaptor<SeekBar.OnSeekBarChangeListener> listenerCaptor = ArgumentCaptor.forClass(SeekBar.OnSeekBarChangeListener.class);
+            verify(mockSeekColorTemperatureBar).setOnSeekBarChangeListener(listenerCaptor.capture());
+            SeekBar.OnSeekBarChangeListener listener = listenerCaptor.getValue();
+
+            // When - progress 17 is 1000K + 17 steps of 100K
+            listener.onProgressChanged(mockSeekColorTemperatureBar, 17, true);
+
+            // Then
+            verify(mockReadModeSettings).setColorTemperature(2700);
+            verify(mockPrefsHelper).saveProperty(Constants.PREF_COLOR_TEMPERATURE, 2700);
+            verify(mockColorTemperatureLevelText).setText("2700K");
+            verify(mockReadModeCommand).updateReadMode();
+        }
+    }
+
+    @Test
+    public void updateSeekBarsForSelectedColor_showsTemperatureBarOnlyForTemperaturePreset() {
+        try (MockedStatic<PrefsHelper> prefsHelperStatic = mockStatic(PrefsHelper.class)) {
+            // Given
+            prefsHelperStatic.when(() -> PrefsHelper.init(mockContext)).thenReturn(mockPrefsHelper);
+            when(mockReadModeSettings.isAutoStartReadMode()).thenReturn(true);
+            when(mockReadModeSettings.getColorDropdownPosition()).thenReturn(ColorPreset.TEMPERATURE_PRESET_ID);
+            final SeekBarController controller = new SeekBarController(mockContext, mockRootView, mockReadModeCommand, mockReadModeSettings);
+
+            // When
+            controller.updateSeekBarsForSelectedColor();
+
+            // Then
+            verify(mockColorTemperatureContainer).setVisibility(View.VISIBLE);
+
+            // When
+            when(mockReadModeSettings.getColorDropdownPosition()).thenReturn(1);
+            controller.updateSeekBarsForSelectedColor();
+
+            // Then
+            verify(mockColorTemperatureContainer).setVisibility(View.GONE);
+        }
+    }
+
     @Test
     public void setupSeekBrightnessBar_whenProgressChangedAndNotFromUser_doesNothing() {
         try (MockedStatic<PrefsHelper> prefsHelperStatic = mockStatic(PrefsHelper.class)) {
@@ -201,7 +300,7 @@ public class SeekBarControllerTest {
             // Then
             verify(mockReadModeSettings).setColorIntensity(40);
             verify(mockPrefsHelper).saveProperty(Constants.PREF_COLOR_INTENSITY, 40);
-            verify(mockPrefsHelper).tryToSaveColorSettingsProperty(mockReadModeSettings);
+            verify(mockPrefsHelper).tryToSavePresetSettings(mockReadModeSettings);
             verify(mockReadModeCommand).updateReadMode();
         }
     }
@@ -245,10 +344,7 @@ public class SeekBarControllerTest {
             when(mockReadModeSettings.shouldUseSameIntensityBrightnessForAll()).thenReturn(false);
             when(mockReadModeSettings.getColorDropdownPosition()).thenReturn(2);
 
-            ColorSettings mockColorSettings = mock(ColorSettings.class);
-            when(mockColorSettings.getColorIntensity()).thenReturn(25);
-            when(mockColorSettings.getBrightness()).thenReturn(65);
-            when(mockPrefsHelper.getColorSettings(2)).thenReturn(mockColorSettings);
+            when(mockPrefsHelper.getPreset(2)).thenReturn(new ColorPreset(2, Constants.GREEN, 0xFFA8E6CF, 25, 65));
 
             when(mockContext.getString(R.string.color_intensity, 25)).thenReturn("25%");
             when(mockContext.getString(R.string.brightness_level, 65)).thenReturn("65%");
@@ -268,7 +364,7 @@ public class SeekBarControllerTest {
     }
 
     @Test
-    public void updateSeekBarsForSelectedColor_whenColorSettingsNull_usesDefaultValues() {
+    public void updateSeekBarsForSelectedColor_whenPresetNull_usesDefaultValues() {
         try (MockedStatic<PrefsHelper> prefsHelperStatic = mockStatic(PrefsHelper.class);
              MockedStatic<Utils> utilsStatic = mockStatic(Utils.class)) {
 
@@ -276,7 +372,7 @@ public class SeekBarControllerTest {
             prefsHelperStatic.when(() -> PrefsHelper.init(mockContext)).thenReturn(mockPrefsHelper);
             when(mockReadModeSettings.shouldUseSameIntensityBrightnessForAll()).thenReturn(false);
             when(mockReadModeSettings.getColorDropdownPosition()).thenReturn(3);
-            when(mockPrefsHelper.getColorSettings(3)).thenReturn(null);
+            when(mockPrefsHelper.getPreset(3)).thenReturn(null);
 
             when(mockContext.getString(R.string.color_intensity, Constants.DEFAULT_COLOR_INTENSITY)).thenReturn("50%");
             when(mockContext.getString(R.string.brightness_level, Constants.DEFAULT_BRIGHTNESS)).thenReturn("50%");
@@ -305,7 +401,7 @@ public class SeekBarControllerTest {
 
             // Given
             prefsHelperStatic.when(() -> PrefsHelper.init(mockContext)).thenReturn(mockPrefsHelper);
-            when(mockReadModeSettings.getColorDropdownPosition()).thenReturn(Constants.CUSTOM_COLOR_DROPDOWN_POSITION);
+            when(mockReadModeSettings.getColorDropdownPosition()).thenReturn(ColorPreset.CUSTOM_PRESET_ID);
             when(mockReadModeSettings.getCustomColor()).thenReturn("#FF0000");
             when(mockSeekColorIntensityBar.getProgress()).thenReturn(40);
             when(mockSeekBrightnessBar.getProgress()).thenReturn(70);
@@ -338,7 +434,9 @@ public class SeekBarControllerTest {
             when(mockSeekColorIntensityBar.getProgress()).thenReturn(40);
             when(mockSeekBrightnessBar.getProgress()).thenReturn(70);
 
-            colorUtilsStatic.when(() -> ColorUtils.adjustColor(Constants.BACKGROUND_COLOR_FOR_DROPDOWN_ITEMS[1], 40, 70)).thenReturn(0xFF303030);
+            when(mockPrefsHelper.getPreset(1)).thenReturn(new ColorPreset(1, Constants.PINK, 0xFFFFD1DC,
+                    Constants.DEFAULT_COLOR_INTENSITY, Constants.DEFAULT_BRIGHTNESS));
+            colorUtilsStatic.when(() -> ColorUtils.adjustColor(0xFFFFD1DC, 40, 70)).thenReturn(0xFF303030);
             utilsStatic.when(() -> Utils.isDarkMode(mockContext)).thenReturn(true);
             when(mockReadModeSettings.isAutoStartReadMode()).thenReturn(false);
 
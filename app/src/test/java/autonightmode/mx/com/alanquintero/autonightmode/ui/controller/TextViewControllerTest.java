@@ -10,6 +10,7 @@ import android.widget.TextView;
 import androidx.test.core.app.ApplicationProvider;
 
 import autonightmode.mx.com.alanquintero.autonightmode.R;
+import autonightmode.mx.com.alanquintero.autonightmode.model.ColorPreset;
 import autonightmode.mx.com.alanquintero.autonightmode.model.ReadModeSettings;
 import autonightmode.mx.com.alanquintero.autonightmode.util.Constants;
 import autonightmode.mx.com.alanquintero.autonightmode.util.PrefsHelper;
@@ -24,6 +25,7 @@ import org.robolectric.RobolectricTestRunner;
 import org.robolectric.annotation.Config;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.mockStatic;
@@ -61,6 +63,9 @@ public class TextViewControllerTest {
 
         // Mock the findViewById call
         when(mockRootView.findViewById(R.id.labelColorSettings)).thenReturn(mockColorSettingsText);
+        // Built-in presets are shown with the color names, indexed by id
+        when(mockPrefsHelper.getPreset(anyInt())).thenAnswer(invocation ->
+                new ColorPreset(invocation.getArgument(0), "PRESET", 0xFFFFFFFF, 0, 0));
     }
 
     @After
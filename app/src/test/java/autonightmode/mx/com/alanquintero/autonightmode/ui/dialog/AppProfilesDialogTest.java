@@ -0,0 +1,218 @@
+/*****************************************************************
+ * Copyright (C) 2025 Alan Quintero <https://github.com/alanquintero/>
+ *****************************************************************/
+package autonightmode.mx.com.alanquintero.autonightmode.ui.dialog;
+
+import android.content.ComponentName;
+import android.content.Context;
+import android.content.Intent;
+import android.provider.Settings;
+import android.view.View;
+import android.widget.LinearLayout;
+import android.widget.TextView;
+
+import androidx.appcompat.app.AlertDialog;
+import androidx.fragment.app.FragmentActivity;
+import androidx.test.core.app.ApplicationProvider;
+
+import autonightmode.mx.com.alanquintero.autonightmode.R;
+import autonightmode.mx.com.alanquintero.autonightmode.model.AppProfiles;
+import autonightmode.mx.com.alanquintero.autonightmode.model.OverlaySnapshot;
+import autonightmode.mx.com.alanquintero.autonightmode.service.ForegroundAccessibilityService;
+import autonightmode.mx.com.alanquintero.autonightmode.service.OverlayClient;
+import autonightmode.mx.com.alanquintero.autonightmode.util.Constants;
+import autonightmode.mx.com.alanquintero.autonightmode.util.PrefsHelper;
+import autonightmode.mx.com.alanquintero.autonightmode.util.Utils;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.MockedStatic;
+import org.mockito.MockitoAnnotations;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.mockStatic;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.robolectric.Shadows.shadowOf;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 33)
+public class AppProfilesDialogTest {
+
+    private static final String CAMERA = "com.android.camera";
+    private static final String READER = "com.example.reader";
+
+    private AutoCloseable mocks;
+    private FragmentActivity activity;
+    private AppProfilesDialog appProfilesDialog;
+    private PrefsHelper mockPrefsHelper;
+
+    @Before
+    public void setUp() {
+        mocks = MockitoAnnotations.openMocks(this);
+
+        // Create a real activity with Robolectric
+        activity = Robolectric.buildActivity(FragmentActivity.class).create().start().resume().get();
+
+        // Setup mock PrefsHelper
+        mockPrefsHelper = mock(PrefsHelper.class);
+
+        // Create and attach the fragment manually
+        appProfilesDialog = new AppProfilesDialog();
+
+        // Attach the fragment to the activity
+        activity.getSupportFragmentManager()
+                .beginTransaction()
+                .add(appProfilesDialog, "test")
+                .commitNow();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        mocks.close();
+    }
+
+    @Test
+    public void onCreateDialog_showsOneRowPerSavedProfile() {
+        try (MockedStatic<PrefsHelper> prefsHelperStatic = mockStatic(PrefsHelper.class);
+             MockedStatic<Utils> utilsStatic = mockStatic(Utils.class)) {
+
+            // Given
+            setupMocks(prefsHelperStatic, utilsStatic);
+            when(mockPrefsHelper.getAppProfiles()).thenReturn(CAMERA + "=OFF;" + READER + "=80,20");
+
+            // When
+            final AlertDialog dialog = showDialog();
+
+            // Then - the apps are not installed, their package name is shown
+            final LinearLayout profilesList = dialog.findViewById(R.id.app_profiles_list);
+            assertEquals(2, profilesList.getChildCount());
+            assertEquals(activity.getString(R.string.app_profile_no_filter, CAMERA),
+                    ((TextView) profilesList.getChildAt(0)).getText().toString());
+            assertEquals(activity.getString(R.string.app_profile_levels, READER, 80, 20),
+                    ((TextView) profilesList.getChildAt(1)).getText().toString());
+            assertEquals(View.GONE, dialog.findViewById(R.id.app_profiles_empty).getVisibility());
+        }
+    }
+
+    @Test
+    public void onCreateDialog_withoutProfiles_showsTheEmptyText() {
+        try (MockedStatic<PrefsHelper> prefsHelperStatic = mockStatic(PrefsHelper.class);
+             MockedStatic<Utils> utilsStatic = mockStatic(Utils.class)) {
+
+            // Given
+            setupMocks(prefsHelperStatic, utilsStatic);
+
+            // When
+            final AlertDialog dialog = showDialog();
+
+            // Then
+            assertEquals(0, ((LinearLayout) dialog.findViewById(R.id.app_profiles_list)).getChildCount());
+            assertEquals(View.VISIBLE, dialog.findViewById(R.id.app_profiles_empty).getVisibility());
+        }
+    }
+
+    @Test
+    public void saveAppProfiles_savesTheProfilesAndUpdatesTheOverlay() {
+        try (MockedStatic<PrefsHelper> prefsHelperStatic = mockStatic(PrefsHelper.class);
+             MockedStatic<Utils> utilsStatic = mockStatic(Utils.class);
+             MockedStatic<OverlayClient> overlayClientStatic = mockStatic(OverlayClient.class)) {
+
+            // Given
+            setupMocks(prefsHelperStatic, utilsStatic);
+            showDialog();
+            final AppProfiles appProfiles = AppProfiles.parseOrEmpty(READER + "=80,20")
+                    .with(CAMERA, new AppProfiles.Profile(false, 0, 0));
+
+            // When
+            appProfilesDialog.saveAppProfiles(mockPrefsHelper, appProfiles);
+
+            // Then - saved sorted by package name
+            verify(mockPrefsHelper).saveProperty(Constants.PREF_APP_PROFILES, CAMERA + "=OFF;" + READER + "=80,20");
+            overlayClientStatic.verify(() -> OverlayClient.update(any(), any(OverlaySnapshot.class)));
+        }
+    }
+
+    @Test
+    public void saveAppProfiles_whenAProfileIsRemoved_savesTheOtherProfiles() {
+        try (MockedStatic<PrefsHelper> prefsHelperStatic = mockStatic(PrefsHelper.class);
+             MockedStatic<Utils> utilsStatic = mockStatic(Utils.class);
+             MockedStatic<OverlayClient> overlayClientStatic = mockStatic(OverlayClient.class)) {
+
+            // Given
+            setupMocks(prefsHelperStatic, utilsStatic);
+            showDialog();
+            final AppProfiles appProfiles = AppProfiles.parseOrEmpty(CAMERA + "=OFF;" + READER + "=80,20");
+
+            // When
+            appProfilesDialog.saveAppProfiles(mockPrefsHelper, appProfiles.without(CAMERA).without(READER));
+
+            // Then
+            verify(mockPrefsHelper).saveProperty(Constants.PREF_APP_PROFILES, "");
+        }
+    }
+
+    @Test
+    public void onCreateDialog_whenUsageAccessClicked_opensTheUsageAccessSettings() {
+        try (MockedStatic<PrefsHelper> prefsHelperStatic = mockStatic(PrefsHelper.class);
+             MockedStatic<Utils> utilsStatic = mockStatic(Utils.class)) {
+
+            // Given
+            setupMocks(prefsHelperStatic, utilsStatic);
+            final AlertDialog dialog = showDialog();
+            shadowOf(activity).clearNextStartedActivities();
+
+            // When
+            dialog.findViewById(R.id.button_usage_access).performClick();
+
+            // Then
+            final Intent intent = shadowOf(activity).getNextStartedActivity();
+            assertNotNull(intent);
+            assertEquals(Settings.ACTION_USAGE_ACCESS_SETTINGS, intent.getAction());
+        }
+    }
+
+    @Test
+    public void isAccessibilityServiceOn_readsTheEnabledServices() {
+        // Given
+        final Context context = ApplicationProvider.getApplicationContext();
+        final String service = new ComponentName(context, ForegroundAccessibilityService.class).flattenToString();
+        assertFalse(AppProfilesDialog.isAccessibilityServiceOn(context));
+
+        // When
+        Settings.Secure.putString(context.getContentResolver(), Settings.Secure.ENABLED_ACCESSIBILITY_SERVICES,
+                "com.example.other/.Service:" + service);
+
+        // Then
+        assertTrue(AppProfilesDialog.isAccessibilityServiceOn(context));
+    }
+
+    private AlertDialog showDialog() {
+        final AlertDialog dialog = (AlertDialog) appProfilesDialog.onCreateDialog(null);
+        dialog.show();
+        return dialog;
+    }
+
+    // Helper method
+    private void setupMocks(MockedStatic<PrefsHelper> prefsHelperStatic, MockedStatic<Utils> utilsStatic) {
+        when(mockPrefsHelper.getAppProfiles()).thenReturn(Constants.DEFAULT_APP_PROFILES);
+        when(mockPrefsHelper.getColorIntensity()).thenReturn(Constants.DEFAULT_COLOR_INTENSITY);
+        when(mockPrefsHelper.getBrightness()).thenReturn(Constants.DEFAULT_BRIGHTNESS);
+        prefsHelperStatic.when(() -> PrefsHelper.init(any())).thenReturn(mockPrefsHelper);
+
+        // A real title view, the dialog is shown
+        final Context context = ApplicationProvider.getApplicationContext();
+        utilsStatic.when(() -> Utils.createDialogTitle(any(), anyInt())).thenAnswer(invocation -> new TextView(context));
+    }
+}
@@ -0,0 +1,107 @@
+/*****************************************************************
+ * Copyright (C) 2025 Alan Quintero <https://github.com/alanquintero/>
+ *****************************************************************/
+package autonightmode.mx.com.alanquintero.autonightmode.ui.dialog;
+
+import static autonightmode.mx.com.alanquintero.autonightmode.SoakHarness.assertWithinBudget;
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.robolectric.Shadows.shadowOf;
+
+import android.app.Application;
+import android.content.DialogInterface;
+import android.content.Intent;
+import android.os.Looper;
+
+import androidx.test.core.app.ApplicationProvider;
+
+import autonightmode.mx.com.alanquintero.autonightmode.SoakHarness;
+import autonightmode.mx.com.alanquintero.autonightmode.command.GeneralReadModeCommand;
+import autonightmode.mx.com.alanquintero.autonightmode.manager.ReadModeManager;
+import autonightmode.mx.com.alanquintero.autonightmode.model.ReadModeSettings;
+import autonightmode.mx.com.alanquintero.autonightmode.observer.customcolor.CustomColorSubject;
+import autonightmode.mx.com.alanquintero.autonightmode.observer.readmode.ReadModeSubject;
+import autonightmode.mx.com.alanquintero.autonightmode.util.Constants;
+import autonightmode.mx.com.alanquintero.autonightmode.util.PrefsHelper;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 33)
+public class CustomColorDialogSoakTest {
+
+    // Longer than a display frame
+    private static final long FRAME_MS = 50;
+    // Touch moves reported by the picker in a frame
+    private static final int PICKS_PER_FRAME = 10;
+
+    private Application application;
+    private SoakHarness.PrefsContext prefsContext;
+    private PrefsHelper prefsHelper;
+    private final ReadModeSettings readModeSettings = ReadModeSettings.init();
+    private final List<Intent> commands = new ArrayList<>();
+    private SoakHarness.ClientContext clientContext;
+    private CustomColorDialog customColorDialog;
+
+    @Before
+    public void setUp() {
+        application = ApplicationProvider.getApplicationContext();
+        prefsContext = new SoakHarness.PrefsContext(application);
+        prefsHelper = SoakHarness.createPrefsHelper(prefsContext);
+        prefsHelper.saveProperty(Constants.PREF_IS_READ_MODE_ON, true);
+        prefsHelper.saveProperty(Constants.PREF_COLOR, Constants.CUSTOM_COLOR);
+        readModeSettings.setIsReadModeOn(true);
+        SoakHarness.setOverlayServiceRunning(application, true);
+
+        // The commands are only recorded, the overlay service is driven by OverlayPipelineSoakTest
+        clientContext = new SoakHarness.ClientContext(application, commands::add);
+        final ReadModeManager readModeManager = new ReadModeManager(clientContext, prefsHelper, new ReadModeSubject(), readModeSettings);
+        customColorDialog = new CustomColorDialog(clientContext, new GeneralReadModeCommand(readModeManager, readModeSettings),
+                readModeSettings, new CustomColorSubject());
+        // The budgets only count the workload
+        prefsContext.resetWriteCount();
+    }
+
+    @After
+    public void tearDown() {
+        SoakHarness.setOverlayServiceRunning(application, false);
+        SoakHarness.releasePrefsHelper();
+        readModeSettings.setIsReadModeOn(false);
+    }
+
+    @Test
+    public void pickingColors_previewsOncePerFrameWithoutWriting() {
+        // Given
+        final int frames = SoakHarness.PICKED_COLORS / PICKS_PER_FRAME;
+
+        // When
+        for (int i = 0; i < SoakHarness.PICKED_COLORS; i++) {
+            customColorDialog.onColorPicked(0xFF000000 | (i * 0x010203));
+            if ((i + 1) % PICKS_PER_FRAME == 0) {
+                shadowOf(Looper.getMainLooper()).idleFor(Duration.ofMillis(FRAME_MS));
+            }
+        }
+
+        // Then
+        assertWithinBudget("previews", clientContext.getCommandCount(), frames);
+        assertWithinBudget("service starts", clientContext.getForegroundStartCount(), 0);
+        assertWithinBudget("SharedPreferences writes", prefsContext.getWriteCount(), 0);
+
+        // When - cancelled, the overlay goes back to the saved color
+        customColorDialog.onCancel(mock(DialogInterface.class));
+        shadowOf(Looper.getMainLooper()).idleFor(Duration.ofMillis(FRAME_MS));
+
+        // Then - a single command, no preview is left behind
+        assertEquals(frames + 1, commands.size());
+        assertWithinBudget("SharedPreferences writes", prefsContext.getWriteCount(), 0);
+    }
+}
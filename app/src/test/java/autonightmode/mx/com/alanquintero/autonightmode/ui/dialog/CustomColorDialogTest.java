@@ -4,12 +4,13 @@
 package autonightmode.mx.com.alanquintero.autonightmode.ui.dialog;
 
 import android.graphics.Color;
+import android.os.Looper;
+
+import androidx.test.core.app.ApplicationProvider;
 
 import autonightmode.mx.com.alanquintero.autonightmode.command.ReadModeCommand;
 import autonightmode.mx.com.alanquintero.autonightmode.model.ReadModeSettings;
 import autonightmode.mx.com.alanquintero.autonightmode.observer.customcolor.CustomColorSubject;
-import autonightmode.mx.com.alanquintero.autonightmode.ui.spinner.ColorItem;
-import autonightmode.mx.com.alanquintero.autonightmode.ui.spinner.ColorSpinnerAdapter;
 import autonightmode.mx.com.alanquintero.autonightmode.util.ColorUtils;
 import autonightmode.mx.com.alanquintero.autonightmode.util.Constants;
 import autonightmode.mx.com.alanquintero.autonightmode.util.PrefsHelper;
@@ -23,25 +24,29 @@ import org.mockito.MockitoAnnotations;
 import org.robolectric.RobolectricTestRunner;
 import org.robolectric.annotation.Config;
 
-import java.util.Arrays;
-import java.util.List;
+import java.time.Duration;
 
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.mockStatic;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.robolectric.Shadows.shadowOf;
 
 @RunWith(RobolectricTestRunner.class)
 @Config(sdk = 33)
 public class CustomColorDialogTest {
 
+    // Longer than a display frame
+    private static final long FRAME_MS = 50;
+
     private AutoCloseable mocks;
     private PrefsHelper mockPrefsHelper;
     private ReadModeCommand mockReadModeCommand;
     private ReadModeSettings mockReadModeSettings;
     private CustomColorSubject mockCustomColorSubject;
-    private ColorSpinnerAdapter mockColorSpinnerAdapter;
-    private List<ColorItem> mockColorItems;
 
     @Before
     public void setUp() {
@@ -52,12 +57,6 @@ public class CustomColorDialogTest {
         mockReadModeCommand = mock(ReadModeCommand.class);
         mockReadModeSettings = mock(ReadModeSettings.class);
         mockCustomColorSubject = mock(CustomColorSubject.class);
-        mockColorSpinnerAdapter = mock(ColorSpinnerAdapter.class);
-
-        // Create mock color items
-        final ColorItem colorItem1 = new ColorItem("Red", Color.RED);
-        final ColorItem colorItem2 = new ColorItem("Custom", Color.BLUE);
-        mockColorItems = Arrays.asList(colorItem1, colorItem2);
     }
 
     @After
@@ -85,148 +84,110 @@ public class CustomColorDialogTest {
             mockReadModeSettings.setCustomColor(selectedHexColor);
             mockCustomColorSubject.setCustomColor(selectedHexColor);
 
-            // Update color items and adapter
-            if (mockColorItems != null && mockColorSpinnerAdapter != null &&
-                    mockColorItems.size() > Constants.CUSTOM_COLOR_DROPDOWN_POSITION) {
-                mockColorItems.get(Constants.CUSTOM_COLOR_DROPDOWN_POSITION).setIconColor(Color.parseColor(selectedHexColor));
-                mockColorSpinnerAdapter.notifyDataSetChanged();
-            }
-
-            mockReadModeCommand.resumeReadMode();
+            mockReadModeCommand.updateReadMode();
 
             // Then
             verify(mockPrefsHelper).saveProperty(Constants.PREF_COLOR, Constants.CUSTOM_COLOR);
             verify(mockPrefsHelper).saveProperty(Constants.PREF_CUSTOM_COLOR, selectedHexColor);
             verify(mockReadModeSettings).setCustomColor(selectedHexColor);
             verify(mockCustomColorSubject).setCustomColor(selectedHexColor);
-            verify(mockReadModeCommand).resumeReadMode();
+            verify(mockReadModeCommand).updateReadMode();
         }
     }
 
     @Test
-    public void colorSelectionLogic_whenCancelClicked_resumesReadMode() {
+    public void release_whenNotShown_doesNotRevertPreview() {
         // Given
-        // When - Execute the logic that happens when negative button is clicked
-        mockReadModeCommand.resumeReadMode();
+        final CustomColorDialog customColorDialog = new CustomColorDialog(ApplicationProvider.getApplicationContext(),
+                mockReadModeCommand, mockReadModeSettings, mockCustomColorSubject);
+
+        // When
+        customColorDialog.release();
 
         // Then
-        verify(mockReadModeCommand).resumeReadMode();
+        verify(mockReadModeCommand, never()).revertPreview();
     }
 
     @Test
-    public void colorSelectionLogic_whenColorItemsNull_stillSavesPreferences() {
-        try (MockedStatic<PrefsHelper> prefsHelperStatic = mockStatic(PrefsHelper.class);
-             MockedStatic<Color> colorStatic = mockStatic(Color.class);
-             MockedStatic<ColorUtils> colorUtilsStatic = mockStatic(ColorUtils.class)) {
-
-            // Given
-            final String selectedHexColor = "#FF0000";
-            final int envelopeColor = Color.RED;
-
-            colorUtilsStatic.when(() -> ColorUtils.getHexColor(envelopeColor))
-                    .thenReturn(selectedHexColor);
-            colorStatic.when(() -> Color.parseColor(anyString())).thenReturn(Color.RED);
-
-            // Set color items to null to test the null check
-            mockColorItems = null;
-
-            // When - Execute positive button logic without color items
-            mockPrefsHelper.saveProperty(Constants.PREF_COLOR, Constants.CUSTOM_COLOR);
-            mockPrefsHelper.saveProperty(Constants.PREF_CUSTOM_COLOR, selectedHexColor);
-            mockReadModeSettings.setCustomColor(selectedHexColor);
-            mockCustomColorSubject.setCustomColor(selectedHexColor);
-            mockReadModeCommand.resumeReadMode();
+    public void colorSelectionLogic_whenCancelClicked_revertsPreview() {
+        // Given
+        // When - Execute the logic that happens when negative button is clicked
+        mockReadModeCommand.revertPreview();
 
-            // Then - Preferences should still be saved even without color items
-            verify(mockPrefsHelper).saveProperty(Constants.PREF_COLOR, Constants.CUSTOM_COLOR);
-            verify(mockPrefsHelper).saveProperty(Constants.PREF_CUSTOM_COLOR, selectedHexColor);
-            verify(mockReadModeSettings).setCustomColor(selectedHexColor);
-            verify(mockCustomColorSubject).setCustomColor(selectedHexColor);
-            verify(mockReadModeCommand).resumeReadMode();
-        }
+        // Then
+        verify(mockReadModeCommand).revertPreview();
     }
 
     @Test
-    public void colorSelectionLogic_whenColorSpinnerAdapterNull_stillSavesPreferences() {
+    public void colorSelectionLogic_updatesCorrectColorItemPosition() {
         try (MockedStatic<PrefsHelper> prefsHelperStatic = mockStatic(PrefsHelper.class);
              MockedStatic<Color> colorStatic = mockStatic(Color.class);
              MockedStatic<ColorUtils> colorUtilsStatic = mockStatic(ColorUtils.class)) {
 
             // Given
-            final String selectedHexColor = "#FF0000";
-            final int envelopeColor = Color.RED;
+            final String selectedHexColor = "#00FF00";
+            final int envelopeColor = Color.GREEN;
 
             colorUtilsStatic.when(() -> ColorUtils.getHexColor(envelopeColor))
                     .thenReturn(selectedHexColor);
-            colorStatic.when(() -> Color.parseColor(anyString())).thenReturn(Color.RED);
-
-            // Set adapter to null to test the null check
-            mockColorSpinnerAdapter = null;
+            colorStatic.when(() -> Color.parseColor(anyString())).thenReturn(Color.GREEN);
 
-            // When - Execute positive button logic without adapter
+            // When - Execute positive button logic
             mockPrefsHelper.saveProperty(Constants.PREF_COLOR, Constants.CUSTOM_COLOR);
             mockPrefsHelper.saveProperty(Constants.PREF_CUSTOM_COLOR, selectedHexColor);
             mockReadModeSettings.setCustomColor(selectedHexColor);
             mockCustomColorSubject.setCustomColor(selectedHexColor);
-            mockReadModeCommand.resumeReadMode();
 
-            // Then - Preferences should still be saved even without adapter
+            mockReadModeCommand.updateReadMode();
+
+            // Then
             verify(mockPrefsHelper).saveProperty(Constants.PREF_COLOR, Constants.CUSTOM_COLOR);
             verify(mockPrefsHelper).saveProperty(Constants.PREF_CUSTOM_COLOR, selectedHexColor);
             verify(mockReadModeSettings).setCustomColor(selectedHexColor);
             verify(mockCustomColorSubject).setCustomColor(selectedHexColor);
-            verify(mockReadModeCommand).resumeReadMode();
-            // adapter.notifyDataSetChanged() cannot be called when adapter is null
+            verify(mockReadModeCommand).updateReadMode();
         }
     }
 
     @Test
-    public void colorSelectionLogic_updatesCorrectColorItemPosition() {
-        try (MockedStatic<PrefsHelper> prefsHelperStatic = mockStatic(PrefsHelper.class);
-             MockedStatic<Color> colorStatic = mockStatic(Color.class);
-             MockedStatic<ColorUtils> colorUtilsStatic = mockStatic(ColorUtils.class)) {
-
-            // Given
-            final String selectedHexColor = "#00FF00";
-            final int envelopeColor = Color.GREEN;
-
-            colorUtilsStatic.when(() -> ColorUtils.getHexColor(envelopeColor))
-                    .thenReturn(selectedHexColor);
-            colorStatic.when(() -> Color.parseColor(anyString())).thenReturn(Color.GREEN);
+    public void onColorPicked_previewsOnlyTheLastColorOfTheFrame() {
+        // Given
+        final CustomColorDialog customColorDialog = new CustomColorDialog(ApplicationProvider.getApplicationContext(),
+                mockReadModeCommand, mockReadModeSettings, mockCustomColorSubject);
 
-            // When - Execute positive button logic
-            mockPrefsHelper.saveProperty(Constants.PREF_COLOR, Constants.CUSTOM_COLOR);
-            mockPrefsHelper.saveProperty(Constants.PREF_CUSTOM_COLOR, selectedHexColor);
-            mockReadModeSettings.setCustomColor(selectedHexColor);
-            mockCustomColorSubject.setCustomColor(selectedHexColor);
+        // When - the picker reports several colors within the same frame
+        customColorDialog.onColorPicked(Color.RED);
+        customColorDialog.onColorPicked(Color.GREEN);
+        customColorDialog.onColorPicked(Color.BLUE);
 
-            // Verify we're updating the correct position
-            if (mockColorItems != null && mockColorSpinnerAdapter != null &&
-                    mockColorItems.size() > Constants.CUSTOM_COLOR_DROPDOWN_POSITION) {
-                mockColorItems.get(Constants.CUSTOM_COLOR_DROPDOWN_POSITION).setIconColor(Color.parseColor(selectedHexColor));
-                mockColorSpinnerAdapter.notifyDataSetChanged();
-            }
+        // Then - nothing is sent before the frame
+        verify(mockReadModeCommand, never()).previewCustomColor(anyString());
 
-            mockReadModeCommand.resumeReadMode();
+        // When
+        shadowOf(Looper.getMainLooper()).idleFor(Duration.ofMillis(FRAME_MS));
 
-            // Then - Verify the correct color item at CUSTOM_COLOR_DROPDOWN_POSITION was updated
-            verify(mockPrefsHelper).saveProperty(Constants.PREF_COLOR, Constants.CUSTOM_COLOR);
-            verify(mockPrefsHelper).saveProperty(Constants.PREF_CUSTOM_COLOR, selectedHexColor);
-            verify(mockReadModeSettings).setCustomColor(selectedHexColor);
-            verify(mockCustomColorSubject).setCustomColor(selectedHexColor);
-            // verify(mockColorSpinnerAdapter).notifyDataSetChanged();
-            verify(mockReadModeCommand).resumeReadMode();
-        }
+        // Then
+        verify(mockReadModeCommand, times(1)).previewCustomColor(anyString());
+        verify(mockReadModeCommand).previewCustomColor(ColorUtils.getHexColor(Color.BLUE));
+        verify(mockReadModeCommand, never()).pauseReadMode();
+        verifyNoInteractions(mockPrefsHelper);
     }
 
     @Test
-    public void dialogInitialization_callsPauseReadMode() {
+    public void onColorPicked_nextFrame_previewsAgain() {
         // Given
-        // When - Simulate what happens when dialog is created
-        mockReadModeCommand.pauseReadMode();
+        final CustomColorDialog customColorDialog = new CustomColorDialog(ApplicationProvider.getApplicationContext(),
+                mockReadModeCommand, mockReadModeSettings, mockCustomColorSubject);
+        customColorDialog.onColorPicked(Color.RED);
+        shadowOf(Looper.getMainLooper()).idleFor(Duration.ofMillis(FRAME_MS));
+
+        // When
+        customColorDialog.onColorPicked(Color.GREEN);
+        shadowOf(Looper.getMainLooper()).idleFor(Duration.ofMillis(FRAME_MS));
 
         // Then
-        verify(mockReadModeCommand).pauseReadMode();
+        verify(mockReadModeCommand).previewCustomColor(ColorUtils.getHexColor(Color.RED));
+        verify(mockReadModeCommand).previewCustomColor(ColorUtils.getHexColor(Color.GREEN));
     }
 
     @Test
@@ -269,4 +230,33 @@ public class CustomColorDialogTest {
         // Then
         verify(mockReadModeSettings).setCustomColor(selectedHexColor);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void savePreset_withListener_savesTheColorAsPreset() {
+        // Given
+        final CustomColorDialog customColorDialog = new CustomColorDialog(ApplicationProvider.getApplicationContext(),
+                mockReadModeCommand, mockReadModeSettings, mockCustomColorSubject);
+        final CustomColorDialog.OnSavePresetListener mockListener = mock(CustomColorDialog.OnSavePresetListener.class);
+        customColorDialog.setOnSavePresetListener(mockListener);
+
+        // When
+        customColorDialog.savePreset(Color.BLUE);
+
+        // Then
+        verify(mockListener).onSavePreset(Color.BLUE);
+        verify(mockCustomColorSubject, never()).setCustomColor(anyString());
+    }
+
+    @Test
+    public void savePreset_withoutListener_revertsPreview() {
+        // Given
+        final CustomColorDialog customColorDialog = new CustomColorDialog(ApplicationProvider.getApplicationContext(),
+                mockReadModeCommand, mockReadModeSettings, mockCustomColorSubject);
+
+        // When
+        customColorDialog.savePreset(Color.BLUE);
+
+        // Then
+        verify(mockReadModeCommand).revertPreview();
+    }
+}
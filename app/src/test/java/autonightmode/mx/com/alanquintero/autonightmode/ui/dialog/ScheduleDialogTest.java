@@ -0,0 +1,188 @@
+/*****************************************************************
+ * Copyright (C) 2025 Alan Quintero <https://github.com/alanquintero/>
+ *****************************************************************/
+package autonightmode.mx.com.alanquintero.autonightmode.ui.dialog;
+
+import android.content.Context;
+import android.widget.RadioButton;
+import android.widget.SeekBar;
+import android.widget.TextView;
+
+import androidx.appcompat.app.AlertDialog;
+import androidx.fragment.app.FragmentActivity;
+import androidx.test.core.app.ApplicationProvider;
+
+import autonightmode.mx.com.alanquintero.autonightmode.R;
+import autonightmode.mx.com.alanquintero.autonightmode.model.Schedule;
+import autonightmode.mx.com.alanquintero.autonightmode.schedule.ReadModeScheduler;
+import autonightmode.mx.com.alanquintero.autonightmode.util.Constants;
+import autonightmode.mx.com.alanquintero.autonightmode.util.PrefsHelper;
+import autonightmode.mx.com.alanquintero.autonightmode.util.Utils;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.MockedStatic;
+import org.mockito.MockitoAnnotations;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.mockStatic;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 33)
+public class ScheduleDialogTest {
+
+    private AutoCloseable mocks;
+    private ScheduleDialog scheduleDialog;
+    private PrefsHelper mockPrefsHelper;
+
+    @Before
+    public void setUp() {
+        mocks = MockitoAnnotations.openMocks(this);
+
+        // Create a real activity with Robolectric
+        final FragmentActivity activity = Robolectric.buildActivity(FragmentActivity.class).create().start().resume().get();
+
+        // Setup mock PrefsHelper
+        mockPrefsHelper = mock(PrefsHelper.class);
+
+        // Create and attach the fragment manually
+        scheduleDialog = new ScheduleDialog();
+
+        // Attach the fragment to the activity
+        activity.getSupportFragmentManager()
+                .beginTransaction()
+                .add(scheduleDialog, "test")
+                .commitNow();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        mocks.close();
+    }
+
+    @Test
+    public void onCreateDialog_restoresTheSavedSchedule() {
+        try (MockedStatic<PrefsHelper> prefsHelperStatic = mockStatic(PrefsHelper.class);
+             MockedStatic<Utils> utilsStatic = mockStatic(Utils.class)) {
+
+            // Given
+            setupMocks(prefsHelperStatic, utilsStatic);
+            when(mockPrefsHelper.getSchedule()).thenReturn(Schedule.Mode.SUN.name());
+            when(mockPrefsHelper.getScheduleRamp()).thenReturn(30);
+            when(mockPrefsHelper.getScheduleLocation()).thenReturn("19.43,-99.13");
+
+            // When
+            final AlertDialog dialog = showDialog();
+
+            // Then
+            assertTrue(((RadioButton) dialog.findViewById(R.id.radio_schedule_sun)).isChecked());
+            assertEquals(30, ((SeekBar) dialog.findViewById(R.id.schedule_ramp_bar)).getProgress());
+            assertEquals("19.43,-99.13", ((TextView) dialog.findViewById(R.id.schedule_location_input)).getText().toString());
+            assertTrue(dialog.findViewById(R.id.button_schedule_start).isEnabled());
+        }
+    }
+
+    @Test
+    public void onCreateDialog_whenScheduleIsOff_disablesTheTimes() {
+        try (MockedStatic<PrefsHelper> prefsHelperStatic = mockStatic(PrefsHelper.class);
+             MockedStatic<Utils> utilsStatic = mockStatic(Utils.class)) {
+
+            // Given
+            setupMocks(prefsHelperStatic, utilsStatic);
+
+            // When
+            final AlertDialog dialog = showDialog();
+
+            // Then
+            assertTrue(((RadioButton) dialog.findViewById(R.id.radio_schedule_off)).isChecked());
+            assertFalse(dialog.findViewById(R.id.button_schedule_start).isEnabled());
+            assertFalse(dialog.findViewById(R.id.button_schedule_end).isEnabled());
+            assertFalse(dialog.findViewById(R.id.schedule_ramp_bar).isEnabled());
+        }
+    }
+
+    @Test
+    public void saveSchedule_savesTheScheduleAndUpdatesTheScheduler() {
+        try (MockedStatic<ReadModeScheduler> schedulerStatic = mockStatic(ReadModeScheduler.class)) {
+
+            // Given
+            scheduleDialog.setTimes(22 * 60, 6 * 60 + 30);
+
+            // When
+            final boolean isSaved = scheduleDialog.saveSchedule(mockPrefsHelper, Schedule.Mode.SUN, " 19.43 , -99.13 ", 15);
+
+            // Then
+            assertTrue(isSaved);
+            verify(mockPrefsHelper).saveProperty(Constants.PREF_SCHEDULE, "SUN");
+            verify(mockPrefsHelper).saveProperty(Constants.PREF_SCHEDULE_START, 22 * 60);
+            verify(mockPrefsHelper).saveProperty(Constants.PREF_SCHEDULE_END, 6 * 60 + 30);
+            verify(mockPrefsHelper).saveProperty(Constants.PREF_SCHEDULE_RAMP, 15);
+            verify(mockPrefsHelper).saveProperty(Constants.PREF_SCHEDULE_LOCATION, "19.43,-99.13");
+            schedulerStatic.verify(() -> ReadModeScheduler.update(any(), any()));
+        }
+    }
+
+    @Test
+    public void saveSchedule_withoutLocation_savesAnEmptyLocation() {
+        try (MockedStatic<ReadModeScheduler> schedulerStatic = mockStatic(ReadModeScheduler.class)) {
+
+            // When
+            final boolean isSaved = scheduleDialog.saveSchedule(mockPrefsHelper, Schedule.Mode.TIMES, "  ", 0);
+
+            // Then
+            assertTrue(isSaved);
+            verify(mockPrefsHelper).saveProperty(Constants.PREF_SCHEDULE, "TIMES");
+            verify(mockPrefsHelper).saveProperty(Constants.PREF_SCHEDULE_LOCATION, Constants.DEFAULT_SCHEDULE_LOCATION);
+            schedulerStatic.verify(() -> ReadModeScheduler.update(any(), any()));
+        }
+    }
+
+    @Test
+    public void saveSchedule_withInvalidLocation_savesNothing() {
+        try (MockedStatic<ReadModeScheduler> schedulerStatic = mockStatic(ReadModeScheduler.class)) {
+
+            // When
+            final boolean isSaved = scheduleDialog.saveSchedule(mockPrefsHelper, Schedule.Mode.SUN, "95,200", 10);
+
+            // Then
+            assertFalse(isSaved);
+            verify(mockPrefsHelper, never()).saveProperty(anyString(), anyString());
+            verify(mockPrefsHelper, never()).saveProperty(anyString(), anyInt());
+            schedulerStatic.verify(() -> ReadModeScheduler.update(any(), any()), never());
+        }
+    }
+
+    private AlertDialog showDialog() {
+        final AlertDialog dialog = (AlertDialog) scheduleDialog.onCreateDialog(null);
+        dialog.show();
+        return dialog;
+    }
+
+    // Helper method
+    private void setupMocks(MockedStatic<PrefsHelper> prefsHelperStatic, MockedStatic<Utils> utilsStatic) {
+        when(mockPrefsHelper.getSchedule()).thenReturn(Constants.DEFAULT_SCHEDULE);
+        when(mockPrefsHelper.getScheduleStart()).thenReturn(Constants.DEFAULT_SCHEDULE_START);
+        when(mockPrefsHelper.getScheduleEnd()).thenReturn(Constants.DEFAULT_SCHEDULE_END);
+        when(mockPrefsHelper.getScheduleRamp()).thenReturn(Constants.DEFAULT_SCHEDULE_RAMP);
+        when(mockPrefsHelper.getScheduleLocation()).thenReturn(Constants.DEFAULT_SCHEDULE_LOCATION);
+        prefsHelperStatic.when(() -> PrefsHelper.init(any())).thenReturn(mockPrefsHelper);
+
+        // A real title view, the dialog is shown
+        final Context context = ApplicationProvider.getApplicationContext();
+        utilsStatic.when(() -> Utils.createDialogTitle(any(), anyInt())).thenAnswer(invocation -> new TextView(context));
+    }
+}
@@ -5,18 +5,30 @@ package autonightmode.mx.com.alanquintero.autonightmode.ui.dialog;
 
 import android.app.Dialog;
 import android.content.Context;
+import android.content.Intent;
+import android.provider.Settings;
 import android.view.View;
 import android.widget.ImageButton;
+import android.widget.RadioButton;
+import android.widget.SeekBar;
+import android.widget.TextView;
 
+import androidx.annotation.NonNull;
+import androidx.appcompat.app.AlertDialog;
 import androidx.fragment.app.FragmentActivity;
 import androidx.test.core.app.ApplicationProvider;
 
+import autonightmode.mx.com.alanquintero.autonightmode.R;
+import autonightmode.mx.com.alanquintero.autonightmode.model.OverlaySnapshot;
 import autonightmode.mx.com.alanquintero.autonightmode.model.ReadModeSettings;
 import autonightmode.mx.com.alanquintero.autonightmode.observer.settings.SettingsSubject;
+import autonightmode.mx.com.alanquintero.autonightmode.service.OverlayClient;
 import autonightmode.mx.com.alanquintero.autonightmode.util.Constants;
 import autonightmode.mx.com.alanquintero.autonightmode.util.PrefsHelper;
 import autonightmode.mx.com.alanquintero.autonightmode.util.Utils;
 
+import com.google.android.material.switchmaterial.SwitchMaterial;
+
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
@@ -26,21 +38,29 @@ import org.mockito.MockitoAnnotations;
 import org.robolectric.Robolectric;
 import org.robolectric.RobolectricTestRunner;
 import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowSettings;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.Mockito.atLeast;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.mockStatic;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.robolectric.Shadows.shadowOf;
 
 @RunWith(RobolectricTestRunner.class)
 @Config(sdk = 33)
 public class SettingsDialogTest {
 
     private AutoCloseable mocks;
+    private FragmentActivity activity;
     private SettingsDialog settingsDialog;
     private PrefsHelper mockPrefsHelper;
     private SettingsSubject mockSettingsSubject;
@@ -51,7 +71,7 @@ public class SettingsDialogTest {
         mocks = MockitoAnnotations.openMocks(this);
 
         // Create a real activity with Robolectric
-        final FragmentActivity activity = Robolectric.buildActivity(FragmentActivity.class).create().start().resume().get();
+        activity = Robolectric.buildActivity(FragmentActivity.class).create().start().resume().get();
 
         // Setup mocks
         mockPrefsHelper = mock(PrefsHelper.class);
@@ -218,10 +238,182 @@ public class SettingsDialogTest {
         }
     }
 
+    @Test
+    public void onCreateDialog_whenAmbientLightToggled_savesItAndUpdatesTheOverlay() {
+        try (MockedStatic<PrefsHelper> prefsHelperStatic = mockStatic(PrefsHelper.class);
+             MockedStatic<Utils> utilsStatic = mockStatic(Utils.class);
+             MockedStatic<OverlayClient> overlayClientStatic = mockStatic(OverlayClient.class)) {
+
+            // Given
+            setupMocks(prefsHelperStatic, utilsStatic);
+            final AlertDialog dialog = showDialog(utilsStatic);
+            final SwitchMaterial switchAmbientLight = dialog.findViewById(R.id.switch_ambient_light);
+            assertFalse(switchAmbientLight.isChecked());
+
+            // When
+            switchAmbientLight.performClick();
+
+            // Then
+            verify(mockPrefsHelper).saveProperty(Constants.PREF_AMBIENT_LIGHT, true);
+            overlayClientStatic.verify(() -> OverlayClient.update(any(), any(OverlaySnapshot.class)));
+        }
+    }
+
+    @Test
+    public void onCreateDialog_whenHybridDimmingTurnedOnWithoutPermission_opensTheWriteSettings() {
+        try (MockedStatic<PrefsHelper> prefsHelperStatic = mockStatic(PrefsHelper.class);
+             MockedStatic<Utils> utilsStatic = mockStatic(Utils.class);
+             MockedStatic<OverlayClient> overlayClientStatic = mockStatic(OverlayClient.class)) {
+
+            // Given
+            setupMocks(prefsHelperStatic, utilsStatic);
+            ShadowSettings.ShadowSystem.setCanWrite(false);
+            final AlertDialog dialog = showDialog(utilsStatic);
+            shadowOf(activity).clearNextStartedActivities();
+
+            // When
+            dialog.findViewById(R.id.switch_hybrid_dimming).performClick();
+
+            // Then
+            verify(mockPrefsHelper).saveProperty(Constants.PREF_HYBRID_DIMMING, true);
+            final Intent intent = shadowOf(activity).getNextStartedActivity();
+            assertNotNull(intent);
+            assertEquals(Settings.ACTION_MANAGE_WRITE_SETTINGS, intent.getAction());
+            assertEquals("package:" + activity.getPackageName(), intent.getDataString());
+            overlayClientStatic.verify(() -> OverlayClient.update(any(), any(OverlaySnapshot.class)), never());
+        }
+    }
+
+    @Test
+    public void onCreateDialog_whenHybridDimmingTurnedOnWithPermission_updatesTheOverlay() {
+        try (MockedStatic<PrefsHelper> prefsHelperStatic = mockStatic(PrefsHelper.class);
+             MockedStatic<Utils> utilsStatic = mockStatic(Utils.class);
+             MockedStatic<OverlayClient> overlayClientStatic = mockStatic(OverlayClient.class)) {
+
+            // Given
+            setupMocks(prefsHelperStatic, utilsStatic);
+            ShadowSettings.ShadowSystem.setCanWrite(true);
+            final AlertDialog dialog = showDialog(utilsStatic);
+            shadowOf(activity).clearNextStartedActivities();
+
+            // When
+            dialog.findViewById(R.id.switch_hybrid_dimming).performClick();
+
+            // Then
+            verify(mockPrefsHelper).saveProperty(Constants.PREF_HYBRID_DIMMING, true);
+            assertNull(shadowOf(activity).getNextStartedActivity());
+            overlayClientStatic.verify(() -> OverlayClient.update(any(), any(OverlaySnapshot.class)));
+        }
+    }
+
+    @Test
+    public void onCreateDialog_restoresTheSavedScreenArea() {
+        try (MockedStatic<PrefsHelper> prefsHelperStatic = mockStatic(PrefsHelper.class);
+             MockedStatic<Utils> utilsStatic = mockStatic(Utils.class)) {
+
+            // Given
+            setupMocks(prefsHelperStatic, utilsStatic);
+            when(mockPrefsHelper.getRegion()).thenReturn("BAND");
+
+            // When
+            final AlertDialog dialog = showDialog(utilsStatic);
+
+            // Then
+            assertTrue(((RadioButton) dialog.findViewById(R.id.radio_region_band)).isChecked());
+            final SeekBar regionTopBar = dialog.findViewById(R.id.region_top_bar);
+            assertTrue(regionTopBar.isEnabled());
+            assertEquals(Constants.DEFAULT_REGION_TOP, regionTopBar.getProgress());
+        }
+    }
+
+    @Test
+    public void onCreateDialog_whenWholeScreenIsSaved_disablesTheBandSliders() {
+        try (MockedStatic<PrefsHelper> prefsHelperStatic = mockStatic(PrefsHelper.class);
+             MockedStatic<Utils> utilsStatic = mockStatic(Utils.class)) {
+
+            // Given
+            setupMocks(prefsHelperStatic, utilsStatic);
+
+            // When
+            final AlertDialog dialog = showDialog(utilsStatic);
+
+            // Then
+            assertTrue(((RadioButton) dialog.findViewById(R.id.radio_region_full)).isChecked());
+            assertFalse(dialog.findViewById(R.id.region_top_bar).isEnabled());
+            assertFalse(dialog.findViewById(R.id.region_height_bar).isEnabled());
+        }
+    }
+
+    @Test
+    public void onCreateDialog_whenScreenAreaSelected_savesItAndUpdatesTheOverlay() {
+        try (MockedStatic<PrefsHelper> prefsHelperStatic = mockStatic(PrefsHelper.class);
+             MockedStatic<Utils> utilsStatic = mockStatic(Utils.class);
+             MockedStatic<OverlayClient> overlayClientStatic = mockStatic(OverlayClient.class)) {
+
+            // Given
+            setupMocks(prefsHelperStatic, utilsStatic);
+            final AlertDialog dialog = showDialog(utilsStatic);
+
+            // When
+            dialog.findViewById(R.id.radio_region_mask).performClick();
+
+            // Then
+            verify(mockPrefsHelper).saveProperty(Constants.PREF_REGION, "MASK");
+            assertTrue(dialog.findViewById(R.id.region_top_bar).isEnabled());
+            overlayClientStatic.verify(() -> OverlayClient.update(any(), any(OverlaySnapshot.class)));
+        }
+    }
+
+    @Test
+    public void onCreateDialog_whenBandSliderDragged_stagesTheValuesAndSavesThemOnRelease() {
+        try (MockedStatic<PrefsHelper> prefsHelperStatic = mockStatic(PrefsHelper.class);
+             MockedStatic<Utils> utilsStatic = mockStatic(Utils.class);
+             MockedStatic<OverlayClient> overlayClientStatic = mockStatic(OverlayClient.class)) {
+
+            // Given
+            setupMocks(prefsHelperStatic, utilsStatic);
+            when(mockPrefsHelper.getRegion()).thenReturn("BAND");
+            final AlertDialog dialog = showDialog(utilsStatic);
+            final SeekBar regionTopBar = dialog.findViewById(R.id.region_top_bar);
+            final SeekBar.OnSeekBarChangeListener listener = shadowOf(regionTopBar).getOnSeekBarChangeListener();
+
+            // When
+            listener.onStartTrackingTouch(regionTopBar);
+            listener.onProgressChanged(regionTopBar, 30, true);
+            listener.onProgressChanged(regionTopBar, 35, true);
+
+            // Then - every tick moves the band, nothing is written yet
+            verify(mockPrefsHelper).stageProperty(Constants.PREF_REGION_TOP, 30);
+            verify(mockPrefsHelper).stageProperty(Constants.PREF_REGION_TOP, 35);
+            overlayClientStatic.verify(() -> OverlayClient.update(any(), any(OverlaySnapshot.class)), atLeast(2));
+            verify(mockPrefsHelper, never()).flushPendingProperties();
+
+            // When
+            listener.onStopTrackingTouch(regionTopBar);
+
+            // Then
+            verify(mockPrefsHelper).flushPendingProperties();
+        }
+    }
+
+    private @NonNull AlertDialog showDialog(final @NonNull MockedStatic<Utils> utilsStatic) {
+        // A real title view, the dialog is shown
+        final Context context = ApplicationProvider.getApplicationContext();
+        utilsStatic.when(() -> Utils.createDialogTitle(any(), anyInt())).thenAnswer(invocation -> new TextView(context));
+        final AlertDialog dialog = (AlertDialog) settingsDialog.onCreateDialog(null);
+        dialog.show();
+        return dialog;
+    }
+
     // Helper method
     private void setupMocks(MockedStatic<PrefsHelper> prefsHelperStatic, MockedStatic<Utils> utilsStatic) {
         when(mockPrefsHelper.getAutoStartReadMode()).thenReturn(false);
         when(mockPrefsHelper.shouldUseSameIntensityBrightnessForAll()).thenReturn(true);
+        when(mockPrefsHelper.isAmbientLightOn()).thenReturn(Constants.DEFAULT_AMBIENT_LIGHT);
+        when(mockPrefsHelper.isHybridDimmingOn()).thenReturn(Constants.DEFAULT_HYBRID_DIMMING);
+        when(mockPrefsHelper.getRegion()).thenReturn(Constants.DEFAULT_REGION);
+        when(mockPrefsHelper.getRegionTop()).thenReturn(Constants.DEFAULT_REGION_TOP);
+        when(mockPrefsHelper.getRegionHeight()).thenReturn(Constants.DEFAULT_REGION_HEIGHT);
         prefsHelperStatic.when(() -> PrefsHelper.init(any())).thenReturn(mockPrefsHelper);
 
         // Mock Utils methods
@@ -0,0 +1,141 @@
+/*****************************************************************
+ * Copyright (C) 2025 Alan Quintero <https://github.com/alanquintero/>
+ *****************************************************************/
+package autonightmode.mx.com.alanquintero.autonightmode.ui.picker;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+import android.graphics.Color;
+import android.os.Build;
+import android.os.SystemClock;
+import android.view.MotionEvent;
+import android.view.View;
+
+import androidx.test.core.app.ApplicationProvider;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = {Build.VERSION_CODES.O})
+public class HsvColorPickerViewTest {
+
+    private static final int WIDTH = 400;
+
+    private HsvColorPickerView colorPickerView;
+    private final List<Integer> pickedColors = new ArrayList<>();
+
+    @Before
+    public void setUp() {
+        colorPickerView = new HsvColorPickerView(ApplicationProvider.getApplicationContext());
+        colorPickerView.setOnColorChangedListener(pickedColors::add);
+        colorPickerView.measure(View.MeasureSpec.makeMeasureSpec(WIDTH, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(0, View.MeasureSpec.UNSPECIFIED));
+        colorPickerView.layout(0, 0, colorPickerView.getMeasuredWidth(), colorPickerView.getMeasuredHeight());
+    }
+
+    @After
+    public void tearDown() {
+        HsvColorPickerView.releaseCaches();
+    }
+
+    @Test
+    public void setColor_returnsSameColorWithoutNotifying() {
+        // When
+        colorPickerView.setColor(Color.rgb(255, 0, 0));
+
+        // Then
+        assertEquals(Color.rgb(255, 0, 0), colorPickerView.getColor());
+        assertEquals(0, pickedColors.size());
+    }
+
+    @Test
+    public void setColor_dropsAlpha() {
+        // When
+        colorPickerView.setColor(Color.argb(0x80, 0, 0, 255));
+
+        // Then
+        assertEquals(Color.rgb(0, 0, 255), colorPickerView.getColor());
+    }
+
+    @Test
+    public void touchTopLeft_picksWhite() {
+        // Given
+        colorPickerView.setColor(Color.RED);
+
+        // When
+        touch(MotionEvent.ACTION_DOWN, 0, 0);
+
+        // Then
+        assertEquals(Color.WHITE, colorPickerView.getColor());
+        assertEquals(1, pickedColors.size());
+    }
+
+    @Test
+    public void touchBottomOfSquare_picksBlack() {
+        // Given
+        colorPickerView.setColor(Color.RED);
+
+        // When - the gesture starts on the square and is dragged below it
+        touch(MotionEvent.ACTION_DOWN, WIDTH / 2f, 0);
+        touch(MotionEvent.ACTION_MOVE, WIDTH / 2f, colorPickerView.getHeight());
+
+        // Then - the gesture stays on the square
+        assertEquals(Color.BLACK, colorPickerView.getColor());
+    }
+
+    @Test
+    public void touchHueBar_keepsSaturationAndValue() {
+        // Given - pure red
+        colorPickerView.setColor(Color.RED);
+
+        // When - the middle of the hue bar is cyan
+        touch(MotionEvent.ACTION_DOWN, WIDTH / 2f, colorPickerView.getHeight() - 1);
+        touch(MotionEvent.ACTION_UP, WIDTH / 2f, colorPickerView.getHeight() - 1);
+
+        // Then
+        final float[] hsv = new float[3];
+        Color.colorToHSV(colorPickerView.getColor(), hsv);
+        assertEquals(180f, hsv[0], 1f);
+        assertEquals(1f, hsv[1], 0.01f);
+        assertEquals(1f, hsv[2], 0.01f);
+        assertEquals(2, pickedColors.size());
+    }
+
+    @Test
+    public void gradients_areRenderedOnce() {
+        // Then - every picker draws the same bitmaps
+        assertSame(HsvColorPickerView.getSaturationValueBitmap(), HsvColorPickerView.getSaturationValueBitmap());
+        assertSame(HsvColorPickerView.getHueBitmap(), HsvColorPickerView.getHueBitmap());
+        assertEquals(HsvColorPickerView.SATURATION_VALUE_BITMAP_SIZE, HsvColorPickerView.getSaturationValueBitmap().getWidth());
+        assertEquals(HsvColorPickerView.HUE_BITMAP_WIDTH, HsvColorPickerView.getHueBitmap().getWidth());
+    }
+
+    @Test
+    public void releaseCaches_rendersGradientsAgain() {
+        // Given
+        final Object hueBitmap = HsvColorPickerView.getHueBitmap();
+
+        // When
+        HsvColorPickerView.releaseCaches();
+
+        // Then
+        assertNotSame(hueBitmap, HsvColorPickerView.getHueBitmap());
+    }
+
+    private void touch(final int action, final float x, final float y) {
+        final long now = SystemClock.uptimeMillis();
+        final MotionEvent event = MotionEvent.obtain(now, now, action, x, y, 0);
+        colorPickerView.onTouchEvent(event);
+        event.recycle();
+    }
+}
@@ -0,0 +1,94 @@
+/*****************************************************************
+ * Copyright (C) 2025 Alan Quintero <https://github.com/alanquintero/>
+ *****************************************************************/
+package autonightmode.mx.com.alanquintero.autonightmode.ui.preset;
+
+import android.content.Context;
+import android.widget.FrameLayout;
+import android.widget.TextView;
+
+import androidx.recyclerview.widget.RecyclerView;
+import androidx.test.core.app.ApplicationProvider;
+
+import autonightmode.mx.com.alanquintero.autonightmode.R;
+import autonightmode.mx.com.alanquintero.autonightmode.model.ColorPreset;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 33)
+public class ColorPresetAdapterTest {
+
+    private static final String[] BUILT_IN_NAMES = {"Yellow", "Pink", "Green", "Gray", "White", "Custom"};
+    private static final ColorPreset YELLOW_PRESET = new ColorPreset(ColorPreset.YELLOW_PRESET_ID, "YELLOW", 0xFFFFF176, 0, 0);
+    private static final ColorPreset PINK_PRESET = new ColorPreset(1, "PINK", 0xFFFFD1DC, 0, 0);
+    private static final ColorPreset USER_PRESET = new ColorPreset(ColorPreset.FIRST_USER_PRESET_ID, "#336699", 0xFF336699, 0, 0);
+
+    private Context context;
+    private ColorPresetAdapter adapter;
+
+    @Before
+    public void setUp() {
+        context = ApplicationProvider.getApplicationContext();
+        adapter = new ColorPresetAdapter(context, BUILT_IN_NAMES, ColorPreset.YELLOW_PRESET_ID, 0xFFFFFFFF,
+                mock(ColorPresetAdapter.OnPresetClickListener.class));
+        // The first list is committed right away, there is nothing to compare it with
+        adapter.submitList(Arrays.asList(YELLOW_PRESET, PINK_PRESET, USER_PRESET));
+    }
+
+    @Test
+    public void getPosition_returnsPositionByPresetId() {
+        assertEquals(3, adapter.getItemCount());
+        assertEquals(0, adapter.getPosition(ColorPreset.YELLOW_PRESET_ID));
+        assertEquals(2, adapter.getPosition(ColorPreset.FIRST_USER_PRESET_ID));
+        assertEquals(RecyclerView.NO_POSITION, adapter.getPosition(ColorPreset.CUSTOM_PRESET_ID));
+    }
+
+    @Test
+    public void setSelectedPresetId_updatesSelection() {
+        // When
+        adapter.setSelectedPresetId(1);
+
+        // Then
+        assertEquals(1, adapter.getSelectedPresetId());
+    }
+
+    @Test
+    public void onBindViewHolder_showsDisplayName() {
+        // Given
+        final ColorPresetAdapter.PresetViewHolder holder = adapter.onCreateViewHolder(new FrameLayout(context), 0);
+
+        // When
+        adapter.onBindViewHolder(holder, 1);
+
+        // Then
+        assertEquals("Pink", ((TextView) holder.itemView.findViewById(R.id.name)).getText().toString());
+
+        // When - user presets show their own name
+        adapter.onBindViewHolder(holder, 2);
+
+        // Then
+        assertEquals("#336699", ((TextView) holder.itemView.findViewById(R.id.name)).getText().toString());
+    }
+
+    @Test
+    public void diffCallback_comparesIdsAndDisplayedValues() {
+        assertTrue(ColorPresetAdapter.DIFF_CALLBACK.areItemsTheSame(PINK_PRESET, PINK_PRESET.withSettings(10, 20)));
+        assertFalse(ColorPresetAdapter.DIFF_CALLBACK.areItemsTheSame(PINK_PRESET, YELLOW_PRESET));
+        // Intensity and brightness are not displayed
+        assertTrue(ColorPresetAdapter.DIFF_CALLBACK.areContentsTheSame(PINK_PRESET, PINK_PRESET.withSettings(10, 20)));
+        assertFalse(ColorPresetAdapter.DIFF_CALLBACK.areContentsTheSame(PINK_PRESET,
+                new ColorPreset(1, "PINK", 0xFFFF0000, 0, 0)));
+    }
+}
@@ -0,0 +1,76 @@
+/*****************************************************************
+ * Copyright (C) 2025 Alan Quintero <https://github.com/alanquintero/>
+ *****************************************************************/
+package autonightmode.mx.com.alanquintero.autonightmode.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import autonightmode.mx.com.alanquintero.autonightmode.model.OverlaySnapshot;
+
+import org.junit.jupiter.api.Test;
+
+public class ColorTemperatureTest {
+
+    @Test
+    public void toColor_returnsBlackbodyColor() {
+        assertEquals(0xFFFF4400, ColorTemperature.toColor(1000));
+        assertEquals(0xFFFF890E, ColorTemperature.toColor(2000));
+        assertEquals(0xFFFFBE87, ColorTemperature.toColor(3400));
+        assertEquals(0xFFFFFEFA, ColorTemperature.toColor(6500));
+    }
+
+    @Test
+    public void toColor_matchesComputedColorForEveryStep() {
+        for (int kelvin = ColorTemperature.MIN_KELVIN; kelvin <= ColorTemperature.MAX_KELVIN; kelvin += ColorTemperature.STEP_KELVIN) {
+            assertEquals(ColorTemperature.computeColor(kelvin), ColorTemperature.toColor(kelvin), "Kelvin: " + kelvin);
+        }
+    }
+
+    @Test
+    public void toColor_outOfRange_isClamped() {
+        assertEquals(ColorTemperature.toColor(ColorTemperature.MIN_KELVIN), ColorTemperature.toColor(0));
+        assertEquals(ColorTemperature.toColor(ColorTemperature.MAX_KELVIN), ColorTemperature.toColor(20000));
+    }
+
+    @Test
+    public void toColor_roundsToNearestStep() {
+        assertEquals(ColorTemperature.toColor(3400), ColorTemperature.toColor(3449));
+        assertEquals(ColorTemperature.toColor(3500), ColorTemperature.toColor(3450));
+    }
+
+    @Test
+    public void toColor_warmerTemperaturesHaveLessBlue() {
+        int previousBlue = -1;
+        for (int kelvin = ColorTemperature.MIN_KELVIN; kelvin <= ColorTemperature.MAX_KELVIN; kelvin += ColorTemperature.STEP_KELVIN) {
+            final int blue = ColorTemperature.toColor(kelvin) & 0xFF;
+            assertTrue(blue >= previousBlue, "Kelvin: " + kelvin);
+            previousBlue = blue;
+        }
+    }
+
+    @Test
+    public void temperatureFilter_warmestTemperature_drawsTheTint() {
+        // Given - no blue at 1000 K, and the default intensity
+        final OverlaySnapshot snapshot = new OverlaySnapshot(true, Constants.TEMPERATURE, Constants.DEFAULT_CUSTOM_COLOR,
+                ColorTemperature.MIN_KELVIN, 50, Constants.DEFAULT_BRIGHTNESS);
+
+        // When - packed like Canvas.drawARGB()
+        final int alpha = snapshot.getFilterAlpha(1f);
+        final int drawn = (alpha << 24) | (snapshot.getFilterRed() << 16) | (snapshot.getFilterGreen() << 8) | snapshot.getFilterBlue();
+
+        // Then - the color of the temperature, at the alpha of the filter
+        assertEquals(0, snapshot.getFilterBlue());
+        assertEquals(ColorTemperature.toColor(ColorTemperature.MIN_KELVIN) & 0xFFFFFF, drawn & 0xFFFFFF);
+        assertEquals(alpha, drawn >>> 24);
+    }
+
+    @Test
+    public void progress_mapsToTemperatureAndBack() {
+        assertEquals(0, ColorTemperature.toProgress(ColorTemperature.MIN_KELVIN));
+        assertEquals(ColorTemperature.MAX_PROGRESS, ColorTemperature.toProgress(ColorTemperature.MAX_KELVIN));
+        assertEquals(24, ColorTemperature.toProgress(3400));
+        assertEquals(3400, ColorTemperature.fromProgress(24));
+        assertEquals(ColorTemperature.MAX_KELVIN, ColorTemperature.fromProgress(ColorTemperature.MAX_PROGRESS + 1));
+    }
+}
@@ -0,0 +1,112 @@
+/*****************************************************************
+ * Copyright (C) 2025 Alan Quintero <https://github.com/alanquintero/>
+ *****************************************************************/
+package autonightmode.mx.com.alanquintero.autonightmode.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import android.os.Build;
+
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowSystemClock;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.time.Duration;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = {Build.VERSION_CODES.O})
+public class JankMonitorTest {
+
+    private static final long NANOS_PER_MS = 1_000_000L;
+    private static final long DEADLINE = 16 * NANOS_PER_MS;
+
+    @After
+    public void tearDown() {
+        JankMonitor.cleanUp();
+    }
+
+    @Test
+    public void onFrame_isTaggedWithTheRunningInteraction() {
+        // Given
+        JankMonitor.begin(JankMonitor.Interaction.SLIDER_DRAG);
+
+        // When
+        JankMonitor.onFrame(System.nanoTime(), 10 * NANOS_PER_MS, DEADLINE);
+        JankMonitor.end(JankMonitor.Interaction.SLIDER_DRAG);
+        JankMonitor.onFrame(System.nanoTime(), 5 * NANOS_PER_MS, DEADLINE);
+
+        // Then
+        assertEquals(1, JankMonitor.getFrameCount(JankMonitor.Interaction.SLIDER_DRAG));
+        assertEquals(1, JankMonitor.getFrameCount(JankMonitor.Interaction.NONE));
+    }
+
+    @Test
+    public void onFrame_deliveredAfterTheEnd_keepsTheInteractionOfItsStart() {
+        // Given - a frame started during the drag
+        JankMonitor.begin(JankMonitor.Interaction.SLIDER_DRAG);
+        ShadowSystemClock.advanceBy(Duration.ofMillis(5));
+        final long frameStart = System.nanoTime();
+        ShadowSystemClock.advanceBy(Duration.ofMillis(5));
+        JankMonitor.end(JankMonitor.Interaction.SLIDER_DRAG);
+
+        // When - its metrics are delivered later
+        JankMonitor.onFrame(frameStart, 10 * NANOS_PER_MS, DEADLINE);
+
+        // Then
+        assertEquals(1, JankMonitor.getFrameCount(JankMonitor.Interaction.SLIDER_DRAG));
+        assertEquals(0, JankMonitor.getFrameCount(JankMonitor.Interaction.NONE));
+    }
+
+    @Test
+    public void end_ofAnotherInteraction_isIgnored() {
+        // Given
+        JankMonitor.begin(JankMonitor.Interaction.THEME_SWITCH);
+
+        // When
+        JankMonitor.end(JankMonitor.Interaction.DIALOG_OPEN);
+
+        // Then
+        assertEquals(JankMonitor.Interaction.THEME_SWITCH, JankMonitor.getInteraction());
+    }
+
+    @Test
+    public void getPercentile_isTheBoundOfTheBucket() {
+        // Given - 90 frames of 7 ms and 10 frames of 45 ms
+        JankMonitor.begin(JankMonitor.Interaction.SLIDER_DRAG);
+        for (int i = 0; i < 90; i++) {
+            JankMonitor.onFrame(System.nanoTime(), 7 * NANOS_PER_MS, DEADLINE);
+        }
+        for (int i = 0; i < 10; i++) {
+            JankMonitor.onFrame(System.nanoTime(), 45 * NANOS_PER_MS, DEADLINE);
+        }
+
+        // When / Then
+        assertEquals(8, JankMonitor.getPercentile(JankMonitor.Interaction.SLIDER_DRAG, 50));
+        assertEquals(8, JankMonitor.getPercentile(JankMonitor.Interaction.SLIDER_DRAG, 90));
+        assertEquals(50, JankMonitor.getPercentile(JankMonitor.Interaction.SLIDER_DRAG, 95));
+        assertEquals(-1, JankMonitor.getPercentile(JankMonitor.Interaction.DIALOG_OPEN, 50));
+    }
+
+    @Test
+    public void dump_printsTheInteractionsWithFrames() {
+        // Given
+        JankMonitor.begin(JankMonitor.Interaction.PRESET_LIST_SCROLL);
+        JankMonitor.onFrame(System.nanoTime(), 30 * NANOS_PER_MS, DEADLINE);
+        final StringWriter output = new StringWriter();
+
+        // When
+        JankMonitor.dump("", new PrintWriter(output));
+
+        // Then
+        final String dump = output.toString();
+        assertTrue(dump.contains("PRESET_LIST_SCROLL: frames=1 janky=1 (100%) p50=32ms"));
+        assertFalse(dump.contains("SLIDER_DRAG"));
+    }
+}
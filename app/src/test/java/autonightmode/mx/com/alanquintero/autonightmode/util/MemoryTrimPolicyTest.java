@@ -0,0 +1,48 @@
+/*****************************************************************
+ * Copyright (C) 2025 Alan Quintero <https://github.com/alanquintero/>
+ *****************************************************************/
+package autonightmode.mx.com.alanquintero.autonightmode.util;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import android.content.ComponentCallbacks2;
+
+import autonightmode.mx.com.alanquintero.autonightmode.BaseTest;
+
+import org.junit.jupiter.api.Test;
+
+public class MemoryTrimPolicyTest extends BaseTest {
+
+    @Test
+    public void runningModerate_releasesNothing() {
+        assertFalse(MemoryTrimPolicy.shouldReleaseUi(ComponentCallbacks2.TRIM_MEMORY_RUNNING_MODERATE));
+        assertFalse(MemoryTrimPolicy.shouldReleaseSettingsCaches(ComponentCallbacks2.TRIM_MEMORY_RUNNING_MODERATE));
+    }
+
+    @Test
+    public void runningLow_releasesSettingsCachesButKeepsVisibleUi() {
+        assertFalse(MemoryTrimPolicy.shouldReleaseUi(ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW));
+        assertTrue(MemoryTrimPolicy.shouldReleaseSettingsCaches(ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW));
+        assertTrue(MemoryTrimPolicy.shouldReleaseSettingsCaches(ComponentCallbacks2.TRIM_MEMORY_RUNNING_CRITICAL));
+    }
+
+    @Test
+    public void uiHidden_releasesUiFirst() {
+        assertTrue(MemoryTrimPolicy.shouldReleaseUi(ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN));
+        assertFalse(MemoryTrimPolicy.shouldReleaseSettingsCaches(ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN));
+    }
+
+    @Test
+    public void background_releasesUiAndSettingsCaches() {
+        final int[] levels = {
+                ComponentCallbacks2.TRIM_MEMORY_BACKGROUND,
+                ComponentCallbacks2.TRIM_MEMORY_MODERATE,
+                ComponentCallbacks2.TRIM_MEMORY_COMPLETE
+        };
+        for (final int level : levels) {
+            assertTrue(MemoryTrimPolicy.shouldReleaseUi(level));
+            assertTrue(MemoryTrimPolicy.shouldReleaseSettingsCaches(level));
+        }
+    }
+}
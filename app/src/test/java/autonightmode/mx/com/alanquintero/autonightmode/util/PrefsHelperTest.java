@@ -8,7 +8,9 @@ import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.mockStatic;
@@ -16,9 +18,9 @@ import static org.mockito.Mockito.mockStatic;
 import android.content.Context;
 import android.content.SharedPreferences;
 import android.graphics.Color;
+import android.os.Handler;
 
 import autonightmode.mx.com.alanquintero.autonightmode.BaseTest;
-import autonightmode.mx.com.alanquintero.autonightmode.model.ColorSettings;
 import autonightmode.mx.com.alanquintero.autonightmode.model.ReadModeSettings;
 
 import org.junit.jupiter.api.AfterEach;
@@ -57,23 +59,42 @@ public class PrefsHelperTest extends BaseTest {
     }
 
     @Test
-    public void initPrefColorSettingsMap() {
+    public void loadReadModeSettings() {
         try (MockedStatic<Color> colorMock = mockStatic(Color.class)) {
             // Given
             colorMock.when(() -> Color.parseColor(anyString())).thenReturn(1);
-            // Map is empty
-            for (int i = 0; i < Constants.COLOR_DROPDOWN_OPTIONS.length; i++) {
-                assertNull(prefsHelper.getColorSettings(i));
-            }
-            doReturn("{}").when(sharedPreferences).getString(Constants.PREF_COLOR_SETTINGS, Constants.DEFAULT_COLOR_SETTINGS);
+            Mockito.lenient().when(sharedPreferences.getBoolean(Constants.PREF_IS_READ_MODE_ON, Constants.DEFAULT_IS_READ_MODE_ENABLED)).thenReturn(true);
+            Mockito.lenient().when(sharedPreferences.getInt(Constants.PREF_COLOR_DROPDOWN, Constants.DEFAULT_COLOR_DROPDOWN_POSITION)).thenReturn(2);
+            Mockito.lenient().when(sharedPreferences.getString(Constants.PREF_CUSTOM_COLOR, Constants.DEFAULT_CUSTOM_COLOR)).thenReturn("#FF112233");
+            Mockito.lenient().when(sharedPreferences.getInt(Constants.PREF_COLOR_TEMPERATURE, Constants.DEFAULT_COLOR_TEMPERATURE)).thenReturn(2700);
+            Mockito.lenient().when(sharedPreferences.getInt(Constants.PREF_COLOR_INTENSITY, Constants.DEFAULT_COLOR_INTENSITY)).thenReturn(10);
+            Mockito.lenient().when(sharedPreferences.getInt(Constants.PREF_BRIGHTNESS, Constants.DEFAULT_BRIGHTNESS)).thenReturn(20);
+            Mockito.lenient().when(sharedPreferences.getBoolean(Constants.PREF_AUTO_START_READ_MODE, Constants.DEFAULT_AUTO_START_READ_MODE)).thenReturn(true);
+            Mockito.lenient().when(sharedPreferences.getBoolean(Constants.PREF_SAME_INTENSITY_BRIGHTNESS_FOR_ALL, Constants.DEFAULT_SAME_INTENSITY_BRIGHTNESS_FOR_ALL)).thenReturn(true);
+            final ReadModeSettings readModeSettings = ReadModeSettings.init();
 
             // When
-            prefsHelper.initPrefColorSettingsMap();
+            prefsHelper.loadReadModeSettings(readModeSettings);
 
             // Then
-            for (int i = 0; i < Constants.COLOR_DROPDOWN_OPTIONS.length; i++) {
-                assertNotNull(prefsHelper.getColorSettings(i));
-            }
+            assertTrue(readModeSettings.isReadModeOn());
+            assertEquals(2, readModeSettings.getColorDropdownPosition());
+            assertEquals("#FF112233", readModeSettings.getCustomColor());
+            assertEquals(2700, readModeSettings.getColorTemperature());
+            assertEquals(10, readModeSettings.getColorIntensity());
+            assertEquals(20, readModeSettings.getBrightness());
+            assertTrue(readModeSettings.isAutoStartReadMode());
+            assertTrue(readModeSettings.shouldUseSameIntensityBrightnessForAll());
+
+            // Restore the shared settings for other tests
+            readModeSettings.setIsReadModeOn(Constants.DEFAULT_IS_READ_MODE_ENABLED);
+            readModeSettings.setColorDropdownPosition(Constants.DEFAULT_COLOR_DROPDOWN_POSITION);
+            readModeSettings.setCustomColor(Constants.DEFAULT_CUSTOM_COLOR);
+            readModeSettings.setColorTemperature(Constants.DEFAULT_COLOR_TEMPERATURE);
+            readModeSettings.setColorIntensity(Constants.DEFAULT_COLOR_INTENSITY);
+            readModeSettings.setBrightness(Constants.DEFAULT_BRIGHTNESS);
+            readModeSettings.setAutoStartReadMode(Constants.DEFAULT_AUTO_START_READ_MODE);
+            readModeSettings.setShouldUseSameIntensityBrightnessForAll(Constants.DEFAULT_SAME_INTENSITY_BRIGHTNESS_FOR_ALL);
         }
     }
 
@@ -268,6 +289,58 @@ public class PrefsHelperTest extends BaseTest {
         }
     }
 
+    @Test
+    public void getStandbyTimeout() {
+        try (MockedStatic<Color> colorMock = mockStatic(Color.class)) {
+            // Given
+            colorMock.when(() -> Color.parseColor(anyString())).thenReturn(1);
+            final int expectedTimeout = 30_000;
+            Mockito.lenient()
+                    .when(sharedPreferences.getInt(Constants.PREF_STANDBY_TIMEOUT, Constants.DEFAULT_STANDBY_TIMEOUT_MS))
+                    .thenReturn(expectedTimeout);
+
+            // When
+            final int timeout = prefsHelper.getStandbyTimeout();
+
+            // Then
+            assertEquals(expectedTimeout, timeout);
+        }
+    }
+
+    @Test
+    public void getStandbyTimeout_defaultValue() {
+        try (MockedStatic<Color> colorMock = mockStatic(Color.class)) {
+            // Given
+            colorMock.when(() -> Color.parseColor(anyString())).thenReturn(1);
+            Mockito.lenient()
+                    .when(sharedPreferences.getInt(Constants.PREF_STANDBY_TIMEOUT, Constants.DEFAULT_STANDBY_TIMEOUT_MS))
+                    .thenReturn(Constants.DEFAULT_STANDBY_TIMEOUT_MS);
+
+            // When
+            final int timeout = prefsHelper.getStandbyTimeout();
+
+            // Then
+            assertEquals(Constants.DEFAULT_STANDBY_TIMEOUT_MS, timeout);
+        }
+    }
+
+    @Test
+    public void shouldDetachOverlayInDoze() {
+        try (MockedStatic<Color> colorMock = mockStatic(Color.class)) {
+            // Given
+            colorMock.when(() -> Color.parseColor(anyString())).thenReturn(1);
+            Mockito.lenient()
+                    .when(sharedPreferences.getBoolean(Constants.PREF_DETACH_OVERLAY_IN_DOZE, Constants.DEFAULT_DETACH_OVERLAY_IN_DOZE))
+                    .thenReturn(true);
+
+            // When
+            final boolean shouldDetach = prefsHelper.shouldDetachOverlayInDoze();
+
+            // Then
+            assertTrue(shouldDetach);
+        }
+    }
+
     @Test
     public void shouldUseSameIntensityBrightnessForAll_true() {
         try (MockedStatic<Color> colorMock = mockStatic(Color.class)) {
@@ -463,40 +536,6 @@ public class PrefsHelperTest extends BaseTest {
         }
     }
 
-    @Test
-    public void getColorSettings() {
-        try (MockedStatic<Color> colorMock = mockStatic(Color.class)) {
-            // Given
-            colorMock.when(() -> Color.parseColor(anyString())).thenReturn(1);
-            doReturn("{}").when(sharedPreferences).getString(Constants.PREF_COLOR_SETTINGS, Constants.DEFAULT_COLOR_SETTINGS);
-            prefsHelper.initPrefColorSettingsMap();
-            final int colorDropdownPosition = 0;
-
-            // When
-            final ColorSettings colorSettingsBefore = prefsHelper.getColorSettings(colorDropdownPosition);
-
-            // Then
-            assertNotNull(colorSettingsBefore);
-            assertEquals(Constants.DEFAULT_COLOR_INTENSITY, colorSettingsBefore.getColorIntensity());
-            assertEquals(Constants.DEFAULT_BRIGHTNESS, colorSettingsBefore.getBrightness());
-        }
-    }
-
-    @Test
-    public void getColorSettings_colorSettingDoesNotExist() {
-        try (MockedStatic<Color> colorMock = mockStatic(Color.class)) {
-            // Given
-            colorMock.when(() -> Color.parseColor(anyString())).thenReturn(1);
-            final int colorDropdownPosition = 0;
-
-            // When
-            final ColorSettings colorSettingsBefore = prefsHelper.getColorSettings(colorDropdownPosition);
-
-            // Then
-            assertNull(colorSettingsBefore);
-        }
-    }
-
     @Test
     public void saveProperty_String() {
         // Given
@@ -546,120 +585,144 @@ public class PrefsHelperTest extends BaseTest {
     }
 
     @Test
-    public void tryToSaveColorSettingsProperty() {
+    public void releaseCaches_keepsStagedValues() {
+        try (MockedStatic<Color> colorMock = mockStatic(Color.class)) {
+            // Given
+            colorMock.when(() -> Color.parseColor(anyString())).thenReturn(1);
+            prefsHelper.persistHandler = mock(Handler.class);
+            prefsHelper.stageProperty(Constants.PREF_BRIGHTNESS, 80);
+
+            // When
+            prefsHelper.releaseCaches();
+
+            // Then
+            assertEquals(1, prefsHelper.getPendingPropertiesCount());
+            assertEquals(80, prefsHelper.getBrightness());
+        }
+    }
+
+    @Test
+    public void tryToSavePresetSettings_shouldUseSameIntensityBrightnessForAll() {
+        // Given
+        final ReadModeSettings readModeSettings = ReadModeSettings.init();
+        readModeSettings.setShouldUseSameIntensityBrightnessForAll(true);
+        readModeSettings.setColorDropdownPosition(0);
+        readModeSettings.setColorIntensity(25);
+        readModeSettings.setBrightness(10);
+
+        // When
+        prefsHelper.tryToSavePresetSettings(readModeSettings);
+
+        // Then - the presets are not read nor written
+        Mockito.verify(sharedPreferences, Mockito.never()).edit();
+        Mockito.verify(sharedPreferences, Mockito.never()).getAll();
+    }
+
+    @Test
+    public void resetAppData() {
         try (MockedStatic<Color> colorMock = mockStatic(Color.class)) {
             // Given
             colorMock.when(() -> Color.parseColor(anyString())).thenReturn(1);
-            doReturn("{}").when(sharedPreferences).getString(Constants.PREF_COLOR_SETTINGS, Constants.DEFAULT_COLOR_SETTINGS);
             final SharedPreferences.Editor editor = mock(SharedPreferences.Editor.class);
             doReturn(editor).when(sharedPreferences).edit();
-            prefsHelper.initPrefColorSettingsMap();
-            final ReadModeSettings readModeSettings = ReadModeSettings.init();
-            readModeSettings.setShouldUseSameIntensityBrightnessForAll(false);
-            final int colorDropdownPosition = 0;
-            final int colorIntensity = 25;
-            final int brightness = 10;
-            readModeSettings.setColorDropdownPosition(colorDropdownPosition);
-            readModeSettings.setColorIntensity(colorIntensity);
-            readModeSettings.setBrightness(brightness);
-
-            // Check the current values before saving the new ones
-            final ColorSettings colorSettingsBefore = prefsHelper.getColorSettings(colorDropdownPosition);
-            assertNotNull(colorSettingsBefore);
-            assertEquals(Constants.DEFAULT_COLOR_INTENSITY, colorSettingsBefore.getColorIntensity());
-            assertEquals(Constants.DEFAULT_BRIGHTNESS, colorSettingsBefore.getBrightness());
 
             // When
-            prefsHelper.tryToSaveColorSettingsProperty(readModeSettings);
+            prefsHelper.resetAppData();
 
             // Then
-            // Values were updated
-            final ColorSettings colorSettingsAfter = prefsHelper.getColorSettings(colorDropdownPosition);
-            assertNotNull(colorSettingsAfter);
-            assertEquals(colorIntensity, colorSettingsAfter.getColorIntensity());
-            assertEquals(brightness, colorSettingsAfter.getBrightness());
+            Mockito.verify(editor).putBoolean(Constants.PREF_IS_READ_MODE_ON, Constants.DEFAULT_IS_READ_MODE_ENABLED);
+            Mockito.verify(editor).putInt(Constants.PREF_COLOR_DROPDOWN, Constants.DEFAULT_COLOR_DROPDOWN_POSITION);
+            Mockito.verify(editor).putString(Constants.PREF_COLOR, Constants.DEFAULT_COLOR_WHITE);
+            Mockito.verify(editor).putString(Constants.PREF_CUSTOM_COLOR, Constants.DEFAULT_CUSTOM_COLOR);
+            Mockito.verify(editor).putInt(Constants.PREF_COLOR_TEMPERATURE, Constants.DEFAULT_COLOR_TEMPERATURE);
+            Mockito.verify(editor).remove(Constants.PREF_COLOR_SETTINGS);
+            Mockito.verify(editor).putInt(Constants.PREF_COLOR_INTENSITY, Constants.DEFAULT_COLOR_INTENSITY);
+            Mockito.verify(editor).putInt(Constants.PREF_BRIGHTNESS, Constants.DEFAULT_BRIGHTNESS);
+            Mockito.verify(editor).putInt(Constants.PREF_THEME, Constants.DEFAULT_THEME);
+            Mockito.verify(editor).putBoolean(Constants.PREF_AUTO_START_READ_MODE, Constants.DEFAULT_AUTO_START_READ_MODE);
+            Mockito.verify(editor).putBoolean(Constants.PREF_SAME_INTENSITY_BRIGHTNESS_FOR_ALL, Constants.DEFAULT_SAME_INTENSITY_BRIGHTNESS_FOR_ALL);
+            Mockito.verify(editor).putInt(Constants.PREF_STANDBY_TIMEOUT, Constants.DEFAULT_STANDBY_TIMEOUT_MS);
+            Mockito.verify(editor).putBoolean(Constants.PREF_DETACH_OVERLAY_IN_DOZE, Constants.DEFAULT_DETACH_OVERLAY_IN_DOZE);
+            Mockito.verify(editor).putString(Constants.PREF_SCHEDULE, Constants.DEFAULT_SCHEDULE);
+            Mockito.verify(editor).putInt(Constants.PREF_SCHEDULE_START, Constants.DEFAULT_SCHEDULE_START);
+            Mockito.verify(editor).putInt(Constants.PREF_SCHEDULE_END, Constants.DEFAULT_SCHEDULE_END);
+            Mockito.verify(editor).putInt(Constants.PREF_SCHEDULE_RAMP, Constants.DEFAULT_SCHEDULE_RAMP);
+            Mockito.verify(editor).putString(Constants.PREF_SCHEDULE_LOCATION, Constants.DEFAULT_SCHEDULE_LOCATION);
+            Mockito.verify(editor).putLong(Constants.PREF_SCHEDULE_LAST_TRANSITION, 0L);
+            Mockito.verify(editor).putBoolean(Constants.PREF_AMBIENT_LIGHT, Constants.DEFAULT_AMBIENT_LIGHT);
+            Mockito.verify(editor).putString(Constants.PREF_APP_PROFILES, Constants.DEFAULT_APP_PROFILES);
+            Mockito.verify(editor).putString(Constants.PREF_REGION, Constants.DEFAULT_REGION);
+            Mockito.verify(editor).putInt(Constants.PREF_REGION_TOP, Constants.DEFAULT_REGION_TOP);
+            Mockito.verify(editor).putInt(Constants.PREF_REGION_HEIGHT, Constants.DEFAULT_REGION_HEIGHT);
+            Mockito.verify(editor).putInt(Constants.PREF_TRANSITION_DURATION, Constants.DEFAULT_TRANSITION_DURATION);
+            Mockito.verify(editor).putBoolean(Constants.PREF_HYBRID_DIMMING, Constants.DEFAULT_HYBRID_DIMMING);
         }
     }
 
     @Test
-    public void tryToSaveColorSettingsProperty_mapIsEmpty() {
+    public void stageProperty_valuesAreVisibleBeforeBeingPersisted() {
         try (MockedStatic<Color> colorMock = mockStatic(Color.class)) {
             // Given
             colorMock.when(() -> Color.parseColor(anyString())).thenReturn(1);
-            final ReadModeSettings readModeSettings = ReadModeSettings.init();
-            readModeSettings.setShouldUseSameIntensityBrightnessForAll(false);
-            final int colorDropdownPosition = 0;
-            final int colorIntensity = 25;
-            final int brightness = 10;
-            readModeSettings.setColorDropdownPosition(colorDropdownPosition);
-            readModeSettings.setColorIntensity(colorIntensity);
-            readModeSettings.setBrightness(brightness);
+            final Handler handler = mock(Handler.class);
+            prefsHelper.persistHandler = handler;
 
             // When
-            prefsHelper.tryToSaveColorSettingsProperty(readModeSettings);
+            prefsHelper.stageProperty(Constants.PREF_BRIGHTNESS, 30);
+            prefsHelper.stageProperty(Constants.PREF_BRIGHTNESS, 40);
+            prefsHelper.stageProperty(Constants.PREF_COLOR, Constants.COLOR_PINK);
+            prefsHelper.stageProperty(Constants.PREF_IS_READ_MODE_ON, true);
 
             // Then
-            final ColorSettings colorSettings = prefsHelper.getColorSettings(colorDropdownPosition);
-            assertNull(colorSettings);
+            assertEquals(40, prefsHelper.getBrightness());
+            assertEquals(Constants.COLOR_PINK, prefsHelper.getColor());
+            assertTrue(prefsHelper.isReadModeOn());
+            assertEquals(3, prefsHelper.getPendingPropertiesCount());
+            // A single flush is scheduled for the whole burst
+            Mockito.verify(handler).postDelayed(any(Runnable.class), eq(PrefsHelper.PERSIST_DELAY_MS));
+            Mockito.verify(sharedPreferences, Mockito.never()).edit();
         }
     }
 
     @Test
-    public void tryToSaveColorSettingsProperty_shouldUseSameIntensityBrightnessForAll() {
+    public void flushPendingProperties_persistsAllStagedValuesInOneEdit() {
         try (MockedStatic<Color> colorMock = mockStatic(Color.class)) {
             // Given
             colorMock.when(() -> Color.parseColor(anyString())).thenReturn(1);
-            doReturn("{}").when(sharedPreferences).getString(Constants.PREF_COLOR_SETTINGS, Constants.DEFAULT_COLOR_SETTINGS);
-            prefsHelper.initPrefColorSettingsMap();
-            final ReadModeSettings readModeSettings = ReadModeSettings.init();
-            readModeSettings.setShouldUseSameIntensityBrightnessForAll(true);
-            final int colorDropdownPosition = 0;
-            final int colorIntensity = 25;
-            final int brightness = 10;
-            readModeSettings.setColorDropdownPosition(colorDropdownPosition);
-            readModeSettings.setColorIntensity(colorIntensity);
-            readModeSettings.setBrightness(brightness);
-
-            // Check the current values before saving the new ones
-            final ColorSettings colorSettingsBefore = prefsHelper.getColorSettings(colorDropdownPosition);
-            assertNotNull(colorSettingsBefore);
-            assertEquals(Constants.DEFAULT_COLOR_INTENSITY, colorSettingsBefore.getColorIntensity());
-            assertEquals(Constants.DEFAULT_BRIGHTNESS, colorSettingsBefore.getBrightness());
+            final SharedPreferences.Editor editor = mock(SharedPreferences.Editor.class);
+            doReturn(editor).when(sharedPreferences).edit();
+            prefsHelper.persistHandler = mock(Handler.class);
+            prefsHelper.stageProperty(Constants.PREF_BRIGHTNESS, 40);
+            prefsHelper.stageProperty(Constants.PREF_COLOR, Constants.COLOR_PINK);
 
             // When
-            prefsHelper.tryToSaveColorSettingsProperty(readModeSettings);
+            prefsHelper.flushPendingProperties();
 
             // Then
-            // Values are the same
-            final ColorSettings colorSettingsAfter = prefsHelper.getColorSettings(colorDropdownPosition);
-            assertNotNull(colorSettingsAfter);
-            assertEquals(Constants.DEFAULT_COLOR_INTENSITY, colorSettingsAfter.getColorIntensity());
-            assertEquals(Constants.DEFAULT_BRIGHTNESS, colorSettingsAfter.getBrightness());
+            Mockito.verify(sharedPreferences, Mockito.times(1)).edit();
+            Mockito.verify(editor).putInt(Constants.PREF_BRIGHTNESS, 40);
+            Mockito.verify(editor).putString(Constants.PREF_COLOR, Constants.COLOR_PINK);
+            Mockito.verify(editor, Mockito.times(1)).apply();
+            assertEquals(0, prefsHelper.getPendingPropertiesCount());
         }
     }
 
     @Test
-    public void resetAppData() {
+    public void saveProperty_dropsStagedValueForSameKey() {
         try (MockedStatic<Color> colorMock = mockStatic(Color.class)) {
             // Given
             colorMock.when(() -> Color.parseColor(anyString())).thenReturn(1);
             final SharedPreferences.Editor editor = mock(SharedPreferences.Editor.class);
             doReturn(editor).when(sharedPreferences).edit();
+            prefsHelper.persistHandler = mock(Handler.class);
+            prefsHelper.stageProperty(Constants.PREF_BRIGHTNESS, 40);
 
             // When
-            prefsHelper.resetAppData();
+            prefsHelper.saveProperty(Constants.PREF_BRIGHTNESS, 10);
 
             // Then
-            Mockito.verify(editor).putBoolean(Constants.PREF_IS_READ_MODE_ON, Constants.DEFAULT_IS_READ_MODE_ENABLED);
-            Mockito.verify(editor).putInt(Constants.PREF_COLOR_DROPDOWN, Constants.DEFAULT_COLOR_DROPDOWN_POSITION);
-            Mockito.verify(editor).putString(Constants.PREF_COLOR, Constants.DEFAULT_COLOR_WHITE);
-            Mockito.verify(editor).putString(Constants.PREF_CUSTOM_COLOR, Constants.DEFAULT_CUSTOM_COLOR);
-            Mockito.verify(editor).putString(Constants.PREF_COLOR_SETTINGS, Constants.DEFAULT_COLOR_SETTINGS);
-            Mockito.verify(editor).putInt(Constants.PREF_COLOR_INTENSITY, Constants.DEFAULT_COLOR_INTENSITY);
-            Mockito.verify(editor).putInt(Constants.PREF_BRIGHTNESS, Constants.DEFAULT_BRIGHTNESS);
-            Mockito.verify(editor).putInt(Constants.PREF_THEME, Constants.DEFAULT_THEME);
-            Mockito.verify(editor).putBoolean(Constants.PREF_AUTO_START_READ_MODE, Constants.DEFAULT_AUTO_START_READ_MODE);
-            Mockito.verify(editor).putBoolean(Constants.PREF_SAME_INTENSITY_BRIGHTNESS_FOR_ALL, Constants.DEFAULT_SAME_INTENSITY_BRIGHTNESS_FOR_ALL);
+            assertEquals(0, prefsHelper.getPendingPropertiesCount());
+            Mockito.verify(editor).putInt(Constants.PREF_BRIGHTNESS, 10);
         }
     }
 }
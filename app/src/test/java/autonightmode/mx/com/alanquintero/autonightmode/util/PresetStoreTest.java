@@ -0,0 +1,225 @@
+/*****************************************************************
+ * Copyright (C) 2025 Alan Quintero <https://github.com/alanquintero/>
+ *****************************************************************/
+package autonightmode.mx.com.alanquintero.autonightmode.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.os.Build;
+
+import androidx.test.core.app.ApplicationProvider;
+
+import autonightmode.mx.com.alanquintero.autonightmode.model.ColorPreset;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.List;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = {Build.VERSION_CODES.O})
+public class PresetStoreTest {
+
+    private static final int BUILT_IN_PRESETS = 7;
+
+    private SharedPreferences sharedPreferences;
+    private PresetStore presetStore;
+
+    @Before
+    public void setUp() {
+        final Context context = ApplicationProvider.getApplicationContext();
+        sharedPreferences = context.getSharedPreferences(Constants.SETTINGS, Context.MODE_PRIVATE);
+        sharedPreferences.edit().clear().commit();
+        presetStore = new PresetStore(sharedPreferences);
+    }
+
+    @Test
+    public void getPreset_builtInPresetsUseTheFormerDropdownPositions() {
+        // When
+        final List<ColorPreset> presets = presetStore.getPresetList();
+
+        // Then
+        assertEquals(BUILT_IN_PRESETS, presets.size());
+        assertEquals(Constants.YELLOW, presets.get(0).getName());
+        assertEquals(Constants.COLOR_YELLOW, presets.get(0).getScreenColor());
+        assertEquals(Constants.COLOR_GRAY, presetStore.getPreset(3).getScreenColor());
+        assertEquals(Constants.COLOR_WHITE, presetStore.getPreset(4).getScreenColor());
+        assertTrue(presetStore.getPreset(ColorPreset.CUSTOM_PRESET_ID).isCustom());
+        assertEquals(Constants.CUSTOM_COLOR, presetStore.getPreset(ColorPreset.CUSTOM_PRESET_ID).getScreenColor());
+        assertEquals(Constants.TEMPERATURE, presetStore.getPreset(ColorPreset.TEMPERATURE_PRESET_ID).getScreenColor());
+        assertEquals(Constants.DEFAULT_COLOR_INTENSITY, presets.get(0).getColorIntensity());
+        assertEquals(Constants.DEFAULT_BRIGHTNESS, presets.get(0).getBrightness());
+        assertNull(presetStore.getPreset(ColorPreset.FIRST_USER_PRESET_ID));
+    }
+
+    @Test
+    public void saveSettings_onlyWritesTheChangedPreset() {
+        // When
+        presetStore.saveSettings(1, 25, 10);
+
+        // Then
+        final ColorPreset preset = presetStore.getPreset(1);
+        assertEquals(25, preset.getColorIntensity());
+        assertEquals(10, preset.getBrightness());
+        assertEquals(1, sharedPreferences.getAll().size());
+        assertTrue(sharedPreferences.contains(PresetStore.getKey(1)));
+    }
+
+    @Test
+    public void saveSettings_areReadAgainAfterRelease() {
+        // Given
+        presetStore.saveSettings(2, 30, 70);
+
+        // When
+        presetStore.release();
+
+        // Then
+        assertEquals(30, presetStore.getPreset(2).getColorIntensity());
+        assertEquals(70, new PresetStore(sharedPreferences).getPreset(2).getBrightness());
+    }
+
+    @Test
+    public void addPreset_getsTheNextUserIdAndIsSaved() {
+        // When
+        final ColorPreset first = presetStore.addPreset(0xFF336699, 40, 60);
+        final ColorPreset second = presetStore.addPreset(0xFF112233, 20, 80);
+
+        // Then
+        assertEquals(ColorPreset.FIRST_USER_PRESET_ID, first.getId());
+        assertEquals(ColorPreset.FIRST_USER_PRESET_ID + 1, second.getId());
+        assertEquals("#336699", first.getName());
+        assertEquals("#336699", first.getScreenColor());
+        assertTrue(first.isUserPreset());
+        assertEquals(BUILT_IN_PRESETS + 2, presetStore.getPresetList().size());
+        assertEquals(second, new PresetStore(sharedPreferences).getPreset(second.getId()));
+    }
+
+    @Test
+    public void removePreset_onlyRemovesUserPresets() {
+        // Given
+        final ColorPreset preset = presetStore.addPreset(0xFF336699, 40, 60);
+
+        // Then
+        assertFalse(presetStore.removePreset(ColorPreset.YELLOW_PRESET_ID));
+        assertTrue(presetStore.removePreset(preset.getId()));
+        assertFalse(presetStore.removePreset(preset.getId()));
+        assertNull(presetStore.getPreset(preset.getId()));
+        assertNull(new PresetStore(sharedPreferences).getPreset(preset.getId()));
+        assertNotNull(presetStore.getPreset(ColorPreset.YELLOW_PRESET_ID));
+    }
+
+    @Test
+    public void addPreset_doesNotReuseTheIdOfARemovedPreset() {
+        // Given
+        presetStore.addPreset(0xFF336699, 40, 60);
+        final ColorPreset removed = presetStore.addPreset(0xFF112233, 20, 80);
+        presetStore.removePreset(removed.getId());
+
+        // When
+        final ColorPreset added = new PresetStore(sharedPreferences).addPreset(0xFF445566, 30, 70);
+
+        // Then
+        assertEquals(removed.getId() + 1, added.getId());
+    }
+
+    @Test
+    public void addPreset_withoutSavedNextId_continuesAfterTheSavedPresets() {
+        // Given - a preset saved by a version without the next id
+        final ColorPreset saved = new ColorPreset(ColorPreset.FIRST_USER_PRESET_ID + 3, "#336699", 0xFF336699, 40, 60);
+        sharedPreferences.edit().putString(PresetStore.getKey(saved.getId()), PresetStore.encode(saved)).commit();
+
+        // When
+        final ColorPreset added = presetStore.addPreset(0xFF112233, 20, 80);
+
+        // Then
+        assertEquals(saved.getId() + 1, added.getId());
+    }
+
+    @Test
+    public void getNextPresetId_wrapsAroundAndIncludesUserPresets() {
+        // Given
+        final ColorPreset preset = presetStore.addPreset(0xFF336699, 40, 60);
+
+        // Then
+        assertEquals(1, presetStore.getNextPresetId(ColorPreset.YELLOW_PRESET_ID));
+        assertEquals(ColorPreset.TEMPERATURE_PRESET_ID, presetStore.getNextPresetId(ColorPreset.CUSTOM_PRESET_ID));
+        assertEquals(preset.getId(), presetStore.getNextPresetId(ColorPreset.TEMPERATURE_PRESET_ID));
+        assertEquals(ColorPreset.YELLOW_PRESET_ID, presetStore.getNextPresetId(preset.getId()));
+        // Unknown id, e.g. a removed preset
+        assertEquals(ColorPreset.YELLOW_PRESET_ID, presetStore.getNextPresetId(ColorPreset.FIRST_USER_PRESET_ID + 50));
+    }
+
+    @Test
+    public void loadPresets_migratesTheColorSettingsMap() {
+        // Given - the JSON map saved by older versions
+        sharedPreferences.edit().putString(Constants.PREF_COLOR_SETTINGS,
+                "{\"PINK\":{\"color\":\"PINK\",\"colorHex\":\"#FFD1DC\",\"colorIntensity\":35,\"brightness\":65},"
+                        + "\"CUSTOM_COLOR\":{\"color\":\"CUSTOM_COLOR\",\"colorHex\":\"CUSTOM_COLOR\",\"colorIntensity\":15,\"brightness\":85}}").commit();
+
+        // When
+        final ColorPreset pink = presetStore.getPreset(1);
+
+        // Then
+        assertEquals(35, pink.getColorIntensity());
+        assertEquals(65, pink.getBrightness());
+        assertEquals(15, presetStore.getPreset(ColorPreset.CUSTOM_PRESET_ID).getColorIntensity());
+        assertEquals(Constants.DEFAULT_COLOR_INTENSITY, presetStore.getPreset(ColorPreset.YELLOW_PRESET_ID).getColorIntensity());
+        assertFalse(sharedPreferences.contains(Constants.PREF_COLOR_SETTINGS));
+        assertEquals(pink, new PresetStore(sharedPreferences).getPreset(1));
+    }
+
+    @Test
+    public void loadPresets_invalidColorSettingsMap_usesDefaults() {
+        // Given
+        sharedPreferences.edit().putString(Constants.PREF_COLOR_SETTINGS, "not json").commit();
+
+        // Then
+        assertEquals(Constants.DEFAULT_BRIGHTNESS, presetStore.getPreset(1).getBrightness());
+        assertFalse(sharedPreferences.contains(Constants.PREF_COLOR_SETTINGS));
+    }
+
+    @Test
+    public void reset_removesSavedPresets() {
+        // Given
+        presetStore.saveSettings(1, 25, 10);
+        final ColorPreset preset = presetStore.addPreset(0xFF336699, 40, 60);
+
+        // When
+        presetStore.reset();
+
+        // Then
+        assertNull(presetStore.getPreset(preset.getId()));
+        assertEquals(Constants.DEFAULT_COLOR_INTENSITY, presetStore.getPreset(1).getColorIntensity());
+        // Only the next preset id is kept
+        assertEquals(1, sharedPreferences.getAll().size());
+        assertEquals(preset.getId() + 1, presetStore.addPreset(0xFF112233, 20, 80).getId());
+    }
+
+    @Test
+    public void decode_keepsSeparatorsInTheNameAndIgnoresInvalidValues() {
+        // Given
+        final ColorPreset preset = new ColorPreset(ColorPreset.FIRST_USER_PRESET_ID, "Night, warm", 0xFF336699, 40, 60);
+
+        // Then
+        assertEquals(preset, PresetStore.decode(PresetStore.getKey(preset.getId()), PresetStore.encode(preset)));
+        assertNull(PresetStore.decode(PresetStore.getKey(1), "1,2"));
+        assertNull(PresetStore.decode(PresetStore.getKey(1), "a,b,c,name"));
+    }
+
+    @Test
+    public void findBuiltInPresetId_ignoresCase() {
+        assertEquals(Integer.valueOf(1), PresetStore.findBuiltInPresetId("pink"));
+        assertEquals(Integer.valueOf(ColorPreset.CUSTOM_PRESET_ID), PresetStore.findBuiltInPresetId(Constants.CUSTOM_COLOR));
+        assertNull(PresetStore.findBuiltInPresetId("BLUE"));
+        assertNull(PresetStore.findBuiltInPresetId(null));
+    }
+}
@@ -0,0 +1,70 @@
+/*****************************************************************
+ * Copyright (C) 2025 Alan Quintero <https://github.com/alanquintero/>
+ *****************************************************************/
+package autonightmode.mx.com.alanquintero.autonightmode.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import android.os.Build;
+
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowSystemClock;
+
+import java.time.Duration;
+
+@RunWith(RobolectricTestRunner.class)
+// Before Android 7 the trace always starts at start(), which keeps the timings deterministic
+@Config(sdk = {Build.VERSION_CODES.M})
+public class StartupTracerTest {
+
+    @After
+    public void tearDown() {
+        StartupTracer.cleanUp();
+    }
+
+    @Test
+    public void mark_recordsElapsedTimeSinceStart() {
+        // Given
+        StartupTracer.start("test");
+
+        // When
+        ShadowSystemClock.advanceBy(Duration.ofMillis(120));
+        StartupTracer.mark("first");
+        ShadowSystemClock.advanceBy(Duration.ofMillis(30));
+        StartupTracer.finish("last");
+
+        // Then
+        assertEquals(120, StartupTracer.getElapsed("first"));
+        assertEquals(150, StartupTracer.getElapsed("last"));
+        assertFalse(StartupTracer.isTracing());
+    }
+
+    @Test
+    public void mark_withoutTrace_isIgnored() {
+        // When
+        StartupTracer.mark("orphan");
+
+        // Then
+        assertEquals(-1, StartupTracer.getElapsed("orphan"));
+    }
+
+    @Test
+    public void start_dropsPreviousTrace() {
+        // Given
+        StartupTracer.start("first");
+        StartupTracer.mark("milestone");
+
+        // When
+        StartupTracer.start("second");
+
+        // Then
+        assertTrue(StartupTracer.isTracing());
+        assertEquals(-1, StartupTracer.getElapsed("milestone"));
+    }
+}